@@ -0,0 +1,478 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import uk.me.g4dpz.satellite.BinaryEphemerisWriter;
+import uk.me.g4dpz.satellite.CsvEphemerisWriter;
+import uk.me.g4dpz.satellite.EphemerisExporter;
+import uk.me.g4dpz.satellite.EphemerisWriter;
+import uk.me.g4dpz.satellite.GroundStationPosition;
+import uk.me.g4dpz.satellite.InvalidTleException;
+import uk.me.g4dpz.satellite.OemEphemerisWriter;
+import uk.me.g4dpz.satellite.PassPredictor;
+import uk.me.g4dpz.satellite.SatNotFoundException;
+import uk.me.g4dpz.satellite.SatPassTime;
+import uk.me.g4dpz.satellite.SatPos;
+import uk.me.g4dpz.satellite.Satellite;
+import uk.me.g4dpz.satellite.SatelliteFactory;
+import uk.me.g4dpz.satellite.TLE;
+
+/**
+ * Catalog-wide predictions from the command line.
+ *
+ * Reads a TLE file and, for passes and visibility, a station file, then works through the
+ * satellites on a pool of worker threads. Results are written in catalog order as soon as each
+ * satellite is done, so output starts at once and memory use is bounded by the number of
+ * satellites in flight rather than by the catalog.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public final class BatchTool {
+
+    static final String PASSES_HEADER = "catnum,name,station,aos,tca,los,max_elevation,aos_azimuth,los_azimuth";
+    static final String VISIBILITY_HEADER = "time,station,catnum,name,azimuth,elevation,range";
+
+    private static final String USAGE = "Usage: BatchTool --mode passes|ephemeris|visibility --tle FILE"
+            + " --start ISO-8601 --end ISO-8601 [--stations FILE] [--out FILE] [--threads N]"
+            + " [--step SECONDS] [--min-elevation DEGREES] [--format csv|oem|binary] [--progress SECONDS]";
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+    private static final long MILLIS_PER_HOUR = 3600000L;
+
+    private final String mode;
+    private final List<TLE> tles;
+    private final List<GroundStationPosition> stations;
+    private final Date start;
+    private final Date end;
+    private final long stepMillis;
+    private final double minElevation;
+    private final String format;
+    private final Path out;
+    private final int threads;
+    private final ProgressReporter progress;
+
+    /**
+     * A piece of output for one satellite, written in catalog order.
+     */
+    private interface Sink<T> {
+        void write(T result) throws IOException;
+    }
+
+    /**
+     * The work for one satellite, done on a worker thread.
+     */
+    private interface Task<T> {
+        T compute(TLE tle) throws Exception;
+    }
+
+    private BatchTool(final Map<String, String> options, final PrintStream err) throws IOException {
+        mode = required(options, "mode");
+
+        if (!"passes".equals(mode) && !"ephemeris".equals(mode) && !"visibility".equals(mode)) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+
+        tles = CatalogReader.readTLEs(Paths.get(required(options, "tle")));
+        stations = "ephemeris".equals(mode)
+                ? Collections.<GroundStationPosition>emptyList()
+                : CatalogReader.readStations(Paths.get(required(options, "stations")));
+        start = time(required(options, "start"));
+        end = time(required(options, "end"));
+
+        if (end.before(start)) {
+            throw new IllegalArgumentException("End is before start");
+        }
+
+        stepMillis = Math.round(number(options, "step", 60) * 1000.0);
+        minElevation = number(options, "min-elevation", 0);
+        format = options.containsKey("format") ? options.get("format") : "csv";
+        out = options.containsKey("out") ? Paths.get(options.get("out")) : null;
+        threads = (int)number(options, "threads", Runtime.getRuntime().availableProcessors());
+
+        if (stepMillis <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("step and threads must be positive");
+        }
+
+        progress = new ProgressReporter(tles.size(), err, Math.round(number(options, "progress", 5) * 1000.0));
+    }
+
+    /**
+     * Runs the tool and exits with 0 on success, 1 on failure and 2 for bad arguments.
+     *
+     * @param args the command line
+     */
+    public static void main(final String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs the tool.
+     *
+     * @param args the command line
+     * @param stdout where output goes when no file is given
+     * @param err where progress and errors go
+     * @return the exit code
+     */
+    static int run(final String[] args, final PrintStream stdout, final PrintStream err) {
+        final BatchTool tool;
+
+        try {
+            tool = new BatchTool(parse(args), err);
+        }
+        catch (final IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        catch (final IOException e) {
+            err.println("Could not read input: " + e.getMessage());
+            return 1;
+        }
+
+        try {
+            tool.execute(stdout);
+            return 0;
+        }
+        catch (final IOException e) {
+            err.println("Could not write output: " + e.getMessage());
+            return 1;
+        }
+        catch (final ExecutionException e) {
+            err.println("Prediction failed: " + e.getCause());
+            return 1;
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    private void execute(final PrintStream stdout) throws IOException, ExecutionException, InterruptedException {
+        final WritableByteChannel channel = out == null
+                ? standardOutput(stdout)
+                : Files.newByteChannel(out, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+
+        progress.start();
+
+        try {
+            if ("ephemeris".equals(mode)) {
+                try (EphemerisWriter writer = ephemerisWriter(channel)) {
+                    runOrdered(this::ephemeris, recorded -> {
+                        recorded.replay(writer);
+                        progress.satelliteDone(recorded.count);
+                    });
+                }
+            }
+            else {
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                        StandardCharsets.UTF_8), 1 << 16)) {
+                    writer.write("passes".equals(mode) ? PASSES_HEADER : VISIBILITY_HEADER);
+                    writer.write('\n');
+                    runOrdered("passes".equals(mode) ? this::passes : this::visibility, rows -> {
+                        writer.write(rows.text.toString());
+                        progress.satelliteDone(rows.count);
+                    });
+                }
+            }
+        }
+        finally {
+            progress.stop();
+            channel.close();
+        }
+    }
+
+    /**
+     * Computes the satellites on the worker threads, keeping a bounded window in flight, and hands
+     * the results to the sink in catalog order.
+     */
+    private <T> void runOrdered(final Task<T> task, final Sink<T> sink)
+            throws IOException, ExecutionException, InterruptedException {
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "predict4java-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            final ArrayDeque<Future<T>> window = new ArrayDeque<Future<T>>();
+
+            for (final TLE tle : tles) {
+                window.add(pool.submit(() -> task.compute(tle)));
+
+                if (window.size() >= threads * IN_FLIGHT_PER_THREAD) {
+                    sink.write(window.poll().get());
+                }
+            }
+
+            while (!window.isEmpty()) {
+                sink.write(window.poll().get());
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Rows passes(final TLE tle) throws InvalidTleException {
+        final Rows rows = new Rows();
+        final int hours = (int)((end.getTime() - start.getTime() + MILLIS_PER_HOUR - 1) / MILLIS_PER_HOUR);
+
+        for (final GroundStationPosition station : stations) {
+            final List<SatPassTime> passes;
+
+            try {
+                passes = new PassPredictor(tle, station).getPasses(start, hours, false);
+            }
+            catch (final SatNotFoundException e) {
+                continue;
+            }
+
+            for (final SatPassTime pass : passes) {
+                if (pass.getStartTime().after(end)) {
+                    continue;
+                }
+
+                rows.text.append(tle.getCatnum()).append(',').append(csv(tle.getName())).append(',')
+                        .append(csv(station.getName())).append(',')
+                        .append(pass.getStartTime().toInstant()).append(',')
+                        .append(pass.getTCA() == null ? "" : pass.getTCA().toInstant().toString()).append(',')
+                        .append(pass.getEndTime().toInstant()).append(',')
+                        .append(pass.getMaxEl()).append(',')
+                        .append(pass.getAosAzimuth()).append(',')
+                        .append(pass.getLosAzimuth()).append('\n');
+                rows.count++;
+            }
+        }
+
+        return rows;
+    }
+
+    private Rows visibility(final TLE tle) {
+        final Rows rows = new Rows();
+        final Satellite satellite = SatelliteFactory.createSatellite(tle);
+        final double minElevationRadians = Math.toRadians(minElevation);
+
+        for (long time = start.getTime(); time <= end.getTime(); time += stepMillis) {
+            final Date date = new Date(time);
+            satellite.calculateSatelliteVectors(date);
+
+            for (final GroundStationPosition station : stations) {
+                final SatPos satPos = satellite.calculateSatPosForGroundStation(station);
+
+                if (satPos.getElevation() >= minElevationRadians) {
+                    rows.text.append(date.toInstant()).append(',').append(csv(station.getName())).append(',')
+                            .append(tle.getCatnum()).append(',').append(csv(tle.getName())).append(',')
+                            .append(String.format("%.3f,%.3f,%.3f", Math.toDegrees(satPos.getAzimuth()),
+                                    Math.toDegrees(satPos.getElevation()), satPos.getRange()))
+                            .append('\n');
+                    rows.count++;
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    private RecordedEphemeris ephemeris(final TLE tle) throws IOException {
+        final RecordedEphemeris recorded = new RecordedEphemeris();
+        EphemerisExporter.export(Collections.singletonList(tle), start, end, stepMillis, recorded);
+        return recorded;
+    }
+
+    private EphemerisWriter ephemerisWriter(final WritableByteChannel channel) throws IOException {
+        if ("csv".equals(format)) {
+            return new CsvEphemerisWriter(channel);
+        }
+        else if ("oem".equals(format)) {
+            return new OemEphemerisWriter(channel);
+        }
+        else if ("binary".equals(format)) {
+            return new BinaryEphemerisWriter(channel);
+        }
+        throw new IllegalArgumentException("Unknown format: " + format);
+    }
+
+    /**
+     * Standard output must stay open when the writers are closed.
+     */
+    private static WritableByteChannel standardOutput(final PrintStream stdout) {
+        final WritableByteChannel channel = Channels.newChannel(stdout);
+
+        return new WritableByteChannel() {
+            @Override
+            public int write(final ByteBuffer source) throws IOException {
+                return channel.write(source);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+                stdout.flush();
+            }
+        };
+    }
+
+    private static String csv(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    static Map<String, String> parse(final String[] args) throws IllegalArgumentException {
+        final Map<String, String> options = new HashMap<String, String>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+
+        return options;
+    }
+
+    private static String required(final Map<String, String> options, final String name) {
+        final String value = options.get(name);
+
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + " has not been set");
+        }
+
+        return value;
+    }
+
+    private static double number(final Map<String, String> options, final String name, final double defaultValue) {
+        final String value = options.get(name);
+
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " is not a number: " + value);
+        }
+    }
+
+    private static Date time(final String value) {
+        try {
+            return Date.from(Instant.parse(value));
+        }
+        catch (final DateTimeParseException e) {
+            throw new IllegalArgumentException("Not an ISO-8601 time: " + value);
+        }
+    }
+
+    /**
+     * The text rows for one satellite.
+     */
+    private static final class Rows {
+        private final StringBuilder text = new StringBuilder();
+        private long count;
+    }
+
+    /**
+     * Holds the ephemeris of one satellite until it can be written in order.
+     */
+    private static final class RecordedEphemeris implements EphemerisWriter {
+        private TLE tle;
+        private long startMillis;
+        private long stepMillis;
+        private int count;
+        private long[] times;
+        private double[] states;
+        private int written;
+
+        @Override
+        public void startSegment(final TLE theTle, final long theStartMillis, final long theStepMillis,
+                final int theCount) {
+            tle = theTle;
+            startMillis = theStartMillis;
+            stepMillis = theStepMillis;
+            count = theCount;
+            times = new long[theCount];
+            states = new double[theCount * 6];
+        }
+
+        @Override
+        public void writeState(final long timeMillis, final double[] state, final int offset) {
+            times[written] = timeMillis;
+            System.arraycopy(state, offset, states, written * 6, 6);
+            written++;
+        }
+
+        @Override
+        public void endSegment() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void replay(final EphemerisWriter writer) throws IOException {
+            writer.startSegment(tle, startMillis, stepMillis, count);
+            for (int i = 0; i < written; i++) {
+                writer.writeState(times[i], states, i * 6);
+            }
+            writer.endSegment();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.cli;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.me.g4dpz.satellite.GroundStationPosition;
+import uk.me.g4dpz.satellite.TLE;
+
+/**
+ * Reads the input files of a batch run.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+final class CatalogReader {
+
+    /**
+     * Default constructor.
+     */
+    private CatalogReader() {
+
+    }
+
+    /**
+     * Reads a TLE file by mapping it into memory and cutting lines straight out of the mapping.
+     * Each element set is a name line followed by lines 1 and 2; the name line may be left out,
+     * in which case the catalog number is used as the name.
+     *
+     * @param file the file
+     * @return the TLEs
+     * @throws IOException the file could not be read
+     * @throws IllegalArgumentException a TLE is malformed
+     */
+    static List<TLE> readTLEs(final Path file) throws IOException, IllegalArgumentException {
+        final List<TLE> tles = new ArrayList<TLE>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final byte[] line = new byte[256];
+            final String[] lines = new String[3];
+            int count = 0;
+            int length = 0;
+
+            while (buffer.hasRemaining() || length > 0) {
+                final byte b = buffer.hasRemaining() ? buffer.get() : (byte)'\n';
+
+                if (b != '\n') {
+                    if (b != '\r' && length < line.length) {
+                        line[length++] = b;
+                    }
+                    continue;
+                }
+
+                final String text = new String(line, 0, length, StandardCharsets.US_ASCII).trim();
+                length = 0;
+
+                if (text.isEmpty()) {
+                    continue;
+                }
+
+                if (count == 0 && text.startsWith("1 ")) {
+                    lines[count++] = text.substring(2, 7).trim();
+                }
+
+                lines[count++] = text;
+
+                if (count == 3) {
+                    tles.add(new TLE(lines));
+                    count = 0;
+                }
+            }
+
+            if (count != 0) {
+                throw new IllegalArgumentException("Incomplete TLE at the end of " + file);
+            }
+        }
+
+        return tles;
+    }
+
+    /**
+     * Reads a station file. Each line is <code>name,latitude,longitude[,height]</code> in degrees
+     * and metres; blank lines and lines starting with # are ignored.
+     *
+     * @param file the file
+     * @return the stations
+     * @throws IOException the file could not be read
+     * @throws IllegalArgumentException a line is malformed
+     */
+    static List<GroundStationPosition> readStations(final Path file) throws IOException, IllegalArgumentException {
+        final List<GroundStationPosition> stations = new ArrayList<GroundStationPosition>();
+        int number = 0;
+
+        for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            number++;
+            final String text = line.trim();
+
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+
+            final String[] fields = text.split("\\s*,\\s*");
+
+            if (fields.length < 3 || fields.length > 4) {
+                throw new IllegalArgumentException("Station line[" + number + "] needs name,lat,lon[,height]");
+            }
+
+            try {
+                stations.add(new GroundStationPosition(Double.parseDouble(fields[1]), Double.parseDouble(fields[2]),
+                        fields.length == 4 ? Double.parseDouble(fields[3]) : 0.0, fields[0]));
+            }
+            catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("Station line[" + number + "] has a bad number: " + text);
+            }
+        }
+
+        return stations;
+    }
+}
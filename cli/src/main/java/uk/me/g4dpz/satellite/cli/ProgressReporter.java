@@ -0,0 +1,117 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.cli;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prints the progress and throughput of a batch run at a fixed interval, and a summary at the
+ * end.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+final class ProgressReporter {
+
+    private static final double NANOS_PER_SECOND = 1E9;
+
+    private final long total;
+    private final PrintStream out;
+    private final long periodMillis;
+    private final AtomicLong satellites = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+    private long startNanos;
+
+    /**
+     * @param total the number of satellites to process
+     * @param out where to print, usually standard error
+     * @param periodMillis the interval between progress lines, 0 for only the summary
+     */
+    ProgressReporter(final long total, final PrintStream out, final long periodMillis) {
+        this.total = total;
+        this.out = out;
+        this.periodMillis = periodMillis;
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+
+        if (periodMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "predict4java-progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(() -> out.println(progress()), periodMillis, periodMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Records a satellite as written.
+     *
+     * @param rowCount the number of rows or states written for it
+     */
+    void satelliteDone(final long rowCount) {
+        satellites.incrementAndGet();
+        rows.addAndGet(rowCount);
+    }
+
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        final double seconds = elapsedSeconds();
+        out.println(String.format("%d satellites, %d rows in %.1f s (%.1f satellites/s, %.0f rows/s)",
+                satellites.get(), rows.get(), seconds, satellites.get() / seconds, rows.get() / seconds));
+    }
+
+    String progress() {
+        final long done = satellites.get();
+        final double seconds = elapsedSeconds();
+        final double rate = done / seconds;
+        final String eta = done == 0 ? "?" : String.format("%.0f s", (total - done) / rate);
+
+        return String.format("%d/%d satellites (%.0f%%), %.1f satellites/s, %d rows, %s left",
+                done, total, total == 0 ? 100.0 : 100.0 * done / total, rate, rows.get(), eta);
+    }
+
+    long getRowCount() {
+        return rows.get();
+    }
+
+    private double elapsedSeconds() {
+        return Math.max(System.nanoTime() - startNanos, 1L) / NANOS_PER_SECOND;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class BatchToolTest {
+
+    private Path directory;
+    private Path tles;
+    private Path stations;
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    public BatchToolTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("batch");
+        tles = directory.resolve("tles.txt");
+        Files.copy(BatchToolTest.class.getResourceAsStream("/LEO.txt"), tles);
+        stations = directory.resolve("stations.csv");
+        Files.write(stations, Arrays.asList("# name,lat,lon,height", "G4DPZ,52.4670,-2.022,200", "Cape Town,-33.9,18.4"),
+                StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (final String name : new String[] {"tles.txt", "stations.csv", "out.csv"}) {
+            Files.deleteIfExists(directory.resolve(name));
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void passesAreWrittenForEveryStation() throws Exception {
+        final Path out = directory.resolve("out.csv");
+        Assert.assertEquals(0, run("--mode", "passes", "--tle", tles.toString(), "--stations", stations.toString(),
+                "--start", "2009-12-26T00:00:00Z", "--end", "2009-12-27T00:00:00Z", "--out", out.toString(),
+                "--threads", "2"));
+
+        final List<String> lines = Files.readAllLines(out, StandardCharsets.UTF_8);
+        Assert.assertEquals(BatchTool.PASSES_HEADER, lines.get(0));
+        Assert.assertTrue(lines.get(1).startsWith("28375,AO-51 [+],G4DPZ,2009-12-26T"));
+        Assert.assertTrue(lines.stream().anyMatch(line -> line.contains(",Cape Town,")));
+        Assert.assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("1 satellites, "
+                + (lines.size() - 1) + " rows"));
+    }
+
+    @Test
+    public void visibilityGoesToStandardOutput() throws Exception {
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        Assert.assertEquals(0, BatchTool.run(new String[] {"--mode", "visibility", "--tle", tles.toString(),
+            "--stations", stations.toString(), "--start", "2009-12-26T00:00:00Z", "--end", "2009-12-26T12:00:00Z",
+            "--step", "30", "--min-elevation", "10"}, new PrintStream(stdout), new PrintStream(err)));
+
+        final String[] lines = new String(stdout.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(BatchTool.VISIBILITY_HEADER, lines[0]);
+        Assert.assertTrue(lines.length > 1);
+        for (int i = 1; i < lines.length; i++) {
+            Assert.assertTrue(lines[i], Double.parseDouble(lines[i].split(",")[5]) >= 10.0);
+        }
+    }
+
+    @Test
+    public void ephemerisUsesTheLibraryWriters() throws Exception {
+        final Path out = directory.resolve("out.csv");
+        Assert.assertEquals(0, run("--mode", "ephemeris", "--tle", tles.toString(), "--start", "2009-12-26T00:00:00Z",
+                "--end", "2009-12-26T01:00:00Z", "--out", out.toString()));
+
+        final List<String> lines = Files.readAllLines(out, StandardCharsets.UTF_8);
+        Assert.assertEquals(62, lines.size());
+        Assert.assertTrue(lines.get(61).startsWith("2009-12-26T01:00:00.000,28375,"));
+    }
+
+    @Test
+    public void badArgumentsPrintUsage() throws Exception {
+        Assert.assertEquals(2, run("--mode", "passes", "--tle", tles.toString()));
+        Assert.assertEquals(2, run("--mode", "orbits"));
+        Assert.assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("Usage: BatchTool"));
+    }
+
+    private int run(final String... args) {
+        return BatchTool.run(args, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.cli;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.me.g4dpz.satellite.GroundStationPosition;
+import uk.me.g4dpz.satellite.TLE;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class CatalogReaderTest {
+
+    private static final String LINE_1 = "1 28375U 04025K   09105.66391970  .00000003  00000-0  13761-4 0  3643";
+    private static final String LINE_2 = "2 28375 098.0551 118.9086 0084159 315.8041 043.6444 14.40638450251959";
+
+    public CatalogReaderTest() {
+    }
+
+    @Test
+    public void readsNamedAndUnnamedElementSets() throws Exception {
+        final Path file = Files.createTempFile("tles", ".txt");
+        try {
+            // CRLF line ends, a blank line and no newline at the end
+            Files.write(file, ("AO-51 [+]\r\n" + LINE_1 + "\r\n" + LINE_2 + "\r\n\r\n" + LINE_1 + "\n" + LINE_2)
+                    .getBytes(StandardCharsets.US_ASCII));
+
+            final List<TLE> tles = CatalogReader.readTLEs(file);
+            Assert.assertEquals(2, tles.size());
+            Assert.assertEquals("AO-51 [+]", tles.get(0).getName());
+            Assert.assertEquals("28375", tles.get(1).getName());
+            Assert.assertEquals(tles.get(0).getEpoch(), tles.get(1).getEpoch(), 0.0);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void readsStations() throws Exception {
+        final Path file = Files.createTempFile("stations", ".csv");
+        try {
+            Files.write(file, Arrays.asList("# comment", "", "Home, 52.5, -2.0, 200", "Away,-33.9,18.4"),
+                    StandardCharsets.UTF_8);
+
+            final List<GroundStationPosition> stations = CatalogReader.readStations(file);
+            Assert.assertEquals(2, stations.size());
+            Assert.assertEquals("Home", stations.get(0).getName());
+            Assert.assertEquals(200.0, stations.get(0).getHeightAMSL(), 0.0);
+            Assert.assertEquals(0.0, stations.get(1).getHeightAMSL(), 0.0);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadStations() throws Exception {
+        final Path file = Files.createTempFile("stations", ".csv");
+        try {
+            Files.write(file, Arrays.asList("Home,north,west"), StandardCharsets.UTF_8);
+            CatalogReader.readStations(file);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
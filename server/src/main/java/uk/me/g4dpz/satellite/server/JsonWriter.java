@@ -0,0 +1,142 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.server;
+
+import java.util.Date;
+
+/**
+ * Builds a JSON document in a StringBuilder, without any library. Commas are inserted as
+ * values are added.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+final class JsonWriter {
+
+    private final StringBuilder out = new StringBuilder(256);
+    private boolean first = true;
+
+    JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        out.append('}');
+        first = false;
+        return this;
+    }
+
+    JsonWriter beginArray(final String name) {
+        name(name);
+        out.append('[');
+        first = true;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        out.append(']');
+        first = false;
+        return this;
+    }
+
+    JsonWriter value(final String name, final double value) {
+        name(name);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        }
+        else {
+            out.append(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(final String name, final long value) {
+        name(name);
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter value(final String name, final boolean value) {
+        name(name);
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter value(final String name, final Date value) {
+        return value(name, value == null ? null : value.toInstant().toString());
+    }
+
+    JsonWriter value(final String name, final String value) {
+        name(name);
+        if (value == null) {
+            out.append("null");
+        }
+        else {
+            string(value);
+        }
+        return this;
+    }
+
+    private void name(final String name) {
+        separate();
+        if (name != null) {
+            string(name);
+            out.append(':');
+        }
+    }
+
+    private void separate() {
+        if (!first) {
+            out.append(',');
+        }
+        first = false;
+    }
+
+    private void string(final String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            }
+            else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int)c));
+            }
+            else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
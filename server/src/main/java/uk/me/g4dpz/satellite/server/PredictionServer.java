@@ -0,0 +1,458 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.server;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import uk.me.g4dpz.satellite.GroundStationPosition;
+import uk.me.g4dpz.satellite.SatPassTime;
+import uk.me.g4dpz.satellite.SatPos;
+import uk.me.g4dpz.satellite.TLE;
+
+/**
+ * A local HTTP/JSON prediction service on the JDK's embedded HTTP server.
+ *
+ * All endpoints take GET requests and answer with JSON:
+ * <ul>
+ * <li>/satellites</li>
+ * <li>/position?sat=&amp;lat=&amp;lon=[&amp;alt=][&amp;time=]</li>
+ * <li>/doppler?sat=&amp;lat=&amp;lon=&amp;freq=[&amp;alt=][&amp;time=]</li>
+ * <li>/passes?sat=&amp;lat=&amp;lon=[&amp;alt=][&amp;time=][&amp;hours=]</li>
+ * <li>/visibility?lat=&amp;lon=[&amp;alt=][&amp;time=][&amp;minElevation=]</li>
+ * <li>/status</li>
+ * </ul>
+ * Latitude, longitude and elevations are in degrees, altitude in metres, frequencies in Hz and
+ * times in ISO-8601 (UTC). Without a time, "now" is the start of the current tick, so all requests
+ * in a tick share one propagation of each satellite. Identical requests in flight at the same time
+ * share one computation. Handlers run on virtual threads when the JVM has them.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class PredictionServer {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final long DEFAULT_TICK_MILLIS = 1000L;
+    private static final int DEFAULT_HOURS = 24;
+    private static final int MAX_HOURS = 240;
+    private static final double SPEED_OF_LIGHT = 2.99792458E8;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private static Log log = LogFactory.getLog(PredictionServer.class);
+
+    static {
+        // headers and body go out in separate writes, which Nagle's algorithm holds back ~40 ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final PropagatorRegistry registry;
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final HttpServer server;
+    private final ExecutorService handlers;
+
+    /**
+     * A request handler returning the JSON body.
+     */
+    private interface Endpoint {
+        String handle(Map<String, String> params, long now) throws Exception;
+    }
+
+    /**
+     * Constructor. The server does not accept requests until started.
+     *
+     * @param registry the satellites
+     * @param address the address to listen on, port 0 for any free port
+     * @throws IOException the address could not be bound
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public PredictionServer(final PropagatorRegistry registry, final InetSocketAddress address)
+            throws IOException, IllegalArgumentException {
+
+        if (null == registry) {
+            throw new IllegalArgumentException("Registry has not been set");
+        }
+
+        this.registry = registry;
+        this.handlers = newHandlerExecutor();
+        this.server = HttpServer.create(address, 0);
+
+        server.setExecutor(handlers);
+        server.createContext("/satellites", exchange -> respond(exchange, this::satellites));
+        server.createContext("/position", exchange -> respond(exchange, this::position));
+        server.createContext("/doppler", exchange -> respond(exchange, this::doppler));
+        server.createContext("/passes", exchange -> respond(exchange, this::passes));
+        server.createContext("/visibility", exchange -> respond(exchange, this::visibility));
+        server.createContext("/status", exchange -> respond(exchange, this::status));
+    }
+
+    /**
+     * Runs a server.
+     *
+     * @param args a file of TLEs and, optionally, the port
+     * @throws IOException the TLEs could not be read or the port could not be bound
+     */
+    public static void main(final String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.err.println("Usage: PredictionServer <tle file> [port]");
+            System.exit(1);
+        }
+
+        final PropagatorRegistry registry = new PropagatorRegistry(DEFAULT_TICK_MILLIS);
+
+        try (InputStream in = new FileInputStream(args[0])) {
+            registry.addAll(TLE.importSat(in));
+        }
+
+        final int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        final PredictionServer predictionServer = new PredictionServer(registry, new InetSocketAddress(port));
+        predictionServer.start();
+        log.info("Serving " + registry.getTLEs().size() + " satellites on port " + predictionServer.getPort());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for those in progress.
+     */
+    public void stop() {
+        server.stop(1);
+        handlers.shutdown();
+        try {
+            handlers.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Uses a virtual thread per request on JVMs that have them (Java 21 on), otherwise a pool of
+     * daemon threads. Looked up by reflection so that the module still builds for Java 11.
+     *
+     * @return the executor for request handlers
+     */
+    static ExecutorService newHandlerExecutor() {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (final NoSuchMethodException e) {
+            log.debug("Virtual threads are not available");
+        }
+        catch (final IllegalAccessException e) {
+            log.debug("Virtual threads are not available");
+        }
+        catch (final InvocationTargetException e) {
+            log.debug("Virtual threads are not available");
+        }
+
+        return Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "predict4java-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void respond(final HttpExchange exchange, final Endpoint endpoint) throws IOException {
+        int status = 200;
+        String body;
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                status = 405;
+                body = error("Only GET is supported");
+            }
+            else {
+                final Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                final long now = System.currentTimeMillis();
+
+                // requests for "now" are only identical within a tick
+                final String key = exchange.getRequestURI().getPath() + params
+                        + (params.containsKey("time") ? "" : "@" + registry.tick(now));
+                body = coalescer.execute(key, () -> endpoint.handle(params, now));
+            }
+        }
+        catch (final NoSuchElementException e) {
+            status = 404;
+            body = error(e.getMessage());
+        }
+        catch (final IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        }
+        catch (final Exception e) {
+            log.error("Request failed: " + exchange.getRequestURI(), e);
+            status = 500;
+            body = error("Internal error");
+        }
+
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String satellites(final Map<String, String> params, final long now) {
+        final JsonWriter json = new JsonWriter().beginObject().beginArray("satellites");
+
+        for (final TLE tle : registry.getTLEs()) {
+            json.beginObject()
+                    .value("catnum", tle.getCatnum())
+                    .value("name", tle.getName())
+                    .value("epoch", tle.getEpoch())
+                    .endObject();
+        }
+
+        return json.endArray().endObject().toString();
+    }
+
+    private String position(final Map<String, String> params, final long now) {
+        final int catnum = integer(params, "sat");
+        final SatPos satPos = position(catnum, station(params), params, now);
+
+        final JsonWriter json = new JsonWriter().beginObject().value("catnum", catnum);
+        return writePosition(json, satPos).endObject().toString();
+    }
+
+    private String doppler(final Map<String, String> params, final long now) {
+        final int catnum = integer(params, "sat");
+        final double frequency = number(params, "freq");
+        final SatPos satPos = position(catnum, station(params), params, now);
+        final double rangeRate = satPos.getRangeRate() * 1000.0;
+
+        return new JsonWriter().beginObject()
+                .value("catnum", catnum)
+                .value("time", satPos.getTime())
+                .value("rangeRate", satPos.getRangeRate())
+                .value("downlink", Math.round(frequency * (SPEED_OF_LIGHT - rangeRate) / SPEED_OF_LIGHT))
+                .value("uplink", Math.round(frequency * (SPEED_OF_LIGHT + rangeRate) / SPEED_OF_LIGHT))
+                .endObject().toString();
+    }
+
+    private String passes(final Map<String, String> params, final long now) throws Exception {
+        final int catnum = integer(params, "sat");
+        final int hours = params.containsKey("hours") ? integer(params, "hours") : DEFAULT_HOURS;
+
+        if (hours <= 0 || hours > MAX_HOURS) {
+            throw new IllegalArgumentException("hours must be from 1 to " + MAX_HOURS + ", got: " + hours);
+        }
+
+        final List<SatPassTime> passes = registry.getPasses(catnum, station(params), time(params, now), hours);
+
+        if (passes == null) {
+            throw new NoSuchElementException("Unknown satellite: " + catnum);
+        }
+
+        final JsonWriter json = new JsonWriter().beginObject().value("catnum", catnum).beginArray("passes");
+
+        for (final SatPassTime pass : passes) {
+            json.beginObject()
+                    .value("start", pass.getStartTime())
+                    .value("tca", pass.getTCA())
+                    .value("end", pass.getEndTime())
+                    .value("maxElevation", pass.getMaxEl())
+                    .value("aosAzimuth", pass.getAosAzimuth())
+                    .value("losAzimuth", pass.getLosAzimuth())
+                    .value("polePassed", pass.getPolePassed())
+                    .endObject();
+        }
+
+        return json.endArray().endObject().toString();
+    }
+
+    private String visibility(final Map<String, String> params, final long now) {
+        final GroundStationPosition qth = station(params);
+        final double minElevation = params.containsKey("minElevation") ? number(params, "minElevation") : 0.0;
+        final JsonWriter json = new JsonWriter().beginObject().beginArray("visible");
+
+        for (final TLE tle : registry.getTLEs()) {
+            final SatPos satPos = position(tle.getCatnum(), qth, params, now);
+
+            if (Math.toDegrees(satPos.getElevation()) >= minElevation) {
+                json.beginObject().value("catnum", tle.getCatnum()).value("name", tle.getName());
+                writePosition(json, satPos).endObject();
+            }
+        }
+
+        return json.endArray().endObject().toString();
+    }
+
+    private String status(final Map<String, String> params, final long now) {
+        return new JsonWriter().beginObject()
+                .value("satellites", registry.getTLEs().size())
+                .value("propagations", registry.getPropagationCount())
+                .value("coalesced", coalescer.getCoalescedCount())
+                .endObject().toString();
+    }
+
+    private SatPos position(final int catnum, final GroundStationPosition qth, final Map<String, String> params,
+            final long now) {
+
+        final SatPos satPos = params.containsKey("time")
+                ? registry.getPosition(catnum, qth, time(params, now))
+                : registry.getPositionNow(catnum, qth, now);
+
+        if (satPos == null) {
+            throw new NoSuchElementException("Unknown satellite: " + catnum);
+        }
+
+        return satPos;
+    }
+
+    private static JsonWriter writePosition(final JsonWriter json, final SatPos satPos) {
+        return json.value("time", satPos.getTime())
+                .value("azimuth", Math.toDegrees(satPos.getAzimuth()))
+                .value("elevation", Math.toDegrees(satPos.getElevation()))
+                .value("range", satPos.getRange())
+                .value("rangeRate", satPos.getRangeRate())
+                .value("latitude", Math.toDegrees(satPos.getLatitude()))
+                .value("longitude", Math.toDegrees(satPos.getLongitude()))
+                .value("altitude", satPos.getAltitude())
+                .value("aboveHorizon", satPos.isAboveHorizon())
+                .value("eclipsed", satPos.isEclipsed());
+    }
+
+    private static GroundStationPosition station(final Map<String, String> params) {
+        final double latitude = number(params, "lat");
+        final double longitude = number(params, "lon");
+
+        if (Math.abs(latitude) > 90.0 || Math.abs(longitude) > 180.0) {
+            throw new IllegalArgumentException("lat or lon out of range");
+        }
+
+        return new GroundStationPosition(latitude, longitude, params.containsKey("alt") ? number(params, "alt") : 0.0);
+    }
+
+    private Date time(final Map<String, String> params, final long now) {
+        final String time = params.get("time");
+
+        if (time == null) {
+            return new Date(registry.tick(now));
+        }
+
+        try {
+            return Date.from(Instant.parse(time));
+        }
+        catch (final DateTimeParseException e) {
+            throw new IllegalArgumentException("time is not ISO-8601: " + time);
+        }
+    }
+
+    private static double number(final Map<String, String> params, final String name) {
+        final String value = params.get(name);
+
+        if (value == null) {
+            throw new IllegalArgumentException(name + " has not been set");
+        }
+
+        final double number = Double.parseDouble(value);
+
+        if (Double.isNaN(number) || Double.isInfinite(number)) {
+            throw new IllegalArgumentException(name + " must be finite, got: " + value);
+        }
+
+        return number;
+    }
+
+    private static int integer(final Map<String, String> params, final String name) {
+        final String value = params.get(name);
+
+        if (value == null) {
+            throw new IllegalArgumentException(name + " has not been set");
+        }
+
+        return Integer.parseInt(value);
+    }
+
+    private static String error(final String message) {
+        return new JsonWriter().beginObject().value("error", message).endObject().toString();
+    }
+
+    /**
+     * @param query the raw query string, may be null
+     * @return the parameters, sorted by name so that equal queries give equal keys
+     */
+    static Map<String, String> parseQuery(final String query) throws UnsupportedEncodingException {
+        final Map<String, String> params = new TreeMap<String, String>();
+
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+
+        for (final String pair : query.split("&")) {
+            final int equals = pair.indexOf('=');
+
+            if (equals > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+
+        return params;
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.me.g4dpz.satellite.GroundStationPosition;
+import uk.me.g4dpz.satellite.InvalidTleException;
+import uk.me.g4dpz.satellite.PassPredictor;
+import uk.me.g4dpz.satellite.SatNotFoundException;
+import uk.me.g4dpz.satellite.SatPassTime;
+import uk.me.g4dpz.satellite.SatPos;
+import uk.me.g4dpz.satellite.Satellite;
+import uk.me.g4dpz.satellite.SatelliteFactory;
+import uk.me.g4dpz.satellite.TLE;
+
+/**
+ * The satellites known to the server, each with one long lived propagator shared by all
+ * requests.
+ *
+ * Positions asked for "now" are taken at the start of the current tick, and each satellite is
+ * propagated at most once per tick however many requests and ground stations ask for it. Pass
+ * predictors are kept for the most recently used satellite and ground station pairs.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class PropagatorRegistry {
+
+    private static final int MAX_PREDICTORS = 1024;
+
+    private final long tickMillis;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<Integer, Entry>();
+    private final Map<String, PassPredictor> predictors = Collections.synchronizedMap(
+            new LinkedHashMap<String, PassPredictor>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, PassPredictor> eldest) {
+                    return size() > MAX_PREDICTORS;
+                }
+            });
+    private final LongAdder propagations = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param tickMillis the interval within which "now" is one time
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public PropagatorRegistry(final long tickMillis) throws IllegalArgumentException {
+
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive, got: " + tickMillis);
+        }
+
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Adds satellites, replacing any with the same catalog number.
+     *
+     * @param tles the satellites
+     */
+    public void addAll(final List<TLE> tles) {
+        for (final TLE tle : tles) {
+            entries.put(tle.getCatnum(), new Entry(tle));
+        }
+
+        predictors.clear();
+    }
+
+    /**
+     * @return the satellites, in no particular order
+     */
+    public List<TLE> getTLEs() {
+        final List<TLE> tles = new ArrayList<TLE>();
+        for (final Entry entry : entries.values()) {
+            tles.add(entry.tle);
+        }
+        return tles;
+    }
+
+    /**
+     * @param catnum the catalog number
+     * @return the satellite, or null if it is not known
+     */
+    public TLE getTLE(final int catnum) {
+        final Entry entry = entries.get(catnum);
+        return entry == null ? null : entry.tle;
+    }
+
+    /**
+     * @param now a time in milliseconds since the Java epoch
+     * @return the start of the tick holding it
+     */
+    public long tick(final long now) {
+        return now - Math.floorMod(now, tickMillis);
+    }
+
+    /**
+     * Gets the position of a satellite at the start of the current tick, propagating it only if
+     * this is the first request for it in the tick.
+     *
+     * @param catnum the catalog number
+     * @param qth the ground station
+     * @param now the current time
+     * @return a new SatPos, or null if the satellite is not known
+     */
+    public SatPos getPositionNow(final int catnum, final GroundStationPosition qth, final long now) {
+        final Entry entry = entries.get(catnum);
+
+        if (entry == null) {
+            return null;
+        }
+
+        final long tick = tick(now);
+        final SatPos satPos = new SatPos();
+
+        // the satellite holds the vectors of its last propagation, so the calls must not interleave
+        synchronized (entry) {
+            if (entry.tick != tick) {
+                entry.satellite.calculateSatelliteVectors(new Date(tick));
+                entry.tick = tick;
+                propagations.increment();
+            }
+
+            entry.satellite.calculateSatPosForGroundStation(qth);
+            satPos.copy(entry.satellite.calculateSatelliteGroundTrack());
+        }
+
+        return satPos;
+    }
+
+    /**
+     * Gets the position of a satellite at any time.
+     *
+     * @param catnum the catalog number
+     * @param qth the ground station
+     * @param date the time
+     * @return a new SatPos, or null if the satellite is not known
+     */
+    public SatPos getPosition(final int catnum, final GroundStationPosition qth, final Date date) {
+        final Entry entry = entries.get(catnum);
+
+        if (entry == null) {
+            return null;
+        }
+
+        propagations.increment();
+        return entry.satellite.getPosition(qth, date);
+    }
+
+    /**
+     * Gets the passes of a satellite over a ground station.
+     *
+     * @param catnum the catalog number
+     * @param qth the ground station
+     * @param start the time to search from
+     * @param hoursAhead how far ahead to search
+     * @return the passes, empty if the satellite is never seen; null if it is not known
+     * @throws InvalidTleException bad TLE
+     */
+    public List<SatPassTime> getPasses(final int catnum, final GroundStationPosition qth, final Date start,
+            final int hoursAhead) throws InvalidTleException {
+
+        final Entry entry = entries.get(catnum);
+
+        if (entry == null) {
+            return null;
+        }
+
+        final String key = catnum + "/" + qth.getLatitude() + "/" + qth.getLongitude() + "/" + qth.getHeightAMSL();
+
+        try {
+            PassPredictor predictor = predictors.get(key);
+
+            if (predictor == null) {
+                predictor = new PassPredictor(entry.tle, qth);
+                predictors.put(key, predictor);
+            }
+
+            // a pass predictor keeps state between the passes of one search
+            synchronized (predictor) {
+                final List<SatPassTime> passes = predictor.getPasses(start, hoursAhead, false);
+                propagations.add(predictor.getIterationCount());
+                return passes;
+            }
+        }
+        catch (final SatNotFoundException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return the number of propagations made for requests
+     */
+    public long getPropagationCount() {
+        return propagations.sum();
+    }
+
+    /**
+     * A satellite and the tick it was last propagated for.
+     */
+    private static final class Entry {
+        private final TLE tle;
+        private final Satellite satellite;
+        private long tick = Long.MIN_VALUE;
+
+        private Entry(final TLE tle) {
+            this.tle = tle;
+            this.satellite = SatelliteFactory.createSatellite(tle);
+        }
+    }
+}
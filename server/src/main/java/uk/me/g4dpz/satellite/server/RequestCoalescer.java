@@ -0,0 +1,98 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets concurrent identical requests share one computation. The first caller for a key computes
+ * the response; callers arriving before it has finished wait for the same result. Nothing is
+ * kept once the computation completes.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+final class RequestCoalescer {
+
+    /**
+     * A computation that may fail with any exception.
+     */
+    interface Computation {
+        String compute() throws Exception;
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight =
+            new ConcurrentHashMap<String, CompletableFuture<String>>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param key identifies the request
+     * @param computation computes the response
+     * @return the response
+     * @throws Exception the exception thrown by the computation
+     */
+    String execute(final String key, final Computation computation) throws Exception {
+        final CompletableFuture<String> mine = new CompletableFuture<String>();
+        final CompletableFuture<String> theirs = inFlight.putIfAbsent(key, mine);
+
+        if (theirs != null) {
+            coalesced.increment();
+            try {
+                return theirs.get();
+            }
+            catch (final ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+            }
+        }
+
+        try {
+            final String result = computation.compute();
+            mine.complete(result);
+            return result;
+        }
+        catch (final Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        catch (final Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * @return the number of requests answered by another request's computation
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+}
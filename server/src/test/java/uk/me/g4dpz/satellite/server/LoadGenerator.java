@@ -0,0 +1,110 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.server;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.me.g4dpz.satellite.TLE;
+
+/**
+ * Drives an in-process server with concurrent clients asking for positions, Doppler shifts and
+ * passes from a handful of ground stations, and prints the throughput and latency percentiles.
+ *
+ * Usage: LoadGenerator [clients] [requests per client]
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public final class LoadGenerator {
+
+    private static final String[] PATHS = {
+        "/position?sat=28375&lat=52.467&lon=-2.022",
+        "/position?sat=28375&lat=40.0&lon=-75.0",
+        "/doppler?sat=28375&lat=52.467&lon=-2.022&freq=145800000",
+        "/position?sat=28375&lat=-33.9&lon=18.4",
+        "/passes?sat=28375&lat=52.467&lon=-2.022&time=2009-12-26T00:00:00Z&hours=24",
+    };
+
+    private LoadGenerator() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        final int requests = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        final PropagatorRegistry registry = new PropagatorRegistry(1000L);
+        registry.addAll(TLE.importSat(LoadGenerator.class.getResourceAsStream("/LEO.txt")));
+        final PredictionServer server = new PredictionServer(registry, new InetSocketAddress("localhost", 0));
+        server.start();
+
+        final HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(4)).build();
+        final long[] latencies = new long[clients * requests];
+        final AtomicInteger next = new AtomicInteger();
+        final ExecutorService pool = Executors.newFixedThreadPool(clients);
+
+        final long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            final int offset = c;
+            pool.execute(() -> {
+                for (int r = 0; r < requests; r++) {
+                    final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                            + server.getPort() + PATHS[(offset + r) % PATHS.length])).build();
+                    final long sent = System.nanoTime();
+                    try {
+                        client.send(request, HttpResponse.BodyHandlers.ofString());
+                    }
+                    catch (final Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        final double seconds = (System.nanoTime() - start) / 1E9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d clients, %d requests in %.1f s: %.0f requests/s%n", clients, latencies.length,
+                seconds, latencies.length / seconds);
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms%n", latencies[latencies.length / 2] / 1E6,
+                latencies[latencies.length * 99 / 100] / 1E6);
+        System.out.printf("propagations %d, coalesced %s%n", registry.getPropagationCount(),
+                client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/status"))
+                        .build(), HttpResponse.BodyHandlers.ofString()).body());
+        server.stop();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite.server;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.me.g4dpz.satellite.GroundStationPosition;
+import uk.me.g4dpz.satellite.SatPos;
+import uk.me.g4dpz.satellite.SatelliteFactory;
+import uk.me.g4dpz.satellite.TLE;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class PredictionServerTest {
+
+    private static final String STATION = "lat=52.467&lon=-2.022&alt=200";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private PropagatorRegistry registry;
+    private PredictionServer server;
+
+    public PredictionServerTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new PropagatorRegistry(1000L);
+        registry.addAll(TLE.importSat(PredictionServerTest.class.getResourceAsStream("/LEO.txt")));
+        server = new PredictionServer(registry, new InetSocketAddress("localhost", 0));
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void positionMatchesTheLibrary() throws Exception {
+        final HttpResponse<String> response = get("/position?sat=28375&" + STATION + "&time=2009-12-26T00:00:00Z");
+        Assert.assertEquals(200, response.statusCode());
+
+        final SatPos expected = SatelliteFactory.createSatellite(registry.getTLE(28375))
+                .getPosition(new GroundStationPosition(52.467, -2.022, 200), new Date(1261785600000L));
+        Assert.assertEquals(Math.toDegrees(expected.getElevation()), field(response.body(), "elevation"), 1E-9);
+        Assert.assertEquals(Math.toDegrees(expected.getAzimuth()), field(response.body(), "azimuth"), 1E-9);
+    }
+
+    @Test
+    public void concurrentRequestsShareOnePropagationPerTick() throws Exception {
+        final List<CompletableFuture<HttpResponse<String>>> responses =
+                new ArrayList<CompletableFuture<HttpResponse<String>>>();
+        for (int i = 0; i < 50; i++) {
+            responses.add(client.sendAsync(request("/doppler?sat=28375&freq=145800000&lat=" + (i % 5) + "&lon=0"),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (final CompletableFuture<HttpResponse<String>> response : responses) {
+            Assert.assertEquals(200, response.get().statusCode());
+        }
+
+        // the requests span at most a few ticks
+        Assert.assertTrue(registry.getPropagationCount() <= 5);
+    }
+
+    @Test
+    public void passesAreListed() throws Exception {
+        final HttpResponse<String> response = get("/passes?sat=28375&" + STATION
+                + "&time=2009-12-26T00:00:00Z&hours=12");
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertTrue(response.body().contains("\"passes\":[{\"start\":\"2009-12-26T"));
+    }
+
+    @Test
+    public void badRequestsAreRejected() throws Exception {
+        Assert.assertEquals(404, get("/position?sat=1&" + STATION).statusCode());
+        Assert.assertEquals(400, get("/position?sat=28375&lat=52").statusCode());
+        Assert.assertEquals(400, get("/passes?sat=28375&" + STATION + "&hours=1000").statusCode());
+        Assert.assertEquals(400, get("/position?sat=28375&" + STATION + "&time=yesterday").statusCode());
+        Assert.assertEquals(405, client.send(HttpRequest.newBuilder(uri("/status"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private HttpResponse<String> get(final String path) throws Exception {
+        return client.send(request(path), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(final String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private URI uri(final String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static double field(final String json, final String name) {
+        final Matcher matcher = Pattern.compile("\"" + name + "\":([-0-9.E]+)").matcher(json);
+        Assert.assertTrue(json, matcher.find());
+        return Double.parseDouble(matcher.group(1));
+    }
+}
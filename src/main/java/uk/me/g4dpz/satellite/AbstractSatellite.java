@@ -50,7 +50,10 @@ abstract class AbstractSatellite implements Satellite, Serializable {
     private static final double DEG2RAD = 1.745329251994330E-2;
 
     static final double TWO_PI = Math.PI * 2.0;
-    private static final double EPSILON = 1.0E-12;
+    static final double EPSILON = 1.0E-12;
+    static final int MAX_KEPLER_ITERATIONS = 10;
+    /** Corrections below this are rotated with a series rather than Math.sin and Math.cos. */
+    static final double SMALL_ANGLE = 1.0E-2;
     protected static final double TWO_THIRDS = 2.0 / 3.0;
     protected static final double EARTH_RADIUS_KM = 6.378137E3;
     protected static final double XKE = 7.43669161E-2;
@@ -58,10 +61,10 @@ abstract class AbstractSatellite implements Satellite, Serializable {
     /** J3 Harmonic (WGS '72). */
     protected static final double J3_HARMONIC = -2.53881E-6;
 
-    private static final double MINS_PER_DAY = 1.44E3;
+    static final double MINS_PER_DAY = 1.44E3;
     private static final double PI_OVER_TWO = Math.PI / 2.0;
-    private static final double SECS_PER_DAY = 8.6400E4;
-    private static final double FLATTENING_FACTOR = 3.35281066474748E-3;
+    static final double SECS_PER_DAY = 8.6400E4;
+    static final double FLATTENING_FACTOR = 3.35281066474748E-3;
 
     protected static final double CK4 = 6.209887E-7;
     protected static final double EARTH_GRAVITATIONAL_CONSTANT = 3.986008E5;
@@ -90,20 +93,19 @@ abstract class AbstractSatellite implements Satellite, Serializable {
 
     private final TLE tle;
 
-    private double eclipseDepth;
+    private volatile double eclipseDepth;
 
-    /** Position vector of the satellite. Used to store the position for later calculations. */
-    private final Vector4 position = new Vector4();
-    /** Velocity vector of the satellite. Used to store the velocity for later calculations. */
-    private final Vector4 velocity = new Vector4();
-    /** Date/time at which the position and velocity were calculated. */
-    private double julUTC;
-    /** Satellite position. Used to store the SatPos for later calculations. */
-    private SatPos satPos;
+    private volatile GeodeticConversion geodeticConversion = GeodeticConversion.ITERATIVE;
+
+    /** The result of calculateSatelliteVectors(..), used by the calculations that follow it. */
+    private PropagationContext current;
 
     /** The time at which we do all the calculations. */
     static final TimeZone TZ = TimeZone.getTimeZone("UTC:UTC");
 
+    /** 31Dec79 00:00:00 UTC, daynum 0. */
+    private static final long DAYNUM_EPOCH_MILLIS = AbstractSatellite.daynumEpochMillis();
+
     private final double julEpoch;
 
     public AbstractSatellite(final TLE tle) {
@@ -111,10 +113,20 @@ abstract class AbstractSatellite implements Satellite, Serializable {
         julEpoch = AbstractSatellite.juliandDateOfEpoch(tle.getEpoch());
     }
 
-    protected void calculateSGP4(final double tsince) {
+    protected void calculateSGP4(final PropagationContext context, final double tsince) {
+    }
+
+    protected void calculateSDP4(final PropagationContext context, final double tsince) {
     }
 
-    protected void calculateSDP4(final double tsince) {
+    /**
+     * Creates the context for a single propagation. Subclasses that need scratch space for their
+     * model return a subclass of PropagationContext.
+     *
+     * @return a new context
+     */
+    protected PropagationContext createContext() {
+        return new PropagationContext();
     }
 
     @Override
@@ -177,19 +189,48 @@ abstract class AbstractSatellite implements Satellite, Serializable {
     /**
      * Read the system clock and return the number of days since 31Dec79 00:00:00 UTC (daynum 0).
      *
-     * @param date the date we wan to get the offset for
+     * @param timeMillis the time we want to get the offset for, in milliseconds since the Java epoch
      * @return the number of days offset
      */
-    private static double calcCurrentDaynum(final Date date) {
+    private static double calcCurrentDaynum(final long timeMillis) {
+
+        final long millis = timeMillis - DAYNUM_EPOCH_MILLIS;
+        return millis / 1000.0 / 60.0 / 60.0 / 24.0;
+    }
+
+    /**
+     * Gets the Julian date for a time.
+     *
+     * @param date the time
+     * @return the Julian date
+     */
+    static double julianDate(final Date date) {
+        return AbstractSatellite.julianDate(date.getTime());
+    }
 
-        final long now = date.getTime();
+    /**
+     * Gets the Julian date for a time.
+     *
+     * @param timeMillis the time in milliseconds since the Java epoch
+     * @return the Julian date
+     */
+    static double julianDate(final long timeMillis) {
+        return AbstractSatellite.calcCurrentDaynum(timeMillis) + 2444238.5;
+    }
 
+    /**
+     * @param timeMillis the time in milliseconds since the Java epoch
+     * @return the minutes since the epoch of the TLE, as used by the propagators
+     */
+    final double minutesSinceEpoch(final long timeMillis) {
+        return (AbstractSatellite.julianDate(timeMillis) - julEpoch) * MINS_PER_DAY;
+    }
+
+    private static long daynumEpochMillis() {
         final Calendar sgp4Epoch = Calendar.getInstance(TZ);
         sgp4Epoch.clear();
         sgp4Epoch.set(1979, Calendar.DECEMBER, 31, 0, 0, 0);
-        final long then = sgp4Epoch.getTimeInMillis();
-        final long millis = now - then;
-        return millis / 1000.0 / 60.0 / 60.0 / 24.0;
+        return sgp4Epoch.getTimeInMillis();
     }
 
     /**
@@ -252,7 +293,13 @@ abstract class AbstractSatellite implements Satellite, Serializable {
         return arg - Math.floor(arg);
     }
 
-    private static double thetaGJD(final double theJD) {
+    /**
+     * Gets the Greenwich mean sidereal time.
+     *
+     * @param theJD the Julian date
+     * @return the sidereal time in radians
+     */
+    static double thetaGJD(final double theJD) {
         /* Reference: The 1992 Astronomical Almanac, page B6. */
 
         final double ut = AbstractSatellite.frac(theJD + 0.5);
@@ -265,6 +312,25 @@ abstract class AbstractSatellite implements Satellite, Serializable {
         return TWO_PI * gmst / SECS_PER_DAY;
     }
 
+    /**
+     * Gets the Greenwich mean sidereal time of a propagation, working it out on first use so that
+     * the calculations that follow the propagation share it.
+     *
+     * @param context the propagation
+     * @return the sidereal time in radians
+     */
+    private static double siderealTime(final PropagationContext context) {
+        final boolean hit = !Double.isNaN(context.siderealTime);
+
+        Metrics.getCollector().cacheAccessed(MetricsCollector.Cache.SIDEREAL_TIME, hit);
+
+        if (!hit) {
+            context.siderealTime = AbstractSatellite.thetaGJD(context.julUTC);
+        }
+
+        return context.siderealTime;
+    }
+
     /**
      * Calculates the dot product of two vectors.
      *
@@ -304,42 +370,25 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      *
      * Reference: The 1992 Astronomical Almanac, page K12.
      *
-     * @param time the time
+     * @param siderealTime the Greenwich mean sidereal time, from thetaGJD(..)
      * @param position the position
      * @param satPos the satellite position
+     * @param conversion the method used to find the latitude and altitude
      */
-    private void calculateLatLonAlt(final double time,
-            final Vector4 positionVector, final SatPos satellitePosition) {
+    static void calculateLatLonAlt(final double siderealTime,
+            final Vector4 positionVector, final SatPos satellitePosition, final GeodeticConversion conversion) {
 
-        satPos.setTheta(Math.atan2(position.getY(), position.getX()));
-        satPos.setLongitude(AbstractSatellite.mod2PI(satPos.getTheta() - AbstractSatellite.thetaGJD(time)));
-        final double r = Math.sqrt(AbstractSatellite.sqr(position.getX()) + AbstractSatellite.sqr(position.getY()));
-        final double e2 = FLATTENING_FACTOR * (2.0 - FLATTENING_FACTOR);
-        satPos.setLatitude(Math.atan2(position.getZ(), r));
+        satellitePosition.setTheta(Math.atan2(positionVector.getY(), positionVector.getX()));
+        satellitePosition.setLongitude(AbstractSatellite.mod2PI(satellitePosition.getTheta() - siderealTime));
+        final double r = Math.sqrt(AbstractSatellite.sqr(positionVector.getX()) + AbstractSatellite.sqr(positionVector.getY()));
 
-        double phi;
-        double c;
-        int i = 0;
-        boolean converged;
+        conversion.toGeodetic(r, positionVector.getZ(), satellitePosition);
 
-        do {
-            phi = satPos.getLatitude();
-            c = AbstractSatellite.invert(Math.sqrt(1.0 - e2 * AbstractSatellite.sqr(Math.sin(phi))));
-            satPos.setLatitude(Math.atan2(position.getZ() + EARTH_RADIUS_KM * c * e2
-                    * Math.sin(phi), r));
-
-            converged = Math.abs(satPos.getLatitude() - phi) < EPSILON;
-
-        }
-        while (i++ < 10 && !converged);
-
-        satPos.setAltitude(r / Math.cos(satPos.getLatitude()) - EARTH_RADIUS_KM * c);
-
-        double temp = satPos.getLatitude();
+        double temp = satellitePosition.getLatitude();
 
         if (temp > PI_OVER_TWO) {
             temp -= TWO_PI;
-            satPos.setLatitude(temp);
+            satellitePosition.setLatitude(temp);
         }
     }
 
@@ -364,47 +413,77 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      * @param date the date
      */
     @Override
-    public synchronized SatPos getPosition(final GroundStationPosition gsPos, final Date date) {
+    public SatPos getPosition(final GroundStationPosition gsPos, final Date date) {
 
         /* This is the stuff we need to do repetitively while tracking. */
-        satPos = new SatPos();
+        final PropagationContext context = propagate(date);
+        final SatPos satPos = context.satPos;
+
+        final Vector4 squintVector = new Vector4();
+
+        // /** All angles in rads. Distance in km. Velocity in km/S **/
+        // /* Calculate satellite Azi, Ele, Range and Range-rate */
+        AbstractSatellite.calculateObs(siderealTime(context), context.position, context.velocity, gsPos, squintVector,
+                satPos);
+        /* Calculate satellite Lat North, Lon East and Alt. */
+
+        AbstractSatellite.calculateLatLonAlt(siderealTime(context), context.position, satPos, geodeticConversion);
+
+        satPos.setTime(date);
+
+        satPos.setEclipsed(isEclipsed(context));
+        satPos.setEclipseDepth(context.eclipseDepth);
 
-        julUTC = AbstractSatellite.calcCurrentDaynum(date) + 2444238.5;
+        return satPos;
+    }
+
+    /**
+     * Calculates the position and velocity vectors (km and km/s) of the satellite into a new
+     * context. Uses no state other than the immutable orbital model, so it may be called from many
+     * threads at once.
+     *
+     * @param date the time
+     * @return the context
+     */
+    private PropagationContext propagate(final Date date) {
+        final PropagationEvent event = new PropagationEvent();
+        event.begin();
+
+        final PropagationContext context = createContext();
+
+        context.julUTC = AbstractSatellite.julianDate(date);
 
         /* Convert satellite'S epoch time to Julian */
         /* and calculate time since epoch in minutes */
 
-        final double tsince = (julUTC - julEpoch) * MINS_PER_DAY;
+        final double tsince = (context.julUTC - julEpoch) * MINS_PER_DAY;
 
         if (tle.isDeepspace()) {
-            calculateSDP4(tsince);
+            calculateSDP4(context, tsince);
         }
         else {
-            calculateSGP4(tsince);
+            calculateSGP4(context, tsince);
         }
 
         /* Scale position and velocity vectors to km and km/sec */
-        AbstractSatellite.convertSatState(position, velocity);
+        AbstractSatellite.convertSatState(context.position, context.velocity);
 
         /* Calculate velocity of satellite */
 
-        AbstractSatellite.magnitude(velocity);
-
-        final Vector4 squintVector = new Vector4();
-
-        // /** All angles in rads. Distance in km. Velocity in km/S **/
-        // /* Calculate satellite Azi, Ele, Range and Range-rate */
-        calculateObs(julUTC, position, velocity, gsPos, squintVector);
-        /* Calculate satellite Lat North, Lon East and Alt. */
-
-        calculateLatLonAlt(julUTC, position, satPos);
+        AbstractSatellite.magnitude(context.velocity);
 
-        satPos.setTime(date);
+        Metrics.getCollector().propagated(tle.isDeepspace(), context.keplerIterations);
 
-        satPos.setEclipsed(isEclipsed());
-        satPos.setEclipseDepth(eclipseDepth);
+        event.end();
+        if (event.shouldCommit()) {
+            event.satellite = tle.getName();
+            event.deepSpace = tle.isDeepspace();
+            event.minutesFromEpoch = tsince;
+            event.keplerIterations = context.keplerIterations;
+            event.commit();
+        }
 
-        return satPos;
+        return context;
     }
 
     /**
@@ -415,7 +494,7 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      */
     @Override
     @Deprecated
-    public synchronized void getPosition(final GroundStationPosition gsPos,
+    public void getPosition(final GroundStationPosition gsPos,
             final SatPos satellitePosition, final Date date) {
 
         satellitePosition.copy(getPosition(gsPos, date));
@@ -428,23 +507,24 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      *
      * Reference: The 1992 Astronomical Almanac, page K11.
      *
-     * @param time the time
+     * @param siderealTime the Greenwich mean sidereal time
      * @param gsPos the ground station position
      * @param obsPos the position of the observer
      * @param obsVel the velocity of the observer
+     * @return the local sidereal time of the observer
      */
-    private static void calculateUserPosVel(final double time,
+    private static double calculateUserPosVel(final double siderealTime,
             final GroundStationPosition gsPos, final Vector4 obsPos, final Vector4 obsVel) {
 
-        gsPos.setTheta(AbstractSatellite.mod2PI(AbstractSatellite.thetaGJD(time) + DEG2RAD
-                * gsPos.getLongitude()));
+        final double theta = AbstractSatellite.mod2PI(siderealTime + DEG2RAD
+                * gsPos.getLongitude());
         final double c = AbstractSatellite.invert(Math.sqrt(1.0 + FLATTENING_FACTOR * (FLATTENING_FACTOR - 2)
                 * AbstractSatellite.sqr(Math.sin(DEG2RAD * gsPos.getLatitude()))));
         final double sq = AbstractSatellite.sqr(1.0 - FLATTENING_FACTOR) * c;
         final double achcp = (EARTH_RADIUS_KM * c + gsPos.getHeightAMSL() / 1000.0)
                 * Math.cos(DEG2RAD * gsPos.getLatitude());
-        obsPos.setXYZ(achcp * Math.cos(gsPos.getTheta()),
-                achcp * Math.sin(gsPos.getTheta()),
+        obsPos.setXYZ(achcp * Math.cos(theta),
+                achcp * Math.sin(theta),
                 (EARTH_RADIUS_KM * sq + gsPos.getHeightAMSL() / 1000.0)
                         * Math.sin(DEG2RAD * gsPos.getLatitude()));
         obsVel.setXYZ(-MFACTOR * obsPos.getY(),
@@ -452,6 +532,8 @@ abstract class AbstractSatellite implements Satellite, Serializable {
                 0);
         AbstractSatellite.magnitude(obsPos);
         AbstractSatellite.magnitude(obsVel);
+
+        return theta;
     }
 
     /**
@@ -467,23 +549,24 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      * in radians. Again, calculations are based ontopocentric position using the WGS '72 geoid and
      * incorporating atmospheric refraction.
      *
-     * @param julianUTC Julian date of UTC
+     * @param siderealTime the Greenwich mean sidereal time
      * @param positionVector the position vector
      * @param velocityVector the velocity vector
      * @param gsPos the ground tstation position
      * @param squintVector the squint vector
+     * @param satPos receives the azimuth, elevation, range and range rate
      *
      */
-    private void calculateObs(final double julianUTC,
+    private static void calculateObs(final double siderealTime,
             final Vector4 positionVector, final Vector4 velocityVector, final GroundStationPosition gsPos,
-            final Vector4 squintVector) {
+            final Vector4 squintVector, final SatPos satPos) {
 
         final Vector4 obsPos = new Vector4();
         final Vector4 obsVel = new Vector4();
         final Vector4 range = new Vector4();
         final Vector4 rgvel = new Vector4();
 
-        AbstractSatellite.calculateUserPosVel(julianUTC, gsPos, obsPos, obsVel);
+        final double theta = AbstractSatellite.calculateUserPosVel(siderealTime, gsPos, obsPos, obsVel);
 
         range.setXYZ(positionVector.getX() - obsPos.getX(),
                 positionVector.getY() - obsPos.getY(),
@@ -503,8 +586,8 @@ abstract class AbstractSatellite implements Satellite, Serializable {
 
         final double sinLat = Math.sin(DEG2RAD * gsPos.getLatitude());
         final double cosLat = Math.cos(DEG2RAD * gsPos.getLatitude());
-        final double sinTheta = Math.sin(gsPos.getTheta());
-        final double cosTheta = Math.cos(gsPos.getTheta());
+        final double sinTheta = Math.sin(theta);
+        final double cosTheta = Math.cos(theta);
         final double topS = sinLat * cosTheta * range.getX() + sinLat * sinTheta
                 * range.getY() - cosLat * range.getZ();
         final double topE = -sinTheta * range.getX() + cosTheta * range.getY();
@@ -525,16 +608,9 @@ abstract class AbstractSatellite implements Satellite, Serializable {
         satPos.setRange(range.getW());
         satPos.setRangeRate(AbstractSatellite.dot(range, rgvel) / range.getW());
 
-        final int sector = (int)(satPos.getAzimuth() / TWO_PI
-                * 360.0 / 10.0);
-        
-        double elevation = (satPos.getElevation() / TWO_PI) * 360.0;
-        
-        if (elevation > 0.0 && elevation > 90) {
-            elevation = 180 - elevation;
-        }
+        final double clearance = satPos.getElevation() - gsPos.getHorizonElevation(azim);
 
-        satPos.setAboveHorizon(elevation - gsPos.getHorizonElevations()[sector] > EPSILON);
+        satPos.setAboveHorizon(Math.toDegrees(clearance) > EPSILON);
     }
 
     /**
@@ -763,38 +839,177 @@ abstract class AbstractSatellite implements Satellite, Serializable {
     }
 
     /**
-     * Solves Keplers' Equation.
+     * Solves Kepler's equation, applies the short period periodics and sets the position and
+     * velocity vectors.
      *
-     * @param temp an array of temporary values we pass around as part of the orbit calculation.
-     * @param axn
-     * @param ayn
-     * @param capu
+     * @param a the semi major axis
+     * @param xn the mean motion
+     * @param axn the eccentricity times the cosine of the argument of perigee
+     * @param ayn the eccentricity times the sine of the argument of perigee
+     * @param capu the mean anomaly plus the argument of perigee
+     * @param xnode the right ascension of the ascending node
+     * @param xinc the inclination
+     * @param cosio the cosine of the inclination at epoch
+     * @param sinio the sine of the inclination at epoch
+     * @param x3thm1 3cos^2(i) - 1
+     * @param x1mth2 1 - cos^2(i)
+     * @param x7thm1 7cos^2(i) - 1
+     * @param context receives the position and velocity vectors
      */
-    protected static void converge(final double[] temp, final double axn,
-            final double ayn, final double capu) {
+    protected final void calculatePositionAndVelocity(final PropagationContext context, final double a,
+            final double xn, final double axn,
+            final double ayn, final double capu, final double xnode, final double xinc, final double cosio,
+            final double sinio, final double x3thm1, final double x1mth2, final double x7thm1) {
 
-        boolean converged = false;
-        int i = 0;
+        final double[] state = context.state;
 
-        do {
-            temp[7] = Math.sin(temp[2]);
-            temp[8] = Math.cos(temp[2]);
-            temp[3] = axn * temp[7];
-            temp[4] = ayn * temp[8];
-            temp[5] = axn * temp[8];
-            temp[6] = ayn * temp[7];
-            final double epw = (capu - temp[4] + temp[3] - temp[2])
-                    / (1.0 - temp[5] - temp[6]) + temp[2];
+        context.keplerIterations = AbstractSatellite.solveKepler(capu, axn, ayn, state);
 
-            if (Math.abs(epw - temp[2]) <= EPSILON) {
-                converged = true;
+        AbstractSatellite.calculateShortPeriodState(a, xn, axn, ayn, state[0], state[1], xnode, xinc, cosio, sinio,
+                x3thm1, x1mth2, x7thm1, state, 0);
+
+        context.position.setXYZ(state[0], state[1], state[2]);
+        context.velocity.setXYZ(state[3], state[4], state[5]);
+    }
+
+    /**
+     * Solves Kepler's equation for one satellite. Used by both the single satellite models and
+     * {@link LEOBatchPropagator}.
+     *
+     * The equation is solved with Halley steps starting from capu. After a correction below
+     * SMALL_ANGLE (0.01 rad) the sine and cosine are carried forward with the angle addition
+     * formulae, using a series for the sine and cosine of the correction; after a larger one, as
+     * is common on the first step for eccentricities of 0.1 and above, Math.sin and Math.cos are
+     * evaluated again.
+     *
+     * @param capu the mean anomaly plus the argument of perigee
+     * @param axn the eccentricity times the cosine of the argument of perigee
+     * @param ayn the eccentricity times the sine of the argument of perigee
+     * @param sinCos receives the sine and cosine of the solution in its first two elements
+     * @return the number of iterations taken
+     */
+    static int solveKepler(final double capu, final double axn, final double ayn, final double[] sinCos) {
+
+        double epw = capu;
+        double sinepw = Math.sin(epw);
+        double cosepw = Math.cos(epw);
+
+        int iterations = 0;
+
+        while (iterations < MAX_KEPLER_ITERATIONS) {
+            iterations++;
+
+            final double esine = axn * sinepw - ayn * cosepw;
+            final double ecose = axn * cosepw + ayn * sinepw;
+            final double residual = capu - epw + esine;
+            final double slope = 1.0 - ecose;
+            final double newton = residual / slope;
+            final double delta = residual / (slope + 0.5 * newton * esine);
+
+            epw += delta;
+
+            if (Math.abs(delta) < SMALL_ANGLE) {
+                final double d2 = delta * delta;
+                final double cosd = 1.0 - d2 * (0.5 - d2 * (1.0 / 24.0 - d2 / 720.0));
+                final double sind = delta * (1.0 - d2 * (1.0 / 6.0 - d2 * (1.0 / 120.0 - d2 / 5040.0)));
+                final double sinNext = sinepw * cosd + cosepw * sind;
+                cosepw = cosepw * cosd - sinepw * sind;
+                sinepw = sinNext;
             }
             else {
-                temp[2] = epw;
+                sinepw = Math.sin(epw);
+                cosepw = Math.cos(epw);
             }
 
+            if (Math.abs(delta) <= EPSILON) {
+                break;
+            }
         }
-        while (i++ < 10 && !converged);
+
+        sinCos[0] = sinepw;
+        sinCos[1] = cosepw;
+
+        return iterations;
+    }
+
+    /**
+     * Applies the short period periodics to the solution of Kepler's equation for one satellite
+     * and works out its position and velocity vectors, in earth radii and earth radii per minute.
+     * Used by both the single satellite models and {@link LEOBatchPropagator}.
+     *
+     * @param a the semi major axis
+     * @param xn the mean motion
+     * @param axn the eccentricity times the cosine of the argument of perigee
+     * @param ayn the eccentricity times the sine of the argument of perigee
+     * @param sinepw the sine of the solution of Kepler's equation
+     * @param cosepw the cosine of the solution of Kepler's equation
+     * @param xnode the right ascension of the ascending node
+     * @param xinc the inclination
+     * @param cosio the cosine of the inclination at epoch
+     * @param sinio the sine of the inclination at epoch
+     * @param x3thm1 3cos^2(i) - 1
+     * @param x1mth2 1 - cos^2(i)
+     * @param x7thm1 7cos^2(i) - 1
+     * @param state receives x, y, z, vx, vy and vz
+     * @param offset the index in state of x
+     */
+    static void calculateShortPeriodState(final double a, final double xn, final double axn, final double ayn,
+            final double sinepw, final double cosepw, final double xnode, final double xinc, final double cosio,
+            final double sinio, final double x3thm1, final double x1mth2, final double x7thm1,
+            final double[] state, final int offset) {
+
+        final double ecose = axn * cosepw + ayn * sinepw;
+        final double esine = axn * sinepw - ayn * cosepw;
+        final double elsq = axn * axn + ayn * ayn;
+        final double onemel = 1.0 - elsq;
+        final double pl = a * onemel;
+        final double r = a * (1.0 - ecose);
+        final double rinv = 1.0 / r;
+        final double rdot = XKE * Math.sqrt(a) * esine * rinv;
+        final double rfdot = XKE * Math.sqrt(pl) * rinv;
+        final double aor = a * rinv;
+        final double betal = Math.sqrt(onemel);
+        final double temp3 = 1.0 / (1.0 + betal);
+        final double cosu = aor * (cosepw - axn + ayn * esine * temp3);
+        final double sinu = aor * (sinepw - ayn - axn * esine * temp3);
+        final double u = Math.atan2(sinu, cosu);
+        final double sin2u = 2.0 * sinu * cosu;
+        final double cos2u = 2.0 * cosu * cosu - 1;
+        final double plinv = 1.0 / pl;
+        final double temp1 = CK2 * plinv;
+        final double temp2 = temp1 * plinv;
+
+        /* Update for short periodics */
+        final double rk = r * (1.0 - 1.5 * temp2 * betal * x3thm1) + 0.5 * temp1 * x1mth2 * cos2u;
+        final double uk = u - 0.25 * temp2 * x7thm1 * sin2u;
+        final double xnodek = xnode + 1.5 * temp2 * cosio * sin2u;
+        final double xinck = xinc + 1.5 * temp2 * cosio * sinio * cos2u;
+        final double rdotk = rdot - xn * temp1 * x1mth2 * sin2u;
+        final double rfdotk = rfdot + xn * temp1 * (x1mth2 * cos2u + 1.5 * x3thm1);
+
+        /* Orientation vectors */
+        final double sinuk = Math.sin(uk);
+        final double cosuk = Math.cos(uk);
+        final double sinik = Math.sin(xinck);
+        final double cosik = Math.cos(xinck);
+        final double sinnok = Math.sin(xnodek);
+        final double cosnok = Math.cos(xnodek);
+        final double xmx = -sinnok * cosik;
+        final double xmy = cosnok * cosik;
+        final double ux = xmx * sinuk + cosnok * cosuk;
+        final double uy = xmy * sinuk + sinnok * cosuk;
+        final double uz = sinik * sinuk;
+        final double vx = xmx * cosuk - cosnok * sinuk;
+        final double vy = xmy * cosuk - sinnok * sinuk;
+        final double vz = sinik * cosuk;
+
+        /* Position and velocity */
+        state[offset] = ux * rk;
+        state[offset + 1] = uy * rk;
+        state[offset + 2] = uz * rk;
+        state[offset + 3] = rdotk * ux + rfdotk * vx;
+        state[offset + 4] = rdotk * uy + rfdotk * vy;
+        state[offset + 5] = rdotk * uz + rfdotk * vz;
     }
 
     /**
@@ -808,33 +1023,12 @@ abstract class AbstractSatellite implements Satellite, Serializable {
     @Override
     public synchronized void calculateSatelliteVectors(final Date date) {
         // Re-initialize, object can contain data from previous calculations
-        satPos = new SatPos();
-
-        // Date/time for which the satellite position and velocity are calculated
-        julUTC = AbstractSatellite.calcCurrentDaynum(date) + 2444238.5;
-
-        // Calculate time since epoch in minutes
-
-        final double tsince = (julUTC - julEpoch) * MINS_PER_DAY;
-
-        // Calculations of satellite position, no ground stations involved here yet
-        if (tle.isDeepspace()) {
-            calculateSDP4(tsince);
-        }
-        else {
-            calculateSGP4(tsince);
-        }
-
-        // Scale position and velocity vectors to km and km/s
-        AbstractSatellite.convertSatState(position, velocity);
+        current = propagate(date);
 
-        // Calculate the magnitude of the velocity of satellite
-        AbstractSatellite.magnitude(velocity);
+        current.satPos.setEclipsed(isEclipsed(current));
+        current.satPos.setEclipseDepth(current.eclipseDepth);
 
-        satPos.setEclipsed(isEclipsed());
-        satPos.setEclipseDepth(eclipseDepth);
-
-        satPos.setTime(date);
+        current.satPos.setTime(date);
     }
 
     /**
@@ -842,12 +1036,15 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      * determined position of the satellite.
      *
      * @return satPos The SatPos object in which the ground track of the satellite is stored.
+     * @throws IllegalStateException calculateSatelliteVectors(..) has not been called
      */
     @Override
     public synchronized SatPos calculateSatelliteGroundTrack() {
-        calculateLatLonAlt(julUTC, position, this.satPos);
+        final PropagationContext context = currentContext();
+        AbstractSatellite.calculateLatLonAlt(siderealTime(context), context.position, context.satPos,
+                geodeticConversion);
 
-        return this.satPos;
+        return context.satPos;
     }
 
     /**
@@ -859,27 +1056,155 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      * @param gsPos The position of the ground station to perform the calculations for.
      * @return satPos The SatPos object where the position of the satellite is stored, as seen from
      *         a ground station.
+     * @throws IllegalStateException calculateSatelliteVectors(..) has not been called
      */
     @Override
     public synchronized SatPos calculateSatPosForGroundStation(final GroundStationPosition gsPos) {
         final Vector4 squintVector = new Vector4();
         // All angles in rads. Distance in km. Velocity in km/s
         // Calculate satellite Azi, Ele, Range and Range-rate
-        calculateObs(julUTC, position, velocity, gsPos, squintVector);
+        final PropagationContext context = currentContext();
+        AbstractSatellite.calculateObs(siderealTime(context), context.position, context.velocity, gsPos, squintVector,
+                context.satPos);
 
-        return this.satPos;
+        return context.satPos;
     }
 
-    protected SatPos getSatPos() {
-        return satPos;
+    /**
+     * @return the result of the last call to calculateSatelliteVectors(..)
+     * @throws IllegalStateException calculateSatelliteVectors(..) has not been called
+     */
+    private PropagationContext currentContext() throws IllegalStateException {
+        if (null == current) {
+            throw new IllegalStateException("calculateSatelliteVectors(..) must be called first");
+        }
+
+        return current;
+    }
+
+    /**
+     * Calculates the position of the satellite as seen from several ground stations, from a single
+     * propagation. Like getPosition(..) it may be called from many threads.
+     *
+     * @param stations the ground stations, a null entry gets only the ground track
+     * @param date the time
+     * @return a new SatPos for each station, each also holding the ground track
+     */
+    final SatPos[] getPositions(final GroundStationPosition[] stations, final Date date) {
+        final PropagationContext context = propagate(date);
+        final SatPos groundTrack = context.satPos;
+
+        AbstractSatellite.calculateLatLonAlt(siderealTime(context), context.position, groundTrack, geodeticConversion);
+        groundTrack.setTime(date);
+        groundTrack.setEclipsed(isEclipsed(context));
+        groundTrack.setEclipseDepth(context.eclipseDepth);
+
+        final SatPos[] positions = new SatPos[stations.length];
+        final Vector4 squintVector = new Vector4();
+
+        for (int i = 0; i < stations.length; i++) {
+            final SatPos satPos = new SatPos();
+            satPos.copy(groundTrack);
+
+            if (stations[i] != null) {
+                AbstractSatellite.calculateObs(siderealTime(context), context.position, context.velocity, stations[i],
+                        squintVector, satPos);
+            }
+
+            positions[i] = satPos;
+        }
+
+        return positions;
+    }
+
+    /**
+     * Calculates the ground track (sub satellite point) of the satellite at a time, without any
+     * observation from a ground station. Like getPosition(..) it may be called from many threads.
+     *
+     * @param date the time
+     * @return a new SatPos holding the latitude, longitude, altitude and time
+     */
+    final SatPos calculateGroundTrack(final Date date) {
+        return calculateGroundTrack(date, null, 0);
+    }
+
+    /**
+     * Calculates the ground track and, from the same propagation, the position (km) and velocity
+     * (km/s) vectors.
+     *
+     * @param date the time
+     * @param state receives x, y, z, vx, vy and vz, or null if they are not wanted
+     * @param offset the index in state of x
+     * @return a new SatPos holding the latitude, longitude, altitude and time
+     */
+    final SatPos calculateGroundTrack(final Date date, final double[] state, final int offset) {
+        final PropagationContext context = propagate(date);
+        AbstractSatellite.calculateLatLonAlt(siderealTime(context), context.position, context.satPos,
+                geodeticConversion);
+        context.satPos.setTime(date);
+
+        if (state != null) {
+            AbstractSatellite.copyStateVector(context, state, offset);
+        }
+
+        return context.satPos;
+    }
+
+    protected synchronized SatPos getSatPos() {
+        return currentContext().satPos;
+    }
+
+    /**
+     * @param conversion the method used to find the latitude and altitude of the satellite
+     */
+    final void setGeodeticConversion(final GeodeticConversion conversion) {
+        this.geodeticConversion = conversion;
+    }
+
+    /**
+     * @return the Julian date of the TLE epoch
+     */
+    final double getJulEpoch() {
+        return julEpoch;
+    }
+
+    /**
+     * Copies the most recently calculated position (km) and velocity (km/s) vectors.
+     *
+     * @param state receives x, y, z, vx, vy and vz
+     */
+    final synchronized void getStateVector(final double[] state) {
+        AbstractSatellite.copyStateVector(currentContext(), state, 0);
+    }
+
+    /**
+     * Calculates the position (km) and velocity (km/s) vectors at a time. Like getPosition(..) it
+     * may be called from many threads.
+     *
+     * @param date the time
+     * @param state receives x, y, z, vx, vy and vz
+     * @param offset the index in state of x
+     */
+    final void calculateStateVector(final Date date, final double[] state, final int offset) {
+        AbstractSatellite.copyStateVector(propagate(date), state, offset);
+    }
+
+    private static void copyStateVector(final PropagationContext context, final double[] state, final int offset) {
+        state[offset] = context.position.getX();
+        state[offset + 1] = context.position.getY();
+        state[offset + 2] = context.position.getZ();
+        state[offset + 3] = context.velocity.getX();
+        state[offset + 4] = context.velocity.getY();
+        state[offset + 5] = context.velocity.getZ();
     }
 
     /**
      * Determines if the satellite is in sunlight.
      */
-    private boolean isEclipsed() {
+    private boolean isEclipsed(final PropagationContext context) {
 
-        final Vector4 sunVector = calculateSunVector();
+        final Vector4 position = context.position;
+        final Vector4 sunVector = calculateSunVector(context.julUTC);
 
         /* Calculates stellite's eclipse status and depth */
 
@@ -890,12 +1215,29 @@ abstract class AbstractSatellite implements Satellite, Serializable {
         final double sdSun = Math.asin(SOLAR_RADIUS / rho.w);
         final Vector4 earth = Vector4.scalarMultiply(position, -1);
         final double delta = Vector4.angle(sunVector, earth);
-        eclipseDepth = sdEarth - sdSun - delta;
+        context.eclipseDepth = sdEarth - sdSun - delta;
+        eclipseDepth = context.eclipseDepth;
+
+        return sdEarth >= sdSun && context.eclipseDepth >= 0;
+    }
 
-        return sdEarth >= sdSun && eclipseDepth >= 0;
+    /**
+     * Gets the elevation of the sun from a ground station, with the same solar ephemeris as the
+     * eclipse calculation.
+     *
+     * @param timeMillis the time in milliseconds since the Java epoch
+     * @param gsPos the ground station
+     * @return the elevation of the centre of the sun in radians
+     */
+    static double getSolarElevation(final long timeMillis, final GroundStationPosition gsPos) {
+        final double julUTC = AbstractSatellite.julianDate(timeMillis);
+        final SatPos sun = new SatPos();
+        AbstractSatellite.calculateObs(AbstractSatellite.thetaGJD(julUTC), AbstractSatellite.calculateSunVector(julUTC),
+                new Vector4(), gsPos, new Vector4(), sun);
+        return sun.getElevation();
     }
 
-    private Vector4 calculateSunVector() {
+    private static Vector4 calculateSunVector(final double julUTC) {
 
         final double mjd = julUTC - 2415020.0;
         final double year = 1900 + mjd / 365.25;
@@ -940,7 +1282,7 @@ abstract class AbstractSatellite implements Satellite, Serializable {
      * Values determined using data from 1950-1991 in the 1990 Astronomical Almanac. See
      * DELTA_ET.WQ1 for details.
      */
-    private double deltaEt(final double year) {
+    private static double deltaEt(final double year) {
 
         return 26.465 + 0.747622 * (year - 1950) + 1.886913 * Math.sin(TWO_PI * (year - 1975) / 33);
     }
@@ -948,11 +1290,12 @@ abstract class AbstractSatellite implements Satellite, Serializable {
     /**
      * Returns angle in radians from argument in degrees.
      */
-    private double radians(final double degrees) {
+    private static double radians(final double degrees) {
         return degrees * DEG2RAD;
     }
 
-    protected void calculatePhase(final double xlt, final double xnode, final double omgadf) {
+    protected void calculatePhase(final PropagationContext context, final double xlt, final double xnode,
+            final double omgadf) {
         /* Phase in radians */
         double phaseValue = xlt - xnode - omgadf + TWO_PI;
 
@@ -960,33 +1303,7 @@ abstract class AbstractSatellite implements Satellite, Serializable {
             phaseValue += TWO_PI;
         }
 
-        satPos.setPhase(AbstractSatellite.mod2PI(phaseValue));
-    }
-
-    protected void calculatePositionAndVelocity(final double rk,
-            final double uk, final double xnodek, final double xinck, final double rdotk, final double rfdotk) {
-        /* Orientation vectors */
-        final double sinuk = Math.sin(uk);
-        final double cosuk = Math.cos(uk);
-        final double sinik = Math.sin(xinck);
-        final double cosik = Math.cos(xinck);
-        final double sinnok = Math.sin(xnodek);
-        final double cosnok = Math.cos(xnodek);
-        final double xmx = -sinnok * cosik;
-        final double xmy = cosnok * cosik;
-        final double ux = xmx * sinuk + cosnok * cosuk;
-        final double uy = xmy * sinuk + sinnok * cosuk;
-        final double uz = sinik * sinuk;
-        final double vx = xmx * cosuk - cosnok * sinuk;
-        final double vy = xmy * cosuk - sinnok * sinuk;
-        final double vz = sinik * cosuk;
-
-        /* Position and velocity */
-        position.setXYZ(ux, uy, uz);
-        position.multiply(rk);
-        velocity.setX(rdotk * ux + rfdotk * vx);
-        velocity.setY(rdotk * uy + rfdotk * vy);
-        velocity.setZ(rdotk * uz + rfdotk * vz);
+        context.satPos.setPhase(AbstractSatellite.mod2PI(phaseValue));
     }
 
     protected static double invert(final double value) {
@@ -994,9 +1311,35 @@ abstract class AbstractSatellite implements Satellite, Serializable {
     }
 
     /**
-     * @return the eclipseDepth
+     * @return the eclipse depth from the most recent calculation, by any thread
      */
     public final double getEclipseDepth() {
         return eclipseDepth;
     }
+
+    /**
+     * The results of a single propagation. Each call to getPosition(..) works in its own context,
+     * so that the same satellite can be propagated by many threads at once.
+     */
+    static class PropagationContext {
+
+        /** Position vector of the satellite. */
+        private final Vector4 position = new Vector4();
+        /** Velocity vector of the satellite. */
+        private final Vector4 velocity = new Vector4();
+        /** Satellite position, as returned to the caller. */
+        private final SatPos satPos = new SatPos();
+        /** Date/time at which the position and velocity were calculated. */
+        private double julUTC;
+        /** Greenwich mean sidereal time at julUTC, NaN until first needed. */
+        private double siderealTime = Double.NaN;
+        private double eclipseDepth;
+        /** Iterations taken to solve Kepler's equation. */
+        private int keplerIterations;
+        /** Scratch space for the solution of Kepler's equation and the state vector. */
+        private final double[] state = new double[6];
+
+        PropagationContext() {
+        }
+    }
 }
@@ -0,0 +1,207 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Observes one satellite state from many ground stations at once.
+ *
+ * The geocentric position of each station is worked out once, when the batch is created. Each
+ * observation then computes the Greenwich sidereal time once and turns every station through
+ * it with a rotation, so no trigonometric function is called per station except for the
+ * azimuth and elevation themselves. Results go into primitive arrays, indexed by station, with
+ * the same values as {@link Satellite#getPosition(GroundStationPosition, Date)}.
+ *
+ * A batch holds no mutable state and may be used from many threads.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public final class BatchObservation {
+
+    private static final double DEG2RAD = Math.PI / 180.0;
+
+    private final int size;
+    private final double[] sinLatitude;
+    private final double[] cosLatitude;
+    private final double[] sinLongitude;
+    private final double[] cosLongitude;
+    /** Distance of each station from the Earth's axis, km. */
+    private final double[] axisDistance;
+    /** Height of each station above the equatorial plane, km. */
+    private final double[] equatorHeight;
+
+    /**
+     * Constructor.
+     *
+     * @param stations the ground stations
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public BatchObservation(final List<GroundStationPosition> stations) throws IllegalArgumentException {
+
+        if (null == stations || stations.isEmpty()) {
+            throw new IllegalArgumentException("Stations have not been set");
+        }
+
+        size = stations.size();
+        sinLatitude = new double[size];
+        cosLatitude = new double[size];
+        sinLongitude = new double[size];
+        cosLongitude = new double[size];
+        axisDistance = new double[size];
+        equatorHeight = new double[size];
+
+        final double f = AbstractSatellite.FLATTENING_FACTOR;
+
+        for (int i = 0; i < size; i++) {
+            final GroundStationPosition station = stations.get(i);
+            final double latitude = DEG2RAD * station.getLatitude();
+            final double heightKm = station.getHeightAMSL() / 1000.0;
+
+            sinLatitude[i] = Math.sin(latitude);
+            cosLatitude[i] = Math.cos(latitude);
+            sinLongitude[i] = Math.sin(DEG2RAD * station.getLongitude());
+            cosLongitude[i] = Math.cos(DEG2RAD * station.getLongitude());
+
+            final double c = 1.0 / Math.sqrt(1.0 + f * (f - 2) * sinLatitude[i] * sinLatitude[i]);
+            final double sq = (1.0 - f) * (1.0 - f) * c;
+            axisDistance[i] = (AbstractSatellite.EARTH_RADIUS_KM * c + heightKm) * cosLatitude[i];
+            equatorHeight[i] = (AbstractSatellite.EARTH_RADIUS_KM * sq + heightKm) * sinLatitude[i];
+        }
+    }
+
+    /**
+     * @return the number of stations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Observes a satellite state from every station. The output arrays may be null for values
+     * that are not wanted.
+     *
+     * @param timeMillis the time of the state
+     * @param state x, y, z (km) and vx, vy, vz (km/s) in the TEME frame
+     * @param stateOffset the index in state of x
+     * @param azimuth receives the azimuth of each station (radians)
+     * @param elevation receives the elevation (radians)
+     * @param range receives the range (km)
+     * @param rangeRate receives the range rate (km/s)
+     * @param outputOffset the index in the output arrays of the first station
+     */
+    public void observe(final long timeMillis, final double[] state, final int stateOffset,
+            final double[] azimuth, final double[] elevation, final double[] range, final double[] rangeRate,
+            final int outputOffset) {
+
+        final double gmst = AbstractSatellite.thetaGJD(AbstractSatellite.julianDate(timeMillis));
+        final double sinGmst = Math.sin(gmst);
+        final double cosGmst = Math.cos(gmst);
+
+        final double x = state[stateOffset];
+        final double y = state[stateOffset + 1];
+        final double z = state[stateOffset + 2];
+        final double vx = state[stateOffset + 3];
+        final double vy = state[stateOffset + 4];
+        final double vz = state[stateOffset + 5];
+
+        for (int i = 0; i < size; i++) {
+            // local sidereal time of the station, by rotating its longitude through the GMST
+            final double sinTheta = sinGmst * cosLongitude[i] + cosGmst * sinLongitude[i];
+            final double cosTheta = cosGmst * cosLongitude[i] - sinGmst * sinLongitude[i];
+
+            final double obsX = axisDistance[i] * cosTheta;
+            final double obsY = axisDistance[i] * sinTheta;
+
+            final double rx = x - obsX;
+            final double ry = y - obsY;
+            final double rz = z - equatorHeight[i];
+            final double r = Math.sqrt(rx * rx + ry * ry + rz * rz);
+
+            final int out = outputOffset + i;
+
+            if (azimuth != null || elevation != null) {
+                final double topS = sinLatitude[i] * (cosTheta * rx + sinTheta * ry) - cosLatitude[i] * rz;
+                final double topE = -sinTheta * rx + cosTheta * ry;
+                final double topZ = cosLatitude[i] * (cosTheta * rx + sinTheta * ry) + sinLatitude[i] * rz;
+
+                if (azimuth != null) {
+                    double azim = Math.atan(-topE / topS);
+                    if (topS > 0.0) {
+                        azim = azim + Math.PI;
+                    }
+                    if (azim < 0.0) {
+                        azim = azim + AbstractSatellite.TWO_PI;
+                    }
+                    azimuth[out] = azim;
+                }
+
+                if (elevation != null) {
+                    elevation[out] = Math.asin(topZ / r);
+                }
+            }
+
+            if (range != null) {
+                range[out] = r;
+            }
+
+            if (rangeRate != null) {
+                // the station moves with the Earth's rotation
+                final double dvx = vx + AbstractSatellite.MFACTOR * obsY;
+                final double dvy = vy - AbstractSatellite.MFACTOR * obsX;
+                rangeRate[out] = (rx * dvx + ry * dvy + rz * vz) / r;
+            }
+        }
+    }
+
+    /**
+     * Propagates a satellite once per step over a time window and observes it from every station.
+     * The value for step s and station i goes at index s * size() + i of each output array.
+     *
+     * @param satellite the satellite
+     * @param startMillis the time of the first step
+     * @param stepMillis the time between steps
+     * @param steps the number of steps
+     * @param azimuth receives the azimuths (radians), or null
+     * @param elevation receives the elevations (radians), or null
+     * @param range receives the ranges (km), or null
+     * @param rangeRate receives the range rates (km/s), or null
+     */
+    public void observe(final Satellite satellite, final long startMillis, final long stepMillis, final int steps,
+            final double[] azimuth, final double[] elevation, final double[] range, final double[] rangeRate) {
+
+        final AbstractSatellite propagator = (AbstractSatellite)satellite;
+        final double[] state = new double[6];
+
+        for (int step = 0; step < steps; step++) {
+            final long time = startMillis + step * stepMillis;
+            propagator.calculateStateVector(new Date(time), state, 0);
+            observe(time, state, 0, azimuth, elevation, range, rangeRate, step * size);
+        }
+    }
+}
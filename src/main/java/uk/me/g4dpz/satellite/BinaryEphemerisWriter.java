@@ -0,0 +1,134 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Writes an ephemeris in a compact big endian binary form.
+ *
+ * The file starts with the int {@link #MAGIC} and the int {@link #VERSION}. Each segment is the
+ * catalog number (int), the name (short length and UTF-8 bytes), the start time and step in
+ * milliseconds (longs) and the number of states (int), followed by that many states of six
+ * doubles: x, y, z (km) and vx, vy, vz (km/s) in the TEME frame. The times are implied by the
+ * start and step, so states must be written at exactly those times.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class BinaryEphemerisWriter implements EphemerisWriter {
+
+    /** "P4JE". */
+    public static final int MAGIC = 0x50344A45;
+    public static final int VERSION = 1;
+
+    private static final int STATE_BYTES = 6 * 8;
+
+    private final ChannelOutput out;
+    private long startMillis;
+    private long stepMillis;
+    private int count;
+    private int written = -1;
+
+    /**
+     * @param file the file to write, replacing anything already there
+     * @throws IOException the file could not be written
+     */
+    public BinaryEphemerisWriter(final Path file) throws IOException {
+        this(ChannelOutput.open(file));
+    }
+
+    /**
+     * @param channel the channel to write to, which is closed with the writer
+     * @throws IOException the channel could not be written
+     */
+    public BinaryEphemerisWriter(final WritableByteChannel channel) throws IOException {
+        this(new ChannelOutput(channel));
+    }
+
+    private BinaryEphemerisWriter(final ChannelOutput out) throws IOException {
+        this.out = out;
+        out.reserve(8).putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public void startSegment(final TLE tle, final long theStartMillis, final long theStepMillis, final int theCount)
+            throws IOException {
+
+        if (written >= 0) {
+            throw new IllegalStateException("Segment has not been ended");
+        }
+
+        final byte[] name = tle.getName().getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = out.reserve(4 + 2 + name.length + 8 + 8 + 4);
+        buffer.putInt(tle.getCatnum());
+        buffer.putShort((short)name.length);
+        buffer.put(name);
+        buffer.putLong(theStartMillis);
+        buffer.putLong(theStepMillis);
+        buffer.putInt(theCount);
+
+        startMillis = theStartMillis;
+        stepMillis = theStepMillis;
+        count = theCount;
+        written = 0;
+    }
+
+    @Override
+    public void writeState(final long timeMillis, final double[] state, final int offset) throws IOException {
+
+        if (written < 0 || written == count) {
+            throw new IllegalStateException("State is outside a segment");
+        }
+
+        if (timeMillis != startMillis + written * stepMillis) {
+            throw new IllegalArgumentException("State is not on the segment's time step, got: " + timeMillis);
+        }
+
+        final ByteBuffer buffer = out.reserve(STATE_BYTES);
+        for (int i = 0; i < 6; i++) {
+            buffer.putDouble(state[offset + i]);
+        }
+        written++;
+    }
+
+    @Override
+    public void endSegment() {
+        if (written != count) {
+            throw new IllegalStateException("Segment has " + written + " of " + count + " states");
+        }
+        written = -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads catalog snapshots published by a {@link CatalogSnapshotWriter}, possibly in another
+ * process. Reads never block the writer: a read during which a publish completed is simply
+ * retried. A reader may be shared between threads.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class CatalogSnapshotReader implements Closeable {
+
+    private static final int MAX_ATTEMPTS = 100;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int[] catalogNumbers;
+    private final Map<Integer, Integer> indexByCatalogNumber = new HashMap<Integer, Integer>();
+    private final int slotOffset;
+    private final int slotBytes;
+
+    private CatalogSnapshotReader(final FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CatalogSnapshotWriter.INDEX_OFFSET);
+
+        if (header.getInt(0) != CatalogSnapshotWriter.MAGIC || header.getInt(4) != CatalogSnapshotWriter.VERSION) {
+            throw new IOException("Not a catalog snapshot");
+        }
+
+        final int count = header.getInt(CatalogSnapshotWriter.COUNT_OFFSET);
+        slotOffset = CatalogSnapshotWriter.slotOffset(count);
+        slotBytes = CatalogSnapshotWriter.slotBytes(count);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, slotOffset + 2L * slotBytes);
+
+        catalogNumbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            catalogNumbers[i] = buffer.getInt(CatalogSnapshotWriter.INDEX_OFFSET + 4 * i);
+            indexByCatalogNumber.put(catalogNumbers[i], i);
+        }
+    }
+
+    /**
+     * Opens a snapshot file for reading.
+     *
+     * @param file the file
+     * @return the reader
+     * @throws IOException the file could not be read or is not a snapshot
+     */
+    public static CatalogSnapshotReader open(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            return new CatalogSnapshotReader(channel);
+        }
+        catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of satellites
+     */
+    public final int size() {
+        return catalogNumbers.length;
+    }
+
+    /**
+     * @param index the index of a satellite
+     * @return its catalog number
+     */
+    public final int getCatalogNumber(final int index) {
+        return catalogNumbers[index];
+    }
+
+    /**
+     * @param catalogNumber a catalog number
+     * @return the index of the satellite, or -1 if it is not in the catalog
+     */
+    public final int indexOf(final int catalogNumber) {
+        final Integer index = indexByCatalogNumber.get(catalogNumber);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return the sequence number of the current snapshot, 0 if none has been published
+     */
+    public final long getSequence() {
+        return (long)CatalogSnapshotWriter.SEQUENCE.getAcquire(buffer, CatalogSnapshotWriter.SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Copies the state vectors of the whole catalog from the current snapshot.
+     *
+     * @param states receives x, y, z (km), vx, vy, vz (km/s) for each satellite in turn, at least
+     *            6 * size() long
+     * @return the time of the snapshot in milliseconds since the Java epoch
+     * @throws IllegalStateException nothing has been published, or no consistent snapshot could
+     *             be read
+     */
+    public final long readAll(final double[] states) throws IllegalStateException {
+        return read(0, catalogNumbers.length, states);
+    }
+
+    /**
+     * Copies the state vector of one satellite from the current snapshot.
+     *
+     * @param index the index of the satellite
+     * @param state receives x, y, z (km), vx, vy, vz (km/s)
+     * @return the time of the snapshot in milliseconds since the Java epoch
+     * @throws IllegalStateException nothing has been published, or no consistent snapshot could
+     *             be read
+     */
+    public final long readState(final int index, final double[] state) throws IllegalStateException {
+
+        if (index < 0 || index >= catalogNumbers.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + catalogNumbers.length);
+        }
+
+        return read(index, 1, state);
+    }
+
+    private long read(final int first, final int count, final double[] states) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            final long sequence = getSequence();
+
+            if (sequence == 0) {
+                throw new IllegalStateException("No snapshot has been published");
+            }
+
+            final int slot = slotOffset + (int)(sequence & 1) * slotBytes;
+            final long time = buffer.getLong(slot);
+            final int start = slot + 8 + first * CatalogSnapshotWriter.STATE_BYTES;
+
+            for (int i = 0; i < count * 6; i++) {
+                states[i] = buffer.getDouble(start + i * 8);
+            }
+
+            VarHandle.loadLoadFence();
+
+            // once the next snapshot is current, the one after it may already be going into this slot
+            if (getSequence() == sequence) {
+                return time;
+            }
+
+            Thread.onSpinWait();
+        }
+
+        throw new IllegalStateException("No consistent snapshot after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Closes the file. The mapping stays valid until it is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Publishes the state vectors of a catalog to a memory mapped file, so that other processes on
+ * the host can read them with {@link CatalogSnapshotReader} instead of propagating the catalog
+ * themselves.
+ *
+ * The file holds two snapshot slots. Each publish writes the slot readers are not using and
+ * then advances a sequence number in the header with release semantics; the sequence says which
+ * slot is current. A reader that sees the same sequence before and after copying a slot has a
+ * consistent snapshot, since the slot is not written again until the next snapshot is current.
+ * There must be only one writer per file.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class CatalogSnapshotWriter implements Closeable {
+
+    /** "P4JC". */
+    static final int MAGIC = 0x50344A43;
+    static final int VERSION = 1;
+    static final int COUNT_OFFSET = 8;
+    static final int SEQUENCE_OFFSET = 16;
+    static final int INDEX_OFFSET = 24;
+    static final int STATE_BYTES = 6 * 8;
+
+    /** Reads and writes the sequence number with memory ordering, in the file's byte order. */
+    static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static Log log = LogFactory.getLog(CatalogSnapshotWriter.class);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AbstractSatellite[] satellites;
+    private final double[] state = new double[6];
+    private final int slotOffset;
+    private final int slotBytes;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the file, replacing any already there, and lists the catalog in its header.
+     *
+     * @param file the file
+     * @param tles the catalog
+     * @throws IOException the file could not be created
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public CatalogSnapshotWriter(final Path file, final List<TLE> tles) throws IOException, IllegalArgumentException {
+
+        if (null == tles || tles.isEmpty()) {
+            throw new IllegalArgumentException("TLEs have not been set");
+        }
+
+        satellites = new AbstractSatellite[tles.size()];
+        for (int i = 0; i < satellites.length; i++) {
+            satellites[i] = (AbstractSatellite)SatelliteFactory.createSatellite(tles.get(i));
+        }
+
+        slotOffset = slotOffset(satellites.length);
+        slotBytes = slotBytes(satellites.length);
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, slotOffset + 2L * slotBytes);
+
+        for (int i = 0; i < satellites.length; i++) {
+            buffer.putInt(INDEX_OFFSET + 4 * i, tles.get(i).getCatnum());
+        }
+
+        buffer.putInt(COUNT_OFFSET, satellites.length);
+        buffer.putInt(4, VERSION);
+        SEQUENCE.setRelease(buffer, SEQUENCE_OFFSET, 0L);
+        // the magic number goes last, so a reader never sees a half written header as valid
+        buffer.putInt(0, MAGIC);
+    }
+
+    static int slotOffset(final int count) {
+        return (INDEX_OFFSET + 4 * count + 7) & ~7;
+    }
+
+    static int slotBytes(final int count) {
+        return 8 + count * STATE_BYTES;
+    }
+
+    /**
+     * Propagates the catalog to a time and makes it the current snapshot.
+     *
+     * @param date the time
+     * @return the sequence number of the snapshot
+     */
+    public synchronized long publish(final Date date) {
+        final long sequence = (long)SEQUENCE.getAcquire(buffer, SEQUENCE_OFFSET) + 1;
+        final int slot = slotOffset + (int)(sequence & 1) * slotBytes;
+
+        buffer.putLong(slot, date.getTime());
+
+        for (int i = 0; i < satellites.length; i++) {
+            satellites[i].calculateStateVector(date, state, 0);
+
+            final int offset = slot + 8 + i * STATE_BYTES;
+            for (int j = 0; j < 6; j++) {
+                buffer.putDouble(offset + j * 8, state[j]);
+            }
+        }
+
+        SEQUENCE.setRelease(buffer, SEQUENCE_OFFSET, sequence);
+        return sequence;
+    }
+
+    /**
+     * Publishes a snapshot for the current time at a fixed interval, on a daemon thread.
+     *
+     * @param periodMillis the interval
+     * @throws IllegalStateException already started
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public synchronized void start(final long periodMillis) throws IllegalStateException, IllegalArgumentException {
+
+        if (scheduler != null) {
+            throw new IllegalStateException("Writer is already running");
+        }
+
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got: " + periodMillis);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "predict4java-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                publish(new Date());
+            }
+            catch (final RuntimeException e) {
+                log.error("Could not publish a catalog snapshot", e);
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops publishing.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Stops publishing and closes the file. The last snapshot stays readable.
+     */
+    @Override
+    public void close() throws IOException {
+        stop();
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * A buffered channel for the ephemeris writers, with number and time formatting that writes ASCII
+ * straight into the buffer instead of building strings.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+final class ChannelOutput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final int MAX_DECIMALS = 12;
+    private static final double[] POWERS_OF_TEN = new double[MAX_DECIMALS + 1];
+
+    static {
+        double power = 1.0;
+        for (int i = 0; i <= MAX_DECIMALS; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10.0;
+        }
+    }
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+
+    /** The day of the last time written, and its "yyyy-MM-ddT" text. */
+    private long day = Long.MIN_VALUE;
+    private final byte[] date = new byte[11];
+
+    ChannelOutput(final WritableByteChannel channel) {
+
+        if (null == channel) {
+            throw new IllegalArgumentException("Channel has not been set");
+        }
+
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a file for writing, replacing anything already there.
+     *
+     * @param file the file
+     * @return the output
+     * @throws IOException the file could not be opened
+     */
+    static ChannelOutput open(final Path file) throws IOException {
+        return new ChannelOutput(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Makes room in the buffer, writing out what it holds if need be.
+     *
+     * @param bytes the number of bytes about to be put, at most 64 KiB
+     * @return the buffer
+     * @throws IOException the channel could not be written
+     */
+    ByteBuffer reserve(final int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes text, which is expected to be short, as UTF-8.
+     */
+    void text(final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        reserve(bytes.length).put(bytes);
+    }
+
+    void character(final char value) throws IOException {
+        reserve(1).put((byte)value);
+    }
+
+    /**
+     * Writes a number in fixed point, rounded to a number of decimal places.
+     */
+    void fixed(final double value, final int decimals) throws IOException {
+        final double scaled = Math.abs(value) * POWERS_OF_TEN[decimals];
+
+        if (!(scaled < Long.MAX_VALUE)) {
+            // infinite, NaN or too large for a long
+            text(Double.toString(value));
+            return;
+        }
+
+        long units = Math.round(scaled);
+        int count = 0;
+
+        do {
+            digits[count++] = (byte)('0' + units % 10);
+            units /= 10;
+        }
+        while (units > 0 || count <= decimals);
+
+        final ByteBuffer out = reserve(count + 2);
+
+        if (value < 0.0 && Math.round(scaled) != 0) {
+            out.put((byte)'-');
+        }
+
+        for (int i = count - 1; i >= 0; i--) {
+            out.put(digits[i]);
+            if (i == decimals && decimals > 0) {
+                out.put((byte)'.');
+            }
+        }
+    }
+
+    /**
+     * Writes a UTC time as yyyy-MM-ddTHH:mm:ss.SSS. The date part is only worked out when the day
+     * changes.
+     */
+    void time(final long millis) throws IOException {
+        final long thisDay = Math.floorDiv(millis, MILLIS_PER_DAY);
+
+        if (thisDay != day) {
+            final LocalDate localDate = LocalDate.ofEpochDay(thisDay);
+            putDigits(date, 0, localDate.getYear(), 4);
+            date[4] = '-';
+            putDigits(date, 5, localDate.getMonthValue(), 2);
+            date[7] = '-';
+            putDigits(date, 8, localDate.getDayOfMonth(), 2);
+            date[10] = 'T';
+            day = thisDay;
+        }
+
+        final int ofDay = (int)(millis - thisDay * MILLIS_PER_DAY);
+        final ByteBuffer out = reserve(23);
+        out.put(date);
+        putDigits(out, ofDay / 3600000, 2);
+        out.put((byte)':');
+        putDigits(out, ofDay / 60000 % 60, 2);
+        out.put((byte)':');
+        putDigits(out, ofDay / 1000 % 60, 2);
+        out.put((byte)'.');
+        putDigits(out, ofDay % 1000, 3);
+    }
+
+    private static void putDigits(final byte[] target, final int offset, final int value, final int width) {
+        int remaining = value;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (byte)('0' + remaining % 10);
+            remaining /= 10;
+        }
+    }
+
+    private void putDigits(final ByteBuffer out, final int value, final int width) {
+        putDigits(digits, 0, value, width);
+        out.put(digits, 0, width);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes out everything buffered.
+     *
+     * @throws IOException the channel could not be written
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,478 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Assigns the antennas of a network of ground stations to the predicted passes of a fleet of
+ * satellites, so that no antenna is given two contacts closer together than it can set up and slew
+ * between, and no satellite is in contact with two antennas at once.
+ *
+ * The contacts booked on an antenna, or with a satellite, never overlap, so each is kept in a
+ * TreeMap ordered by start time: whether a new contact conflicts is found from the bookings either
+ * side of it, in O(log n). Two strategies are offered.
+ *
+ * GREEDY books contacts in order of priority, then start time, on the first antenna of their
+ * station that is free. It honours the exact slew between one contact's LOS azimuth and the next
+ * one's AOS azimuth.
+ *
+ * WEIGHTED books, for each antenna of each station in turn, the set of the remaining contacts with
+ * the greatest total priority, by the dynamic programme for weighted interval scheduling. The
+ * programme needs the same gap between any two contacts, so it allows for the setup time and a
+ * half turn of slew. It is exact for a network of one antenna.
+ *
+ * Either way a month of passes for a network of stations is scheduled in about a second. Across
+ * several stations or antennas WEIGHTED is a heuristic, and may book less than GREEDY. A scheduler
+ * is not thread safe.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class ContactScheduler {
+
+    /**
+     * How contacts are chosen when they conflict.
+     */
+    public enum Strategy {
+        /** Highest priority first. */
+        GREEDY,
+        /** Greatest total priority for each antenna. */
+        WEIGHTED
+    }
+
+    private static final double DEFAULT_PRIORITY = 1.0;
+
+    private final Strategy strategy;
+    private final Map<String, Station> stations = new LinkedHashMap<String, Station>();
+    private final Map<String, Double> priorities = new HashMap<String, Double>();
+    private final List<Contact> candidates = new ArrayList<Contact>();
+
+    /**
+     * Constructor.
+     *
+     * @param strategy how contacts are chosen when they conflict
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public ContactScheduler(final Strategy strategy) throws IllegalArgumentException {
+
+        if (null == strategy) {
+            throw new IllegalArgumentException("Strategy has not been set");
+        }
+
+        this.strategy = strategy;
+    }
+
+    /**
+     * Adds a ground station.
+     *
+     * @param station the name of the station
+     * @param antennas the number of antennas at the station
+     * @param setupMillis the time an antenna needs between contacts, besides slewing
+     * @param slewDegreesPerSecond the rate at which an antenna turns in azimuth
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public final void addStation(final String station, final int antennas, final long setupMillis,
+            final double slewDegreesPerSecond) throws IllegalArgumentException {
+
+        if (null == station) {
+            throw new IllegalArgumentException("Station has not been set");
+        }
+
+        if (antennas < 1) {
+            throw new IllegalArgumentException("Antennas must be positive, got: " + antennas);
+        }
+
+        if (setupMillis < 0) {
+            throw new IllegalArgumentException("Setup time must not be negative, got: " + setupMillis);
+        }
+
+        if (!(slewDegreesPerSecond > 0.0)) {
+            throw new IllegalArgumentException("Slew rate must be positive, got: " + slewDegreesPerSecond);
+        }
+
+        stations.put(station, new Station(antennas, setupMillis, slewDegreesPerSecond));
+    }
+
+    /**
+     * Sets the priority of a satellite, which is 1 until set.
+     *
+     * @param satellite the name of the satellite
+     * @param priority the priority, higher being more important
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public final void setPriority(final String satellite, final double priority) throws IllegalArgumentException {
+
+        if (!(priority > 0.0)) {
+            throw new IllegalArgumentException("Priority must be positive, got: " + priority);
+        }
+
+        priorities.put(satellite, priority);
+    }
+
+    /**
+     * Adds the predicted passes of a satellite over a station as candidate contacts.
+     *
+     * @param satellite the name of the satellite
+     * @param station the name of a station already added
+     * @param passes the passes, as from PassPredictor.getPasses(..)
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public final void addPasses(final String satellite, final String station, final List<SatPassTime> passes)
+            throws IllegalArgumentException {
+
+        if (null == satellite) {
+            throw new IllegalArgumentException("Satellite has not been set");
+        }
+
+        if (!stations.containsKey(station)) {
+            throw new IllegalArgumentException("Unknown station: " + station);
+        }
+
+        for (final SatPassTime pass : passes) {
+            candidates.add(new Contact(satellite, station, pass, -1));
+        }
+    }
+
+    /**
+     * @return the number of candidate contacts
+     */
+    public final int getCandidateCount() {
+        return candidates.size();
+    }
+
+    /**
+     * Makes a schedule from the candidate contacts.
+     *
+     * @return the contacts booked, each with its antenna, in order of start time
+     */
+    public final List<Contact> schedule() {
+
+        for (final Station station : stations.values()) {
+            station.clear();
+        }
+
+        final Map<String, TreeMap<Long, Contact>> satellites = new HashMap<String, TreeMap<Long, Contact>>();
+        final List<Contact> booked;
+
+        if (strategy == Strategy.GREEDY) {
+            booked = scheduleGreedy(satellites);
+        }
+        else {
+            booked = scheduleWeighted(satellites);
+        }
+
+        booked.sort(Comparator.comparingLong(Contact::getStartMillis).thenComparing(Contact::getStation)
+                .thenComparingInt(Contact::getAntenna));
+
+        return booked;
+    }
+
+    private List<Contact> scheduleGreedy(final Map<String, TreeMap<Long, Contact>> satellites) {
+
+        final List<Contact> ordered = new ArrayList<Contact>(candidates);
+        ordered.sort(Comparator.comparingDouble((Contact contact) -> -getPriority(contact.getSatellite()))
+                .thenComparingLong(Contact::getStartMillis).thenComparing(Contact::getSatellite));
+
+        final List<Contact> booked = new ArrayList<Contact>();
+
+        for (final Contact contact : ordered) {
+
+            final TreeMap<Long, Contact> satellite = satellites.computeIfAbsent(contact.getSatellite(),
+                    name -> new TreeMap<Long, Contact>());
+
+            if (!fits(satellite, contact, 0L, null)) {
+                continue;
+            }
+
+            final Station station = stations.get(contact.getStation());
+
+            for (int antenna = 0; antenna < station.bookings.size(); antenna++) {
+                if (fits(station.bookings.get(antenna), contact, station.setupMillis, station)) {
+                    final Contact booking = contact.onAntenna(antenna);
+                    station.bookings.get(antenna).put(booking.getStartMillis(), booking);
+                    satellite.put(booking.getStartMillis(), booking);
+                    booked.add(booking);
+                    break;
+                }
+            }
+        }
+
+        return booked;
+    }
+
+    private List<Contact> scheduleWeighted(final Map<String, TreeMap<Long, Contact>> satellites) {
+
+        final Map<String, List<Contact>> byStation = new HashMap<String, List<Contact>>();
+        for (final Contact contact : candidates) {
+            byStation.computeIfAbsent(contact.getStation(), name -> new ArrayList<Contact>()).add(contact);
+        }
+
+        final List<Contact> booked = new ArrayList<Contact>();
+
+        for (final Map.Entry<String, Station> entry : stations.entrySet()) {
+
+            final Station station = entry.getValue();
+            List<Contact> remaining = byStation.get(entry.getKey());
+            if (null == remaining) {
+                continue;
+            }
+
+            final long gap = station.setupMillis + Math.round(180.0 / station.slewDegreesPerSecond * 1000.0);
+
+            for (int antenna = 0; antenna < station.bookings.size() && !remaining.isEmpty(); antenna++) {
+
+                final List<Contact> free = new ArrayList<Contact>(remaining.size());
+                for (final Contact contact : remaining) {
+                    final TreeMap<Long, Contact> satellite = satellites.get(contact.getSatellite());
+                    if (null == satellite || fits(satellite, contact, 0L, null)) {
+                        free.add(contact);
+                    }
+                }
+
+                final boolean[] chosen = chooseHeaviest(free, gap);
+                remaining = new ArrayList<Contact>(free.size());
+
+                for (int i = 0; i < free.size(); i++) {
+                    if (chosen[i]) {
+                        final Contact booking = free.get(i).onAntenna(antenna);
+                        station.bookings.get(antenna).put(booking.getStartMillis(), booking);
+                        satellites.computeIfAbsent(booking.getSatellite(), name -> new TreeMap<Long, Contact>())
+                                .put(booking.getStartMillis(), booking);
+                        booked.add(booking);
+                    }
+                    else {
+                        remaining.add(free.get(i));
+                    }
+                }
+            }
+        }
+
+        return booked;
+    }
+
+    /**
+     * Weighted interval scheduling: sorts the contacts by end time, finds for each the last one
+     * that ends far enough before it by binary search, and takes the better of leaving it out or
+     * adding it to the best schedule up to that one.
+     *
+     * @param contacts the contacts, which are sorted in place
+     * @param gap the time needed between contacts
+     * @return which of the sorted contacts to book
+     */
+    private boolean[] chooseHeaviest(final List<Contact> contacts, final long gap) {
+
+        contacts.sort(Comparator.comparingLong(Contact::getEndMillis).thenComparingLong(Contact::getStartMillis));
+
+        final int size = contacts.size();
+        final long[] ends = new long[size];
+        for (int i = 0; i < size; i++) {
+            ends[i] = contacts.get(i).getEndMillis() + gap;
+        }
+
+        // best[i] is the greatest total priority of the first i contacts
+        final double[] best = new double[size + 1];
+        final int[] previous = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            final Contact contact = contacts.get(i);
+            // the number of contacts ending, with the gap, no later than this one starts
+            int compatible = Arrays.binarySearch(ends, 0, i, contact.getStartMillis() + 1);
+            if (compatible < 0) {
+                compatible = -compatible - 1;
+            }
+            else {
+                while (compatible > 0 && ends[compatible - 1] > contact.getStartMillis()) {
+                    compatible--;
+                }
+            }
+            previous[i] = compatible;
+            best[i + 1] = Math.max(best[i], getPriority(contact.getSatellite()) + best[compatible]);
+        }
+
+        final boolean[] chosen = new boolean[size];
+        int i = size;
+        while (i > 0) {
+            if (best[i] == best[i - 1]) {
+                i--;
+            }
+            else {
+                chosen[i - 1] = true;
+                i = previous[i - 1];
+            }
+        }
+
+        return chosen;
+    }
+
+    /**
+     * Whether a contact can be added to non-overlapping bookings, leaving the setup time and, for
+     * an antenna, the time to slew between the azimuths at LOS and AOS.
+     */
+    private static boolean fits(final TreeMap<Long, Contact> bookings, final Contact contact, final long setupMillis,
+            final Station station) {
+
+        final Map.Entry<Long, Contact> before = bookings.floorEntry(contact.getStartMillis());
+        if (null != before) {
+            final Contact earlier = before.getValue();
+            final long slew = null == station ? 0L
+                    : station.slewMillis(earlier.getPass().getLosAzimuth(), contact.getPass().getAosAzimuth());
+            if (earlier.getEndMillis() + setupMillis + slew > contact.getStartMillis()) {
+                return false;
+            }
+        }
+
+        final Map.Entry<Long, Contact> after = bookings.higherEntry(contact.getStartMillis());
+        if (null != after) {
+            final Contact later = after.getValue();
+            final long slew = null == station ? 0L
+                    : station.slewMillis(contact.getPass().getLosAzimuth(), later.getPass().getAosAzimuth());
+            if (contact.getEndMillis() + setupMillis + slew > later.getStartMillis()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private double getPriority(final String satellite) {
+        final Double priority = priorities.get(satellite);
+        return null == priority ? DEFAULT_PRIORITY : priority;
+    }
+
+    /**
+     * The antennas of a ground station and their bookings.
+     */
+    private static final class Station {
+
+        private final long setupMillis;
+        private final double slewDegreesPerSecond;
+        private final List<TreeMap<Long, Contact>> bookings;
+
+        private Station(final int antennas, final long setupMillis, final double slewDegreesPerSecond) {
+            this.setupMillis = setupMillis;
+            this.slewDegreesPerSecond = slewDegreesPerSecond;
+            this.bookings = new ArrayList<TreeMap<Long, Contact>>(antennas);
+            for (int i = 0; i < antennas; i++) {
+                bookings.add(new TreeMap<Long, Contact>());
+            }
+        }
+
+        private void clear() {
+            for (final TreeMap<Long, Contact> antenna : bookings) {
+                antenna.clear();
+            }
+        }
+
+        /**
+         * @return the time to turn the shorter way between two azimuths in degrees
+         */
+        private long slewMillis(final int fromAzimuth, final int toAzimuth) {
+            final int turn = Math.abs(fromAzimuth - toAzimuth) % 360;
+            return Math.round(Math.min(turn, 360 - turn) / slewDegreesPerSecond * 1000.0);
+        }
+    }
+
+    /**
+     * A pass of a satellite over a ground station, and the antenna booked for it.
+     */
+    public static final class Contact {
+
+        private final String satellite;
+        private final String station;
+        private final SatPassTime pass;
+        private final int antenna;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Contact(final String satellite, final String station, final SatPassTime pass, final int antenna) {
+            this.satellite = satellite;
+            this.station = station;
+            this.pass = pass;
+            this.antenna = antenna;
+            this.startMillis = pass.getStartTime().getTime();
+            this.endMillis = pass.getEndTime().getTime();
+        }
+
+        private Contact onAntenna(final int theAntenna) {
+            return new Contact(satellite, station, pass, theAntenna);
+        }
+
+        /**
+         * @return the name of the satellite
+         */
+        public String getSatellite() {
+            return satellite;
+        }
+
+        /**
+         * @return the name of the ground station
+         */
+        public String getStation() {
+            return station;
+        }
+
+        /**
+         * @return the pass
+         */
+        public SatPassTime getPass() {
+            return pass;
+        }
+
+        /**
+         * @return the antenna booked, counting from 0 at each station
+         */
+        public int getAntenna() {
+            return antenna;
+        }
+
+        /**
+         * @return the AOS in milliseconds since the Java epoch
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * @return the LOS in milliseconds since the Java epoch
+         */
+        public long getEndMillis() {
+            return endMillis;
+        }
+
+        @Override
+        public String toString() {
+            return satellite + " at " + station + "/" + antenna + " " + pass.getStartTime() + " to " + pass.getEndTime();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsCollector} which counts everything in <code>LongAdder</code>s and times pass
+ * searches in a {@link LatencyHistogram}, so recording never blocks or allocates.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class CountingMetricsCollector implements MetricsCollector {
+
+    private final LongAdder nearEarthPropagations = new LongAdder();
+    private final LongAdder deepSpacePropagations = new LongAdder();
+    private final LongAdder keplerIterations = new LongAdder();
+    private final LongAdder resonanceIntegrations = new LongAdder();
+    private final LongAdder resonanceSteps = new LongAdder();
+    private final LongAdder passPropagations = new LongAdder();
+    private final LongAdder tlesParsed = new LongAdder();
+    private final LongAdder tlesRejected = new LongAdder();
+    private final LongAdder[] cacheHits = new LongAdder[Cache.values().length];
+    private final LongAdder[] cacheMisses = new LongAdder[Cache.values().length];
+    private final LatencyHistogram passSearchTime = new LatencyHistogram();
+
+    /**
+     * Default constructor.
+     */
+    public CountingMetricsCollector() {
+        for (int i = 0; i < cacheHits.length; i++) {
+            cacheHits[i] = new LongAdder();
+            cacheMisses[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void propagated(final boolean deepSpace, final int iterations) {
+        if (deepSpace) {
+            deepSpacePropagations.increment();
+        }
+        else {
+            nearEarthPropagations.increment();
+        }
+        keplerIterations.add(iterations);
+    }
+
+    @Override
+    public void batchPropagated(final int satellites, final int iterations) {
+        nearEarthPropagations.add(satellites);
+        keplerIterations.add(iterations);
+    }
+
+    @Override
+    public void resonanceIntegrated(final int steps) {
+        resonanceIntegrations.increment();
+        resonanceSteps.add(steps);
+    }
+
+    @Override
+    public void passSearched(final long nanos, final int propagations) {
+        passSearchTime.recordNanos(nanos);
+        passPropagations.add(propagations);
+    }
+
+    @Override
+    public void tleParsed(final boolean valid) {
+        if (valid) {
+            tlesParsed.increment();
+        }
+        else {
+            tlesRejected.increment();
+        }
+    }
+
+    @Override
+    public void cacheAccessed(final Cache cache, final boolean hit) {
+        if (hit) {
+            cacheHits[cache.ordinal()].increment();
+        }
+        else {
+            cacheMisses[cache.ordinal()].increment();
+        }
+    }
+
+    /**
+     * @param deepSpace true for SDP4, false for SGP4
+     * @return the number of propagations
+     */
+    public final long getPropagations(final boolean deepSpace) {
+        return deepSpace ? deepSpacePropagations.sum() : nearEarthPropagations.sum();
+    }
+
+    /**
+     * @return the mean number of iterations taken to solve Kepler's equation
+     */
+    public final double getMeanKeplerIterations() {
+        final long propagations = nearEarthPropagations.sum() + deepSpacePropagations.sum();
+        return propagations == 0 ? 0.0 : (double)keplerIterations.sum() / propagations;
+    }
+
+    /**
+     * @return the total number of resonance integration steps
+     */
+    public final long getResonanceSteps() {
+        return resonanceSteps.sum();
+    }
+
+    /**
+     * @return the time taken by each pass search
+     */
+    public final LatencyHistogram getPassSearchTime() {
+        return passSearchTime;
+    }
+
+    /**
+     * @return the mean number of positions calculated per pass search
+     */
+    public final double getMeanPassPropagations() {
+        final long passes = passSearchTime.getCount();
+        return passes == 0 ? 0.0 : (double)passPropagations.sum() / passes;
+    }
+
+    /**
+     * @param valid true for the TLEs accepted, false for those rejected
+     * @return the number of TLEs
+     */
+    public final long getTLEsParsed(final boolean valid) {
+        return valid ? tlesParsed.sum() : tlesRejected.sum();
+    }
+
+    /**
+     * @param cache the cache
+     * @return the fraction of lookups which were hits, 0 if there were none
+     */
+    public final double getHitRate(final Cache cache) {
+        final long hits = cacheHits[cache.ordinal()].sum();
+        final long total = hits + cacheMisses[cache.ordinal()].sum();
+        return total == 0 ? 0.0 : (double)hits / total;
+    }
+
+    /**
+     * Takes a snapshot of every measurement. The values are read one after another, so they may
+     * be slightly inconsistent while calculations are running.
+     *
+     * @return the measurements by name, in a fixed order
+     */
+    public Map<String, Number> snapshot() {
+        final Map<String, Number> values = new LinkedHashMap<String, Number>();
+        values.put("propagations.sgp4", nearEarthPropagations.sum());
+        values.put("propagations.sdp4", deepSpacePropagations.sum());
+        values.put("kepler.meanIterations", getMeanKeplerIterations());
+        values.put("resonance.integrations", resonanceIntegrations.sum());
+        values.put("resonance.steps", resonanceSteps.sum());
+        values.put("passes.searched", passSearchTime.getCount());
+        values.put("passes.meanPropagations", getMeanPassPropagations());
+        values.put("passes.meanMicros", passSearchTime.getMeanMicros());
+        values.put("passes.p99Micros", passSearchTime.getPercentileMicros(99));
+        values.put("passes.maxMicros", passSearchTime.getMaxMicros());
+        values.put("tles.parsed", tlesParsed.sum());
+        values.put("tles.rejected", tlesRejected.sum());
+
+        for (final Cache cache : Cache.values()) {
+            values.put("cache." + cache.name().toLowerCase(Locale.ENGLISH) + ".hitRate", getHitRate(cache));
+        }
+
+        return values;
+    }
+
+    /**
+     * Clears every measurement.
+     */
+    public void reset() {
+        for (final LongAdder adder : new LongAdder[] {nearEarthPropagations, deepSpacePropagations,
+            keplerIterations, resonanceIntegrations, resonanceSteps, passPropagations, tlesParsed, tlesRejected}) {
+            adder.reset();
+        }
+
+        for (int i = 0; i < cacheHits.length; i++) {
+            cacheHits[i].reset();
+            cacheMisses[i].reset();
+        }
+
+        passSearchTime.reset();
+    }
+}
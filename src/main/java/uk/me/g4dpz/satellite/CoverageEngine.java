@@ -0,0 +1,328 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates how well a constellation covers the earth: the percentage of time, the revisit time
+ * and the gaps for each cell of a latitude and longitude grid.
+ *
+ * At each time step every satellite is propagated once, near earth satellites together in a
+ * {@link LEOBatchPropagator}, and its footprint is rasterised into a bit set of the cells covered
+ * at that step. Newly covered cells update running interval counts, so nothing is kept per step.
+ * The span is cut into blocks of steps which are calculated in parallel and merged in order, with
+ * only a few blocks in flight at once, so memory does not grow with the length of the span.
+ *
+ * A cell is covered when its centre sees a satellite above the minimum elevation, treating the
+ * earth as a sphere.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class CoverageEngine {
+
+    private static final int DEFAULT_BLOCK_STEPS = 720;
+    private static final double EPSILON = 1.0E-9;
+    private static final double DEG2RAD = Math.PI / 180.0;
+    private static final double RAD2DEG = 180.0 / Math.PI;
+
+    private final List<TLE> nearEarth = new ArrayList<TLE>();
+    private final List<AbstractSatellite> deepSpace = new ArrayList<AbstractSatellite>();
+    private final double resolution;
+    private final double minElevation;
+    private final int threads;
+    private final int rows;
+    private final int columns;
+    private final double[] sinRowLatitude;
+    private final double[] cosRowLatitude;
+
+    /**
+     * Creates an engine which uses one thread per processor.
+     *
+     * @param tles the satellites of the constellation
+     * @param resolution the size of a grid cell in degrees, which must divide 180
+     * @param minElevation the minimum elevation in radians, 0 for the horizon
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public CoverageEngine(final List<TLE> tles, final double resolution, final double minElevation)
+            throws IllegalArgumentException {
+        this(tles, resolution, minElevation, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tles the satellites of the constellation
+     * @param resolution the size of a grid cell in degrees, which must divide 180
+     * @param minElevation the minimum elevation in radians, 0 for the horizon
+     * @param threads the number of threads to calculate with
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public CoverageEngine(final List<TLE> tles, final double resolution, final double minElevation,
+            final int threads) throws IllegalArgumentException {
+
+        if (null == tles || tles.isEmpty()) {
+            throw new IllegalArgumentException("TLEs have not been set");
+        }
+
+        final double bands = 180.0 / resolution;
+        if (!(resolution > 0.0) || Math.abs(bands - Math.rint(bands)) > EPSILON) {
+            throw new IllegalArgumentException("Resolution must divide 180 degrees, got: " + resolution);
+        }
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive, got: " + threads);
+        }
+
+        for (final TLE tle : tles) {
+            if (null == tle) {
+                throw new IllegalArgumentException("TLE was null");
+            }
+            else if (tle.isDeepspace()) {
+                deepSpace.add((AbstractSatellite)SatelliteFactory.createSatellite(tle, GeodeticConversion.VERMEILLE));
+            }
+            else {
+                nearEarth.add(tle);
+            }
+        }
+
+        this.resolution = resolution;
+        this.minElevation = minElevation;
+        this.threads = threads;
+        this.rows = (int)Math.rint(bands);
+        this.columns = rows * 2;
+
+        sinRowLatitude = new double[rows];
+        cosRowLatitude = new double[rows];
+
+        for (int row = 0; row < rows; row++) {
+            final double latitude = (-90.0 + (row + 0.5) * resolution) * DEG2RAD;
+            sinRowLatitude[row] = Math.sin(latitude);
+            cosRowLatitude[row] = Math.cos(latitude);
+        }
+    }
+
+    /**
+     * Calculates the coverage at regular time steps from the start time up to and including the
+     * end time.
+     *
+     * @param start the start time
+     * @param end the end time
+     * @param stepMillis the time step in milliseconds
+     * @return the coverage of each grid cell
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public final CoverageGrid calculate(final Date start, final Date end, final long stepMillis)
+            throws IllegalArgumentException {
+        return calculate(start, end, stepMillis, DEFAULT_BLOCK_STEPS);
+    }
+
+    final CoverageGrid calculate(final Date start, final Date end, final long stepMillis, final int blockSteps)
+            throws IllegalArgumentException {
+
+        if (null == start || null == end) {
+            throw new IllegalArgumentException("Start and end times have not been set");
+        }
+
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("Step must be positive, got: " + stepMillis);
+        }
+
+        if (end.before(start)) {
+            throw new IllegalArgumentException("End time is before start time: " + end);
+        }
+
+        final long startMillis = start.getTime();
+        final long steps = (end.getTime() - startMillis) / stepMillis + 1;
+        final int blocks = (int)((steps + blockSteps - 1) / blockSteps);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "predict4java-coverage");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            final Deque<Future<CoverageGrid>> inFlight = new ArrayDeque<Future<CoverageGrid>>();
+            CoverageGrid result = null;
+
+            for (int block = 0; block < blocks; block++) {
+                final long first = (long)block * blockSteps;
+                final int length = (int)Math.min(blockSteps, steps - first);
+                final long blockStart = startMillis + first * stepMillis;
+
+                inFlight.add(executor.submit(() -> calculateBlock(blockStart, stepMillis, length)));
+
+                // bound the memory held by finished blocks waiting to be merged
+                if (inFlight.size() > threads) {
+                    result = merge(result, inFlight.poll());
+                }
+            }
+
+            while (!inFlight.isEmpty()) {
+                result = merge(result, inFlight.poll());
+            }
+
+            return result;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static CoverageGrid merge(final CoverageGrid result, final Future<CoverageGrid> next) {
+        final CoverageGrid block;
+
+        try {
+            block = next.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calculating coverage", e);
+        }
+        catch (final ExecutionException e) {
+            throw new IllegalStateException("Could not calculate coverage", e.getCause());
+        }
+
+        if (result == null) {
+            return block;
+        }
+
+        result.append(block);
+        return result;
+    }
+
+    /**
+     * Calculates the coverage of one block of time steps. Uses its own propagator and scratch
+     * space, so blocks may be calculated in parallel.
+     */
+    private CoverageGrid calculateBlock(final long startMillis, final long stepMillis, final int steps) {
+
+        final CoverageGrid grid = new CoverageGrid(rows, columns, resolution, stepMillis, steps);
+        final long[] coveredNow = new long[(rows * columns + 63) / 64];
+
+        final LEOBatchPropagator propagator = new LEOBatchPropagator(nearEarth);
+        final double[] state = new double[propagator.size() * 6];
+        final AbstractSatellite.Vector4 position = new AbstractSatellite.Vector4();
+        final SatPos subPoint = new SatPos();
+
+        for (int step = 0; step < steps; step++) {
+            final Date date = new Date(startMillis + step * stepMillis);
+
+            if (propagator.size() > 0) {
+                final double siderealTime = AbstractSatellite.thetaGJD(AbstractSatellite.julianDate(date));
+                propagator.propagate(date, state);
+
+                for (int lane = 0; lane < propagator.size(); lane++) {
+                    position.setXYZ(state[lane * 6], state[lane * 6 + 1], state[lane * 6 + 2]);
+                    AbstractSatellite.calculateLatLonAlt(siderealTime, position, subPoint,
+                            GeodeticConversion.VERMEILLE);
+                    rasterise(subPoint, grid, coveredNow, step);
+                }
+            }
+
+            for (final AbstractSatellite satellite : deepSpace) {
+                rasterise(satellite.calculateGroundTrack(date), grid, coveredNow, step);
+            }
+
+            Arrays.fill(coveredNow, 0L);
+        }
+
+        grid.finish();
+        return grid;
+    }
+
+    /**
+     * Marks the cells whose centres lie inside the footprint of a satellite. For each row within
+     * reach, the longitudes inside the footprint follow from the spherical law of cosines.
+     */
+    private void rasterise(final SatPos subPoint, final CoverageGrid grid, final long[] coveredNow, final int step) {
+
+        final double beta = FootprintEngine.footprintAngle(subPoint.getAltitude(), minElevation);
+
+        if (!(beta > 0.0)) {
+            return;
+        }
+
+        final double latitude = subPoint.getLatitude();
+        final double sinLat = Math.sin(latitude);
+        final double cosLat = Math.cos(latitude);
+        final double cosBeta = Math.cos(beta);
+        final double longitude = subPoint.getLongitude() * RAD2DEG;
+
+        final int firstRow = Math.max(0, (int)Math.ceil(((latitude - beta) * RAD2DEG + 90.0) / resolution - 0.5));
+        final int lastRow = Math.min(rows - 1, (int)Math.floor(((latitude + beta) * RAD2DEG + 90.0) / resolution - 0.5));
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            final double denominator = cosRowLatitude[row] * cosLat;
+            final double ratio = (cosBeta - sinRowLatitude[row] * sinLat) / denominator;
+
+            int firstColumn;
+            int lastColumn;
+
+            if (denominator < EPSILON || ratio <= -1.0) {
+                firstColumn = 0;
+                lastColumn = columns - 1;
+            }
+            else if (ratio > 1.0) {
+                continue;
+            }
+            else {
+                final double halfWidth = Math.acos(ratio) * RAD2DEG;
+                firstColumn = (int)Math.ceil((longitude - halfWidth) / resolution - 0.5);
+                lastColumn = (int)Math.floor((longitude + halfWidth) / resolution - 0.5);
+
+                if (lastColumn - firstColumn >= columns - 1) {
+                    firstColumn = 0;
+                    lastColumn = columns - 1;
+                }
+            }
+
+            final int rowStart = row * columns;
+
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int wrapped = column < 0 ? column + columns : column >= columns ? column - columns : column;
+                final int cell = rowStart + wrapped;
+                final long bit = 1L << cell;
+
+                if ((coveredNow[cell >>> 6] & bit) == 0) {
+                    coveredNow[cell >>> 6] |= bit;
+                    grid.cover(cell, step);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Arrays;
+
+/**
+ * Coverage statistics for each cell of a latitude and longitude grid, over a span of regularly
+ * spaced time steps.
+ *
+ * Row 0 is the most southerly band of cells and column 0 starts at longitude 0, going east. A gap
+ * is a run of time steps in which a cell is not covered by any satellite, and durations are
+ * measured to the resolution of the time step.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class CoverageGrid {
+
+    private final int rows;
+    private final int columns;
+    private final double resolution;
+    private final long stepMillis;
+    private int steps;
+
+    /** The number of steps in which each cell was covered. */
+    private final int[] covered;
+    /** The number of separate periods of coverage. */
+    private final int[] accesses;
+    /** The uncovered steps before the first coverage, or all steps if never covered. */
+    private final int[] leading;
+    /** The uncovered steps after the last coverage; the last covered step while accumulating. */
+    private final int[] trailing;
+    /** The number, total and longest of the gaps between periods of coverage. */
+    private final int[] gaps;
+    private final long[] gapSum;
+    private final int[] maxGap;
+
+    /**
+     * Creates an empty grid for one block of time steps.
+     *
+     * @param rows the number of latitude bands
+     * @param columns the number of longitude bands
+     * @param resolution the size of a cell in degrees
+     * @param stepMillis the time step
+     * @param steps the number of time steps in the block
+     */
+    CoverageGrid(final int rows, final int columns, final double resolution, final long stepMillis,
+            final int steps) {
+        this.rows = rows;
+        this.columns = columns;
+        this.resolution = resolution;
+        this.stepMillis = stepMillis;
+        this.steps = steps;
+
+        final int cells = rows * columns;
+        covered = new int[cells];
+        accesses = new int[cells];
+        leading = new int[cells];
+        trailing = new int[cells];
+        gaps = new int[cells];
+        gapSum = new long[cells];
+        maxGap = new int[cells];
+
+        Arrays.fill(trailing, -1);
+    }
+
+    /**
+     * Records that a cell is covered at a step. Steps must be given in increasing order, and each
+     * cell at most once per step.
+     *
+     * @param cell the index of the cell, row * columns + column
+     * @param step the step within the block
+     */
+    final void cover(final int cell, final int step) {
+        final int last = trailing[cell];
+
+        if (last < 0) {
+            leading[cell] = step;
+            accesses[cell] = 1;
+        }
+        else if (step > last + 1) {
+            addGap(cell, step - last - 1);
+            accesses[cell]++;
+        }
+
+        covered[cell]++;
+        trailing[cell] = step;
+    }
+
+    /**
+     * Turns the last covered step of each cell into the length of the trailing gap, once all
+     * steps of the block have been recorded.
+     */
+    final void finish() {
+        for (int cell = 0; cell < trailing.length; cell++) {
+            if (trailing[cell] < 0) {
+                leading[cell] = steps;
+                trailing[cell] = steps;
+            }
+            else {
+                trailing[cell] = steps - 1 - trailing[cell];
+            }
+        }
+    }
+
+    /**
+     * Appends the finished block which follows this one.
+     *
+     * @param next the following block
+     */
+    final void append(final CoverageGrid next) {
+        for (int cell = 0; cell < covered.length; cell++) {
+
+            if (next.covered[cell] == 0) {
+                trailing[cell] += next.steps;
+                if (covered[cell] == 0) {
+                    leading[cell] += next.steps;
+                }
+                continue;
+            }
+
+            if (covered[cell] == 0) {
+                leading[cell] += next.leading[cell];
+            }
+            else {
+                final int join = trailing[cell] + next.leading[cell];
+                if (join > 0) {
+                    addGap(cell, join);
+                }
+                else {
+                    // coverage runs on across the boundary
+                    accesses[cell]--;
+                }
+            }
+
+            covered[cell] += next.covered[cell];
+            accesses[cell] += next.accesses[cell];
+            gaps[cell] += next.gaps[cell];
+            gapSum[cell] += next.gapSum[cell];
+            maxGap[cell] = Math.max(maxGap[cell], next.maxGap[cell]);
+            trailing[cell] = next.trailing[cell];
+        }
+
+        steps += next.steps;
+    }
+
+    private void addGap(final int cell, final int length) {
+        gaps[cell]++;
+        gapSum[cell] += length;
+        maxGap[cell] = Math.max(maxGap[cell], length);
+    }
+
+    /**
+     * @return the number of latitude bands
+     */
+    public final int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the number of longitude bands
+     */
+    public final int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the size of a cell in degrees
+     */
+    public final double getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return the number of time steps
+     */
+    public final int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return the time step in milliseconds
+     */
+    public final long getStepMillis() {
+        return stepMillis;
+    }
+
+    /**
+     * @param row the row
+     * @return the latitude of the centre of the row in degrees
+     */
+    public final double getLatitude(final int row) {
+        return -90.0 + (row + 0.5) * resolution;
+    }
+
+    /**
+     * @param column the column
+     * @return the longitude of the centre of the column in degrees, 0 to 360
+     */
+    public final double getLongitude(final int column) {
+        return (column + 0.5) * resolution;
+    }
+
+    /**
+     * @param row the row
+     * @param column the column
+     * @return the percentage of time steps in which the cell was covered
+     */
+    public final double getPercentCoverage(final int row, final int column) {
+        return 100.0 * covered[row * columns + column] / steps;
+    }
+
+    /**
+     * @param row the row
+     * @param column the column
+     * @return the number of separate periods in which the cell was covered
+     */
+    public final int getAccessCount(final int row, final int column) {
+        return accesses[row * columns + column];
+    }
+
+    /**
+     * Gets the mean revisit time, being the mean of the gaps between one period of coverage and
+     * the next.
+     *
+     * @param row the row
+     * @param column the column
+     * @return the mean revisit time in milliseconds, or NaN if the cell was covered fewer than
+     *         twice
+     */
+    public final double getMeanRevisitMillis(final int row, final int column) {
+        final int cell = row * columns + column;
+        return gaps[cell] == 0 ? Double.NaN : (double)gapSum[cell] * stepMillis / gaps[cell];
+    }
+
+    /**
+     * Gets the longest gap, including any gap at the start or end of the span.
+     *
+     * @param row the row
+     * @param column the column
+     * @return the longest gap in milliseconds
+     */
+    public final long getMaxGapMillis(final int row, final int column) {
+        final int cell = row * columns + column;
+        return (long)Math.max(maxGap[cell], Math.max(leading[cell], trailing[cell])) * stepMillis;
+    }
+
+    /**
+     * Gets the mean gap, including any gaps at the start or end of the span.
+     *
+     * @param row the row
+     * @param column the column
+     * @return the mean gap in milliseconds, 0 if the cell was always covered
+     */
+    public final double getMeanGapMillis(final int row, final int column) {
+        final int cell = row * columns + column;
+
+        if (covered[cell] == 0) {
+            return (double)steps * stepMillis;
+        }
+
+        int count = gaps[cell];
+        if (leading[cell] > 0) {
+            count++;
+        }
+        if (trailing[cell] > 0) {
+            count++;
+        }
+
+        final long total = gapSum[cell] + leading[cell] + trailing[cell];
+        return count == 0 ? 0.0 : (double)total * stepMillis / count;
+    }
+
+    /**
+     * @return the percentage of time that an average point on the earth was covered, weighting
+     *         each cell by its area
+     */
+    public final double getGlobalPercentCoverage() {
+        double weighted = 0.0;
+        double area = 0.0;
+
+        for (int row = 0; row < rows; row++) {
+            final double weight = Math.cos(Math.toRadians(getLatitude(row)));
+            long rowCovered = 0;
+
+            for (int column = 0; column < columns; column++) {
+                rowCovered += covered[row * columns + column];
+            }
+
+            weighted += weight * rowCovered;
+            area += weight * columns;
+        }
+
+        return 100.0 * weighted / (area * steps);
+    }
+}
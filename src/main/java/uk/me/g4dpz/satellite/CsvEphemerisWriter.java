@@ -0,0 +1,97 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Writes an ephemeris as comma separated values, one state per line, with a header line. Times
+ * are UTC, positions are in km to the millimetre and velocities in km/s to the micrometre per
+ * second, in the TEME frame.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class CsvEphemerisWriter implements EphemerisWriter {
+
+    static final String HEADER = "time_utc,catalog_number,x_km,y_km,z_km,vx_km_s,vy_km_s,vz_km_s";
+
+    private final ChannelOutput out;
+    private String catalogNumber;
+
+    /**
+     * @param file the file to write, replacing anything already there
+     * @throws IOException the file could not be written
+     */
+    public CsvEphemerisWriter(final Path file) throws IOException {
+        this(ChannelOutput.open(file));
+    }
+
+    /**
+     * @param channel the channel to write to, which is closed with the writer
+     * @throws IOException the channel could not be written
+     */
+    public CsvEphemerisWriter(final WritableByteChannel channel) throws IOException {
+        this(new ChannelOutput(channel));
+    }
+
+    private CsvEphemerisWriter(final ChannelOutput out) throws IOException {
+        this.out = out;
+        out.text(HEADER);
+        out.character('\n');
+    }
+
+    @Override
+    public void startSegment(final TLE tle, final long startMillis, final long stepMillis, final int count) {
+        catalogNumber = Integer.toString(tle.getCatnum());
+    }
+
+    @Override
+    public void writeState(final long timeMillis, final double[] state, final int offset) throws IOException {
+        out.time(timeMillis);
+        out.character(',');
+        out.text(catalogNumber);
+
+        for (int i = 0; i < 6; i++) {
+            out.character(',');
+            out.fixed(state[offset + i], i < 3 ? 6 : 9);
+        }
+
+        out.character('\n');
+    }
+
+    @Override
+    public void endSegment() {
+        catalogNumber = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -38,6 +38,7 @@
 package uk.me.g4dpz.satellite;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * DeepSpaceSatellite.
@@ -58,8 +59,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
     private double aycof;
     private double x7thm1;
 
-    private boolean sdp4Init;
-
     private final DeepSpaceValueObject dsv;
 
     private final DeepSpaceCalculator deep;
@@ -82,99 +81,61 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
      * structure with Keplerian orbital elements and pos and vel are vector_t structures returning
      * ECI satellite position and velocity. Use Convert_Sat_State() to convert to km and km/S.
      *
+     * The model terms set up by the constructor are not changed here; everything that varies with
+     * time is held in the context, so that many threads can propagate the same satellite at once.
+     *
+     * @param context the context of the calculation
      * @param tsince time since the epoch
      */
     @Override
-    protected synchronized void calculateSDP4(final double tsince) {
-
-        final double[] temp = new double[12];
-
-        /* Initialization */
+    protected void calculateSDP4(final PropagationContext context, final double tsince) {
 
-        if (!sdp4Init) {
-
-            initSDP4();
-        }
+        final DeepSpaceContext dsc = (DeepSpaceContext)context;
 
         final double xmdf = getTLE().getXmo() + dsv.xmdot * tsince;
         final double tsq = tsince * tsince;
         final double templ = t2cof * tsq;
-        dsv.xll = xmdf + dsv.xnodp * templ;
+        dsc.xll = xmdf + dsv.xnodp * templ;
 
-        dsv.omgadf = getTLE().getOmegao() + dsv.omgdot * tsince;
+        dsc.omgadf = getTLE().getOmegao() + dsv.omgdot * tsince;
         final double xnoddf = getTLE().getXnodeo() + dsv.xnodot * tsince;
-        dsv.xnode = xnoddf + xnodcf * tsq;
+        dsc.xnode = xnoddf + xnodcf * tsq;
         final double tempa = 1.0 - c1 * tsince;
         final double tempe = getTLE().getBstar() * c4 * tsince;
-        dsv.xn = dsv.xnodp;
+        dsc.xn = dsv.xnodp;
 
-        dsv.t = tsince;
+        dsc.t = tsince;
 
-        deep.dpsec(getTLE());
+        deep.dpsec(dsc, getTLE());
 
-        final double a = Math.pow(XKE / dsv.xn, TWO_THIRDS) * tempa * tempa;
-        dsv.em = dsv.em - tempe;
-        deep.dpper(getTLE());
+        final double a = Math.pow(XKE / dsc.xn, TWO_THIRDS) * tempa * tempa;
+        dsc.em = dsc.em - tempe;
+        deep.dpper(dsc, getTLE());
 
-        final double xl = dsv.xll + dsv.omgadf + dsv.xnode;
-        final double beta = Math.sqrt(1.0 - dsv.em * dsv.em);
-        dsv.xn = XKE / Math.pow(a, 1.5);
+        final double xl = dsc.xll + dsc.omgadf + dsc.xnode;
+        final double beta = Math.sqrt(1.0 - dsc.em * dsc.em);
+        dsc.xn = XKE / Math.pow(a, 1.5);
 
         /* Long period periodics */
-        final double axn = dsv.em * Math.cos(dsv.omgadf);
-        temp[0] = AbstractSatellite.invert(a * beta * beta);
-        final double xll = temp[0] * xlcof * axn;
-        final double aynl = temp[0] * aycof;
+        final double axn = dsc.em * Math.cos(dsc.omgadf);
+        final double temp = AbstractSatellite.invert(a * beta * beta);
+        final double xll = temp * xlcof * axn;
+        final double aynl = temp * aycof;
         final double xlt = xl + xll;
-        final double ayn = dsv.em * Math.sin(dsv.omgadf) + aynl;
+        final double ayn = dsc.em * Math.sin(dsc.omgadf) + aynl;
 
         /* Solve Kepler'S Equation */
-        final double capu = AbstractSatellite.mod2PI(xlt - dsv.xnode);
-        temp[2] = capu;
+        final double capu = AbstractSatellite.mod2PI(xlt - dsc.xnode);
 
-        AbstractSatellite.converge(temp, axn, ayn, capu);
+        calculatePositionAndVelocity(dsc, a, dsc.xn, axn, ayn, capu, dsc.xnode, dsc.xinc, dsv.cosio, dsv.sinio,
+                x3thm1, x1mth2, x7thm1);
 
-        calculatePositionAndVelocity(temp, a, axn, ayn);
-
-        calculatePhase(xlt, dsv.xnode, dsv.omgadf);
+        calculatePhase(dsc, xlt, dsc.xnode, dsc.omgadf);
     }
 
-    private void calculatePositionAndVelocity(final double[] temp, final double a, final double axn, final double ayn) {
-        final double ecose = temp[5] + temp[6];
-        final double esine = temp[3] - temp[4];
-        final double elsq = axn * axn + ayn * ayn;
-        temp[0] = 1.0 - elsq;
-        final double pl = a * temp[0];
-        temp[9] = a * (1.0 - ecose);
-        temp[1] = AbstractSatellite.invert(temp[9]);
-        temp[10] = XKE * Math.sqrt(a) * esine * temp[1];
-        temp[11] = XKE * Math.sqrt(pl) * temp[1];
-        temp[2] = a * temp[1];
-        final double betal = Math.sqrt(temp[0]);
-        temp[3] = AbstractSatellite.invert(1.0 + betal);
-        final double cosu = temp[2]
-                * (temp[8] - axn + ayn * esine * temp[3]);
-        final double sinu = temp[2]
-                * (temp[7] - ayn - axn * esine * temp[3]);
-        final double u = Math.atan2(sinu, cosu);
-        final double sin2u = 2.0 * sinu * cosu;
-        final double cos2u = 2.0 * cosu * cosu - 1;
-        temp[0] = AbstractSatellite.invert(pl);
-        temp[1] = CK2 * temp[0];
-        temp[2] = temp[1] * temp[0];
-
-        /* Update for short periodics */
-        final double rk = temp[9] * (1.0 - 1.5 * temp[2] * betal * x3thm1) + 0.5
-                * temp[1] * x1mth2 * cos2u;
-        final double uk = u - 0.25 * temp[2] * x7thm1 * sin2u;
-        final double xnodek = dsv.xnode + 1.5 * temp[2] * dsv.cosio * sin2u;
-        final double xinck = dsv.xinc + 1.5 * temp[2] * dsv.cosio
-                * dsv.sinio * cos2u;
-        final double rdotk = temp[10] - dsv.xn * temp[1] * x1mth2 * sin2u;
-        final double rfdotk = temp[11] + dsv.xn * temp[1]
-                * (x1mth2 * cos2u + 1.5 * x3thm1);
-
-        super.calculatePositionAndVelocity(rk, uk, xnodek, xinck, rdotk, rfdotk);
+    @Override
+    protected PropagationContext createContext() {
+        return new DeepSpaceContext();
     }
 
     /**
@@ -184,7 +145,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         double temp1;
         double temp2;
         double temp3;
-        sdp4Init = true;
 
         /* Recover original mean motion (xnodp) and */
         /* semimajor axis (aodp) from input elements. */
@@ -312,7 +272,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double omegaq;
         private double zmol;
         private double zmos;
-        private double savtsn;
         private double ee2;
         private double e3;
         private double xi2;
@@ -358,22 +317,12 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double fasx6;
         private double xlamo;
         private double xfact;
-        private double xni;
-        private double atime;
         private double stepp;
         private double stepn;
         private double step2;
         private double preep;
-        private double pl;
-        private double sghs;
-        private double xli;
         private double d2201;
         private double d2211;
-        private double sghl;
-        private double sh1;
-        private double pinc;
-        private double pe;
-        private double shs;
         private double zsingl;
         private double zcosgl;
         private double zsinhl;
@@ -392,39 +341,26 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double a9;
         private double a10;
         private double ainv2;
-        private double alfdp;
         private double aqnv;
         private double sgh;
         private double sini2;
-        private double sinis;
-        private double sinok;
         private double sh;
         private double si;
-        private double sil;
         private double day;
-        private double betdp;
-        private double dalf;
         private double bfact;
         private double c;
         private double cc;
-        private double cosis;
-        private double cosok;
         private double cosq;
         private double ctem;
         private double f322;
         private double zx;
         private double zy;
-        private double dbet;
-        private double dls;
         private double eoc;
         private double eq;
-        private double f2;
         private double f220;
         private double f221;
-        private double f3;
         private double f311;
         private double f321;
-        private double xnoh;
         private double f330;
         private double f441;
         private double f442;
@@ -435,8 +371,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double g200;
         private double g201;
         private double g211;
-        private double pgh;
-        private double ph;
         private double s1;
         private double s2;
         private double s3;
@@ -445,9 +379,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double s6;
         private double s7;
         private double se;
-        private double sel;
-        private double ses;
-        private double xls;
         private double g300;
         private double g310;
         private double g322;
@@ -459,33 +390,22 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double g533;
         private double gam;
         private double sinq;
-        private double sinzf;
-        private double sis;
         private double sl;
-        private double sll;
-        private double sls;
         private double stem;
         private double temp;
         private double temp1;
         private double x1;
         private double x2;
-        private double x2li;
-        private double x2omi;
         private double x3;
         private double x4;
         private double x5;
         private double x6;
         private double x7;
         private double x8;
-        private double xl;
-        private double xldot;
         private double xmao;
-        private double xnddt;
-        private double xndot;
         private double xno2;
         private double xnodce;
         private double xnoi;
-        private double xomi;
         private double xpidot;
         private double z1;
         private double z11;
@@ -500,8 +420,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double z32;
         private double z33;
         private double ze;
-        private double zf;
-        private double zm;
         private double zn;
         private double zsing;
         private double zsinh;
@@ -509,14 +427,13 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double zcosg;
         private double zcosh;
         private double zcosi;
-        private double delt;
-        private double ft;
 
         private boolean lunarTermsDone;
         private boolean resonance;
         private boolean synchronous;
-        private boolean doLoop;
-        private boolean epochRestart;
+
+        private final ResonanceCheckpoints forwardCheckpoints = new ResonanceCheckpoints();
+        private final ResonanceCheckpoints backwardCheckpoints = new ResonanceCheckpoints();
 
         private DeepSpaceCalculator() {
         }
@@ -567,13 +484,12 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
             xfact = bfact - xnq;
 
             /* Initialize integrator */
-            xli = xlamo;
-            xni = xnq;
-            atime = 0;
             stepp = 720;
             stepn = -720;
             step2 = 259200;
 
+            forwardCheckpoints.offer(0, xlamo, xnq);
+            backwardCheckpoints.offer(0, xlamo, xnq);
         }
 
         /**
@@ -691,7 +607,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
          *
          */
         private void doSolarTerms() {
-            savtsn = 1E20;
             zcosg = 1.945905E-1;
             zsing = ZSINGS;
             zcosi = 9.1744867E-1;
@@ -889,243 +804,218 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         /**
          * Entrance for deep space secular effects.
          *
+         * @param dsc the context of the calculation
          * @param tle The TLE
          */
-        private void dpsec(final TLE tle) {
-            dsv.xll = dsv.xll + ssl * dsv.t;
-            dsv.omgadf = dsv.omgadf + ssg * dsv.t;
-            dsv.xnode = dsv.xnode + ssh * dsv.t;
-            dsv.em = tle.getEo() + sse * dsv.t;
-            dsv.xinc = tle.getXincl() + ssi * dsv.t;
-
-            if (dsv.xinc < 0) {
-                dsv.xinc = -dsv.xinc;
-                dsv.xnode = dsv.xnode + Math.PI;
-                dsv.omgadf = dsv.omgadf - Math.PI;
+        private void dpsec(final DeepSpaceContext dsc, final TLE tle) {
+            dsc.xll = dsc.xll + ssl * dsc.t;
+            dsc.omgadf = dsc.omgadf + ssg * dsc.t;
+            dsc.xnode = dsc.xnode + ssh * dsc.t;
+            dsc.em = tle.getEo() + sse * dsc.t;
+            dsc.xinc = tle.getXincl() + ssi * dsc.t;
+
+            if (dsc.xinc < 0) {
+                dsc.xinc = -dsc.xinc;
+                dsc.xnode = dsc.xnode + Math.PI;
+                dsc.omgadf = dsc.omgadf - Math.PI;
             }
 
             if (!resonance) {
                 return;
             }
 
-            do {
-                processEpochRestartLoop();
-            }
-            while (doLoop && epochRestart);
+            integrateResonance(dsc);
 
-            dsv.xn = xni + xndot * ft + xnddt * ft * ft * 0.5;
-            xl = xli + xldot * ft + xndot * ft * ft * 0.5;
-            temp = -dsv.xnode + thgr + dsv.t * THDT;
+            final double ft = dsc.ft;
+            dsc.xn = dsc.xni + dsc.xndot * ft + dsc.xnddt * ft * ft * 0.5;
+            final double xl = dsc.xli + dsc.xldot * ft + dsc.xndot * ft * ft * 0.5;
+            final double theta = -dsc.xnode + thgr + dsc.t * THDT;
 
             if (synchronous) {
-                dsv.xll = xl - dsv.omgadf + temp;
+                dsc.xll = xl - dsc.omgadf + theta;
             }
             else {
-                dsv.xll = xl + temp + temp;
+                dsc.xll = xl + theta + theta;
             }
         }
 
         /**
+         * Integrates the resonance terms from epoch to the time of the calculation, in steps of
+         * stepp minutes. Integration always runs outward from epoch, starting from the nearest
+         * checkpoint, so the result does not depend on earlier calculations.
          *
+         * @param dsc the context of the calculation
          */
-        private void processEpochRestartLoop() {
-            if ((atime == 0)
-                    || ((dsv.t >= 0) && (atime < 0))
-                    || ((dsv.t < 0) && (atime >= 0))) {
-                /* Epoch restart */
-
-                calclateDelt();
-
-                atime = 0;
-                xni = xnq;
-                xli = xlamo;
-            }
-            else if (Math.abs(dsv.t) >= Math.abs(atime)) {
-                calclateDelt();
-            }
-
-            processNotEpochRestartLoop();
-        }
+        private void integrateResonance(final DeepSpaceContext dsc) {
+            final double t = dsc.t;
+            final double delt;
+            final ResonanceCheckpoints checkpoints;
 
-        private void calclateDelt() {
-            if (dsv.t < 0) {
+            if (t < 0) {
                 delt = stepn;
+                checkpoints = backwardCheckpoints;
             }
             else {
                 delt = stepp;
+                checkpoints = forwardCheckpoints;
             }
-        }
 
-        /**
-         *
-         */
-        private void processNotEpochRestartLoop() {
-            do {
-                if (Math.abs(dsv.t - atime) >= stepp) {
-                    doLoop = true;
-                    epochRestart = false;
-                }
-                else {
-                    ft = dsv.t - atime;
-                    doLoop = false;
-                }
+            checkpoints.restore(dsc, (int)(Math.abs(t) / stepp), delt);
 
-                if (Math.abs(dsv.t) < Math.abs(atime)) {
-                    if (dsv.t >= 0) {
-                        delt = stepn;
-                    }
-                    else {
-                        delt = stepp;
-                    }
+            calculateDotTerms(dsc);
 
-                    doLoop |= epochRestart;
-                }
+            int steps = 0;
 
-                /* Dot terms calculated */
-                if (synchronous) {
-                    xndot = del1 * Math.sin(xli - fasx2) + del2
-                            * Math.sin(2.0 * (xli - fasx4)) + del3
-                            * Math.sin(3.0 * (xli - fasx6));
-                    xnddt = del1 * Math.cos(xli - fasx2) + 2 * del2
-                            * Math.cos(2.0 * (xli - fasx4)) + 3.0 * del3
-                            * Math.cos(3.0 * (xli - fasx6));
-                }
-                else {
-                    xomi = omegaq + dsv.omgdot * atime;
-                    x2omi = xomi + xomi;
-                    x2li = xli + xli;
-                    xndot = d2201 * Math.sin(x2omi + xli - G22) + d2211
-                            * Math.sin(xli - G22) + d3210
-                            * Math.sin(xomi + xli - G32) + d3222
-                            * Math.sin(-xomi + xli - G32) + d4410
-                            * Math.sin(x2omi + x2li - G44) + d4422
-                            * Math.sin(x2li - G44) + d5220
-                            * Math.sin(xomi + xli - G52) + d5232
-                            * Math.sin(-xomi + xli - G52) + d5421
-                            * Math.sin(xomi + x2li - G54) + d5433
-                            * Math.sin(-xomi + x2li - G54);
-                    xnddt = d2201
-                            * Math.cos(x2omi + xli - G22)
-                            + d2211
-                            * Math.cos(xli - G22)
-                            + d3210
-                            * Math.cos(xomi + xli - G32)
-                            + d3222
-                            * Math.cos(-xomi + xli - G32)
-                            + d5220
-                            * Math.cos(xomi + xli - G52)
-                            + d5232
-                            * Math.cos(-xomi + xli - G52)
-                            + 2
-                            * (d4410 * Math.cos(x2omi + x2li - G44) + d4422
-                                    * Math.cos(x2li - G44) + d5421
-                                    * Math.cos(xomi + x2li - G54) + d5433
-                                    * Math.cos(-xomi + x2li - G54));
-                }
+            while (Math.abs(t - dsc.atime) >= stepp) {
+                steps++;
+                dsc.xli = dsc.xli + dsc.xldot * delt + dsc.xndot * step2;
+                dsc.xni = dsc.xni + dsc.xndot * delt + dsc.xnddt * step2;
+                dsc.atime = dsc.atime + delt;
 
-                xldot = xni + xfact;
-                xnddt = xnddt * xldot;
+                checkpoints.offer((int)Math.round(Math.abs(dsc.atime) / stepp), dsc.xli, dsc.xni);
 
-                if (doLoop) {
-                    xli = xli + xldot * delt + xndot * step2;
-                    xni = xni + xndot * delt + xnddt * step2;
-                    atime = atime + delt;
-                }
+                calculateDotTerms(dsc);
             }
-            while (doLoop && !epochRestart);
+
+            final MetricsCollector metrics = Metrics.getCollector();
+            metrics.cacheAccessed(MetricsCollector.Cache.RESONANCE_CHECKPOINT, steps == 0);
+            metrics.resonanceIntegrated(steps);
+
+            dsc.ft = t - dsc.atime;
         }
 
         /**
-         * Entrance for lunar-solar periodics.
+         * Calculates the dot terms at the current integrator state.
          *
-         * @param tle the three line elements
+         * @param dsc the context of the calculation
          */
-        private void dpper(final TLE tle) {
-            sinis = Math.sin(dsv.xinc);
-            cosis = Math.cos(dsv.xinc);
-
-            if (Math.abs(savtsn - dsv.t) >= 30) {
-                savtsn = dsv.t;
-                zm = zmos + ZNS * dsv.t;
-                zf = zm + 2 * ZES * Math.sin(zm);
-                sinzf = Math.sin(zf);
-                f2 = 0.5 * sinzf * sinzf - 0.25;
-                f3 = -0.5 * sinzf * Math.cos(zf);
-                ses = se2 * f2 + se3 * f3;
-                sis = si2 * f2 + si3 * f3;
-                sls = sl2 * f2 + sl3 * f3 + sl4 * sinzf;
-                sghs = sgh2 * f2 + sgh3 * f3 + sgh4 * sinzf;
-                shs = sh2 * f2 + sh3 * f3;
-                zm = zmol + ZNL * dsv.t;
-                zf = zm + 2 * ZEL * Math.sin(zm);
-                sinzf = Math.sin(zf);
-                f2 = 0.5 * sinzf * sinzf - 0.25;
-                f3 = -0.5 * sinzf * Math.cos(zf);
-                sel = ee2 * f2 + e3 * f3;
-                sil = xi2 * f2 + xi3 * f3;
-                sll = xl2 * f2 + xl3 * f3 + xl4 * sinzf;
-                sghl = xgh2 * f2 + xgh3 * f3 + xgh4 * sinzf;
-                sh1 = xh2 * f2 + xh3 * f3;
-                pe = ses + sel;
-                pinc = sis + sil;
-                pl = sls + sll;
+        private void calculateDotTerms(final DeepSpaceContext dsc) {
+            final double xli = dsc.xli;
+            double xnddt;
+
+            if (synchronous) {
+                dsc.xndot = del1 * Math.sin(xli - fasx2) + del2
+                        * Math.sin(2.0 * (xli - fasx4)) + del3
+                        * Math.sin(3.0 * (xli - fasx6));
+                xnddt = del1 * Math.cos(xli - fasx2) + 2 * del2
+                        * Math.cos(2.0 * (xli - fasx4)) + 3.0 * del3
+                        * Math.cos(3.0 * (xli - fasx6));
             }
+            else {
+                final double xomi = omegaq + dsv.omgdot * dsc.atime;
+                final double x2omi = xomi + xomi;
+                final double x2li = xli + xli;
+                dsc.xndot = d2201 * Math.sin(x2omi + xli - G22) + d2211
+                        * Math.sin(xli - G22) + d3210
+                        * Math.sin(xomi + xli - G32) + d3222
+                        * Math.sin(-xomi + xli - G32) + d4410
+                        * Math.sin(x2omi + x2li - G44) + d4422
+                        * Math.sin(x2li - G44) + d5220
+                        * Math.sin(xomi + xli - G52) + d5232
+                        * Math.sin(-xomi + xli - G52) + d5421
+                        * Math.sin(xomi + x2li - G54) + d5433
+                        * Math.sin(-xomi + x2li - G54);
+                xnddt = d2201
+                        * Math.cos(x2omi + xli - G22)
+                        + d2211
+                        * Math.cos(xli - G22)
+                        + d3210
+                        * Math.cos(xomi + xli - G32)
+                        + d3222
+                        * Math.cos(-xomi + xli - G32)
+                        + d5220
+                        * Math.cos(xomi + xli - G52)
+                        + d5232
+                        * Math.cos(-xomi + xli - G52)
+                        + 2
+                        * (d4410 * Math.cos(x2omi + x2li - G44) + d4422
+                                * Math.cos(x2li - G44) + d5421
+                                * Math.cos(xomi + x2li - G54) + d5433
+                                * Math.cos(-xomi + x2li - G54));
+            }
+
+            dsc.xldot = dsc.xni + xfact;
+            dsc.xnddt = xnddt * dsc.xldot;
+        }
 
-            pgh = sghs + sghl;
-            ph = shs + sh1;
-            dsv.xinc = dsv.xinc + pinc;
-            dsv.em = dsv.em + pe;
+        /**
+         * Entrance for lunar-solar periodics.
+         *
+         * @param dsc the context of the calculation
+         * @param tle the three line elements
+         */
+        private void dpper(final DeepSpaceContext dsc, final TLE tle) {
+            final double sinis = Math.sin(dsc.xinc);
+            final double cosis = Math.cos(dsc.xinc);
+
+            double zm = zmos + ZNS * dsc.t;
+            double zf = zm + 2 * ZES * Math.sin(zm);
+            double sinzf = Math.sin(zf);
+            double f2 = 0.5 * sinzf * sinzf - 0.25;
+            double f3 = -0.5 * sinzf * Math.cos(zf);
+            final double ses = se2 * f2 + se3 * f3;
+            final double sis = si2 * f2 + si3 * f3;
+            final double sls = sl2 * f2 + sl3 * f3 + sl4 * sinzf;
+            final double sghs = sgh2 * f2 + sgh3 * f3 + sgh4 * sinzf;
+            final double shs = sh2 * f2 + sh3 * f3;
+            zm = zmol + ZNL * dsc.t;
+            zf = zm + 2 * ZEL * Math.sin(zm);
+            sinzf = Math.sin(zf);
+            f2 = 0.5 * sinzf * sinzf - 0.25;
+            f3 = -0.5 * sinzf * Math.cos(zf);
+            final double sel = ee2 * f2 + e3 * f3;
+            final double sil = xi2 * f2 + xi3 * f3;
+            final double sll = xl2 * f2 + xl3 * f3 + xl4 * sinzf;
+            final double sghl = xgh2 * f2 + xgh3 * f3 + xgh4 * sinzf;
+            final double sh1 = xh2 * f2 + xh3 * f3;
+            final double pe = ses + sel;
+            final double pinc = sis + sil;
+            final double pl = sls + sll;
+
+            double pgh = sghs + sghl;
+            double ph = shs + sh1;
+            dsc.xinc = dsc.xinc + pinc;
+            dsc.em = dsc.em + pe;
 
             if (xqncl >= 0.2) {
                 /* Apply periodics directly */
                 ph = ph / dsv.sinio;
                 pgh = pgh - dsv.cosio * ph;
-                dsv.omgadf = dsv.omgadf + pgh;
-                dsv.xnode = dsv.xnode + ph;
-                dsv.xll = dsv.xll + pl;
+                dsc.omgadf = dsc.omgadf + pgh;
+                dsc.xnode = dsc.xnode + ph;
+                dsc.xll = dsc.xll + pl;
             }
 
             else {
 
-                applyPeriodics();
+                /* Apply periodics with Lyddane modification */
+                final double sinok = Math.sin(dsc.xnode);
+                final double cosok = Math.cos(dsc.xnode);
+                final double alfdp = sinis * sinok + (ph * cosok + pinc * cosis * sinok);
+                final double betdp = sinis * cosok + (-ph * sinok + pinc * cosis * cosok);
+                dsc.xnode = AbstractSatellite.mod2PI(dsc.xnode);
+                final double xls = dsc.xll + dsc.omgadf + cosis * dsc.xnode
+                        + (pl + pgh - pinc * dsc.xnode * sinis);
+                final double xnoh = dsc.xnode;
+                dsc.xnode = Math.atan2(alfdp, betdp);
 
                 /* This is a patch to Lyddane modification */
                 /* suggested by Rob Matson. */
 
-                if (Math.abs(xnoh - dsv.xnode) > Math.PI) {
-                    if (dsv.xnode < xnoh) {
-                        dsv.xnode += TWO_PI;
+                if (Math.abs(xnoh - dsc.xnode) > Math.PI) {
+                    if (dsc.xnode < xnoh) {
+                        dsc.xnode += TWO_PI;
                     }
                     else {
-                        dsv.xnode -= TWO_PI;
+                        dsc.xnode -= TWO_PI;
                     }
                 }
 
-                dsv.xll = dsv.xll + pl;
-                dsv.omgadf = xls - dsv.xll - Math.cos(dsv.xinc) * dsv.xnode;
+                dsc.xll = dsc.xll + pl;
+                dsc.omgadf = xls - dsc.xll - Math.cos(dsc.xinc) * dsc.xnode;
             }
         }
 
-        /**
-         * Apply periodics with Lyddane modification.
-         */
-        private void applyPeriodics() {
-            sinok = Math.sin(dsv.xnode);
-            cosok = Math.cos(dsv.xnode);
-            alfdp = sinis * sinok;
-            betdp = sinis * cosok;
-            dalf = ph * cosok + pinc * cosis * sinok;
-            dbet = -ph * sinok + pinc * cosis * cosok;
-            alfdp = alfdp + dalf;
-            betdp = betdp + dbet;
-            dsv.xnode = AbstractSatellite.mod2PI(dsv.xnode);
-            xls = dsv.xll + dsv.omgadf + cosis * dsv.xnode;
-            dls = pl + pgh - pinc * dsv.xnode * sinis;
-            xls = xls + dls;
-            xnoh = dsv.xnode;
-            dsv.xnode = Math.atan2(alfdp, betdp);
-        }
-
         /**
          * The function ThetaG calculates the Greenwich Mean Sidereal Time for an epoch specified in
          * the format used in the NORAD two-line element sets. It has now been adapted for dates
@@ -1162,6 +1052,101 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         }
     }
 
+    /**
+     * The state of the resonance integrator every INTERVAL steps out from epoch, in one
+     * direction of time. Shared by all threads propagating the satellite: checkpoints are only ever
+     * appended, under the lock, and are read without it.
+     */
+    private static final class ResonanceCheckpoints implements Serializable {
+
+        private static final long serialVersionUID = -3441826016394815476L;
+
+        /** Steps between checkpoints. */
+        static final int INTERVAL = 1;
+        /** Enough for about 2.8 years either side of epoch, at 720 minutes per step. */
+        private static final int MAX_CHECKPOINTS = 2048;
+
+        /** xli and xni of each checkpoint in turn. */
+        private volatile double[] states = new double[32];
+        private volatile int count;
+
+        /**
+         * Records the state after a step, if the step is the next checkpoint.
+         *
+         * @param step the number of steps from epoch
+         * @param xli the value of xli after the step
+         * @param xni the value of xni after the step
+         */
+        void offer(final int step, final double xli, final double xni) {
+            if (step != count * INTERVAL || count == MAX_CHECKPOINTS) {
+                return;
+            }
+
+            synchronized (this) {
+                final int index = count;
+
+                if (step != index * INTERVAL) {
+                    return;
+                }
+
+                double[] values = states;
+
+                if (index * 2 == values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+
+                values[index * 2] = xli;
+                values[index * 2 + 1] = xni;
+                states = values;
+                count = index + 1;
+            }
+        }
+
+        /**
+         * Sets the integrator state of a calculation to the last checkpoint at or before a step.
+         *
+         * @param dsc the context of the calculation
+         * @param step the number of steps from epoch
+         * @param delt the signed step size
+         */
+        void restore(final DeepSpaceContext dsc, final int step, final double delt) {
+            // read count before states, so that the array holds at least count checkpoints
+            final int index = Math.min(step / INTERVAL, count - 1);
+            final double[] values = states;
+
+            dsc.atime = index * INTERVAL * delt;
+            dsc.xli = values[index * 2];
+            dsc.xni = values[index * 2 + 1];
+        }
+    }
+
+    /**
+     * The state of a single SDP4 calculation.
+     */
+    private static final class DeepSpaceContext extends PropagationContext {
+
+        /* Used by dpsec and dpper parts of Deep() */
+        private double xll;
+        private double omgadf;
+        private double xnode;
+        private double em;
+        private double xinc;
+        private double xn;
+        private double t;
+
+        /* Resonance integrator */
+        private double atime;
+        private double xli;
+        private double xni;
+        private double xldot;
+        private double xndot;
+        private double xnddt;
+        private double ft;
+
+        private DeepSpaceContext() {
+        }
+    }
+
     private static final class DeepSpaceValueObject implements Serializable {
 
         private static final long serialVersionUID = 5230929750062183569L;
@@ -1179,15 +1164,6 @@ public class DeepSpaceSatellite extends AbstractSatellite implements Serializabl
         private double xnodot;
         private double xnodp;
 
-        /* Used by dpsec and dpper parts of Deep() */
-        private double xll;
-        private double omgadf;
-        private double xnode;
-        private double em;
-        private double xinc;
-        private double xn;
-        private double t;
-
         /* Used by thetg and Deep() */
         private double ds50;
 
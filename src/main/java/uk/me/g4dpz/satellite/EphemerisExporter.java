@@ -0,0 +1,103 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Propagates satellites straight into an {@link EphemerisWriter}, one satellite at a time and
+ * one state at a time, so that long ephemerides for many satellites need no more memory than a
+ * single state.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public final class EphemerisExporter {
+
+    /**
+     * Default constructor.
+     */
+    private EphemerisExporter() {
+
+    }
+
+    /**
+     * Writes a segment for each satellite with states at regular steps from the start time up to
+     * and including the end time. The writer is left open.
+     *
+     * @param tles the satellites
+     * @param start the start time
+     * @param end the end time
+     * @param stepMillis the time step in milliseconds
+     * @param writer the writer
+     * @return the number of states written
+     * @throws IOException the ephemeris could not be written
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public static long export(final List<TLE> tles, final Date start, final Date end, final long stepMillis,
+            final EphemerisWriter writer) throws IOException, IllegalArgumentException {
+
+        if (null == tles || null == writer) {
+            throw new IllegalArgumentException("TLEs and writer have not been set");
+        }
+
+        if (null == start || null == end || end.before(start)) {
+            throw new IllegalArgumentException("Start and end times have not been set in order");
+        }
+
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("Step must be positive, got: " + stepMillis);
+        }
+
+        final long steps = (end.getTime() - start.getTime()) / stepMillis + 1;
+
+        if (steps > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many steps: " + steps);
+        }
+
+        final double[] state = new double[6];
+        long written = 0;
+
+        for (final TLE tle : tles) {
+            final AbstractSatellite satellite = (AbstractSatellite)SatelliteFactory.createSatellite(tle);
+
+            writer.startSegment(tle, start.getTime(), stepMillis, (int)steps);
+
+            for (long step = 0; step < steps; step++) {
+                final long time = start.getTime() + step * stepMillis;
+                satellite.calculateStateVector(new Date(time), state, 0);
+                writer.writeState(time, state, 0);
+            }
+
+            writer.endSegment();
+            written += steps;
+        }
+
+        return written;
+    }
+}
@@ -0,0 +1,400 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A file of precomputed ephemerides, memory mapped for random access by time.
+ *
+ * All satellites share one start time, step and number of records. Each satellite has a block of
+ * fixed size records: the time (long, ms), the TEME position (km) and velocity (km/s) as doubles
+ * and, optionally, the latitude and longitude (radians) and altitude (km). A header indexes the
+ * blocks, so the records either side of any time are found with one division, and the state in
+ * between is interpolated with the cubic Hermite polynomial through both positions and
+ * velocities.
+ *
+ * Reads use absolute gets on read only mappings, so any number of threads may read at once
+ * without locking.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class EphemerisStore implements Closeable {
+
+    /** "P4JS". */
+    static final int MAGIC = 0x50344A53;
+    static final int VERSION = 1;
+
+    private static final int GEODETIC = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int NAME_BYTES = 24;
+    private static final int INDEX_BYTES = 4 + NAME_BYTES + 8;
+    private static final int STATE_STRIDE = 8 + 6 * 8;
+    private static final int GEODETIC_STRIDE = STATE_STRIDE + 3 * 8;
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final FileChannel channel;
+    private final boolean geodetic;
+    private final long startMillis;
+    private final long stepMillis;
+    private final int count;
+    private final int stride;
+    private final int[] catalogNumbers;
+    private final String[] names;
+    private final MappedByteBuffer[] blocks;
+    private final Map<Integer, Integer> indexByCatalogNumber = new HashMap<Integer, Integer>();
+
+    private EphemerisStore(final FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not an ephemeris store");
+        }
+
+        geodetic = (header.getInt(8) & GEODETIC) != 0;
+        final int satellites = header.getInt(12);
+        startMillis = header.getLong(16);
+        stepMillis = header.getLong(24);
+        count = header.getInt(32);
+        stride = header.getInt(36);
+
+        catalogNumbers = new int[satellites];
+        names = new String[satellites];
+        blocks = new MappedByteBuffer[satellites];
+
+        final ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+                (long)satellites * INDEX_BYTES);
+        final byte[] name = new byte[NAME_BYTES];
+
+        for (int i = 0; i < satellites; i++) {
+            index.position(i * INDEX_BYTES);
+            catalogNumbers[i] = index.getInt();
+            index.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8).trim();
+            blocks[i] = channel.map(FileChannel.MapMode.READ_ONLY, index.getLong(), (long)count * stride);
+            indexByCatalogNumber.put(catalogNumbers[i], i);
+        }
+    }
+
+    /**
+     * Propagates satellites and writes their ephemerides to a new store, replacing any file
+     * already there.
+     *
+     * @param file the file
+     * @param tles the satellites
+     * @param start the time of the first record
+     * @param end the time at or before which the last record falls
+     * @param stepMillis the time between records
+     * @param geodetic whether to store the latitude, longitude and altitude as well
+     * @throws IOException the file could not be written
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public static void build(final Path file, final List<TLE> tles, final Date start, final Date end,
+            final long stepMillis, final boolean geodetic) throws IOException, IllegalArgumentException {
+
+        if (null == tles || tles.isEmpty()) {
+            throw new IllegalArgumentException("TLEs have not been set");
+        }
+
+        if (null == start || null == end || end.before(start)) {
+            throw new IllegalArgumentException("Start and end times have not been set in order");
+        }
+
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("Step must be positive, got: " + stepMillis);
+        }
+
+        final int stride = geodetic ? GEODETIC_STRIDE : STATE_STRIDE;
+        final long steps = (end.getTime() - start.getTime()) / stepMillis + 1;
+
+        if (steps * stride > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many records for one satellite: " + steps);
+        }
+
+        final int count = (int)steps;
+        final long dataStart = (HEADER_BYTES + (long)tles.size() * INDEX_BYTES + 7) & ~7L;
+
+        try (ChannelOutput out = ChannelOutput.open(file)) {
+            out.reserve(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(geodetic ? GEODETIC : 0)
+                    .putInt(tles.size()).putLong(start.getTime()).putLong(stepMillis).putInt(count).putInt(stride);
+
+            for (int i = 0; i < tles.size(); i++) {
+                final TLE tle = tles.get(i);
+                final byte[] name = Arrays.copyOf(tle.getName().getBytes(StandardCharsets.UTF_8), NAME_BYTES);
+                out.reserve(INDEX_BYTES).putInt(tle.getCatnum()).put(name).putLong(dataStart + (long)i * count * stride);
+            }
+
+            out.reserve(8).put(new byte[(int)(dataStart - HEADER_BYTES - (long)tles.size() * INDEX_BYTES)]);
+
+            final double[] state = new double[6];
+
+            for (final TLE tle : tles) {
+                final AbstractSatellite satellite =
+                        (AbstractSatellite)SatelliteFactory.createSatellite(tle, GeodeticConversion.VERMEILLE);
+
+                for (int step = 0; step < count; step++) {
+                    final long time = start.getTime() + step * stepMillis;
+                    final ByteBuffer buffer = out.reserve(stride);
+                    buffer.putLong(time);
+
+                    if (geodetic) {
+                        final SatPos satPos = satellite.calculateGroundTrack(new Date(time), state, 0);
+                        putState(buffer, state);
+                        buffer.putDouble(satPos.getLatitude());
+                        buffer.putDouble(satPos.getLongitude());
+                        buffer.putDouble(satPos.getAltitude());
+                    }
+                    else {
+                        satellite.calculateStateVector(new Date(time), state, 0);
+                        putState(buffer, state);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void putState(final ByteBuffer buffer, final double[] state) {
+        for (int i = 0; i < 6; i++) {
+            buffer.putDouble(state[i]);
+        }
+    }
+
+    /**
+     * Opens a store for reading.
+     *
+     * @param file the file
+     * @return the store
+     * @throws IOException the file could not be read or is not a store
+     */
+    public static EphemerisStore open(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            return new EphemerisStore(channel);
+        }
+        catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        catch (final RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of satellites
+     */
+    public final int size() {
+        return blocks.length;
+    }
+
+    /**
+     * @param catalogNumber the catalog number of a satellite
+     * @return the index of the satellite in the store, or -1 if it is not there
+     */
+    public final int indexOf(final int catalogNumber) {
+        final Integer index = indexByCatalogNumber.get(catalogNumber);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param satellite the index of the satellite
+     * @return the catalog number
+     */
+    public final int getCatalogNumber(final int satellite) {
+        return catalogNumbers[satellite];
+    }
+
+    /**
+     * @param satellite the index of the satellite
+     * @return the name, truncated to 24 bytes
+     */
+    public final String getName(final int satellite) {
+        return names[satellite];
+    }
+
+    /**
+     * @return the time of the first record
+     */
+    public final long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return the time of the last record
+     */
+    public final long getEndMillis() {
+        return startMillis + (count - 1) * stepMillis;
+    }
+
+    /**
+     * @return the time between records
+     */
+    public final long getStepMillis() {
+        return stepMillis;
+    }
+
+    /**
+     * @return the number of records for each satellite
+     */
+    public final int getRecordCount() {
+        return count;
+    }
+
+    /**
+     * @return whether latitude, longitude and altitude are stored
+     */
+    public final boolean hasGeodetic() {
+        return geodetic;
+    }
+
+    /**
+     * Gets the state vector of a satellite at any time covered by the store.
+     *
+     * @param satellite the index of the satellite
+     * @param timeMillis the time
+     * @param state receives x, y, z (km) and vx, vy, vz (km/s)
+     * @return false if the time is outside the store
+     */
+    public final boolean getState(final int satellite, final long timeMillis, final double[] state) {
+        final long offset = timeMillis - startMillis;
+
+        if (offset < 0 || timeMillis > getEndMillis()) {
+            return false;
+        }
+
+        final ByteBuffer block = blocks[satellite];
+        final int record = (int)(offset / stepMillis);
+        final long into = offset - record * stepMillis;
+        final int first = record * stride + 8;
+
+        if (into == 0) {
+            for (int i = 0; i < 6; i++) {
+                state[i] = block.getDouble(first + i * 8);
+            }
+            return true;
+        }
+
+        final int second = first + stride;
+        final double h = stepMillis / MILLIS_PER_SECOND;
+        final double s = (double)into / stepMillis;
+        final double s2 = s * s;
+        final double s3 = s2 * s;
+
+        final double h00 = 2.0 * s3 - 3.0 * s2 + 1.0;
+        final double h10 = (s3 - 2.0 * s2 + s) * h;
+        final double h01 = 3.0 * s2 - 2.0 * s3;
+        final double h11 = (s3 - s2) * h;
+        final double d00 = (6.0 * s2 - 6.0 * s) / h;
+        final double d10 = 3.0 * s2 - 4.0 * s + 1.0;
+        final double d01 = -d00;
+        final double d11 = 3.0 * s2 - 2.0 * s;
+
+        for (int i = 0; i < 3; i++) {
+            final double p0 = block.getDouble(first + i * 8);
+            final double v0 = block.getDouble(first + 24 + i * 8);
+            final double p1 = block.getDouble(second + i * 8);
+            final double v1 = block.getDouble(second + 24 + i * 8);
+
+            state[i] = h00 * p0 + h10 * v0 + h01 * p1 + h11 * v1;
+            state[i + 3] = d00 * p0 + d10 * v0 + d01 * p1 + d11 * v1;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the sub satellite point and altitude of a satellite, interpolated linearly between
+     * records.
+     *
+     * @param satellite the index of the satellite
+     * @param timeMillis the time
+     * @param latLonAlt receives the latitude and longitude (radians, longitude 0 to 2 PI) and the
+     *            altitude (km)
+     * @return false if the time is outside the store
+     * @throws IllegalStateException the store was built without geodetic values
+     */
+    public final boolean getGeodetic(final int satellite, final long timeMillis, final double[] latLonAlt)
+            throws IllegalStateException {
+
+        if (!geodetic) {
+            throw new IllegalStateException("Store has no geodetic values");
+        }
+
+        final long offset = timeMillis - startMillis;
+
+        if (offset < 0 || timeMillis > getEndMillis()) {
+            return false;
+        }
+
+        final ByteBuffer block = blocks[satellite];
+        final int record = (int)(offset / stepMillis);
+        final double s = (double)(offset - record * stepMillis) / stepMillis;
+        final int first = record * stride + STATE_STRIDE;
+        final int second = s == 0.0 ? first : first + stride;
+
+        final double longitude0 = block.getDouble(first + 8);
+        double dLongitude = block.getDouble(second + 8) - longitude0;
+
+        // take the short way round through 0
+        if (dLongitude > Math.PI) {
+            dLongitude -= AbstractSatellite.TWO_PI;
+        }
+        else if (dLongitude < -Math.PI) {
+            dLongitude += AbstractSatellite.TWO_PI;
+        }
+
+        latLonAlt[0] = block.getDouble(first) + s * (block.getDouble(second) - block.getDouble(first));
+        latLonAlt[1] = AbstractSatellite.mod2PI(longitude0 + s * dLongitude);
+        latLonAlt[2] = block.getDouble(first + 16) + s * (block.getDouble(second + 16) - block.getDouble(first + 16));
+
+        return true;
+    }
+
+    /**
+     * Closes the file. The mappings stay valid until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
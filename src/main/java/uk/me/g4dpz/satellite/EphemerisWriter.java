@@ -0,0 +1,67 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams an ephemeris to a file or channel, one segment of regularly spaced state vectors per
+ * satellite, without holding the states in memory. See {@link EphemerisExporter}.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public interface EphemerisWriter extends Closeable {
+
+    /**
+     * Starts the segment for a satellite.
+     *
+     * @param tle the satellite
+     * @param startMillis the time of the first state
+     * @param stepMillis the time between states
+     * @param count the number of states which will follow
+     * @throws IOException the ephemeris could not be written
+     */
+    void startSegment(TLE tle, long startMillis, long stepMillis, int count) throws IOException;
+
+    /**
+     * Writes the next state of the current segment.
+     *
+     * @param timeMillis the time of the state
+     * @param state the position (km) and velocity (km/s) in the TEME frame
+     * @param offset the index in state of x
+     * @throws IOException the ephemeris could not be written
+     */
+    void writeState(long timeMillis, double[] state, int offset) throws IOException;
+
+    /**
+     * Ends the current segment.
+     *
+     * @throws IOException the ephemeris could not be written
+     */
+    void endSegment() throws IOException;
+}
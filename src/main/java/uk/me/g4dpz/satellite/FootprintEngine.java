@@ -0,0 +1,210 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.List;
+
+/**
+ * Calculates satellite footprints (range circles) as flat arrays of latitude and longitude pairs
+ * in degrees.
+ *
+ * The sine and cosine of each azimuth are tabulated once, when the engine is created, and the
+ * caller may pass in the output array, so repeated calls neither allocate nor evaluate the azimuth
+ * terms. Instances are immutable and may be shared between threads.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class FootprintEngine {
+
+    /** The number of points used by {@link SatPos#getRangeCircle()}. */
+    public static final int DEFAULT_POINTS = 360;
+
+    private static final double EARTH_RADIUS_KM = 6.378137E3;
+    private static final double TWO_PI = Math.PI * 2.0;
+    private static final double RAD2DEG = 360.0 / TWO_PI;
+
+    private final int points;
+    private final double[] cosAzimuth;
+    private final double[] sinAzimuth;
+
+    /**
+     * Creates an engine giving one point per degree of azimuth.
+     */
+    public FootprintEngine() {
+        this(DEFAULT_POINTS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param points the number of points on each footprint
+     * @throws IllegalArgumentException fewer than 3 points were asked for
+     */
+    public FootprintEngine(final int points) throws IllegalArgumentException {
+
+        if (points < 3) {
+            throw new IllegalArgumentException("Footprint needs at least 3 points, got: " + points);
+        }
+
+        this.points = points;
+        this.cosAzimuth = new double[points];
+        this.sinAzimuth = new double[points];
+
+        for (int i = 0; i < points; i++) {
+            final double azimuth = i / (double)points * 2.0 * Math.PI;
+            cosAzimuth[i] = Math.cos(azimuth);
+            sinAzimuth[i] = Math.sin(azimuth);
+        }
+    }
+
+    /**
+     * @return the number of points on each footprint
+     */
+    public final int getPoints() {
+        return points;
+    }
+
+    /**
+     * Calculates the earth central angle from the sub satellite point to the edge of the area in
+     * which the satellite is above a minimum elevation.
+     *
+     * @param altitude the altitude of the satellite in km
+     * @param minElevation the minimum elevation in radians, 0 for the horizon
+     * @return the angle in radians
+     */
+    public static double footprintAngle(final double altitude, final double minElevation) {
+        final double cosElevation = Math.cos(minElevation);
+        return Math.acos(EARTH_RADIUS_KM / (EARTH_RADIUS_KM + altitude) * cosElevation) - minElevation;
+    }
+
+    /**
+     * Calculates the footprint of a satellite.
+     *
+     * @param pos the satellite position, the latitude, longitude and altitude are used
+     * @param minElevation the minimum elevation in radians, 0 for the horizon
+     * @param output receives latitude and longitude pairs, or null to allocate a new array
+     * @return the output array
+     * @throws IllegalArgumentException the output array is too small
+     */
+    public final double[] calculate(final SatPos pos, final double minElevation, final double[] output)
+            throws IllegalArgumentException {
+        return calculate(pos.getLatitude(), pos.getLongitude(),
+                FootprintEngine.footprintAngle(pos.getAltitude(), minElevation), output, 0);
+    }
+
+    /**
+     * Calculates the footprints of many satellites in one call, one after the other in the output.
+     *
+     * @param positions the satellite positions
+     * @param minElevation the minimum elevation in radians, 0 for the horizon
+     * @param output receives 2 * points values per satellite, or null to allocate a new array
+     * @return the output array
+     * @throws IllegalArgumentException the output array is too small
+     */
+    public final double[] calculate(final List<SatPos> positions, final double minElevation,
+            final double[] output) throws IllegalArgumentException {
+
+        final int size = positions.size();
+        final double[] result = ensureCapacity(output, size * points * 2);
+
+        for (int n = 0; n < size; n++) {
+            final SatPos pos = positions.get(n);
+            calculate(pos.getLatitude(), pos.getLongitude(),
+                    FootprintEngine.footprintAngle(pos.getAltitude(), minElevation), result, n * points * 2);
+        }
+
+        return result;
+    }
+
+    /**
+     * Calculates a footprint from the sub satellite point and the footprint angle.
+     *
+     * @param latitude the latitude of the sub satellite point in radians
+     * @param longitude the longitude of the sub satellite point in radians
+     * @param beta the earth central angle from the sub satellite point to the edge, in radians
+     * @param output receives latitude and longitude pairs in degrees, longitude from 0 to 360, or
+     *            null to allocate a new array
+     * @param offset the index in output of the first latitude
+     * @return the output array
+     * @throws IllegalArgumentException the output array is too small
+     */
+    public final double[] calculate(final double latitude, final double longitude, final double beta,
+            final double[] output, final int offset) throws IllegalArgumentException {
+
+        final double[] result = ensureCapacity(output, offset + points * 2);
+
+        final double sinLat = Math.sin(latitude);
+        final double cosLat = Math.cos(latitude);
+        final double sinBeta = Math.sin(beta);
+        final double cosBeta = Math.cos(beta);
+        final double sinLatCosBeta = sinLat * cosBeta;
+        final double sinBetaCosLat = sinBeta * cosLat;
+        final boolean poleInside = beta > ((Math.PI / 2.0) - latitude);
+        final int half = (points % 2 == 0) ? points / 2 : -1;
+
+        for (int i = 0; i < points; i++) {
+            final double sinRangeLat = sinLatCosBeta + cosAzimuth[i] * sinBeta * cosLat;
+            final double rangeLat = Math.asin(sinRangeLat);
+            double rangeLong;
+
+            if ((i == 0 || i == half) && poleInside) {
+                rangeLong = longitude + Math.PI;
+            }
+            else {
+                // azimuth runs anticlockwise, as it always has for range circles
+                rangeLong = longitude - Math.atan2(sinAzimuth[i] * sinBetaCosLat, cosBeta - sinLat * sinRangeLat);
+            }
+
+            while (rangeLong < 0.0) {
+                rangeLong += TWO_PI;
+            }
+
+            while (rangeLong > TWO_PI) {
+                rangeLong -= TWO_PI;
+            }
+
+            result[offset + i * 2] = rangeLat * RAD2DEG;
+            result[offset + i * 2 + 1] = rangeLong * RAD2DEG;
+        }
+
+        return result;
+    }
+
+    private static double[] ensureCapacity(final double[] output, final int length)
+            throws IllegalArgumentException {
+
+        if (output == null) {
+            return new double[length];
+        }
+
+        if (output.length < length) {
+            throw new IllegalArgumentException("Output needs " + length + " elements, got: " + output.length);
+        }
+
+        return output;
+    }
+}
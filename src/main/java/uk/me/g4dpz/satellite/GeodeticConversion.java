@@ -0,0 +1,104 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+/**
+ * The ways of converting an earth centred position to geodetic latitude and altitude on the WGS
+ * ellipsoid.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public enum GeodeticConversion {
+
+    /**
+     * Fixed point iteration on the latitude, as in The 1992 Astronomical Almanac, page K12. Up to
+     * ten rounds of Math.sin, Math.sqrt and Math.atan2.
+     */
+    ITERATIVE {
+        @Override
+        void toGeodetic(final double r, final double z, final SatPos satPos) {
+            satPos.setLatitude(Math.atan2(z, r));
+
+            double phi;
+            double c;
+            int i = 0;
+            boolean converged;
+
+            do {
+                phi = satPos.getLatitude();
+                c = AbstractSatellite.invert(Math.sqrt(1.0 - E2 * AbstractSatellite.sqr(Math.sin(phi))));
+                satPos.setLatitude(Math.atan2(z + A * c * E2 * Math.sin(phi), r));
+
+                converged = Math.abs(satPos.getLatitude() - phi) < EPSILON;
+
+            }
+            while (i++ < 10 && !converged);
+
+            satPos.setAltitude(r / Math.cos(satPos.getLatitude()) - A * c);
+        }
+    },
+
+    /**
+     * The closed form solution of H. Vermeille, Journal of Geodesy (2004) 78: 94-95. One cube
+     * root, four square roots and one Math.atan2, and it is well conditioned at the poles. Valid
+     * for any point more than a few tens of km from the centre of the earth.
+     */
+    VERMEILLE {
+        @Override
+        void toGeodetic(final double r, final double z, final SatPos satPos) {
+            final double p = r * r / (A * A);
+            final double q = (1.0 - E2) * z * z / (A * A);
+            final double rr = (p + q - E4) / 6.0;
+            final double s = E4 * p * q / (4.0 * rr * rr * rr);
+            final double t = Math.cbrt(1.0 + s + Math.sqrt(s * (2.0 + s)));
+            final double u = rr * (1.0 + t + 1.0 / t);
+            final double v = Math.sqrt(u * u + E4 * q);
+            final double w = E2 * (u + v - q) / (2.0 * v);
+            final double k = Math.sqrt(u + v + w * w) - w;
+            final double d = k * r / (k + E2);
+            final double dz = Math.sqrt(d * d + z * z);
+
+            satPos.setLatitude(2.0 * Math.atan2(z, d + dz));
+            satPos.setAltitude((k + E2 - 1.0) / k * dz);
+        }
+    };
+
+    private static final double A = AbstractSatellite.EARTH_RADIUS_KM;
+    private static final double E2 =
+            AbstractSatellite.FLATTENING_FACTOR * (2.0 - AbstractSatellite.FLATTENING_FACTOR);
+    private static final double E4 = E2 * E2;
+    private static final double EPSILON = 1.0E-12;
+
+    /**
+     * Sets the geodetic latitude and altitude of a point.
+     *
+     * @param r the distance from the earth's axis in km
+     * @param z the distance north of the equatorial plane in km
+     * @param satPos receives the latitude (radians) and altitude (km)
+     */
+    abstract void toGeodetic(double r, double z, SatPos satPos);
+}
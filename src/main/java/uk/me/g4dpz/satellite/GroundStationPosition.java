@@ -48,6 +48,11 @@ public class GroundStationPosition {
     private double heightAMSL;
     private double theta;
     private final int[] horizonElevations = new int[36];
+    /** The horizon elevations in radians, for interpolation without conversion. */
+    private final double[] horizonRadians = new double[36];
+    private boolean horizonMask;
+    /** Whether every sector is at 0 degrees, so there is nothing to interpolate. */
+    private boolean flatHorizon = true;
     private String name;
 
     /**
@@ -123,13 +128,44 @@ public class GroundStationPosition {
     public final int[] getHorizonElevations() {
         final int[] horizonElevationsCopy = new int[horizonElevations.length];
 
-        System.arraycopy(horizonElevationsCopy, 0, horizonElevations, 0, horizonElevations.length);
+        System.arraycopy(horizonElevations, 0, horizonElevationsCopy, 0, horizonElevations.length);
 
         return horizonElevationsCopy;
     }
 
     /**
-     * The horizonElevations to set.
+     * Gets the horizon elevation in a direction, interpolated linearly between the centres of the
+     * 10 degree sectors of the horizon mask. Allocates nothing.
+     *
+     * @param azimuth the azimuth in radians, 0 to 2 PI
+     * @return the elevation of the horizon in radians
+     */
+    public final double getHorizonElevation(final double azimuth) {
+
+        if (flatHorizon) {
+            return 0.0;
+        }
+
+        // sector i is centred on 10 * i + 5 degrees
+        final double position = azimuth * (18.0 / Math.PI) - 0.5;
+        final double floor = Math.floor(position);
+        final double fraction = position - floor;
+        final int lower = ((int)floor % 36 + 36) % 36;
+        final int upper = lower == 35 ? 0 : lower + 1;
+
+        return horizonRadians[lower] + fraction * (horizonRadians[upper] - horizonRadians[lower]);
+    }
+
+    /**
+     * @return whether any sector of the horizon mask is above 0 degrees
+     */
+    public final boolean hasHorizonMask() {
+        return horizonMask;
+    }
+
+    /**
+     * The horizonElevations to set, in whole degrees for each 10 degree sector of azimuth starting
+     * from north.
      *
      * @throws IllegalArgumentException the input arguments were incorrect
      */
@@ -141,7 +177,17 @@ public class GroundStationPosition {
                     "Expected 36 Horizon Elevations, got: " + theHorizonElevations.length);
         }
 
-        System.arraycopy(this.horizonElevations, 0, theHorizonElevations, 0, theHorizonElevations.length);
+        System.arraycopy(theHorizonElevations, 0, this.horizonElevations, 0, theHorizonElevations.length);
+
+        boolean mask = false;
+        boolean flat = true;
+        for (int i = 0; i < horizonElevations.length; i++) {
+            horizonRadians[i] = Math.toRadians(horizonElevations[i]);
+            mask |= horizonElevations[i] > 0;
+            flat &= horizonElevations[i] == 0;
+        }
+        horizonMask = mask;
+        flatHorizon = flat;
     }
 
     public String getName() {
@@ -0,0 +1,177 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Arrays;
+
+/**
+ * A satellite ground track held in primitive arrays, ready for drawing on a map.
+ *
+ * Longitudes run from -180 to 180 degrees. The track is split into segments wherever it crosses
+ * the antimeridian, each crossing giving a point at 180 degrees at the end of one segment and at
+ * -180 degrees at the start of the next, so that no segment has to be drawn across the map.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class GroundTrack {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] segmentStarts = new int[4];
+    private int points;
+    private int segments;
+
+    GroundTrack() {
+    }
+
+    /**
+     * Adds a point to the track, splitting it if the antimeridian was crossed since the last one.
+     *
+     * @param time the time in milliseconds since the Java epoch
+     * @param latitude the latitude in degrees
+     * @param longitude the longitude in degrees, -180 to 180
+     */
+    final void add(final long time, final double latitude, final double longitude) {
+
+        if (points == 0) {
+            startSegment();
+        }
+        else {
+            final int last = points - 1;
+            final double lastLongitude = longitudes[last];
+
+            if (Math.abs(longitude - lastLongitude) > 180.0) {
+                // unwrap, then cut the track where it meets the map edge
+                final double edge = lastLongitude > 0.0 ? 180.0 : -180.0;
+                final double unwrapped = longitude + 2.0 * edge;
+                final double fraction = (edge - lastLongitude) / (unwrapped - lastLongitude);
+                final double crossingLatitude = latitudes[last] + fraction * (latitude - latitudes[last]);
+                final long crossingTime = times[last] + Math.round(fraction * (time - times[last]));
+
+                append(crossingTime, crossingLatitude, edge);
+                startSegment();
+                append(crossingTime, crossingLatitude, -edge);
+            }
+        }
+
+        append(time, latitude, longitude);
+    }
+
+    private void startSegment() {
+        if (segments == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, segments * 2);
+        }
+        segmentStarts[segments++] = points;
+    }
+
+    private void append(final long time, final double latitude, final double longitude) {
+        if (points == times.length) {
+            latitudes = Arrays.copyOf(latitudes, points * 2);
+            longitudes = Arrays.copyOf(longitudes, points * 2);
+            times = Arrays.copyOf(times, points * 2);
+        }
+
+        latitudes[points] = latitude;
+        longitudes[points] = longitude;
+        times[points] = time;
+        points++;
+    }
+
+    /**
+     * @return the number of points, over all segments
+     */
+    public final int getPointCount() {
+        return points;
+    }
+
+    /**
+     * @return the number of segments
+     */
+    public final int getSegmentCount() {
+        return segments;
+    }
+
+    /**
+     * @param segment the segment
+     * @return the index of the first point of the segment
+     */
+    public final int getSegmentStart(final int segment) {
+        return segmentStarts[segment];
+    }
+
+    /**
+     * @param segment the segment
+     * @return the index one past the last point of the segment
+     */
+    public final int getSegmentEnd(final int segment) {
+        return segment + 1 < segments ? segmentStarts[segment + 1] : points;
+    }
+
+    /**
+     * @param index the point
+     * @return the latitude in degrees
+     */
+    public final double getLatitude(final int index) {
+        return latitudes[index];
+    }
+
+    /**
+     * @param index the point
+     * @return the longitude in degrees, -180 to 180
+     */
+    public final double getLongitude(final int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * @param index the point
+     * @return the time in milliseconds since the Java epoch
+     */
+    public final long getTime(final int index) {
+        return times[index];
+    }
+
+    /**
+     * Copies the points into flat latitude and longitude pairs, as used by {@link FootprintEngine}.
+     *
+     * @param output receives the pairs, or null to allocate a new array
+     * @return the output array
+     */
+    public final double[] toLatLonPairs(final double[] output) {
+        final double[] result = output != null && output.length >= points * 2 ? output : new double[points * 2];
+
+        for (int i = 0; i < points; i++) {
+            result[i * 2] = latitudes[i];
+            result[i * 2 + 1] = longitudes[i];
+        }
+
+        return result;
+    }
+}
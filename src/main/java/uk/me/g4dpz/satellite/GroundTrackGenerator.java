@@ -0,0 +1,248 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the ground track of a satellite over a time window with as few points as possible.
+ *
+ * The window is first sampled at the maximum step. Each interval is then halved for as long as
+ * the sub satellite point at its middle lies further than the tolerance from the straight line
+ * between its ends, so that points crowd where the track curves or its latitude rate changes
+ * (near the poles) and thin out elsewhere. The satellite is propagated without synchronisation,
+ * so whole orbits may be generated in parallel.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class GroundTrackGenerator {
+
+    private static final double DEFAULT_TOLERANCE = 0.1;
+    private static final long DEFAULT_MAX_STEP_MILLIS = 300000L;
+    private static final long MIN_STEP_MILLIS = 1000L;
+    private static final double MILLIS_PER_DAY = 8.64E7;
+    private static final double RAD2DEG = 180.0 / Math.PI;
+
+    private final AbstractSatellite satellite;
+    private final double tolerance;
+    private final long maxStepMillis;
+    private final int threads;
+
+    /**
+     * Creates a generator with a tolerance of 0.1 degrees, a maximum step of 5 minutes and one
+     * thread per processor.
+     *
+     * @param tle the satellite
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public GroundTrackGenerator(final TLE tle) throws IllegalArgumentException {
+        this(tle, DEFAULT_TOLERANCE, DEFAULT_MAX_STEP_MILLIS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tle the satellite
+     * @param tolerance the greatest distance in degrees between the track and the lines joining
+     *            its points
+     * @param maxStepMillis the longest time between points
+     * @param threads the number of threads used to generate several orbits
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public GroundTrackGenerator(final TLE tle, final double tolerance, final long maxStepMillis, final int threads)
+            throws IllegalArgumentException {
+
+        if (!(tolerance > 0.0)) {
+            throw new IllegalArgumentException("Tolerance must be positive, got: " + tolerance);
+        }
+
+        if (maxStepMillis < MIN_STEP_MILLIS) {
+            throw new IllegalArgumentException("Maximum step must be at least " + MIN_STEP_MILLIS
+                    + " ms, got: " + maxStepMillis);
+        }
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive, got: " + threads);
+        }
+
+        this.satellite = (AbstractSatellite)SatelliteFactory.createSatellite(tle, GeodeticConversion.VERMEILLE);
+        this.tolerance = tolerance;
+        this.maxStepMillis = maxStepMillis;
+        this.threads = threads;
+    }
+
+    /**
+     * Generates the ground track between two times.
+     *
+     * @param start the start time
+     * @param end the end time
+     * @return the ground track
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public final GroundTrack generate(final Date start, final Date end) throws IllegalArgumentException {
+
+        if (null == start || null == end) {
+            throw new IllegalArgumentException("Start and end times have not been set");
+        }
+
+        if (end.before(start)) {
+            throw new IllegalArgumentException("End time is before start time: " + end);
+        }
+
+        return generate(start.getTime(), end.getTime());
+    }
+
+    /**
+     * Generates consecutive orbits in parallel, for example to prepare map tiles ahead of time.
+     * An orbit is taken to be one period of the mean motion.
+     *
+     * @param start the start of the first orbit
+     * @param orbits the number of orbits
+     * @return the ground track of each orbit
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public final List<GroundTrack> generateOrbits(final Date start, final int orbits)
+            throws IllegalArgumentException {
+
+        if (null == start) {
+            throw new IllegalArgumentException("Start time has not been set");
+        }
+
+        if (orbits < 1) {
+            throw new IllegalArgumentException("Orbits must be positive, got: " + orbits);
+        }
+
+        final double period = MILLIS_PER_DAY / satellite.getTLE().getMeanmo();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, orbits), runnable -> {
+            final Thread thread = new Thread(runnable, "predict4java-groundtrack");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            final List<Future<GroundTrack>> futures = new ArrayList<Future<GroundTrack>>(orbits);
+
+            for (int orbit = 0; orbit < orbits; orbit++) {
+                final long from = start.getTime() + Math.round(orbit * period);
+                final long to = start.getTime() + Math.round((orbit + 1) * period);
+                futures.add(executor.submit(() -> generate(from, to)));
+            }
+
+            final List<GroundTrack> tracks = new ArrayList<GroundTrack>(orbits);
+
+            for (final Future<GroundTrack> future : futures) {
+                tracks.add(future.get());
+            }
+
+            return tracks;
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating ground tracks", e);
+        }
+        catch (final ExecutionException e) {
+            throw new IllegalStateException("Could not generate ground track", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private GroundTrack generate(final long start, final long end) {
+        final GroundTrack track = new GroundTrack();
+        final double[] first = subPoint(start);
+
+        track.add(start, first[0], first[1]);
+
+        double[] previous = first;
+        long time = start;
+
+        while (time < end) {
+            final long next = Math.min(time + maxStepMillis, end);
+            final double[] point = subPoint(next);
+            refine(track, time, previous, next, point);
+            track.add(next, point[0], point[1]);
+            previous = point;
+            time = next;
+        }
+
+        return track;
+    }
+
+    /**
+     * Adds the points needed strictly between two points already on the track.
+     */
+    private void refine(final GroundTrack track, final long startTime, final double[] start, final long endTime,
+            final double[] end) {
+
+        if (endTime - startTime < 2 * MIN_STEP_MILLIS) {
+            return;
+        }
+
+        final long midTime = (startTime + endTime) / 2;
+        final double[] mid = subPoint(midTime);
+
+        final double fraction = (double)(midTime - startTime) / (endTime - startTime);
+        final double endLongitude = start[1] + wrap(end[1] - start[1]);
+        final double latitudeError = mid[0] - (start[0] + fraction * (end[0] - start[0]));
+        final double longitudeError = wrap(mid[1] - (start[1] + fraction * (endLongitude - start[1])));
+        final double error = Math.hypot(latitudeError, longitudeError * Math.cos(mid[0] / RAD2DEG));
+
+        if (error > tolerance) {
+            refine(track, startTime, start, midTime, mid);
+            track.add(midTime, mid[0], mid[1]);
+            refine(track, midTime, mid, endTime, end);
+        }
+    }
+
+    private double[] subPoint(final long time) {
+        final SatPos satPos = satellite.calculateGroundTrack(new Date(time));
+        return new double[] {satPos.getLatitude() * RAD2DEG, wrap(satPos.getLongitude() * RAD2DEG)};
+    }
+
+    /**
+     * @return the angle brought into the range -180 to 180 degrees
+     */
+    private static double wrap(final double degrees) {
+        double result = degrees % 360.0;
+
+        if (result > 180.0) {
+            result -= 360.0;
+        }
+        else if (result <= -180.0) {
+            result += 360.0;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,342 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Propagates many near earth satellites to the same time with SGP4.
+ *
+ * The initialisation terms of every satellite are packed into one array per term, and each step
+ * of the model (secular terms, drag, Kepler's equation, short period terms) is run as a loop over
+ * all satellites. The loops without transcendental functions are simple enough for the JIT to
+ * vectorise. Kepler's equation and the short period terms are worked out for each satellite by
+ * the same code as {@link LEOSatellite} uses, so the results are the same.
+ *
+ * Instances hold scratch arrays and are not thread safe; use one per thread.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class LEOBatchPropagator {
+
+    static final int XMO = 0;
+    static final int OMEGAO = 1;
+    static final int XNODEO = 2;
+    static final int BSTAR = 3;
+    static final int EO = 4;
+    static final int XINCL = 5;
+    static final int JUL_EPOCH = 6;
+    static final int AODP = 7;
+    static final int AYCOF = 8;
+    static final int C1 = 9;
+    static final int C4 = 10;
+    static final int C5 = 11;
+    static final int COSIO = 12;
+    static final int D2 = 13;
+    static final int D3 = 14;
+    static final int D4 = 15;
+    static final int DELMO = 16;
+    static final int OMGCOF = 17;
+    static final int ETA = 18;
+    static final int OMGDOT = 19;
+    static final int SINIO = 20;
+    static final int XNODP = 21;
+    static final int SINMO = 22;
+    static final int T2COF = 23;
+    static final int T3COF = 24;
+    static final int T4COF = 25;
+    static final int T5COF = 26;
+    static final int X1MTH2 = 27;
+    static final int X3THM1 = 28;
+    static final int X7THM1 = 29;
+    static final int XMCOF = 30;
+    static final int XMDOT = 31;
+    static final int XNODCF = 32;
+    static final int XNODOT = 33;
+    static final int XLCOF = 34;
+    static final int SIMPLE = 35;
+    private static final int COEFFICIENTS = 36;
+
+    private static final double VELOCITY_SCALE =
+            AbstractSatellite.EARTH_RADIUS_KM * AbstractSatellite.MINS_PER_DAY / AbstractSatellite.SECS_PER_DAY;
+
+    private final TLE[] tles;
+    private final int size;
+
+    private final double[][] columns;
+
+    private final double[] tsince;
+    private final double[] xmdf;
+    private final double[] omgadf;
+    private final double[] xnode;
+    private final double[] omega;
+    private final double[] xmp;
+    private final double[] tempa;
+    private final double[] tempe;
+    private final double[] templ;
+    private final double[] a;
+    private final double[] xn;
+    private final double[] axn;
+    private final double[] ayn;
+    private final double[] capu;
+    private final double[] sinepw;
+    private final double[] cosepw;
+    private final double[] sinCos = new double[2];
+
+    /**
+     * Constructor.
+     *
+     * @param theTLEs the near earth satellites to propagate
+     * @throws IllegalArgumentException a TLE was null or was for a deep space satellite
+     */
+    public LEOBatchPropagator(final List<TLE> theTLEs) throws IllegalArgumentException {
+
+        size = theTLEs.size();
+        tles = new TLE[size];
+        columns = new double[COEFFICIENTS][size];
+
+        for (int lane = 0; lane < size; lane++) {
+            final TLE tle = theTLEs.get(lane);
+
+            if (null == tle) {
+                throw new IllegalArgumentException("TLE was null");
+            }
+
+            if (tle.isDeepspace()) {
+                throw new IllegalArgumentException("TLE is for a deep space satellite: " + tle.getName());
+            }
+
+            tles[lane] = tle;
+            new LEOSatellite(tle).copyCoefficients(columns, lane);
+        }
+
+        tsince = new double[size];
+        xmdf = new double[size];
+        omgadf = new double[size];
+        xnode = new double[size];
+        omega = new double[size];
+        xmp = new double[size];
+        tempa = new double[size];
+        tempe = new double[size];
+        templ = new double[size];
+        a = new double[size];
+        xn = new double[size];
+        axn = new double[size];
+        ayn = new double[size];
+        capu = new double[size];
+        sinepw = new double[size];
+        cosepw = new double[size];
+    }
+
+    /**
+     * @return the number of satellites
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * @param lane the index of the satellite
+     * @return the TLE of the satellite
+     */
+    public final TLE getTLE(final int lane) {
+        return tles[lane];
+    }
+
+    /**
+     * Propagates all satellites to a time.
+     *
+     * @param date the time
+     * @param state receives x, y, z (km) and vx, vy, vz (km/s) for each satellite in turn, so it
+     *            must hold at least six values per satellite
+     * @throws IllegalArgumentException the state array is too small
+     */
+    public final void propagate(final Date date, final double[] state) throws IllegalArgumentException {
+
+        if (state.length < size * 6) {
+            throw new IllegalArgumentException("State needs " + size * 6 + " elements, got: " + state.length);
+        }
+
+        final BatchPropagationEvent event = new BatchPropagationEvent();
+        event.begin();
+
+        final double julUTC = AbstractSatellite.julianDate(date);
+
+        updateSecularTerms(julUTC);
+        updateDragTerms();
+        updateLongPeriodTerms();
+        final int iterations = solveKepler();
+        calculatePositionAndVelocity(state);
+
+        Metrics.getCollector().batchPropagated(size, iterations);
+
+        if (event.shouldCommit()) {
+            event.satellites = size;
+            event.keplerIterations = iterations;
+            event.commit();
+        }
+    }
+
+    /**
+     * Update for secular gravity and atmospheric drag.
+     */
+    private void updateSecularTerms(final double julUTC) {
+        final double[] julEpoch = columns[JUL_EPOCH];
+        final double[] xmo = columns[XMO];
+        final double[] omegao = columns[OMEGAO];
+        final double[] xnodeo = columns[XNODEO];
+        final double[] xmdot = columns[XMDOT];
+        final double[] omgdot = columns[OMGDOT];
+        final double[] xnodot = columns[XNODOT];
+        final double[] xnodcf = columns[XNODCF];
+        final double[] c1 = columns[C1];
+        final double[] c4 = columns[C4];
+        final double[] bstar = columns[BSTAR];
+        final double[] t2cof = columns[T2COF];
+
+        for (int i = 0; i < size; i++) {
+            final double t = (julUTC - julEpoch[i]) * AbstractSatellite.MINS_PER_DAY;
+            final double tsq = t * t;
+            tsince[i] = t;
+            xmdf[i] = xmo[i] + xmdot[i] * t;
+            omgadf[i] = omegao[i] + omgdot[i] * t;
+            xnode[i] = xnodeo[i] + xnodot[i] * t + xnodcf[i] * tsq;
+            omega[i] = omgadf[i];
+            xmp[i] = xmdf[i];
+            tempa[i] = 1.0 - c1[i] * t;
+            tempe[i] = bstar[i] * c4[i] * t;
+            templ[i] = t2cof[i] * tsq;
+        }
+    }
+
+    /**
+     * Higher order drag terms, skipped for satellites with a perigee below 220 km.
+     */
+    private void updateDragTerms() {
+        final double[] simple = columns[SIMPLE];
+        final double[] omgcof = columns[OMGCOF];
+        final double[] xmcof = columns[XMCOF];
+        final double[] eta = columns[ETA];
+        final double[] delmo = columns[DELMO];
+        final double[] d2 = columns[D2];
+        final double[] d3 = columns[D3];
+        final double[] d4 = columns[D4];
+        final double[] bstar = columns[BSTAR];
+        final double[] c5 = columns[C5];
+        final double[] sinmo = columns[SINMO];
+        final double[] t3cof = columns[T3COF];
+        final double[] t4cof = columns[T4COF];
+        final double[] t5cof = columns[T5COF];
+
+        for (int i = 0; i < size; i++) {
+            if (simple[i] != 0.0) {
+                continue;
+            }
+
+            final double t = tsince[i];
+            final double tsq = t * t;
+            final double delomg = omgcof[i] * t;
+            final double delm = xmcof[i] * (Math.pow(1.0 + eta[i] * Math.cos(xmdf[i]), 3) - delmo[i]);
+            final double temp = delomg + delm;
+            xmp[i] = xmdf[i] + temp;
+            omega[i] = omgadf[i] - temp;
+            final double tcube = tsq * t;
+            final double tfour = t * tcube;
+            tempa[i] = tempa[i] - d2[i] * tsq - d3[i] * tcube - d4[i] * tfour;
+            tempe[i] = tempe[i] + bstar[i] * c5[i] * (Math.sin(xmp[i]) - sinmo[i]);
+            templ[i] = templ[i] + t3cof[i] * tcube + tfour * (t4cof[i] + t * t5cof[i]);
+        }
+    }
+
+    /**
+     * Long period periodics.
+     */
+    private void updateLongPeriodTerms() {
+        final double[] aodp = columns[AODP];
+        final double[] eo = columns[EO];
+        final double[] xnodp = columns[XNODP];
+        final double[] xlcof = columns[XLCOF];
+        final double[] aycof = columns[AYCOF];
+
+        for (int i = 0; i < size; i++) {
+            a[i] = aodp[i] * Math.pow(tempa[i], 2);
+            final double e = eo[i] - tempe[i];
+            final double xl = xmp[i] + omega[i] + xnode[i] + xnodp[i] * templ[i];
+            final double beta = Math.sqrt(1.0 - e * e);
+            xn[i] = AbstractSatellite.XKE / Math.pow(a[i], 1.5);
+            axn[i] = e * Math.cos(omega[i]);
+            final double temp = 1.0 / (a[i] * (beta * beta));
+            final double xll = temp * xlcof[i] * axn[i];
+            final double aynl = temp * aycof[i];
+            final double xlt = xl + xll;
+            ayn[i] = e * Math.sin(omega[i]) + aynl;
+            capu[i] = AbstractSatellite.mod2PI(xlt - xnode[i]);
+        }
+    }
+
+    /**
+     * Solves Kepler's equation for each satellite.
+     */
+    private int solveKepler() {
+        int iterations = 0;
+
+        for (int i = 0; i < size; i++) {
+            iterations += AbstractSatellite.solveKepler(capu[i], axn[i], ayn[i], sinCos);
+            sinepw[i] = sinCos[0];
+            cosepw[i] = sinCos[1];
+        }
+
+        return iterations;
+    }
+
+    /**
+     * Short period periodics, orientation vectors and conversion to km and km/s.
+     */
+    private void calculatePositionAndVelocity(final double[] state) {
+        final double[] x3thm1 = columns[X3THM1];
+        final double[] x1mth2 = columns[X1MTH2];
+        final double[] x7thm1 = columns[X7THM1];
+        final double[] cosio = columns[COSIO];
+        final double[] sinio = columns[SINIO];
+        final double[] xincl = columns[XINCL];
+
+        for (int i = 0; i < size; i++) {
+            final int offset = i * 6;
+
+            AbstractSatellite.calculateShortPeriodState(a[i], xn[i], axn[i], ayn[i], sinepw[i], cosepw[i], xnode[i],
+                    xincl[i], cosio[i], sinio[i], x3thm1[i], x1mth2[i], x7thm1[i], state, offset);
+
+            state[offset] *= AbstractSatellite.EARTH_RADIUS_KM;
+            state[offset + 1] *= AbstractSatellite.EARTH_RADIUS_KM;
+            state[offset + 2] *= AbstractSatellite.EARTH_RADIUS_KM;
+            state[offset + 3] *= VELOCITY_SCALE;
+            state[offset + 4] *= VELOCITY_SCALE;
+            state[offset + 5] *= VELOCITY_SCALE;
+        }
+    }
+}
@@ -90,9 +90,7 @@ public class LEOSatellite extends AbstractSatellite implements Serializable {
     }
 
     @Override
-    protected void calculateSGP4(final double tsince) {
-
-        final double[] temp = new double[9];
+    protected void calculateSGP4(final PropagationContext context, final double tsince) {
 
         /* Initialization */
 
@@ -120,9 +118,9 @@ public class LEOSatellite extends AbstractSatellite implements Serializable {
             final double delomg = omgcof * tsince;
             final double delm = xmcof
                     * (Math.pow(1.0 + eta * Math.cos(xmdf), 3) - delmo);
-            temp[0] = delomg + delm;
-            xmp = xmdf + temp[0];
-            omega = omgadf - temp[0];
+            final double temp = delomg + delm;
+            xmp = xmdf + temp;
+            omega = omgadf - temp;
             final double tcube = tsq * tsince;
             final double tfour = tsince * tcube;
             tempa = tempa - d2 * tsq - d3 * tcube - d4 * tfour;
@@ -140,58 +138,97 @@ public class LEOSatellite extends AbstractSatellite implements Serializable {
 
         /* Long period periodics */
         final double axn = e * Math.cos(omega);
-        temp[0] = AbstractSatellite.invert(a * AbstractSatellite.sqr(beta));
-        final double xll = temp[0] * xlcof * axn;
-        final double aynl = temp[0] * aycof;
+        final double temp = AbstractSatellite.invert(a * AbstractSatellite.sqr(beta));
+        final double xll = temp * xlcof * axn;
+        final double aynl = temp * aycof;
         final double xlt = xl + xll;
         final double ayn = e * Math.sin(omega) + aynl;
 
         /* Solve Kepler'S Equation */
         final double capu = AbstractSatellite.mod2PI(xlt - xnode);
-        temp[2] = capu;
 
-        AbstractSatellite.converge(temp, axn, ayn, capu);
+        calculatePositionAndVelocity(context, a, xn, axn, ayn, capu, xnode, getTLE().getXincl(), cosio, sinio,
+                x3thm1, x1mth2, x7thm1);
 
-        calculatePositionAndVelocity(temp, xnode, a, xn, axn, ayn);
+        calculatePhase(context, xlt, xnode, omgadf);
+    }
 
-        calculatePhase(xlt, xnode, omgadf);
+    /**
+     * Copies the SGP4 initialisation terms into the columns of a batch propagator.
+     *
+     * @param columns the coefficient columns, indexed by the LEOBatchPropagator constants
+     * @param lane the lane to fill
+     */
+    void copyCoefficients(final double[][] columns, final int lane) {
+        final TLE tle = getTLE();
+        columns[LEOBatchPropagator.XMO][lane] = tle.getXmo();
+        columns[LEOBatchPropagator.OMEGAO][lane] = tle.getOmegao();
+        columns[LEOBatchPropagator.XNODEO][lane] = tle.getXnodeo();
+        columns[LEOBatchPropagator.BSTAR][lane] = tle.getBstar();
+        columns[LEOBatchPropagator.EO][lane] = tle.getEo();
+        columns[LEOBatchPropagator.XINCL][lane] = tle.getXincl();
+        columns[LEOBatchPropagator.JUL_EPOCH][lane] = getJulEpoch();
+        columns[LEOBatchPropagator.AODP][lane] = aodp;
+        columns[LEOBatchPropagator.AYCOF][lane] = aycof;
+        columns[LEOBatchPropagator.C1][lane] = c1;
+        columns[LEOBatchPropagator.C4][lane] = c4;
+        columns[LEOBatchPropagator.C5][lane] = c5;
+        columns[LEOBatchPropagator.COSIO][lane] = cosio;
+        columns[LEOBatchPropagator.D2][lane] = d2;
+        columns[LEOBatchPropagator.D3][lane] = d3;
+        columns[LEOBatchPropagator.D4][lane] = d4;
+        columns[LEOBatchPropagator.DELMO][lane] = delmo;
+        columns[LEOBatchPropagator.OMGCOF][lane] = omgcof;
+        columns[LEOBatchPropagator.ETA][lane] = eta;
+        columns[LEOBatchPropagator.OMGDOT][lane] = omgdot;
+        columns[LEOBatchPropagator.SINIO][lane] = sinio;
+        columns[LEOBatchPropagator.XNODP][lane] = xnodp;
+        columns[LEOBatchPropagator.SINMO][lane] = sinmo;
+        columns[LEOBatchPropagator.T2COF][lane] = t2cof;
+        columns[LEOBatchPropagator.T3COF][lane] = t3cof;
+        columns[LEOBatchPropagator.T4COF][lane] = t4cof;
+        columns[LEOBatchPropagator.T5COF][lane] = t5cof;
+        columns[LEOBatchPropagator.X1MTH2][lane] = x1mth2;
+        columns[LEOBatchPropagator.X3THM1][lane] = x3thm1;
+        columns[LEOBatchPropagator.X7THM1][lane] = x7thm1;
+        columns[LEOBatchPropagator.XMCOF][lane] = xmcof;
+        columns[LEOBatchPropagator.XMDOT][lane] = xmdot;
+        columns[LEOBatchPropagator.XNODCF][lane] = xnodcf;
+        columns[LEOBatchPropagator.XNODOT][lane] = xnodot;
+        columns[LEOBatchPropagator.XLCOF][lane] = xlcof;
+        columns[LEOBatchPropagator.SIMPLE][lane] = sgp4Simple ? 1.0 : 0.0;
     }
 
-    private void calculatePositionAndVelocity(final double[] temp, final double xnode, final double a, final double xn,
-            final double axn, final double ayn) {
-        final double ecose = temp[5] + temp[6];
-        final double esine = temp[3] - temp[4];
-        final double elsq = AbstractSatellite.sqr(axn) + AbstractSatellite.sqr(ayn);
-        temp[0] = 1.0 - elsq;
-        final double pl = a * temp[0];
-        final double r = a * (1.0 - ecose);
-        temp[1] = AbstractSatellite.invert(r);
-        final double rdot = XKE * Math.sqrt(a) * esine * temp[1];
-        final double rfdot = XKE * Math.sqrt(pl) * temp[1];
-        temp[2] = a * temp[1];
-        final double betal = Math.sqrt(temp[0]);
-        temp[3] = AbstractSatellite.invert(1.0 + betal);
-        final double cosu = temp[2] * (temp[8] - axn + ayn * esine * temp[3]);
-        final double sinu = temp[2] * (temp[7] - ayn - axn * esine * temp[3]);
-        final double u = Math.atan2(sinu, cosu);
-        final double sin2u = 2.0 * sinu * cosu;
-        final double cos2u = 2.0 * cosu * cosu - 1;
-        temp[0] = AbstractSatellite.invert(pl);
-        temp[1] = CK2 * temp[0];
-        temp[2] = temp[1] * temp[0];
-
-        /* Update for short periodics */
-        final double rk = r * (1.0 - 1.5 * temp[2] * betal * x3thm1) + 0.5 * temp[1]
-                * x1mth2 * cos2u;
-        final double uk = u - 0.25 * temp[2] * x7thm1 * sin2u;
-        final double xnodek = xnode + 1.5 * temp[2] * cosio * sin2u;
-        final double xinck = getTLE().getXincl() + 1.5 * temp[2]
-                * cosio * sinio * cos2u;
-        final double rdotk = rdot - xn * temp[1] * x1mth2 * sin2u;
-        final double rfdotk = rfdot + xn * temp[1]
-                * (x1mth2 * cos2u + 1.5 * x3thm1);
-
-        super.calculatePositionAndVelocity(rk, uk, xnodek, xinck, rdotk, rfdotk);
+    /**
+     * Gets the secular part of the orbit, updated for gravity and drag but without the periodic
+     * terms, for estimating where the satellite will be without propagating it.
+     *
+     * @param tsince the minutes since epoch
+     * @param phase receives the right ascension of the ascending node, then the mean argument of
+     *            latitude, in radians
+     */
+    void calculateSecularPhase(final double tsince, final double[] phase) {
+        final double tsq = tsince * tsince;
+        double templ = t2cof * tsq;
+        if (!sgp4Simple) {
+            templ = templ + t3cof * tsq * tsince + tsq * tsq * (t4cof + tsince * t5cof);
+        }
+        phase[0] = getTLE().getXnodeo() + xnodot * tsince + xnodcf * tsq;
+        phase[1] = getTLE().getXmo() + getTLE().getOmegao() + (xmdot + omgdot) * tsince + xnodp * templ;
+    }
+
+    /**
+     * @return the secular rate of the ascending node, in radians per minute
+     */
+    double getNodeRate() {
+        return xnodot;
+    }
+
+    /**
+     * @return the secular rate of the mean argument of latitude, in radians per minute
+     */
+    double getArgumentOfLatitudeRate() {
+        return xmdot + omgdot;
     }
 
     /**
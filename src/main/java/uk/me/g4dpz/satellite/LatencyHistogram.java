@@ -0,0 +1,154 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of durations, bucketed in powers of two microseconds.
+ *
+ * Bucket 0 holds values below 1 microsecond, bucket n holds values in [2^(n-1), 2^n)
+ * microseconds. Recording a value never allocates and is safe from any number of threads.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Default constructor.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, negative values are recorded as zero
+     */
+    public final void recordNanos(final long nanos) {
+        final long value = nanos < 0 ? 0 : nanos;
+        final long micros = value / 1000L;
+        final int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket].increment();
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public final long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the largest recorded value in microseconds
+     */
+    public final double getMaxMicros() {
+        return max.get() / NANOS_PER_MICRO;
+    }
+
+    /**
+     * @return the mean recorded value in microseconds, zero when nothing has been recorded
+     */
+    public final double getMeanMicros() {
+        final long n = count.sum();
+        return n == 0 ? 0.0 : total.sum() / NANOS_PER_MICRO / n;
+    }
+
+    /**
+     * Gets an upper bound for the given percentile. The result is the upper edge of the bucket
+     * holding the percentile, so it is accurate to within a factor of two.
+     *
+     * @param percentile the percentile, 0 to 100
+     * @return the upper bound in microseconds
+     */
+    public final double getPercentileMicros(final double percentile) {
+        final long[] counts = getBucketCounts();
+        long n = 0;
+        for (final long c : counts) {
+            n += c;
+        }
+
+        if (n == 0) {
+            return 0.0;
+        }
+
+        final long rank = (long)Math.ceil(percentile / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return Math.min(1L << i, getMaxMicros());
+            }
+        }
+
+        return getMaxMicros();
+    }
+
+    /**
+     * @return a copy of the bucket counts
+     */
+    public final long[] getBucketCounts() {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public final void reset() {
+        for (final LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d, mean: %.1f us, p50: %.0f us, p99: %.0f us, max: %.1f us",
+                getCount(), getMeanMicros(), getPercentileMicros(50), getPercentileMicros(99), getMaxMicros());
+    }
+}
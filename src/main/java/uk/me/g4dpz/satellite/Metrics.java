@@ -0,0 +1,62 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+/**
+ * Holds the {@link MetricsCollector} used by the whole library. Until one is set, measurements
+ * go to a collector that does nothing.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public final class Metrics {
+
+    private static final MetricsCollector NO_OP = new MetricsCollector() {
+    };
+
+    private static volatile MetricsCollector collector = NO_OP;
+
+    /**
+     * Default constructor.
+     */
+    private Metrics() {
+
+    }
+
+    /**
+     * @return the collector in use
+     */
+    public static MetricsCollector getCollector() {
+        return collector;
+    }
+
+    /**
+     * @param theCollector the collector to use, or null to stop collecting
+     */
+    public static void setCollector(final MetricsCollector theCollector) {
+        collector = theCollector == null ? NO_OP : theCollector;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+/**
+ * Receives measurements from the propagators and the pass predictor.
+ *
+ * Every method does nothing by default, so an implementation only overrides what it wants to
+ * record. Methods are called on the calculating threads, often in tight loops, so they must be
+ * thread safe and cheap. Install an implementation with {@link Metrics#setCollector}.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public interface MetricsCollector {
+
+    /** The caches whose hit rates are reported. */
+    enum Cache {
+        /** The Greenwich sidereal time of a propagation, shared by the calculations that follow it. */
+        SIDEREAL_TIME,
+        /** The checkpoints of the deep space resonance integrator. */
+        RESONANCE_CHECKPOINT
+    }
+
+    /**
+     * A satellite has been propagated.
+     *
+     * @param deepSpace true for SDP4, false for SGP4
+     * @param keplerIterations the number of iterations taken to solve Kepler's equation
+     */
+    default void propagated(final boolean deepSpace, final int keplerIterations) {
+    }
+
+    /**
+     * Near earth satellites have been propagated together by a {@link LEOBatchPropagator}.
+     *
+     * @param satellites the number of satellites
+     * @param keplerIterations the iterations taken to solve Kepler's equation, over all satellites
+     */
+    default void batchPropagated(final int satellites, final int keplerIterations) {
+    }
+
+    /**
+     * The deep space resonance terms have been integrated.
+     *
+     * @param steps the number of integration steps taken
+     */
+    default void resonanceIntegrated(final int steps) {
+    }
+
+    /**
+     * A pass has been searched for.
+     *
+     * @param nanos the time taken
+     * @param propagations the number of positions calculated
+     */
+    default void passSearched(final long nanos, final int propagations) {
+    }
+
+    /**
+     * A TLE has been parsed.
+     *
+     * @param valid false if the TLE was rejected
+     */
+    default void tleParsed(final boolean valid) {
+    }
+
+    /**
+     * A cache has been looked up.
+     *
+     * @param cache the cache
+     * @param hit whether the value was found
+     */
+    default void cacheAccessed(final Cache cache, final boolean hit) {
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Writes snapshots of a {@link CountingMetricsCollector}, one line per snapshot, to a file or to
+ * the log. Each line also gives the propagation and TLE parsing rates since the line before.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class MetricsReporter {
+
+    private static final double MILLIS_PER_SECOND = 1000.0;
+    private static final String RATE_FORMAT = "%.1f";
+
+    private static Log log = LogFactory.getLog(MetricsReporter.class);
+
+    private final CountingMetricsCollector collector;
+    private final Path file;
+    private final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    private ScheduledExecutorService scheduler;
+    private long lastMillis;
+    private long lastPropagations;
+    private long lastTLEs;
+
+    /**
+     * Constructor.
+     *
+     * @param collector the measurements to report
+     * @param file the file to append snapshots to, or null to write them to the log
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public MetricsReporter(final CountingMetricsCollector collector, final Path file)
+            throws IllegalArgumentException {
+
+        if (null == collector) {
+            throw new IllegalArgumentException("Collector has not been set");
+        }
+
+        this.collector = collector;
+        this.file = file;
+        this.format.setTimeZone(AbstractSatellite.TZ);
+        this.lastMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts reporting at a fixed interval.
+     *
+     * @param periodMillis the interval between snapshots
+     * @throws IllegalStateException the reporter is already running
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public synchronized void start(final long periodMillis) throws IllegalStateException, IllegalArgumentException {
+
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got: " + periodMillis);
+        }
+
+        if (scheduler != null) {
+            throw new IllegalStateException("Reporter is already running");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "predict4java-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops reporting.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Writes a snapshot now.
+     *
+     * @return the line written
+     */
+    public synchronized String report() {
+        final long now = System.currentTimeMillis();
+        final Map<String, Number> values = collector.snapshot();
+        final long propagations = collector.getPropagations(false) + collector.getPropagations(true);
+        final long tles = collector.getTLEsParsed(true) + collector.getTLEsParsed(false);
+        final double seconds = Math.max(1L, now - lastMillis) / MILLIS_PER_SECOND;
+
+        final StringBuilder line = new StringBuilder(format.format(new Date(now)));
+
+        for (final Map.Entry<String, Number> entry : values.entrySet()) {
+            line.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+
+        line.append(" propagations.perSecond=")
+                .append(String.format(Locale.ENGLISH, RATE_FORMAT, (propagations - lastPropagations) / seconds));
+        line.append(" tles.perSecond=")
+                .append(String.format(Locale.ENGLISH, RATE_FORMAT, (tles - lastTLEs) / seconds));
+
+        lastMillis = now;
+        lastPropagations = propagations;
+        lastTLEs = tles;
+
+        final String text = line.toString();
+
+        if (file == null) {
+            log.info(text);
+        }
+        else {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(text);
+                writer.write(System.lineSeparator());
+            }
+            catch (final IOException e) {
+                log.error("Could not write metrics to " + file, e);
+            }
+        }
+
+        return text;
+    }
+}
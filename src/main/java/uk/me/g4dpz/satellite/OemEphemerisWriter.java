@@ -0,0 +1,116 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Writes an ephemeris as a CCSDS Orbit Ephemeris Message (CCSDS 502.0-B-2) in keyword = value
+ * notation. Each satellite gets a metadata block and a data block of UTC epochs with TEME
+ * positions (km) and velocities (km/s).
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class OemEphemerisWriter implements EphemerisWriter {
+
+    private static final String ORIGINATOR = "predict4java";
+
+    private final ChannelOutput out;
+
+    /**
+     * @param file the file to write, replacing anything already there
+     * @throws IOException the file could not be written
+     */
+    public OemEphemerisWriter(final Path file) throws IOException {
+        this(ChannelOutput.open(file));
+    }
+
+    /**
+     * @param channel the channel to write to, which is closed with the writer
+     * @throws IOException the channel could not be written
+     */
+    public OemEphemerisWriter(final WritableByteChannel channel) throws IOException {
+        this(new ChannelOutput(channel));
+    }
+
+    private OemEphemerisWriter(final ChannelOutput out) throws IOException {
+        this.out = out;
+        line("CCSDS_OEM_VERS = 2.0");
+        out.text("CREATION_DATE = ");
+        out.time(System.currentTimeMillis());
+        out.character('\n');
+        line("ORIGINATOR = " + ORIGINATOR);
+    }
+
+    @Override
+    public void startSegment(final TLE tle, final long startMillis, final long stepMillis, final int count)
+            throws IOException {
+        out.character('\n');
+        line("META_START");
+        line("OBJECT_NAME = " + tle.getName());
+        line("OBJECT_ID = " + tle.getCatnum());
+        line("CENTER_NAME = EARTH");
+        line("REF_FRAME = TEME");
+        line("TIME_SYSTEM = UTC");
+        out.text("START_TIME = ");
+        out.time(startMillis);
+        out.character('\n');
+        out.text("STOP_TIME = ");
+        out.time(startMillis + (count - 1) * stepMillis);
+        out.character('\n');
+        line("META_STOP");
+        out.character('\n');
+    }
+
+    @Override
+    public void writeState(final long timeMillis, final double[] state, final int offset) throws IOException {
+        out.time(timeMillis);
+
+        for (int i = 0; i < 6; i++) {
+            out.character(' ');
+            out.fixed(state[offset + i], i < 3 ? 6 : 9);
+        }
+
+        out.character('\n');
+    }
+
+    @Override
+    public void endSegment() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void line(final String text) throws IOException {
+        out.text(text);
+        out.character('\n');
+    }
+}
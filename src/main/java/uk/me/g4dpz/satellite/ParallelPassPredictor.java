@@ -0,0 +1,251 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the passes over a long period by splitting it into days, searched in parallel, with the
+ * same results as {@link PassPredictor#getPasses(Date, int, boolean)}.
+ *
+ * Each day is searched from its start for the passes starting within it, and on through the next
+ * day for the first pass after it. Days are a whole number of 5 second steps from the start, so a
+ * pass is refined to the same times whichever search finds it. The days are then stitched
+ * together in order: where the pass after one day is also found by the next day, everything the
+ * next day found after it follows exactly as it would have sequentially. Where they disagree, or
+ * a day found no pass after it, the search carries on sequentially until they agree, so the
+ * result is always that of the sequential search.
+ *
+ * PassPredictor holds the state of its search, so each day is searched by its own predictor, with
+ * its own satellite.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class ParallelPassPredictor {
+
+    private static final int PARTITION_HOURS = 24;
+    private static final long MILLIS_PER_HOUR = 60L * 60L * 1000L;
+
+    private final TLE tle;
+    private final GroundStationPosition qth;
+    private final int threads;
+    private final AtomicInteger iterationCount = new AtomicInteger();
+
+    /**
+     * Constructor.
+     *
+     * @param tle the satellite
+     * @param qth the ground station
+     * @param threads the number of days to search at once
+     * @throws IllegalArgumentException bad argument passed in
+     * @throws InvalidTleException bad TLE passed in
+     * @throws SatNotFoundException the satellite will never be seen from the ground station
+     */
+    public ParallelPassPredictor(final TLE tle, final GroundStationPosition qth, final int threads)
+            throws IllegalArgumentException, InvalidTleException, SatNotFoundException {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive, got: " + threads);
+        }
+
+        // fails in the same way for a bad TLE or a satellite that will never be seen
+        new PassPredictor(tle, qth);
+
+        this.tle = tle;
+        this.qth = qth;
+        this.threads = threads;
+    }
+
+    /**
+     * Gets the passes from the start, as {@link PassPredictor#getPasses(Date, int, boolean)} does.
+     *
+     * @param start the start of the period
+     * @param hoursAhead the length of the period
+     * @param windBack whether to wind back 1/4 of an orbit to catch a pass in progress
+     * @return List&lt;SatPassTime&gt;
+     * @throws InvalidTleException
+     * @throws SatNotFoundException
+     */
+    public final List<SatPassTime> getPasses(final Date start, final int hoursAhead, final boolean windBack)
+            throws InvalidTleException, SatNotFoundException {
+
+        if (null == start) {
+            throw new IllegalArgumentException("Start time has not been set");
+        }
+
+        iterationCount.set(0);
+
+        final int partitions = Math.max(1, (hoursAhead + PARTITION_HOURS - 1) / PARTITION_HOURS);
+        final long[] ends = new long[partitions];
+        for (int partition = 0; partition < partitions; partition++) {
+            ends[partition] = partition == partitions - 1 ? start.getTime() + hoursAhead * MILLIS_PER_HOUR
+                    : start.getTime() + (partition + 1) * PARTITION_HOURS * MILLIS_PER_HOUR;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, partitions), runnable -> {
+            final Thread thread = new Thread(runnable, "predict4java-passes");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            final List<Future<List<SatPassTime>>> futures = new ArrayList<Future<List<SatPassTime>>>(partitions);
+
+            for (int partition = 0; partition < partitions; partition++) {
+                final long from = partition == 0 ? start.getTime() : ends[partition - 1];
+                final long to = ends[partition];
+                // like the sequential search, the last day looks as far as it must for the pass after it
+                final long limit = partition == partitions - 1 ? Long.MAX_VALUE : ends[partition + 1];
+                final boolean wind = windBack && partition == 0;
+                futures.add(executor.submit(() -> search(from, to, limit, wind)));
+            }
+
+            final List<SatPassTime> passes = new ArrayList<SatPassTime>(futures.get(0).get());
+            final PassPredictor stitcher = new PassPredictor(tle, qth);
+
+            for (int partition = 1; partition < partitions; partition++) {
+                final long limit = partition == partitions - 1 ? Long.MAX_VALUE : ends[partition];
+                stitch(passes, futures.get(partition).get(), start, windBack, ends[partition], limit, stitcher);
+            }
+
+            iterationCount.addAndGet(stitcher.getIterationCount());
+
+            return passes;
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching for passes", e);
+        }
+        catch (final ExecutionException e) {
+            if (e.getCause() instanceof InvalidTleException) {
+                throw (InvalidTleException)e.getCause();
+            }
+            if (e.getCause() instanceof SatNotFoundException) {
+                throw (SatNotFoundException)e.getCause();
+            }
+            throw new IllegalStateException("Could not search for passes", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the number of propagations in the last call to getPasses(..), over all threads
+     */
+    public final int getIterationCount() {
+        return iterationCount.get();
+    }
+
+    /**
+     * Searches one day in the same way as PassPredictor.getPasses(..), keeping the passes that
+     * start before its end and the first one that starts after, if it starts before the limit.
+     */
+    private List<SatPassTime> search(final long from, final long to, final long limit, final boolean windBack)
+            throws InvalidTleException, SatNotFoundException {
+
+        final PassPredictor predictor = new PassPredictor(tle, qth);
+        final List<SatPassTime> passes = new ArrayList<SatPassTime>();
+
+        SatPassTime pass = predictor.nextSatPass(new Date(from), windBack, limit);
+
+        while (null != pass) {
+            passes.add(pass);
+            if (pass.getStartTime().getTime() >= to) {
+                break;
+            }
+            pass = predictor.nextSatPass(nextSearchStart(pass), false, limit);
+        }
+
+        iterationCount.addAndGet(predictor.getIterationCount());
+
+        return passes;
+    }
+
+    /**
+     * Joins the passes of the next day to those found so far, which are those of the sequential
+     * search up to the start of the day, and perhaps the first after it.
+     *
+     * @param end the end of the next day
+     * @param limit the latest start of a pass the sequential search may need to find
+     */
+    private void stitch(final List<SatPassTime> passes, final List<SatPassTime> next, final Date start,
+            final boolean windBack, final long end, final long limit, final PassPredictor stitcher)
+            throws InvalidTleException, SatNotFoundException {
+
+        while (true) {
+            final SatPassTime last = passes.isEmpty() ? null : passes.get(passes.size() - 1);
+
+            if (null != last) {
+                final int index = indexOf(next, last);
+                if (index >= 0) {
+                    passes.addAll(next.subList(index + 1, next.size()));
+                    return;
+                }
+                if (last.getStartTime().getTime() >= end) {
+                    return;
+                }
+            }
+
+            // carry on sequentially until the next day agrees
+            final SatPassTime pass = null == last ? stitcher.nextSatPass(start, windBack, limit)
+                    : stitcher.nextSatPass(nextSearchStart(last), false, limit);
+            if (null == pass) {
+                return;
+            }
+            passes.add(pass);
+        }
+    }
+
+    private static int indexOf(final List<SatPassTime> passes, final SatPassTime pass) {
+        for (int i = 0; i < passes.size(); i++) {
+            if (passes.get(i).getStartTime().equals(pass.getStartTime())
+                    && passes.get(i).getEndTime().equals(pass.getEndTime())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Date nextSearchStart(final SatPassTime pass) {
+        return new Date(pass.getEndTime().getTime() + threeQuarterOrbitMinutes() * 60L * 1000L);
+    }
+
+    /**
+     * @return the minutes in 3/4 of an orbit, as PassPredictor skips after each pass
+     */
+    private int threeQuarterOrbitMinutes() {
+        return (int)(24.0 * 60.0 / tle.getMeanmo() * 0.75);
+    }
+}
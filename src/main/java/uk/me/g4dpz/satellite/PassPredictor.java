@@ -42,6 +42,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -55,12 +56,16 @@ import org.apache.commons.logging.LogFactory;
 public class PassPredictor {
 
     private static final String UTC = "UTC";
-    private static final String SOUTH = "south";
-    private static final String NORTH = "north";
+    static final String SOUTH = "south";
+    static final String NORTH = "north";
     private static final double SPEED_OF_LIGHT = 2.99792458E8;
     private static final double TWOPI = Math.PI * 2.0;
+    private static final int REFINE_SECONDS = 5;
+    private static final long ROOT_TOLERANCE_MILLIS = 1000L;
+    private static final long ROOT_GRID_MILLIS = 2L * 60L * 1000L;
+    private static final int MAX_ROOT_ITERATIONS = 50;
 
-    private static final String DEADSPOT_NONE = "none";
+    static final String DEADSPOT_NONE = "none";
 
     /** The time at which we do all the calculations. */
     static final TimeZone TZ = TimeZone.getTimeZone(UTC);
@@ -74,8 +79,11 @@ public class PassPredictor {
     private Satellite sat;
     private boolean windBackTime;
     private final double meanMotion;
-    private int iterationCount;
+    private final AtomicInteger iterationCount = new AtomicInteger();
     private Date tca;
+    private double maxElevation;
+    private double thresholdElevation;
+    private int rejectedCount;
 
     /**
      * Constructor.
@@ -126,7 +134,7 @@ public class PassPredictor {
 
     private SatPos getSatPos(final Date time) throws InvalidTleException,
             SatNotFoundException {
-        this.iterationCount++;
+        iterationCount.incrementAndGet();
         return sat.getPosition(qth, time);
     }
 
@@ -157,15 +165,101 @@ public class PassPredictor {
      */
     public SatPassTime nextSatPass(final Date date, final boolean windBack)
             throws InvalidTleException, SatNotFoundException {
+        return searchPass(date, windBack, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the next pass, as {@link #nextSatPass(Date, boolean)} does, unless it starts after the
+     * end of the search.
+     *
+     * @param searchEnd the time after which no pass may start
+     * @return the pass, or null if none starts before the search end
+     */
+    SatPassTime nextSatPass(final Date date, final boolean windBack, final long searchEnd)
+            throws InvalidTleException, SatNotFoundException {
+        return searchPass(date, windBack, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, searchEnd);
+    }
+
+    /**
+     * Finds the next pass above an elevation threshold whose maximum elevation reaches a minimum.
+     * AOS and LOS are where the satellite crosses the higher of the threshold and the horizon mask.
+     * Passes that are too low are rejected as soon as their peak has been sampled, without refining
+     * their AOS and LOS.
+     *
+     * @param date the date to find the next pass for
+     * @param windBack whether to wind back 1/4 of an orbit
+     * @param thresholdDegrees the elevation of AOS and LOS, in degrees
+     * @param minMaxElevationDegrees the lowest maximum elevation of a pass to accept, in degrees
+     * @param hoursAhead how far ahead of the date to search
+     * @return the pass, or null if no pass meeting the criteria starts within the period
+     * @throws InvalidTleException
+     * @throws SatNotFoundException
+     */
+    public SatPassTime nextSatPass(final Date date, final boolean windBack, final double thresholdDegrees,
+            final double minMaxElevationDegrees, final int hoursAhead)
+            throws InvalidTleException, SatNotFoundException {
+
+        checkElevations(thresholdDegrees, minMaxElevationDegrees);
+
+        return searchPass(date, windBack, Math.toRadians(thresholdDegrees), Math.toRadians(minMaxElevationDegrees),
+                date.getTime() + hoursAhead * 60L * 60L * 1000L);
+    }
+
+    private SatPassTime searchPass(final Date date, final boolean windBack, final double threshold,
+            final double minMaxElevation, final long searchEnd)
+            throws InvalidTleException, SatNotFoundException {
+
+        final PassSearchEvent event = new PassSearchEvent();
+        event.begin();
+
+        final long start = System.nanoTime();
+        final int iterations = iterationCount.get();
+        final int rejections = rejectedCount;
+
+        final SatPassTime pass = findNextPass(date, windBack, threshold, minMaxElevation, searchEnd);
+
+        Metrics.getCollector().passSearched(System.nanoTime() - start, iterationCount.get() - iterations);
+
+        if (event.shouldCommit()) {
+            event.satellite = tle.getName();
+            event.passes = null == pass ? 0 : 1;
+            event.rejected = rejectedCount - rejections;
+            event.propagations = iterationCount.get() - iterations;
+            event.windBack = windBack;
+            event.commit();
+        }
+
+        return pass;
+    }
 
-        int aosAzimuth;
-        int losAzimuth;
-        double maxElevation = 0;
-        double elevation;
+    private static void checkElevations(final double thresholdDegrees, final double minMaxElevationDegrees) {
+
+        if (thresholdDegrees >= 90.0) {
+            throw new IllegalArgumentException("Threshold elevation must be below 90 degrees, got: "
+                    + thresholdDegrees);
+        }
+
+        if (minMaxElevationDegrees > 90.0) {
+            throw new IllegalArgumentException("Minimum maximum elevation must not exceed 90 degrees, got: "
+                    + minMaxElevationDegrees);
+        }
+    }
+
+    /**
+     * @param threshold the elevation of AOS and LOS in radians, applied on top of the horizon mask
+     * @param minMaxElevation the lowest maximum elevation of a pass to accept, in radians
+     * @param searchEnd the time after which no pass may start, or Long.MAX_VALUE to search forever
+     * @return the pass, or null if none starts before the search end
+     */
+    private SatPassTime findNextPass(final Date date, final boolean windBack, final double threshold,
+            final double minMaxElevation, final long searchEnd)
+            throws InvalidTleException, SatNotFoundException {
 
         validateData();
 
-        String polePassed = DEADSPOT_NONE;
+        thresholdElevation = threshold;
+        final boolean filtered = minMaxElevation > threshold;
+        final VisibilityEstimator estimator = createEstimator(threshold);
 
         // get the current position
         final Calendar cal = Calendar.getInstance(TZ);
@@ -178,92 +272,214 @@ public class PassPredictor {
         }
 
         SatPos satPos = getSatPos(cal.getTime());
-        SatPos prevPos = satPos;
 
-        // test for the elevation being above the horizon
-        if (satPos.getElevation() > 0.0) {
+        while (true) {
+
+            int aosAzimuth;
+            int losAzimuth;
+            maxElevation = 0;
+            String polePassed = DEADSPOT_NONE;
+
+            // test for the elevation being above the horizon mask
+            if (aboveMask(satPos)) {
+
+                // move time forward in 30 second intervals until the sat goes below
+                // the horizon
+                do {
+                    satPos = getPosition(cal, 60);
+                }
+                while (aboveMask(satPos));
 
-            // move time forward in 30 second intervals until the sat goes below
-            // the horizon
+                // move time forward 3/4 orbit
+                cal.add(Calendar.MINUTE, threeQuarterOrbitMinutes());
+            }
+
+            // now find the next time it comes above the horizon mask, jumping over the orbits
+            // from which it cannot be seen
             do {
+                if (null != estimator) {
+                    final long possible = estimator.nextPossibleVisibility(cal.getTimeInMillis(), searchEnd);
+                    if (possible == Long.MAX_VALUE) {
+                        if (searchEnd == Long.MAX_VALUE) {
+                            // an unbounded search would otherwise never end
+                            throw new SatNotFoundException("Satellite will never appear above the horizon");
+                        }
+                        return null;
+                    }
+                    cal.setTimeInMillis(possible);
+                }
+                if (cal.getTimeInMillis() > searchEnd) {
+                    return null;
+                }
                 satPos = getPosition(cal, 60);
+                trackMaxElevation(satPos, cal.getTime());
             }
-            while (satPos.getElevation() > 0.0);
+            while (!aboveMask(satPos));
 
-            // move time forward 3/4 orbit
-            cal.add(Calendar.MINUTE, threeQuarterOrbitMinutes());
-        }
+            // refine it to 5 seconds
+            satPos = refineCrossing(cal, satPos, 60, true);
+            SatPos prevPos = satPos;
 
-        // now find the next time it comes above the horizon
-        do {
-            satPos = getPosition(cal, 60);
-            final Date now = cal.getTime();
-            elevation = satPos.getElevation();
-            if (elevation > maxElevation) {
-                maxElevation = elevation;
-                tca = now;
-            }
-        }
-        while (satPos.getElevation() < 0.0);
+            final Date startDate = satPos.getTime();
 
-        // refine it to 5 seconds
-        cal.add(Calendar.SECOND, -60);
-        do {
-            satPos = getPosition(cal, 5);
-            final Date now = cal.getTime();
-            elevation = satPos.getElevation();
-            if (elevation > maxElevation) {
-                maxElevation = elevation;
-                tca = now;
+            if (startDate.getTime() > searchEnd) {
+                return null;
             }
-            prevPos = satPos;
-        }
-        while (satPos.getElevation() < 0.0);
 
-        final Date startDate = satPos.getTime();
+            aosAzimuth = (int)((satPos.getAzimuth() / (2.0 * Math.PI)) * 360.0);
 
-        aosAzimuth = (int)((satPos.getAzimuth() / (2.0 * Math.PI)) * 360.0);
+            // the last elevations sampled up to the peak, for filtering
+            boolean peakPassed = !filtered;
+            boolean rejected = false;
+            double beforePeak = Double.NaN;
+            double peak = satPos.getElevation();
 
-        // now find when it goes below
-        do {
-            satPos = getPosition(cal, 30);
-            final Date now = cal.getTime();
-            final String currPolePassed = getPolePassed(prevPos, satPos);
-            if (!currPolePassed.equals(DEADSPOT_NONE)) {
-                polePassed = currPolePassed;
+            // now find when it goes below
+            do {
+                satPos = getPosition(cal, 30);
+                final String currPolePassed = getPolePassed(prevPos, satPos);
+                if (!currPolePassed.equals(DEADSPOT_NONE)) {
+                    polePassed = currPolePassed;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Current pole passed: " + polePassed);
+                }
+                trackMaxElevation(satPos, cal.getTime());
+                prevPos = satPos;
+
+                if (!peakPassed) {
+                    if (satPos.getElevation() < peak) {
+                        peakPassed = true;
+                        rejected = estimatePeak(beforePeak, peak, satPos.getElevation()) < minMaxElevation;
+                    }
+                    else {
+                        beforePeak = peak;
+                        peak = satPos.getElevation();
+                    }
+                }
             }
-            log.debug("Current pole passed: " + polePassed);
-            elevation = satPos.getElevation();
-            if (elevation > maxElevation) {
-                maxElevation = elevation;
-                tca = now;
+            while (!rejected && aboveMask(satPos));
+
+            // a low pass is rejected without finding its LOS, which is taken to be as far after
+            // the first sample past the peak as AOS was before it; this overshoots by up to one
+            // 30 second step, which the 3/4 orbit skip makes harmless
+            if (rejected) {
+                rejectedCount++;
+                cal.setTimeInMillis(2 * cal.getTimeInMillis() - startDate.getTime());
+                cal.add(Calendar.MINUTE, threeQuarterOrbitMinutes());
+                satPos = getSatPos(cal.getTime());
+                continue;
             }
-            prevPos = satPos;
-        }
-        while (satPos.getElevation() > 0.0);
 
-        newTLE = true;
-        validateData();
+            // refine it to 5 seconds
+            satPos = refineCrossing(cal, satPos, 30, false);
 
-        // refine it to 5 seconds
-        cal.add(Calendar.SECOND, -30);
-        do {
-            satPos = getPosition(cal, 5);
-            final Date now = cal.getTime();
-            elevation = satPos.getElevation();
-            if (elevation > maxElevation) {
-                maxElevation = elevation;
-                tca = now;
+            // the estimate let through a pass whose sampled peak is still too low
+            if (filtered && maxElevation < minMaxElevation) {
+                rejectedCount++;
+                cal.add(Calendar.MINUTE, threeQuarterOrbitMinutes());
+                satPos = getSatPos(cal.getTime());
+                continue;
             }
+
+            final Date endDate = satPos.getTime();
+            losAzimuth = (int)((satPos.getAzimuth() / (2.0 * Math.PI)) * 360.0);
+
+            return new SatPassTime(startDate, endDate, tca, polePassed,
+                    aosAzimuth, losAzimuth, (maxElevation / (2.0 * Math.PI)) * 360.0);
+        }
+    }
+
+    /**
+     * @param threshold the elevation of AOS and LOS in radians
+     * @return an estimator for the orbits from which the satellite may be seen, or null if the
+     *         orbit is deep space and so not steady enough to estimate from
+     */
+    private VisibilityEstimator createEstimator(final double threshold) {
+
+        if (!(sat instanceof LEOSatellite)) {
+            return null;
         }
-        while (satPos.getElevation() > 0.0);
 
-        final Date endDate = satPos.getTime();
-        losAzimuth = (int)((satPos.getAzimuth() / (2.0 * Math.PI)) * 360.0);
+        int lowest = 0;
+        for (final int elevation : qth.getHorizonElevations()) {
+            lowest = Math.min(lowest, elevation);
+        }
+
+        return new VisibilityEstimator((LEOSatellite)sat, qth, Math.max(threshold, Math.toRadians(lowest)));
+    }
+
+    /**
+     * Estimates the peak elevation of a pass from a parabola through the highest of three samples
+     * 30 seconds apart and its neighbours.
+     *
+     * @param before the sample before the peak, NaN if the peak sample was at AOS
+     * @param peak the highest sample
+     * @param after the sample after the peak
+     * @return the estimated maximum elevation in radians
+     */
+    static double estimatePeak(final double before, final double peak, final double after) {
+
+        if (Double.isNaN(before)) {
+            // falling from AOS, so the peak can be no higher than the fall
+            return peak + (peak - after);
+        }
+
+        final double curvature = 2.0 * peak - before - after;
+
+        return curvature > 0.0 ? peak + (before - after) * (before - after) / (8.0 * curvature) : peak;
+    }
+
+    /**
+     * @return whether the satellite is above both the ground station's horizon mask and the
+     *         threshold of the current search
+     */
+    private boolean aboveMask(final SatPos satPos) {
+        return satPos.getElevation() > Math.max(thresholdElevation, qth.getHorizonElevation(satPos.getAzimuth()));
+    }
 
-        return new SatPassTime(startDate, endDate, tca, polePassed,
-                aosAzimuth, losAzimuth, (maxElevation / (2.0 * Math.PI)) * 360.0);
+    private void trackMaxElevation(final SatPos satPos, final Date now) {
+        if (satPos.getElevation() > maxElevation) {
+            maxElevation = satPos.getElevation();
+            tca = now;
+        }
+    }
+
+    /**
+     * Bisects for the first point on the 5 second grid, in the window before the calendar's time,
+     * at which the satellite has crossed the horizon mask. The calendar's time must be on the far
+     * side of the crossing; it is left at the time of the returned position.
+     *
+     * @param cal the time of the known crossed position
+     * @param crossed the position at that time
+     * @param windowSeconds the width of the window to search
+     * @param rising true to find the first point above the mask, false the first below it
+     * @return the position at the crossing
+     */
+    private SatPos refineCrossing(final Calendar cal, final SatPos crossed, final int windowSeconds,
+            final boolean rising) throws InvalidTleException, SatNotFoundException {
+
+        final long end = cal.getTimeInMillis();
+        int before = -windowSeconds / REFINE_SECONDS;
+        int after = 0;
+        SatPos crossing = crossed;
+
+        while (after - before > 1) {
+            final int mid = before + (after - before) / 2;
+            cal.setTimeInMillis(end + mid * REFINE_SECONDS * 1000L);
+            final SatPos satPos = getSatPos(cal.getTime());
+            trackMaxElevation(satPos, cal.getTime());
+            if (aboveMask(satPos) == rising) {
+                after = mid;
+                crossing = satPos;
+            }
+            else {
+                before = mid;
+            }
+        }
 
+        cal.setTimeInMillis(end + after * REFINE_SECONDS * 1000L);
+        return crossing;
     }
 
     /**
@@ -294,7 +510,11 @@ public class PassPredictor {
     public List<SatPassTime> getPasses(final Date start, final int hoursAhead, final boolean windBack)
             throws InvalidTleException, SatNotFoundException {
 
-        this.iterationCount = 0;
+        final PassSearchEvent event = new PassSearchEvent();
+        event.begin();
+
+        iterationCount.set(0);
+        rejectedCount = 0;
 
         this.windBackTime = windBack;
 
@@ -312,6 +532,9 @@ public class PassPredictor {
                 this.windBackTime = false;
             }
             final SatPassTime pass = nextSatPass(trackStartDate, this.windBackTime);
+            if (null == pass) {
+                break;
+            }
             lastAOS = pass.getStartTime();
             passes.add(pass);
             trackStartDate = new Date(pass.getEndTime().getTime() + (threeQuarterOrbitMinutes() * 60L * 1000L));
@@ -319,14 +542,256 @@ public class PassPredictor {
         }
         while (lastAOS.compareTo(trackEndDate) < 0);
 
+        if (event.shouldCommit()) {
+            event.satellite = tle.getName();
+            event.passes = passes.size();
+            event.propagations = iterationCount.get();
+            event.windBack = windBack;
+            event.commit();
+        }
+
         return passes;
     }
 
+    /**
+     * Gets the passes above an elevation threshold whose maximum elevation reaches a minimum, for
+     * the period from the start. Unlike {@link #getPasses(Date, int, boolean)} only passes starting
+     * within the period are returned.
+     *
+     * @param start the start of the period
+     * @param hoursAhead the length of the period
+     * @param windBack whether to wind back 1/4 of an orbit to catch a pass in progress
+     * @param thresholdDegrees the elevation of AOS and LOS, in degrees
+     * @param minMaxElevationDegrees the lowest maximum elevation of a pass to accept, in degrees
+     * @return List&lt;SatPassTime&gt;
+     * @throws SatNotFoundException
+     * @throws InvalidTleException
+     */
+    public List<SatPassTime> getPasses(final Date start, final int hoursAhead, final boolean windBack,
+            final double thresholdDegrees, final double minMaxElevationDegrees)
+            throws InvalidTleException, SatNotFoundException {
+
+        checkElevations(thresholdDegrees, minMaxElevationDegrees);
+
+        final PassSearchEvent event = new PassSearchEvent();
+        event.begin();
+
+        iterationCount.set(0);
+        rejectedCount = 0;
+
+        final double threshold = Math.toRadians(thresholdDegrees);
+        final double minMaxElevation = Math.toRadians(minMaxElevationDegrees);
+        final long trackEnd = start.getTime() + hoursAhead * 60L * 60L * 1000L;
+
+        final List<SatPassTime> passes = new ArrayList<SatPassTime>();
+
+        Date trackStartDate = start;
+        SatPassTime pass = searchPass(trackStartDate, windBack, threshold, minMaxElevation, trackEnd);
+
+        while (null != pass) {
+            passes.add(pass);
+            trackStartDate = new Date(pass.getEndTime().getTime() + (threeQuarterOrbitMinutes() * 60L * 1000L));
+            pass = searchPass(trackStartDate, false, threshold, minMaxElevation, trackEnd);
+        }
+
+        if (event.shouldCommit()) {
+            event.satellite = tle.getName();
+            event.passes = passes.size();
+            event.rejected = rejectedCount;
+            event.propagations = iterationCount.get();
+            event.windBack = windBack;
+            event.commit();
+        }
+
+        return passes;
+    }
+
+    /**
+     * Gets the passes during which the satellite can be seen by eye, starting within the period:
+     * above the horizon and in sunlight while the sun is below an elevation at the ground station.
+     *
+     * Each pass is found as by {@link #getPasses(Date, int, boolean)}. The times at which the sun
+     * sets or rises at the ground station and the satellite enters or leaves the earth's shadow
+     * are then found by root finding within it, bracketed on a 2 minute grid so that the hours
+     * long passes of deep space satellites may cross several of them. Each stretch of a pass in
+     * which the satellite can be seen is returned as a separate VisualPass. An eclipse or a gap
+     * in darkness shorter than the grid may be missed.
+     *
+     * @param start the start of the period
+     * @param hoursAhead the length of the period
+     * @param windBack whether to wind back 1/4 of an orbit to catch a pass in progress
+     * @param sunElevationDegrees the elevation the sun must be below, for example -6 degrees for
+     *            civil twilight
+     * @return List&lt;VisualPass&gt;
+     * @throws SatNotFoundException
+     * @throws InvalidTleException
+     */
+    public List<VisualPass> getVisualPasses(final Date start, final int hoursAhead, final boolean windBack,
+            final double sunElevationDegrees) throws InvalidTleException, SatNotFoundException {
+
+        if (sunElevationDegrees < -90.0 || sunElevationDegrees > 90.0) {
+            throw new IllegalArgumentException("Sun elevation must be between -90 and 90 degrees, got: "
+                    + sunElevationDegrees);
+        }
+
+        final PassSearchEvent event = new PassSearchEvent();
+        event.begin();
+
+        iterationCount.set(0);
+        rejectedCount = 0;
+
+        final double sunElevation = Math.toRadians(sunElevationDegrees);
+        final long trackEnd = start.getTime() + hoursAhead * 60L * 60L * 1000L;
+        final TimeFunction sun = time -> AbstractSatellite.getSolarElevation(time, qth) - sunElevation;
+        final TimeFunction shadow = time -> getSatPos(new Date(time)).getEclipseDepth();
+
+        final List<VisualPass> visualPasses = new ArrayList<VisualPass>();
+
+        SatPassTime pass = nextSatPass(start, windBack, trackEnd);
+
+        while (null != pass) {
+
+            final int found = visualPasses.size();
+
+            // the sun first, as it needs no propagation
+            for (final long[] dark : negativeIntervals(sun, pass.getStartTime().getTime(),
+                    pass.getEndTime().getTime())) {
+                for (final long[] visible : negativeIntervals(shadow, dark[0], dark[1])) {
+                    visualPasses.add(new VisualPass(pass, new Date(visible[0]), new Date(visible[1])));
+                }
+            }
+
+            if (visualPasses.size() == found) {
+                rejectedCount++;
+            }
+
+            pass = nextSatPass(new Date(pass.getEndTime().getTime() + (threeQuarterOrbitMinutes() * 60L * 1000L)),
+                    false, trackEnd);
+        }
+
+        if (event.shouldCommit()) {
+            event.satellite = tle.getName();
+            event.passes = visualPasses.size();
+            event.rejected = rejectedCount;
+            event.propagations = iterationCount.get();
+            event.windBack = windBack;
+            event.commit();
+        }
+
+        return visualPasses;
+    }
+
+    /**
+     * A quantity that changes with time, negative where a condition holds.
+     */
+    private interface TimeFunction {
+        double valueAt(long timeMillis) throws InvalidTleException, SatNotFoundException;
+    }
+
+    /**
+     * Finds the parts of an interval in which a condition holds. The condition is sampled on a
+     * grid, and each change of sign between samples is found by root finding.
+     *
+     * @param function negative where the condition holds
+     * @param from the start of the interval
+     * @param to the end of the interval
+     * @return the start and end times of each part, in order
+     */
+    private static List<long[]> negativeIntervals(final TimeFunction function, final long from, final long to)
+            throws InvalidTleException, SatNotFoundException {
+
+        final List<long[]> intervals = new ArrayList<long[]>();
+
+        long time = from;
+        double value = function.valueAt(from);
+        long opened = from;
+
+        while (time < to) {
+            final long next = Math.min(time + ROOT_GRID_MILLIS, to);
+            final double nextValue = function.valueAt(next);
+
+            if ((value < 0.0) != (nextValue < 0.0)) {
+                final long root = findRoot(function, time, value, next, nextValue);
+
+                if (value < 0.0) {
+                    addInterval(intervals, opened, root);
+                }
+                else {
+                    opened = root;
+                }
+            }
+
+            time = next;
+            value = nextValue;
+        }
+
+        if (value < 0.0) {
+            addInterval(intervals, opened, to);
+        }
+
+        return intervals;
+    }
+
+    private static void addInterval(final List<long[]> intervals, final long start, final long end) {
+        if (start < end) {
+            intervals.add(new long[] {start, end});
+        }
+    }
+
+    /**
+     * Finds where a function changes sign by the Illinois variant of false position, to within a
+     * second.
+     *
+     * @return the time next to the root at which the function is negative
+     */
+    private static long findRoot(final TimeFunction function, final long from, final double fromValue,
+            final long to, final double toValue) throws InvalidTleException, SatNotFoundException {
+
+        long low = from;
+        long high = to;
+        double lowValue = fromValue;
+        double highValue = toValue;
+        int side = 0;
+
+        for (int i = 0; i < MAX_ROOT_ITERATIONS && high - low > ROOT_TOLERANCE_MILLIS; i++) {
+
+            long time = low + Math.round((high - low) * lowValue / (lowValue - highValue));
+            time = Math.max(low + 1, Math.min(high - 1, time));
+            final double value = function.valueAt(time);
+
+            if ((value < 0.0) == (lowValue < 0.0)) {
+                low = time;
+                lowValue = value;
+                if (side == -1) {
+                    highValue /= 2.0;
+                }
+                side = -1;
+            }
+            else {
+                high = time;
+                highValue = value;
+                if (side == 1) {
+                    lowValue /= 2.0;
+                }
+                side = 1;
+            }
+        }
+
+        return lowValue < 0.0 ? low : high;
+    }
+
     /**
      * @return the iterationCount
      */
     public final int getIterationCount() {
-        return iterationCount;
+        return iterationCount.get();
+    }
+
+    /**
+     * @return the number of passes rejected for being too low since getPasses(..) was last called
+     */
+    public final int getRejectedCount() {
+        return rejectedCount;
     }
 
     private void validateData() throws InvalidTleException,
@@ -353,7 +818,14 @@ public class PassPredictor {
         return (int)(24.0 * 60.0 / tle.getMeanmo() * 0.75);
     }
 
-    private String getPolePassed(final SatPos prevPos, final SatPos satPos) {
+    /**
+     * Determines whether the azimuth passed through north or south between two positions.
+     *
+     * @param prevPos the earlier position
+     * @param satPos the later position
+     * @return "north", "south" or "none"
+     */
+    static String getPolePassed(final SatPos prevPos, final SatPos satPos) {
         String polePassed = DEADSPOT_NONE;
 
         final double az1 = prevPos.getAzimuth() / TWOPI * 360.0;
@@ -419,4 +891,41 @@ public class PassPredictor {
 
         return positions;
     }
+
+    /**
+     * Calculates positions like getPositions(..), packed into a SatPosBuffer rather than a list of
+     * SatPos objects.
+     *
+     * @param referenceDate the reference time
+     * @param incrementSeconds the step
+     * @param minutesBefore how long before the reference time to start
+     * @param minutesAfter how long after the reference time to end
+     * @return the positions
+     * @throws IllegalArgumentException the step is not positive
+     * @throws SatNotFoundException
+     * @throws InvalidTleException
+     */
+    public SatPosBuffer getPositionBuffer(
+            final Date referenceDate,
+            final int incrementSeconds,
+            final int minutesBefore,
+            final int minutesAfter)
+            throws IllegalArgumentException, InvalidTleException, SatNotFoundException {
+
+        if (incrementSeconds <= 0) {
+            throw new IllegalArgumentException("Increment must be positive, got: " + incrementSeconds);
+        }
+
+        final long start = referenceDate.getTime() - (minutesBefore * 60L * 1000L);
+        final long end = referenceDate.getTime() + (minutesAfter * 60L * 1000L);
+        final long step = incrementSeconds * 1000L;
+
+        final SatPosBuffer positions = new SatPosBuffer((int)Math.max(0, (end - start + step - 1) / step));
+
+        for (long time = start; time < end; time += step) {
+            positions.add(getSatPos(new Date(time)));
+        }
+
+        return positions;
+    }
 }
@@ -0,0 +1,61 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning a search for passes, either a single call to nextSatPass(..)
+ * or a whole call to getPasses(..).
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+@Name("predict4java.PassSearch")
+@Label("Pass Search")
+@Category("predict4java")
+@Description("A search for the next pass, or for all passes in a period")
+final class PassSearchEvent extends Event {
+
+    @Label("Satellite")
+    String satellite;
+
+    @Label("Passes Found")
+    int passes;
+
+    @Label("Passes Rejected")
+    int rejected;
+
+    @Label("Propagations")
+    int propagations;
+
+    @Label("Wind Back")
+    boolean windBack;
+}
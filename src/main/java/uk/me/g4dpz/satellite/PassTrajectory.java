@@ -0,0 +1,234 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+
+/**
+ * The precomputed antenna pointing for a single pass, held in primitive arrays so that it can
+ * be interpolated without allocating.
+ *
+ * Azimuth is unwrapped so that it is continuous across north; when the pass goes through north
+ * it may therefore lie outside 0 to 360 degrees, which suits rotators with overlap. In flip mode
+ * a pass through north is instead tracked "over the top": the azimuth is turned through 180
+ * degrees and the elevation runs from 180 down to 0, so the azimuth never crosses north.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class PassTrajectory {
+
+    private static final double TWO_PI = Math.PI * 2.0;
+
+    private final SatPassTime pass;
+    private final boolean flipped;
+    private final long startTime;
+    private final long stepMillis;
+    private final double[] azimuth;
+    private final double[] elevation;
+    private final double[] azimuthRate;
+    private final double[] elevationRate;
+
+    /**
+     * Precomputes the trajectory for a pass.
+     *
+     * @param satellite the satellite, it is only used during construction
+     * @param qth the ground station
+     * @param pass the pass to track
+     * @param stepSeconds the interval between samples
+     * @param flip whether passes through north should be tracked in flip mode
+     * @throws IllegalArgumentException the step was not positive
+     */
+    public PassTrajectory(final Satellite satellite, final GroundStationPosition qth, final SatPassTime pass,
+            final int stepSeconds, final boolean flip) throws IllegalArgumentException {
+
+        if (stepSeconds <= 0) {
+            throw new IllegalArgumentException("Step must be positive, got: " + stepSeconds);
+        }
+
+        this.pass = pass;
+        this.startTime = pass.getStartTime().getTime();
+        this.stepMillis = stepSeconds * 1000L;
+
+        final long endTime = pass.getEndTime().getTime();
+        final int samples = (int)((endTime - startTime) / stepMillis) + 1;
+
+        azimuth = new double[samples];
+        elevation = new double[samples];
+        azimuthRate = new double[samples];
+        elevationRate = new double[samples];
+
+        SatPos prevPos = null;
+        boolean northPassed = false;
+
+        for (int i = 0; i < samples; i++) {
+            final SatPos satPos = satellite.getPosition(qth, new Date(startTime + i * stepMillis));
+            azimuth[i] = satPos.getAzimuth() / TWO_PI * 360.0;
+            elevation[i] = satPos.getElevation() / TWO_PI * 360.0;
+
+            if (prevPos != null) {
+                if (PassPredictor.NORTH.equals(PassPredictor.getPolePassed(prevPos, satPos))) {
+                    northPassed = true;
+                }
+                azimuth[i] = unwrap(azimuth[i - 1], azimuth[i]);
+            }
+
+            prevPos = satPos;
+        }
+
+        flipped = flip && northPassed;
+
+        if (flipped) {
+            final double turn = azimuth[0] < 180.0 ? 180.0 : -180.0;
+            for (int i = 0; i < samples; i++) {
+                azimuth[i] = azimuth[i] + turn;
+                elevation[i] = 180.0 - elevation[i];
+            }
+        }
+
+        calculateRates(azimuth, azimuthRate, stepSeconds);
+        calculateRates(elevation, elevationRate, stepSeconds);
+    }
+
+    /**
+     * Brings an azimuth to within 180 degrees of the previous one.
+     */
+    private static double unwrap(final double previous, final double current) {
+        double value = current;
+
+        while (value - previous > 180.0) {
+            value -= 360.0;
+        }
+
+        while (previous - value > 180.0) {
+            value += 360.0;
+        }
+
+        return value;
+    }
+
+    private static void calculateRates(final double[] values, final double[] rates, final int stepSeconds) {
+        final int last = values.length - 1;
+
+        if (last == 0) {
+            return;
+        }
+
+        rates[0] = (values[1] - values[0]) / stepSeconds;
+        rates[last] = (values[last] - values[last - 1]) / stepSeconds;
+
+        for (int i = 1; i < last; i++) {
+            rates[i] = (values[i + 1] - values[i - 1]) / (2.0 * stepSeconds);
+        }
+    }
+
+    /**
+     * Interpolates the pointing at a given time. Does not allocate.
+     *
+     * @param timeMillis the time in milliseconds since the Java epoch
+     * @param pointing receives azimuth, elevation (degrees), azimuth rate and elevation rate
+     *            (degrees per second)
+     * @return false if the time lies outside the pass, in which case pointing is untouched
+     */
+    public final boolean interpolate(final long timeMillis, final double[] pointing) {
+
+        final long offset = timeMillis - startTime;
+
+        if (offset < 0 || timeMillis > getEndTime()) {
+            return false;
+        }
+
+        final int index = (int)(offset / stepMillis);
+
+        if (index >= azimuth.length - 1) {
+            final int last = azimuth.length - 1;
+            pointing[0] = azimuth[last];
+            pointing[1] = elevation[last];
+            pointing[2] = azimuthRate[last];
+            pointing[3] = elevationRate[last];
+        }
+        else {
+            final double fraction = (double)(offset - index * stepMillis) / stepMillis;
+            pointing[0] = azimuth[index] + (azimuth[index + 1] - azimuth[index]) * fraction;
+            pointing[1] = elevation[index] + (elevation[index + 1] - elevation[index]) * fraction;
+            pointing[2] = azimuthRate[index] + (azimuthRate[index + 1] - azimuthRate[index]) * fraction;
+            pointing[3] = elevationRate[index] + (elevationRate[index + 1] - elevationRate[index]) * fraction;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the pass this trajectory was computed for
+     */
+    public final SatPassTime getPass() {
+        return pass;
+    }
+
+    /**
+     * @return whether the pass is tracked in flip mode
+     */
+    public final boolean isFlipped() {
+        return flipped;
+    }
+
+    /**
+     * @return the time of the first sample in milliseconds
+     */
+    public final long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return the time of the last sample in milliseconds
+     */
+    public final long getEndTime() {
+        return startTime + (azimuth.length - 1) * stepMillis;
+    }
+
+    /**
+     * @return the number of samples
+     */
+    public final int getSampleCount() {
+        return azimuth.length;
+    }
+
+    /**
+     * @param index the sample index
+     * @return the azimuth of the sample in degrees
+     */
+    public final double getAzimuth(final int index) {
+        return azimuth[index];
+    }
+
+    /**
+     * @param index the sample index
+     * @return the elevation of the sample in degrees
+     */
+    public final double getElevation(final int index) {
+        return elevation[index];
+    }
+}
@@ -0,0 +1,431 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Publishes live positions of many satellites to many subscribers.
+ *
+ * On every tick each satellite with at least one subscriber is propagated once, and the
+ * observation is calculated once for each distinct ground station among its subscribers. The
+ * results are delivered through {@link Flow} with backpressure: a subscriber that has no
+ * outstanding demand keeps only the most recent position, so a slow subscriber skips ticks
+ * rather than queueing them.
+ *
+ * Subscribers to the same satellite and ground station receive the same SatPos instance, which
+ * must be treated as read only.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class PositionPublisher implements Closeable {
+
+    private static Log log = LogFactory.getLog(PositionPublisher.class);
+
+    private final long periodMillis;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<String, Channel>();
+    private final LongAdder propagations = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    /**
+     * Constructor. Positions are delivered on a pool of daemon threads, one per processor.
+     *
+     * @param periodMillis the interval between ticks
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public PositionPublisher(final long periodMillis) throws IllegalArgumentException {
+        this(periodMillis, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                daemonThreads("predict4java-publisher")), true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param periodMillis the interval between ticks
+     * @param executor runs the deliveries to subscribers
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public PositionPublisher(final long periodMillis, final Executor executor) throws IllegalArgumentException {
+        this(periodMillis, executor, false);
+    }
+
+    private PositionPublisher(final long periodMillis, final Executor executor, final boolean own) {
+
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got: " + periodMillis);
+        }
+
+        if (null == executor) {
+            throw new IllegalArgumentException("Executor has not been set");
+        }
+
+        this.periodMillis = periodMillis;
+        this.executor = executor;
+        this.ownExecutor = own ? (ExecutorService)executor : null;
+    }
+
+    /**
+     * Gets a publisher of the positions of a satellite. Publishers for the same TLE share one
+     * propagation per tick.
+     *
+     * @param tle the satellite
+     * @param qth the ground station for azimuth, elevation and range, or null for only the ground
+     *            track
+     * @return the publisher
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public Flow.Publisher<SatPos> positions(final TLE tle, final GroundStationPosition qth)
+            throws IllegalArgumentException {
+
+        if (null == tle) {
+            throw new IllegalArgumentException("TLE has not been set");
+        }
+
+        final String key = tle.getCatnum() + "/" + tle.getEpoch();
+
+        return subscriber -> {
+            if (null == subscriber) {
+                throw new NullPointerException("Subscriber has not been set");
+            }
+
+            final PositionSubscription subscription = new PositionSubscription(key, qth, subscriber);
+            subscriber.onSubscribe(subscription);
+
+            channels.compute(key, (k, channel) -> {
+                final Channel current = channel == null ? new Channel(tle) : channel;
+                current.subscriptions.add(subscription);
+                return current;
+            });
+
+            // the subscriber may have cancelled, or made a bad request, in onSubscribe(..)
+            if (subscription.cancelled || subscription.error != null) {
+                remove(subscription);
+            }
+
+            if (closed) {
+                remove(subscription);
+                subscription.complete();
+            }
+        };
+    }
+
+    /**
+     * Starts ticking.
+     *
+     * @throws IllegalStateException the publisher is running or closed
+     */
+    public synchronized void start() throws IllegalStateException {
+
+        if (scheduler != null || closed) {
+            throw new IllegalStateException("Publisher is already running or closed");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("predict4java-ticker"));
+        scheduler.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()), 0, periodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops ticking. Subscriptions stay open, and ticking may be started again.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Stops ticking and completes every subscription.
+     */
+    @Override
+    public void close() {
+        stop();
+        closed = true;
+
+        for (final String key : new ArrayList<String>(channels.keySet())) {
+            final Channel channel = channels.remove(key);
+            if (channel != null) {
+                for (final PositionSubscription subscription : channel.subscriptions) {
+                    subscription.complete();
+                }
+            }
+        }
+
+        if (ownExecutor != null) {
+            // deliveries already queued still run
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Propagates every subscribed satellite and offers the positions to the subscribers.
+     *
+     * @param now the time in milliseconds since the Java epoch
+     */
+    void tick(final long now) {
+        final Date date = new Date(now);
+
+        for (final Map.Entry<String, Channel> entry : channels.entrySet()) {
+            final Channel channel = entry.getValue();
+            final List<PositionSubscription> subscriptions = channel.subscriptions;
+
+            if (subscriptions.isEmpty()) {
+                continue;
+            }
+
+            final Map<GroundStationPosition, Integer> stationIndex = new IdentityHashMap<GroundStationPosition, Integer>();
+            for (final PositionSubscription subscription : subscriptions) {
+                if (!stationIndex.containsKey(subscription.qth)) {
+                    stationIndex.put(subscription.qth, stationIndex.size());
+                }
+            }
+
+            final GroundStationPosition[] stations = new GroundStationPosition[stationIndex.size()];
+            for (final Map.Entry<GroundStationPosition, Integer> station : stationIndex.entrySet()) {
+                stations[station.getValue()] = station.getKey();
+            }
+
+            try {
+                final SatPos[] positions = channel.satellite.getPositions(stations, date);
+                propagations.increment();
+
+                for (final PositionSubscription subscription : subscriptions) {
+                    final Integer index = stationIndex.get(subscription.qth);
+                    if (index != null) {
+                        subscription.offer(positions[index]);
+                    }
+                }
+            }
+            catch (final RuntimeException e) {
+                log.error("Could not propagate " + entry.getKey(), e);
+                channels.remove(entry.getKey());
+                for (final PositionSubscription subscription : subscriptions) {
+                    subscription.fail(e);
+                }
+            }
+        }
+    }
+
+    private void remove(final PositionSubscription subscription) {
+        channels.computeIfPresent(subscription.key, (k, channel) -> {
+            channel.subscriptions.remove(subscription);
+            return channel.subscriptions.isEmpty() ? null : channel;
+        });
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return the number of satellite propagations made, one per subscribed satellite per tick
+     */
+    public final long getPropagationCount() {
+        return propagations.sum();
+    }
+
+    /**
+     * @return the number of positions replaced before a slow subscriber asked for them
+     */
+    public final long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of open subscriptions
+     */
+    public final int getSubscriptionCount() {
+        int count = 0;
+        for (final Channel channel : channels.values()) {
+            count += channel.subscriptions.size();
+        }
+        return count;
+    }
+
+    /**
+     * A satellite and its subscriptions.
+     */
+    private static final class Channel {
+        private final AbstractSatellite satellite;
+        private final List<PositionSubscription> subscriptions = new CopyOnWriteArrayList<PositionSubscription>();
+
+        private Channel(final TLE tle) {
+            this.satellite = (AbstractSatellite)SatelliteFactory.createSatellite(tle);
+        }
+    }
+
+    /**
+     * Holds at most one undelivered position and hands it over serially when there is demand.
+     */
+    private final class PositionSubscription implements Flow.Subscription {
+        private final String key;
+        private final GroundStationPosition qth;
+        private final Flow.Subscriber<? super SatPos> subscriber;
+        private final AtomicReference<SatPos> latest = new AtomicReference<SatPos>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        private PositionSubscription(final String key, final GroundStationPosition qth,
+                final Flow.Subscriber<? super SatPos> subscriber) {
+            this.key = key;
+            this.qth = qth;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                remove(this);
+                fail(new IllegalArgumentException("Request must be positive, got: " + n));
+                return;
+            }
+
+            long current;
+            do {
+                current = demand.get();
+            }
+            while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+
+            drainLater();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            latest.set(null);
+            remove(this);
+        }
+
+        private void offer(final SatPos satPos) {
+            if (latest.getAndSet(satPos) != null) {
+                coalesced.increment();
+            }
+            drainLater();
+        }
+
+        private void complete() {
+            done = true;
+            drainLater();
+        }
+
+        private void fail(final Throwable throwable) {
+            error = throwable;
+            drainLater();
+        }
+
+        private void drainLater() {
+            if (work.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                }
+                catch (final RejectedExecutionException e) {
+                    log.debug("Publisher closed, delivery dropped");
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+
+            do {
+                if (cancelled) {
+                    return;
+                }
+
+                if (error != null) {
+                    cancelled = true;
+                    subscriber.onError(error);
+                    return;
+                }
+
+                if (demand.get() > 0) {
+                    final SatPos satPos = latest.getAndSet(null);
+
+                    if (satPos != null) {
+                        if (demand.get() != Long.MAX_VALUE) {
+                            demand.decrementAndGet();
+                        }
+
+                        try {
+                            subscriber.onNext(satPos);
+                        }
+                        catch (final RuntimeException e) {
+                            log.error("Subscriber failed, cancelling its subscription", e);
+                            cancel();
+                            return;
+                        }
+                    }
+                }
+
+                if (done) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return;
+                }
+
+                missed = work.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+    }
+}
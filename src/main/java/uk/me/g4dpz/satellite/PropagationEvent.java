@@ -0,0 +1,60 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning a slow propagation. Only propagations over the threshold are
+ * recorded, so that the event can stay enabled while millions of fast ones run.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+@Name("predict4java.Propagation")
+@Label("Slow Propagation")
+@Category("predict4java")
+@Description("A single SGP4 or SDP4 propagation which took longer than the threshold")
+@Threshold("100 us")
+final class PropagationEvent extends Event {
+
+    @Label("Satellite")
+    String satellite;
+
+    @Label("Deep Space")
+    boolean deepSpace;
+
+    @Label("Minutes From Epoch")
+    double minutesFromEpoch;
+
+    @Label("Kepler Iterations")
+    int keplerIterations;
+}
@@ -53,6 +53,8 @@ public class SatPos {
     private static final double EARTH_RADIUS = 6.378137E3;
     private static final double R0 = 6378.16;
 
+    private static final FootprintEngine FOOTPRINT_ENGINE = new FootprintEngine();
+
     // the internal representation will be in radians
     private double azimuth;
     private double elevation;
@@ -114,6 +116,13 @@ public class SatPos {
         return new Date(time.getTime());
     }
 
+    /**
+     * @return the time in milliseconds since the Java epoch, or Long.MIN_VALUE if not set
+     */
+    final long getTimeMillis() {
+        return time == null ? Long.MIN_VALUE : time.getTime();
+    }
+
     /**
      * @return the range
      */
@@ -250,7 +259,7 @@ public class SatPos {
     /**
      * @return the eclipseDepth
      */
-    protected final double getEclipseDepth() {
+    public final double getEclipseDepth() {
         return eclipseDepth;
     }
 
@@ -264,7 +273,7 @@ public class SatPos {
     /**
      * @return the eclipsed
      */
-    protected final boolean isEclipsed() {
+    public final boolean isEclipsed() {
         return eclipsed;
     }
 
@@ -345,7 +354,8 @@ public class SatPos {
     }
 
     /**
-     * Calculates the footprint range circle.
+     * Calculates the footprint range circle. Use a {@link FootprintEngine} directly to avoid
+     * allocating on every call.
      *
      * @param pos
      * @return double array of lat/long
@@ -353,66 +363,14 @@ public class SatPos {
     private static double[][] calculateRangeCirclePoints(final SatPos pos) {
 
         final int dia = (int)(12756.33 * Math.acos(EARTH_RADIUS / (EARTH_RADIUS + pos.altitude)));
-
-        final double latitude = pos.latitude;
-        final double longitude = pos.longitude;
         final double beta = (0.5 * dia) / R0;
-        final double[][] result = new double[360][2];
-
-        for (int azi = 0; azi < 360; azi++) {
-            final double azimuth = (double)(azi / 360.0) * 2.0 * Math.PI;
-            double rangelat = Math.asin(Math.sin(latitude) * Math.cos(beta) + Math.cos(azimuth) * Math.sin(beta)
-                    * Math.cos(latitude));
-            final double num = Math.cos(beta) - (Math.sin(latitude) * Math.sin(rangelat));
-            final double den = Math.cos(latitude) * Math.cos(rangelat);
-            double rangelong;
-
-            if (azi == 0 && (beta > ((Math.PI / 2.0) - latitude))) {
-                rangelong = longitude + Math.PI;
-            }
-            else if (azi == 180 && (beta > ((Math.PI / 2.0) - latitude))) {
-                rangelong = longitude + Math.PI;
-            }
-            else if (Math.abs(num / den) > 1.0) {
-                rangelong = longitude;
-            }
-            else {
-                if ((180 - azi) >= 0) {
-                    rangelong = longitude - Math.acos(num / den);
-                }
-                else {
-                    rangelong = longitude + Math.acos(num / den);
-                }
-            }
-
-            while (rangelong < 0.0) {
-                rangelong += Math.PI * 2.0;
-            }
-
-            while (rangelong > Math.PI * 2.0) {
-                rangelong -= Math.PI * 2.0;
-            }
-
-            rangelat = (rangelat / (2.0 * Math.PI)) * 360.0;
-            rangelong = (rangelong / (2.0 * Math.PI)) * 360.0;
-
-//            if (rangelong < 180.0) {
-//                rangelong = -rangelong;
-//            }
-//            else if (rangelong > 180.0) {
-//                rangelong = 360.0 - rangelong;
-//            }
-//
-//            if (rangelat < 90.0) {
-//                rangelat = -rangelat;
-//            }
-//            else if (rangelat > 90.0) {
-//                rangelat = 180.0 - rangelat;
-//            }
-
-            result[azi][0] = rangelat;
-            result[azi][1] = rangelong;
 
+        final double[] points = FOOTPRINT_ENGINE.calculate(pos.latitude, pos.longitude, beta, null, 0);
+        final double[][] result = new double[FootprintEngine.DEFAULT_POINTS][2];
+
+        for (int azi = 0; azi < FootprintEngine.DEFAULT_POINTS; azi++) {
+            result[azi][0] = points[azi * 2];
+            result[azi][1] = points[azi * 2 + 1];
         }
 
         return result;
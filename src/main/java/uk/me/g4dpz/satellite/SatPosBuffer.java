@@ -0,0 +1,358 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A growable list of satellite positions packed into primitive columns, for keeping long
+ * trajectories without a SatPos and a Date object per sample.
+ *
+ * Each position takes {@value #BYTES_PER_POSITION} bytes: the time as epoch milliseconds, nine
+ * doubles, the eclipse depth as a float and the two flags in a byte. A {@link Cursor} reads a
+ * position in place through the same getters as SatPos, and can be moved to any index without
+ * allocating.
+ *
+ * A buffer is not thread safe. Once filled it may be read from many threads, each with its own
+ * cursor.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public final class SatPosBuffer {
+
+    /** The heap used by each position, excluding unused capacity. */
+    public static final int BYTES_PER_POSITION = 8 + 9 * 8 + 4 + 1;
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final byte ABOVE_HORIZON = 1;
+    private static final byte ECLIPSED = 2;
+
+    private int size;
+    private long[] time;
+    private double[] azimuth;
+    private double[] elevation;
+    private double[] latitude;
+    private double[] longitude;
+    private double[] range;
+    private double[] rangeRate;
+    private double[] phase;
+    private double[] altitude;
+    private double[] theta;
+    private float[] eclipseDepth;
+    private byte[] flags;
+
+    /**
+     * Constructor.
+     */
+    public SatPosBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the number of positions to make room for
+     * @throws IllegalArgumentException bad argument passed in
+     */
+    public SatPosBuffer(final int capacity) throws IllegalArgumentException {
+
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative, got: " + capacity);
+        }
+
+        allocate(capacity);
+    }
+
+    /**
+     * @return the number of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a copy of a position.
+     *
+     * @param satPos the position
+     */
+    public void add(final SatPos satPos) {
+        if (size == time.length) {
+            allocate(Math.max(DEFAULT_CAPACITY, size + (size >> 1)));
+        }
+
+        size++;
+        set(size - 1, satPos);
+    }
+
+    /**
+     * Overwrites a position.
+     *
+     * @param index the index
+     * @param satPos the new position
+     * @throws IndexOutOfBoundsException no position at the index
+     */
+    public void set(final int index, final SatPos satPos) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        time[index] = satPos.getTimeMillis();
+        azimuth[index] = satPos.getAzimuth();
+        elevation[index] = satPos.getElevation();
+        latitude[index] = satPos.getLatitude();
+        longitude[index] = satPos.getLongitude();
+        range[index] = satPos.getRange();
+        rangeRate[index] = satPos.getRangeRate();
+        phase[index] = satPos.getPhase();
+        altitude[index] = satPos.getAltitude();
+        theta[index] = satPos.getTheta();
+        eclipseDepth[index] = (float)satPos.getEclipseDepth();
+        flags[index] = (byte)((satPos.isAboveHorizon() ? ABOVE_HORIZON : 0) | (satPos.isEclipsed() ? ECLIPSED : 0));
+    }
+
+    /**
+     * Copies a position out into a new SatPos.
+     *
+     * @param index the index
+     * @return the position
+     * @throws IndexOutOfBoundsException no position at the index
+     */
+    public SatPos get(final int index) throws IndexOutOfBoundsException {
+        return cursor().moveTo(index).toSatPos();
+    }
+
+    /**
+     * @return a new cursor, before the first position
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Removes all positions, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Releases unused capacity.
+     */
+    public void trimToSize() {
+        if (size < time.length) {
+            allocate(size);
+        }
+    }
+
+    private void allocate(final int capacity) {
+        time = time == null ? new long[capacity] : Arrays.copyOf(time, capacity);
+        azimuth = grow(azimuth, capacity);
+        elevation = grow(elevation, capacity);
+        latitude = grow(latitude, capacity);
+        longitude = grow(longitude, capacity);
+        range = grow(range, capacity);
+        rangeRate = grow(rangeRate, capacity);
+        phase = grow(phase, capacity);
+        altitude = grow(altitude, capacity);
+        theta = grow(theta, capacity);
+        eclipseDepth = eclipseDepth == null ? new float[capacity] : Arrays.copyOf(eclipseDepth, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+    }
+
+    private static double[] grow(final double[] column, final int capacity) {
+        return column == null ? new double[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * A movable view of one position in the buffer. The getters match those of SatPos, with
+     * angles in radians and distances in km.
+     */
+    public final class Cursor {
+        private int index = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * @param theIndex the position to view
+         * @return this cursor
+         * @throws IndexOutOfBoundsException no position at the index
+         */
+        public Cursor moveTo(final int theIndex) throws IndexOutOfBoundsException {
+            checkIndex(theIndex);
+            index = theIndex;
+            return this;
+        }
+
+        /**
+         * Moves to the next position.
+         *
+         * @return false if there is none
+         */
+        public boolean next() {
+            if (index + 1 >= size) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        /**
+         * @return the index of the position in view
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the time in milliseconds since the Java epoch, Long.MIN_VALUE if not set
+         */
+        public long getTimeMillis() {
+            return time[index];
+        }
+
+        /**
+         * @return a new Date for the time, or null if not set
+         */
+        public Date getTime() {
+            return time[index] == NO_TIME ? null : new Date(time[index]);
+        }
+
+        /**
+         * @return the azimuth
+         */
+        public double getAzimuth() {
+            return azimuth[index];
+        }
+
+        /**
+         * @return the elevation
+         */
+        public double getElevation() {
+            return elevation[index];
+        }
+
+        /**
+         * @return the latitude of the sub satellite point
+         */
+        public double getLatitude() {
+            return latitude[index];
+        }
+
+        /**
+         * @return the longitude of the sub satellite point
+         */
+        public double getLongitude() {
+            return longitude[index];
+        }
+
+        /**
+         * @return the range
+         */
+        public double getRange() {
+            return range[index];
+        }
+
+        /**
+         * @return the range rate (km/s)
+         */
+        public double getRangeRate() {
+            return rangeRate[index];
+        }
+
+        /**
+         * @return the phase
+         */
+        public double getPhase() {
+            return phase[index];
+        }
+
+        /**
+         * @return the altitude
+         */
+        public double getAltitude() {
+            return altitude[index];
+        }
+
+        /**
+         * @return the theta
+         */
+        public double getTheta() {
+            return theta[index];
+        }
+
+        /**
+         * @return the eclipse depth, held to float precision
+         */
+        public double getEclipseDepth() {
+            return eclipseDepth[index];
+        }
+
+        /**
+         * @return whether the satellite is above the horizon
+         */
+        public boolean isAboveHorizon() {
+            return (flags[index] & ABOVE_HORIZON) != 0;
+        }
+
+        /**
+         * @return whether the satellite is eclipsed
+         */
+        public boolean isEclipsed() {
+            return (flags[index] & ECLIPSED) != 0;
+        }
+
+        /**
+         * @return a new SatPos holding the position in view
+         */
+        public SatPos toSatPos() {
+            final SatPos satPos = new SatPos();
+            if (time[index] != NO_TIME) {
+                satPos.setTime(getTime());
+            }
+            satPos.setAzimuth(getAzimuth());
+            satPos.setElevation(getElevation());
+            satPos.setLatitude(getLatitude());
+            satPos.setLongitude(getLongitude());
+            satPos.setRange(getRange());
+            satPos.setRangeRate(getRangeRate());
+            satPos.setPhase(getPhase());
+            satPos.setAltitude(getAltitude());
+            satPos.setTheta(getTheta());
+            satPos.setEclipseDepth(getEclipseDepth());
+            satPos.setEclipsed(isEclipsed());
+            satPos.setAboveHorizon(isAboveHorizon());
+            return satPos;
+        }
+    }
+}
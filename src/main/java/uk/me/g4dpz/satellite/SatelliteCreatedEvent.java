@@ -0,0 +1,55 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning the creation of a satellite, which is when the model is
+ * initialised.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+@Name("predict4java.SatelliteCreated")
+@Label("Satellite Created")
+@Category("predict4java")
+@Description("Initialisation of the SGP4 or SDP4 model for a satellite")
+final class SatelliteCreatedEvent extends Event {
+
+    @Label("Satellite")
+    String satellite;
+
+    @Label("Catalog Number")
+    int catalogNumber;
+
+    @Label("Deep Space")
+    boolean deepSpace;
+}
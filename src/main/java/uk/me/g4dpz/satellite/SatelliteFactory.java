@@ -66,6 +66,9 @@ public final class SatelliteFactory {
             throw new IllegalArgumentException("TLE was null");
         }
 
+        final SatelliteCreatedEvent event = new SatelliteCreatedEvent();
+        event.begin();
+
         Satellite satellite = null;
 
         if (tle.isDeepspace()) {
@@ -74,6 +77,35 @@ public final class SatelliteFactory {
         else {
             satellite = new LEOSatellite(tle);
         }
+
+        if (event.shouldCommit()) {
+            event.satellite = tle.getName();
+            event.catalogNumber = tle.getCatnum();
+            event.deepSpace = tle.isDeepspace();
+            event.commit();
+        }
+
+        return satellite;
+    }
+
+    /**
+     * Creates a <code>Satellite</code> from a <code>TLE</code>, choosing how its latitude and
+     * altitude are calculated.
+     *
+     * @param tle The 'Three Line Elements'
+     * @param conversion the geodetic conversion, {@link GeodeticConversion#VERMEILLE} being the faster
+     * @return <code>Satellite</code>
+     * @throws IllegalArgumentException when the given TLE or conversion is null or the data is incorrect
+     */
+    public static Satellite createSatellite(final TLE tle, final GeodeticConversion conversion)
+            throws IllegalArgumentException {
+
+        if (null == conversion) {
+            throw new IllegalArgumentException("Geodetic conversion was null");
+        }
+
+        final AbstractSatellite satellite = (AbstractSatellite)SatelliteFactory.createSatellite(tle);
+        satellite.setGeodeticConversion(conversion);
         return satellite;
     }
 }
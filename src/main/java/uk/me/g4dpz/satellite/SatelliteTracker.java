@@ -0,0 +1,265 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Real time antenna tracking for one satellite and ground station.
+ *
+ * The trajectory of each pass is computed in advance on a planning thread. A dedicated
+ * scheduler thread then interpolates it at a fixed cadence and publishes pointing commands to a
+ * {@link TrackingListener}, without allocating and without touching a shared
+ * <code>Satellite</code>. The delay and lateness of every tick are recorded in histograms. When
+ * planning fails it is retried, backing off from 1 second to 5 minutes between attempts.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class SatelliteTracker {
+
+    private static final int DEFAULT_STEP_SECONDS = 1;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long MIN_RETRY_NANOS = 1000L * NANOS_PER_MILLI;
+    private static final long MAX_RETRY_NANOS = 5L * 60L * 1000L * NANOS_PER_MILLI;
+
+    private static Log log = LogFactory.getLog(SatelliteTracker.class);
+
+    private final GroundStationPosition qth;
+    private final TrackingListener listener;
+    private final long periodMillis;
+    private final int stepSeconds;
+    private final boolean flip;
+    private final Satellite satellite;
+    private final PassPredictor passPredictor;
+
+    private final double[] pointing = new double[4];
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram lateness = new LatencyHistogram();
+    private final AtomicBoolean planning = new AtomicBoolean();
+
+    private volatile PassTrajectory trajectory;
+
+    /** Whether planning last failed, and if so the System.nanoTime() before which not to retry. */
+    private volatile boolean backingOff;
+    private volatile long retryNanos;
+    /** The wait after the next failure, only used on the planning thread. */
+    private long retryDelayNanos = MIN_RETRY_NANOS;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService planner;
+    private long startNanos;
+    private long ticks;
+
+    /**
+     * Constructor.
+     *
+     * @param tle the satellite to track
+     * @param qth the ground station
+     * @param listener receives the pointing commands
+     * @param periodMillis the interval between pointing commands
+     * @param flip whether passes through north should be tracked in flip mode
+     * @throws IllegalArgumentException bad argument passed in
+     * @throws InvalidTleException bad TLE passed in
+     * @throws SatNotFoundException the satellite will never be seen from the ground station
+     */
+    public SatelliteTracker(final TLE tle, final GroundStationPosition qth, final TrackingListener listener,
+            final long periodMillis, final boolean flip)
+            throws IllegalArgumentException, InvalidTleException, SatNotFoundException {
+
+        if (null == listener) {
+            throw new IllegalArgumentException("Listener has not been set");
+        }
+
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got: " + periodMillis);
+        }
+
+        this.passPredictor = new PassPredictor(tle, qth);
+        this.satellite = SatelliteFactory.createSatellite(tle);
+        this.qth = qth;
+        this.listener = listener;
+        this.periodMillis = periodMillis;
+        this.stepSeconds = DEFAULT_STEP_SECONDS;
+        this.flip = flip;
+    }
+
+    /**
+     * Starts planning and tracking.
+     *
+     * @throws IllegalStateException the tracker is already running
+     */
+    public synchronized void start() throws IllegalStateException {
+
+        if (scheduler != null) {
+            throw new IllegalStateException("Tracker is already running");
+        }
+
+        planner = Executors.newSingleThreadExecutor(daemonThreads("predict4java-planner"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("predict4java-tracker"));
+
+        // wind back so that a pass already in progress is picked up
+        requestPlanning(new Date(), true);
+
+        startNanos = System.nanoTime();
+        ticks = 0;
+        scheduler.scheduleAtFixedRate(this::runTick, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops planning and tracking.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            planner.shutdownNow();
+            scheduler = null;
+            planner = null;
+        }
+    }
+
+    private void runTick() {
+        final long scheduled = startNanos + ticks++ * periodMillis * NANOS_PER_MILLI;
+        lateness.recordNanos(Math.abs(System.nanoTime() - scheduled));
+        tick(System.currentTimeMillis());
+        latency.recordNanos(System.nanoTime() - scheduled);
+    }
+
+    /**
+     * Publishes the pointing for the given time, if a pass is in progress, and asks for the next
+     * pass to be planned when the current one has ended or none has been planned.
+     *
+     * @param now the time in milliseconds since the Java epoch
+     */
+    void tick(final long now) {
+        final PassTrajectory current = trajectory;
+
+        if (current == null) {
+            // the first planning failed, or has not finished
+            requestPlanning(new Date(now), true);
+            return;
+        }
+
+        if (now > current.getEndTime()) {
+            requestPlanning(new Date(current.getEndTime()), false);
+        }
+        else if (current.interpolate(now, pointing)) {
+            listener.pointingUpdate(now, pointing[0], pointing[1], pointing[2], pointing[3]);
+        }
+    }
+
+    private void requestPlanning(final Date from, final boolean windBack) {
+
+        final ExecutorService executor = planner;
+
+        if (executor == null || backingOff && System.nanoTime() - retryNanos < 0
+                || !planning.compareAndSet(false, true)) {
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                plan(from, windBack);
+                retryDelayNanos = MIN_RETRY_NANOS;
+                backingOff = false;
+            }
+            catch (final InvalidTleException e) {
+                planningFailed(e);
+            }
+            catch (final SatNotFoundException e) {
+                planningFailed(e);
+            }
+            catch (final RuntimeException e) {
+                planningFailed(e);
+            }
+            finally {
+                planning.set(false);
+            }
+        });
+    }
+
+    private void planningFailed(final Exception e) {
+        log.error("Could not plan the next pass, retrying in " + retryDelayNanos / NANOS_PER_MILLI + " ms", e);
+        retryNanos = System.nanoTime() + retryDelayNanos;
+        backingOff = true;
+        retryDelayNanos = Math.min(retryDelayNanos * 2, MAX_RETRY_NANOS);
+    }
+
+    /**
+     * Computes the trajectory of the next pass and makes it the one being tracked.
+     *
+     * @param from the time to search from
+     * @param windBack whether to wind back 1/4 of an orbit, to find a pass in progress
+     * @return the trajectory
+     * @throws InvalidTleException bad TLE
+     * @throws SatNotFoundException the satellite will never be seen from the ground station
+     */
+    PassTrajectory plan(final Date from, final boolean windBack) throws InvalidTleException, SatNotFoundException {
+        final SatPassTime pass = passPredictor.nextSatPass(from, windBack);
+        final PassTrajectory next = new PassTrajectory(satellite, qth, pass, stepSeconds, flip);
+        trajectory = next;
+        listener.trajectoryReady(next);
+        return next;
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return the trajectory currently being tracked, or null if none has been planned yet
+     */
+    public final PassTrajectory getTrajectory() {
+        return trajectory;
+    }
+
+    /**
+     * @return the delay from each scheduled tick to its pointing command having been published
+     */
+    public final LatencyHistogram getLatencyHistogram() {
+        return latency;
+    }
+
+    /**
+     * @return how far from its scheduled time each tick started, mostly late
+     */
+    public final LatencyHistogram getLatenessHistogram() {
+        return lateness;
+    }
+}
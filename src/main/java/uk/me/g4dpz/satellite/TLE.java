@@ -136,6 +136,19 @@ public class TLE implements Serializable {
      */
     public TLE(final String[] tle, final boolean nilStart) throws IllegalArgumentException {
 
+        try {
+            parse(tle, nilStart);
+        }
+        catch (final RuntimeException e) {
+            Metrics.getCollector().tleParsed(false);
+            throw e;
+        }
+
+        Metrics.getCollector().tleParsed(true);
+    }
+
+    private void parse(final String[] tle, final boolean nilStart) throws IllegalArgumentException {
+
         if (nilStart) {
             tle[0] = tle[0].substring(2);
         }
@@ -459,6 +472,9 @@ public class TLE implements Serializable {
 
     public static List<TLE> importSat(final InputStream fileIS) throws IOException {
 
+        final TLEImportEvent event = new TLEImportEvent();
+        event.begin();
+
         final List<TLE> importedSats = new ArrayList<TLE>();
 
         final BufferedReader buf = new BufferedReader(new InputStreamReader(fileIS));
@@ -486,6 +502,11 @@ public class TLE implements Serializable {
             }
         }
 
+        if (event.shouldCommit()) {
+            event.tles = importedSats.size();
+            event.commit();
+        }
+
         return importedSats;
     }
 
@@ -0,0 +1,56 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+/**
+ * Receives antenna pointing commands from a {@link SatelliteTracker}.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public interface TrackingListener {
+
+    /**
+     * Called when the trajectory for the next pass has been computed, which allows the antenna
+     * to be parked at the AOS position. Called on the planning thread.
+     *
+     * @param trajectory the trajectory of the next pass
+     */
+    void trajectoryReady(PassTrajectory trajectory);
+
+    /**
+     * Called on the tracking thread at every tick during a pass. Implementations should return
+     * quickly and should not allocate if bounded latency matters.
+     *
+     * @param timeMillis the time of the command in milliseconds since the Java epoch
+     * @param azimuth the azimuth in degrees
+     * @param elevation the elevation in degrees
+     * @param azimuthRate the azimuth rate in degrees per second
+     * @param elevationRate the elevation rate in degrees per second
+     */
+    void pointingUpdate(long timeMillis, double azimuth, double elevation, double azimuthRate,
+            double elevationRate);
+}
@@ -0,0 +1,205 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+/**
+ * Estimates, from the secular motion of the orbit alone, when a low earth orbit satellite might
+ * next be seen from a ground station, so that a pass search can jump over the orbits from which
+ * it cannot be.
+ *
+ * The satellite can only be seen while the station is within the coverage half angle of the
+ * orbit plane. The plane regresses slowly while the earth turns under it, so the station's
+ * distance from the plane varies sinusoidally, and the times it comes within range follow in
+ * closed form. While it is in range, the satellite must also come round its orbit to within the
+ * coverage angle of the station, which happens once an orbit.
+ *
+ * Jumps are rounded down to whole minutes, so a search stepping in minutes keeps to its grid, and
+ * the coverage angle has a margin for the periodic terms, the flattening of the earth and drag.
+ *
+ * An estimator is not thread safe.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+final class VisibilityEstimator {
+
+    private static final double DEG2RAD = Math.PI / 180.0;
+    private static final double MARGIN = 2.0 * DEG2RAD;
+    private static final long MILLIS_PER_MINUTE = 60000L;
+    /** The earth's rotation, in radians per minute. */
+    private static final double EARTH_RATE = AbstractSatellite.EARTH_ROTATIONS_RADIANS_PER_SIDERIAL_DAY / 1440.0;
+    private static final int MAX_JUMPS = 1000;
+
+    private final LEOSatellite satellite;
+    private final double sinLatitude;
+    private final double cosLatitude;
+    private final double longitude;
+    private final double sinInclination;
+    private final double cosInclination;
+    private final double coverage;
+    private final double sinCoverage;
+    private final double cosCoverage;
+    /** The rate at which the node moves away from the station's meridian, in radians per minute. */
+    private final double planeRate;
+    /** The fastest the satellite can close on the station along the orbit, in radians per minute. */
+    private final double closingRate;
+    private final double[] phase = new double[2];
+
+    /**
+     * @param satellite the satellite
+     * @param qth the ground station
+     * @param minElevation the lowest elevation at which the satellite counts as seen, in radians
+     */
+    VisibilityEstimator(final LEOSatellite satellite, final GroundStationPosition qth, final double minElevation) {
+
+        this.satellite = satellite;
+
+        final double latitude = qth.getLatitude() * DEG2RAD;
+        sinLatitude = Math.sin(latitude);
+        cosLatitude = Math.cos(latitude);
+        longitude = qth.getLongitude() * DEG2RAD;
+
+        final TLE tle = satellite.getTLE();
+        sinInclination = Math.sin(tle.getXincl());
+        cosInclination = Math.cos(tle.getXincl());
+
+        // the same apogee as Satellite.willBeSeen(..)
+        final double sma = 331.25 * Math.exp(Math.log(1440.0 / tle.getMeanmo()) * (2.0 / 3.0));
+        final double apogee = sma * (1.0 + tle.getEccn());
+        final double ratio = AbstractSatellite.EARTH_RADIUS_KM * Math.cos(minElevation) / apogee;
+        coverage = Math.min(Math.PI / 2.0, Math.acos(Math.min(1.0, ratio)) - minElevation + MARGIN
+                + 2.0 * tle.getEccn());
+        sinCoverage = Math.sin(coverage);
+        cosCoverage = Math.cos(coverage);
+
+        planeRate = satellite.getNodeRate() - EARTH_RATE;
+        closingRate = satellite.getArgumentOfLatitudeRate() + Math.abs(planeRate) / Math.max(cosCoverage, 0.1);
+    }
+
+    /**
+     * Finds the earliest time, from the one given, at which the satellite might be seen.
+     *
+     * @param timeMillis the time to search from
+     * @param limitMillis the time after which to give up
+     * @return the time, a whole number of minutes after timeMillis, which is after limitMillis if
+     *         the satellite cannot be seen before it, and Long.MAX_VALUE if it can never be seen
+     */
+    long nextPossibleVisibility(final long timeMillis, final long limitMillis) {
+
+        long time = timeMillis;
+
+        for (int jump = 0; jump < MAX_JUMPS && time <= limitMillis; jump++) {
+
+            satellite.calculateSecularPhase(satellite.minutesSinceEpoch(time), phase);
+            final double node = phase[0];
+
+            // the station in the frame of the orbit: towards the node, along the orbit a quarter
+            // of a turn on from it, and along the orbit normal
+            final double fromNode = AbstractSatellite.thetaGJD(AbstractSatellite.julianDate(time)) + longitude - node;
+            final double towardsNode = cosLatitude * Math.cos(fromNode);
+            final double y = cosLatitude * Math.sin(fromNode);
+            final double alongOrbit = y * cosInclination + sinLatitude * sinInclination;
+            final double outOfPlane = -y * sinInclination + sinLatitude * cosInclination;
+
+            final double minutes;
+
+            if (Math.abs(outOfPlane) > sinCoverage) {
+                minutes = minutesToPlane(-fromNode);
+                if (Double.isInfinite(minutes)) {
+                    return Long.MAX_VALUE;
+                }
+            }
+            else {
+                // how far the satellite is round its orbit from the station, -PI to PI
+                final double ahead = AbstractSatellite.mod2PI(phase[1] - Math.atan2(alongOrbit, towardsNode) + Math.PI)
+                        - Math.PI;
+                final double window = Math.acos(Math.max(-1.0, Math.min(1.0,
+                        cosCoverage / Math.sqrt(1.0 - outOfPlane * outOfPlane))));
+
+                if (ahead >= -coverage && ahead <= window) {
+                    return time;
+                }
+
+                // round to where the satellite next comes within the widest window
+                final double distance = ahead < -coverage ? -coverage - ahead : 2.0 * Math.PI - coverage - ahead;
+                minutes = distance / closingRate;
+            }
+
+            if (minutes < 1.0) {
+                return time;
+            }
+
+            time += (long)minutes * MILLIS_PER_MINUTE;
+        }
+
+        return time;
+    }
+
+    /**
+     * The station's distance from the plane goes as A sin(psi) + B, where psi is the angle from
+     * the station's meridian to the node, moving at the plane rate.
+     *
+     * @param psi the angle from the station's meridian to the node
+     * @return the minutes until the station is within coverage of the plane, infinite if never
+     */
+    private double minutesToPlane(final double psi) {
+
+        final double amplitude = cosLatitude * sinInclination;
+        final double offset = sinLatitude * cosInclination;
+
+        if (amplitude < 1.0E-9) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        final double low = (-sinCoverage - offset) / amplitude;
+        final double high = (sinCoverage - offset) / amplitude;
+
+        if (low > 1.0 || high < -1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        // psi is in range on two arcs, from asin(low) to asin(high) and from PI - asin(high) to
+        // PI - asin(low), which merge when either bound is beyond 1
+        final double lowAngle = Math.asin(Math.max(-1.0, low));
+        final double highAngle = Math.asin(Math.min(1.0, high));
+
+        final double first = entry(psi, lowAngle, highAngle);
+        final double second = entry(psi, Math.PI - highAngle, Math.PI - lowAngle);
+
+        return Math.min(first, second) / Math.abs(planeRate);
+    }
+
+    /**
+     * @return the angle psi must move through, in the direction of the plane rate, to reach the
+     *         arc from start to end
+     */
+    private double entry(final double psi, final double start, final double end) {
+        if (planeRate < 0.0) {
+            return AbstractSatellite.mod2PI(psi - end);
+        }
+        return AbstractSatellite.mod2PI(start - psi);
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A stretch of a pass in which the satellite can be seen by eye: it is above the horizon and in
+ * sunlight, while the ground station is in darkness. A long pass may have several.
+ *
+ * @author David A. B. Johnson, g4dpz
+ */
+public class VisualPass implements Serializable {
+
+    private static final long serialVersionUID = 4186035236416211043L;
+
+    private final SatPassTime pass;
+    private final Date visibleStart;
+    private final Date visibleEnd;
+
+    /**
+     * Constructor.
+     *
+     * @param pass the whole pass
+     * @param visibleStart when the satellite can first be seen
+     * @param visibleEnd when the satellite can last be seen
+     */
+    public VisualPass(final SatPassTime pass, final Date visibleStart, final Date visibleEnd) {
+        this.pass = pass;
+        this.visibleStart = new Date(visibleStart.getTime());
+        this.visibleEnd = new Date(visibleEnd.getTime());
+    }
+
+    /**
+     * @return the whole pass, from AOS to LOS
+     */
+    public final SatPassTime getPass() {
+        return pass;
+    }
+
+    /**
+     * @return when the satellite can first be seen
+     */
+    public final Date getVisibleStart() {
+        return new Date(visibleStart.getTime());
+    }
+
+    /**
+     * @return when the satellite can last be seen
+     */
+    public final Date getVisibleEnd() {
+        return new Date(visibleEnd.getTime());
+    }
+
+    /**
+     * Returns a string representing the contents of the object.
+     */
+    @Override
+    public String toString() {
+        return pass + "\n"
+                + String.format("Visible: %4.1f min.", (visibleEnd.getTime() - visibleStart.getTime()) / 60000.0);
+    }
+}
@@ -29,6 +29,9 @@ package uk.me.g4dpz.satellite;
 import java.text.SimpleDateFormat;
 import java.util.TimeZone;
 
+import org.joda.time.DateTime;
+import org.junit.Assert;
+
 /**
  * @author David A. B. Johnson, g4dpz
  *
@@ -92,4 +95,20 @@ public abstract class AbstractSatelliteTestBase {
     protected static final String LONGITUDE = "-2.022";
     protected static final int HEIGHT_AMSL = 200;
 
+    /**
+     * Checks the position (km) and velocity (km/s) vectors of a satellite against values from
+     * the original Kepler solver, to within a millimetre and a micrometre per second.
+     */
+    protected static void assertStateVector(final String[] tle, final String time, final double... expected) {
+        final AbstractSatellite satellite = (AbstractSatellite)SatelliteFactory.createSatellite(new TLE(tle));
+        final double[] state = new double[6];
+
+        satellite.calculateSatelliteVectors(new DateTime(time).toDate());
+        satellite.getStateVector(state);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(expected[i], state[i], 1E-6);
+            Assert.assertEquals(expected[i + 3], state[i + 3], 1E-9);
+        }
+    }
 }
@@ -0,0 +1,95 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class BatchObservationTest extends AbstractSatelliteTestBase {
+
+    private static final long START = new DateTime("2009-12-26T00:00:00Z").getMillis();
+    private static final List<GroundStationPosition> STATIONS = Arrays.asList(GROUND_STATION,
+            new GroundStationPosition(-33.9, 18.4, 0), new GroundStationPosition(64.8, -147.7, 150),
+            new GroundStationPosition(0.0, 179.9, 2000));
+
+    public BatchObservationTest() {
+    }
+
+    @Test
+    public void matchesOneStationAtATime() {
+        for (final String[] tle : new String[][] {LEO_TLE, MOLNIYA_TLE}) {
+            final Satellite satellite = SatelliteFactory.createSatellite(new TLE(tle));
+            final BatchObservation batch = new BatchObservation(STATIONS);
+            final int steps = 30;
+            final double[] azimuth = new double[steps * batch.size()];
+            final double[] elevation = new double[steps * batch.size()];
+            final double[] range = new double[steps * batch.size()];
+            final double[] rangeRate = new double[steps * batch.size()];
+
+            batch.observe(satellite, START, 97000L, steps, azimuth, elevation, range, rangeRate);
+
+            for (int step = 0; step < steps; step++) {
+                for (int i = 0; i < batch.size(); i++) {
+                    final SatPos expected = satellite.getPosition(STATIONS.get(i), new Date(START + step * 97000L));
+                    final int index = step * batch.size() + i;
+                    Assert.assertEquals(expected.getAzimuth(), azimuth[index], 1E-9);
+                    Assert.assertEquals(expected.getElevation(), elevation[index], 1E-9);
+                    Assert.assertEquals(expected.getRange(), range[index], 1E-7);
+                    Assert.assertEquals(expected.getRangeRate(), rangeRate[index], 1E-10);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void observesAStoredState() {
+        final AbstractSatellite satellite = (AbstractSatellite)SatelliteFactory.createSatellite(new TLE(LEO_TLE));
+        final double[] states = new double[12];
+        satellite.calculateStateVector(new Date(START), states, 6);
+
+        final BatchObservation batch = new BatchObservation(STATIONS.subList(0, 1));
+        final double[] elevation = new double[3];
+        batch.observe(START, states, 6, null, elevation, null, null, 2);
+
+        Assert.assertEquals(satellite.getPosition(GROUND_STATION, new Date(START)).getElevation(), elevation[2], 1E-9);
+        Assert.assertEquals(0.0, elevation[0], 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsStations() {
+        new BatchObservation(Arrays.<GroundStationPosition>asList());
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class CatalogSnapshotTest extends AbstractSatelliteTestBase {
+
+    private static final Date FIRST = new DateTime("2009-12-26T00:00:00Z").toDate();
+    private static final Date SECOND = new DateTime("2009-12-26T00:00:01Z").toDate();
+    private static final List<TLE> TLES = Arrays.asList(new TLE(LEO_TLE), new TLE(MOLNIYA_TLE), new TLE(WEATHER_TLE));
+
+    private Path file;
+
+    public CatalogSnapshotTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("catalog", ".snapshot");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void readersSeeThePublishedStates() throws Exception {
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file, TLES);
+                CatalogSnapshotReader reader = CatalogSnapshotReader.open(file)) {
+
+            Assert.assertEquals(0, reader.getSequence());
+            Assert.assertEquals(1, writer.publish(FIRST));
+
+            Assert.assertEquals(3, reader.size());
+            Assert.assertEquals(1, reader.indexOf(21118));
+            Assert.assertEquals(-1, reader.indexOf(1));
+
+            final double[] state = new double[6];
+            Assert.assertEquals(FIRST.getTime(), reader.readState(reader.indexOf(21118), state));
+            Assert.assertTrue(Arrays.equals(stateAt(TLES.get(1), FIRST), state));
+
+            final double[] states = new double[18];
+            Assert.assertEquals(FIRST.getTime(), reader.readAll(states));
+            Assert.assertTrue(Arrays.equals(stateAt(TLES.get(2), FIRST), Arrays.copyOfRange(states, 12, 18)));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nothingToReadBeforeTheFirstPublish() throws Exception {
+        final CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file, TLES);
+        try (CatalogSnapshotReader reader = CatalogSnapshotReader.open(file)) {
+            reader.readAll(new double[18]);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void readsAreConsistentWhilePublishing() throws Exception {
+        final double[] first = new double[18];
+        final double[] second = new double[18];
+        for (int i = 0; i < TLES.size(); i++) {
+            System.arraycopy(stateAt(TLES.get(i), FIRST), 0, first, i * 6, 6);
+            System.arraycopy(stateAt(TLES.get(i), SECOND), 0, second, i * 6, 6);
+        }
+
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(file, TLES);
+                CatalogSnapshotReader reader = CatalogSnapshotReader.open(file)) {
+
+            writer.publish(FIRST);
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final Thread publisher = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    writer.publish(i % 2 == 0 ? SECOND : FIRST);
+                }
+                running.set(false);
+            });
+            publisher.start();
+
+            final double[] states = new double[18];
+            int reads = 0;
+            while (running.get()) {
+                final long time = reader.readAll(states);
+                Assert.assertTrue(Arrays.equals(time == FIRST.getTime() ? first : second, states));
+                reads++;
+            }
+            publisher.join();
+
+            Assert.assertTrue(reads > 0);
+            Assert.assertEquals(2001, reader.getSequence());
+        }
+    }
+
+    private static double[] stateAt(final TLE tle, final Date time) {
+        final double[] state = new double[6];
+        ((AbstractSatellite)SatelliteFactory.createSatellite(tle)).calculateStateVector(time, state, 0);
+        return state;
+    }
+}
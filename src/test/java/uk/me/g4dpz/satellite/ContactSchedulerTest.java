@@ -0,0 +1,196 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public final class ContactSchedulerTest extends AbstractSatelliteTestBase {
+
+    private static final Date START = new DateTime("2009-01-05T07:00:00Z").toDate();
+    private static final long SETUP_MILLIS = 60000L;
+    private static final double SLEW_RATE = 2.0;
+
+    /**
+     * Default Constructor.
+     */
+    public ContactSchedulerTest() {
+    }
+
+    @Test
+    public void testSchedulesHaveNoConflicts() throws Exception {
+
+        final GroundStationPosition london = new GroundStationPosition(51.5, -0.1, 20.0);
+
+        for (final ContactScheduler.Strategy strategy : ContactScheduler.Strategy.values()) {
+            final ContactScheduler scheduler = new ContactScheduler(strategy);
+            scheduler.addStation("birmingham", 1, SETUP_MILLIS, SLEW_RATE);
+            scheduler.addStation("london", 1, SETUP_MILLIS, SLEW_RATE);
+            scheduler.setPriority("AO-51", 2.0);
+
+            for (final String[] tle : new String[][] {LEO_TLE, WEATHER_TLE}) {
+                scheduler.addPasses(tle[0], "birmingham",
+                        new PassPredictor(new TLE(tle), GROUND_STATION).getPasses(START, 72, false));
+                scheduler.addPasses(tle[0], "london", new PassPredictor(new TLE(tle), london).getPasses(START, 72, false));
+            }
+
+            final List<ContactScheduler.Contact> contacts = scheduler.schedule();
+
+            // the two stations see much the same passes, so many must be dropped
+            Assert.assertFalse(contacts.isEmpty());
+            Assert.assertTrue(contacts.size() < scheduler.getCandidateCount());
+
+            final Map<String, ContactScheduler.Contact> lastOnAntenna = new HashMap<String, ContactScheduler.Contact>();
+            final Map<String, ContactScheduler.Contact> lastOfSatellite = new HashMap<String, ContactScheduler.Contact>();
+
+            for (final ContactScheduler.Contact contact : contacts) {
+                Assert.assertEquals(0, contact.getAntenna());
+
+                final ContactScheduler.Contact previous = lastOnAntenna.put(contact.getStation(), contact);
+                if (null != previous) {
+                    final int turn = Math.abs(previous.getPass().getLosAzimuth() - contact.getPass().getAosAzimuth());
+                    final double slew = Math.min(turn, 360 - turn) / SLEW_RATE * 1000.0;
+                    Assert.assertTrue(contact.toString(),
+                            previous.getEndMillis() + SETUP_MILLIS + slew <= contact.getStartMillis() + 1);
+                }
+
+                final ContactScheduler.Contact earlier = lastOfSatellite.put(contact.getSatellite(), contact);
+                if (null != earlier) {
+                    Assert.assertTrue(contact.toString(), earlier.getEndMillis() <= contact.getStartMillis());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGreedyPrefersTheHigherPriority() throws Exception {
+
+        final ContactScheduler scheduler = new ContactScheduler(ContactScheduler.Strategy.GREEDY);
+        scheduler.addStation("station", 1, SETUP_MILLIS, SLEW_RATE);
+        scheduler.setPriority("low", 1.0);
+        scheduler.setPriority("high", 5.0);
+        scheduler.addPasses("low", "station", Arrays.asList(pass(0, 10)));
+        scheduler.addPasses("high", "station", Arrays.asList(pass(5, 15)));
+
+        final List<ContactScheduler.Contact> contacts = scheduler.schedule();
+
+        Assert.assertEquals(1, contacts.size());
+        Assert.assertEquals("high", contacts.get(0).getSatellite());
+    }
+
+    @Test
+    public void testWeightedBeatsGreedyOnTotalPriority() throws Exception {
+
+        final double[] totals = new double[2];
+
+        for (final ContactScheduler.Strategy strategy : ContactScheduler.Strategy.values()) {
+            final ContactScheduler scheduler = new ContactScheduler(strategy);
+            scheduler.addStation("station", 1, SETUP_MILLIS, SLEW_RATE);
+            scheduler.setPriority("A", 3.0);
+            scheduler.setPriority("B", 2.0);
+            scheduler.setPriority("C", 2.0);
+            scheduler.addPasses("A", "station", Arrays.asList(pass(10, 30)));
+            scheduler.addPasses("B", "station", Arrays.asList(pass(0, 12)));
+            scheduler.addPasses("C", "station", Arrays.asList(pass(28, 40)));
+
+            final List<String> satellites = new ArrayList<String>();
+            for (final ContactScheduler.Contact contact : scheduler.schedule()) {
+                satellites.add(contact.getSatellite());
+                totals[strategy.ordinal()] += "A".equals(contact.getSatellite()) ? 3.0 : 2.0;
+            }
+
+            if (strategy == ContactScheduler.Strategy.GREEDY) {
+                Assert.assertEquals(Arrays.asList("A"), satellites);
+            }
+            else {
+                Assert.assertEquals(Arrays.asList("B", "C"), satellites);
+            }
+        }
+
+        Assert.assertTrue(totals[ContactScheduler.Strategy.WEIGHTED.ordinal()]
+                > totals[ContactScheduler.Strategy.GREEDY.ordinal()]);
+    }
+
+    @Test
+    public void testContactsAreSpreadOverAntennas() throws Exception {
+
+        final ContactScheduler scheduler = new ContactScheduler(ContactScheduler.Strategy.GREEDY);
+        scheduler.addStation("station", 2, SETUP_MILLIS, SLEW_RATE);
+        scheduler.addPasses("A", "station", Arrays.asList(pass(0, 10)));
+        scheduler.addPasses("B", "station", Arrays.asList(pass(5, 15)));
+        scheduler.addPasses("C", "station", Arrays.asList(pass(8, 20)));
+
+        final List<ContactScheduler.Contact> contacts = scheduler.schedule();
+
+        Assert.assertEquals(2, contacts.size());
+        Assert.assertEquals(0, contacts.get(0).getAntenna());
+        Assert.assertEquals(1, contacts.get(1).getAntenna());
+    }
+
+    @Test
+    public void testBadArguments() throws Exception {
+
+        final ContactScheduler scheduler = new ContactScheduler(ContactScheduler.Strategy.WEIGHTED);
+
+        try {
+            scheduler.addStation("station", 0, SETUP_MILLIS, SLEW_RATE);
+            Assert.fail("IllegalArgumentException was not thrown");
+        }
+        catch (final IllegalArgumentException iae) {
+            // expected
+        }
+
+        try {
+            scheduler.addPasses("A", "nowhere", new ArrayList<SatPassTime>());
+            Assert.fail("IllegalArgumentException was not thrown");
+        }
+        catch (final IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+    /**
+     * @return a pass from north to south between two times in minutes after the start
+     */
+    private static SatPassTime pass(final int startMinutes, final int endMinutes) {
+        final long start = START.getTime() + startMinutes * 60000L;
+        final long end = START.getTime() + endMinutes * 60000L;
+        return new SatPassTime(new Date(start), new Date(end), new Date((start + end) / 2), "north", 0, 180, 45.0);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class CountingMetricsCollectorTest extends AbstractSatelliteTestBase {
+
+    private static final Date TIME = new DateTime("2009-12-26T00:00:00Z").toDate();
+
+    private CountingMetricsCollector collector;
+
+    public CountingMetricsCollectorTest() {
+    }
+
+    @Before
+    public void setUp() {
+        collector = new CountingMetricsCollector();
+        Metrics.setCollector(collector);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setCollector(null);
+    }
+
+    @Test
+    public void propagationsAreCountedByModel() {
+        final Satellite leo = SatelliteFactory.createSatellite(new TLE(LEO_TLE));
+        final Satellite geo = SatelliteFactory.createSatellite(new TLE(GEOSYNC_TLE));
+
+        for (int i = 0; i < 10; i++) {
+            leo.getPosition(GROUND_STATION, new Date(TIME.getTime() + i * 60000L));
+        }
+        geo.getPosition(GROUND_STATION, TIME);
+        geo.getPosition(GROUND_STATION, TIME);
+
+        Assert.assertEquals(10, collector.getPropagations(false));
+        Assert.assertEquals(2, collector.getPropagations(true));
+        Assert.assertTrue(collector.getMeanKeplerIterations() >= 1.0);
+        Assert.assertTrue(collector.getMeanKeplerIterations() <= 10.0);
+
+        // the second calculation at the same time finds every resonance checkpoint it needs
+        Assert.assertTrue(collector.getResonanceSteps() > 0);
+        Assert.assertEquals(0.5, collector.getHitRate(MetricsCollector.Cache.RESONANCE_CHECKPOINT), 0.0);
+        Assert.assertTrue(collector.getHitRate(MetricsCollector.Cache.SIDEREAL_TIME) >= 0.5);
+
+        final List<TLE> tles = Arrays.asList(new TLE(LEO_TLE), new TLE(WEATHER_TLE));
+        new LEOBatchPropagator(tles).propagate(TIME, new double[12]);
+        Assert.assertEquals(12, collector.getPropagations(false));
+    }
+
+    @Test
+    public void passSearchesAndTLEsAreCounted() throws Exception {
+        final PassPredictor predictor = new PassPredictor(new TLE(LEO_TLE), GROUND_STATION);
+        final int before = predictor.getIterationCount();
+
+        predictor.nextSatPass(TIME);
+
+        Assert.assertEquals(1, collector.getPassSearchTime().getCount());
+        Assert.assertEquals(predictor.getIterationCount() - before, collector.getMeanPassPropagations(), 0.0);
+
+        try {
+            new TLE(new String[] {"BROKEN", "1 28375U", "2 28375"});
+            Assert.fail("Expected the TLE to be rejected");
+        }
+        catch (final RuntimeException e) {
+            // expected
+        }
+
+        Assert.assertEquals(1, collector.getTLEsParsed(true));
+        Assert.assertEquals(1, collector.getTLEsParsed(false));
+
+        collector.reset();
+        Assert.assertEquals(0, collector.getTLEsParsed(true));
+        Assert.assertEquals(0, collector.getPassSearchTime().getCount());
+    }
+
+    @Test
+    public void reporterAppendsSnapshotsToAFile() throws Exception {
+        final File file = File.createTempFile("metrics", ".log");
+        file.deleteOnExit();
+
+        final MetricsReporter reporter = new MetricsReporter(collector, file.toPath());
+        SatelliteFactory.createSatellite(new TLE(LEO_TLE)).getPosition(GROUND_STATION, TIME);
+
+        final String line = reporter.report();
+        reporter.report();
+
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertEquals(line, lines.get(0));
+        Assert.assertTrue(line.contains(" propagations.sgp4=1 "));
+        Assert.assertTrue(line.contains(" tles.parsed=1 "));
+        Assert.assertTrue(lines.get(1).contains(" propagations.perSecond=0.0 "));
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class CoverageEngineTest extends AbstractSatelliteTestBase {
+
+    private static final long STEP_MILLIS = 60000L;
+    private static final Date START = new DateTime("2009-12-26T00:00:00Z").toDate();
+    private static final Date END = new DateTime("2009-12-27T00:00:00Z").toDate();
+
+    public CoverageEngineTest() {
+    }
+
+    @Test
+    public void coverageMatchesBruteForceElevation() {
+        final List<TLE> tles = Arrays.asList(new TLE(LEO_TLE), new TLE(WEATHER_TLE));
+        final CoverageGrid grid = new CoverageEngine(tles, 5.0, 0.0, 2).calculate(START, END, STEP_MILLIS);
+
+        Assert.assertEquals(36, grid.getRows());
+        Assert.assertEquals(72, grid.getColumns());
+        Assert.assertEquals(1441, grid.getSteps());
+
+        final int[][] cells = {{28, 71}, {20, 10}, {35, 40}, {5, 3}, {18, 36}};
+
+        for (final int[] cell : cells) {
+            final GroundStationPosition qth =
+                    new GroundStationPosition(grid.getLatitude(cell[0]), grid.getLongitude(cell[1]), 0);
+            final Satellite[] satellites = {SatelliteFactory.createSatellite(tles.get(0)),
+                SatelliteFactory.createSatellite(tles.get(1))};
+            int covered = 0;
+
+            for (int step = 0; step < grid.getSteps(); step++) {
+                final Date date = new Date(START.getTime() + step * STEP_MILLIS);
+                for (final Satellite satellite : satellites) {
+                    if (satellite.getPosition(qth, date).getElevation() > 0.0) {
+                        covered++;
+                        break;
+                    }
+                }
+            }
+
+            // the grid uses a spherical earth, so steps at the edge of a footprint may differ
+            final double expected = 100.0 * covered / grid.getSteps();
+            Assert.assertEquals(expected, grid.getPercentCoverage(cell[0], cell[1]), 0.5);
+        }
+
+        Assert.assertTrue(grid.getGlobalPercentCoverage() > 0.0);
+    }
+
+    @Test
+    public void blocksMergeToTheSameResult() {
+        final List<TLE> tles = Arrays.asList(new TLE(LEO_TLE), new TLE(WEATHER_TLE), new TLE(MOLNIYA_TLE));
+        final CoverageGrid whole = new CoverageEngine(tles, 10.0, 0.1, 1).calculate(START, END, STEP_MILLIS, 5000);
+        final CoverageGrid split = new CoverageEngine(tles, 10.0, 0.1, 3).calculate(START, END, STEP_MILLIS, 7);
+
+        Assert.assertEquals(whole.getSteps(), split.getSteps());
+
+        for (int row = 0; row < whole.getRows(); row++) {
+            for (int column = 0; column < whole.getColumns(); column++) {
+                Assert.assertEquals(whole.getPercentCoverage(row, column), split.getPercentCoverage(row, column), 0.0);
+                Assert.assertEquals(whole.getAccessCount(row, column), split.getAccessCount(row, column));
+                Assert.assertEquals(whole.getMaxGapMillis(row, column), split.getMaxGapMillis(row, column));
+                Assert.assertEquals(whole.getMeanGapMillis(row, column), split.getMeanGapMillis(row, column), 0.0);
+                Assert.assertEquals(whole.getMeanRevisitMillis(row, column),
+                        split.getMeanRevisitMillis(row, column), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void geostationarySatelliteCoversOneSide() {
+        final List<TLE> tles = Arrays.asList(new TLE(GEOSYNC_TLE));
+        final CoverageGrid grid = new CoverageEngine(tles, 10.0, 0.0, 1).calculate(START, END, STEP_MILLIS);
+
+        final SatPos subPoint = SatelliteFactory.createSatellite(tles.get(0)).getPosition(GROUND_STATION, START);
+        final int column = (int)(Math.toDegrees(subPoint.getLongitude()) / 10.0);
+        final int opposite = (column + 18) % 36;
+
+        Assert.assertEquals(100.0, grid.getPercentCoverage(9, column), 0.0);
+        Assert.assertEquals(1, grid.getAccessCount(9, column));
+        Assert.assertEquals(0L, grid.getMaxGapMillis(9, column));
+        Assert.assertTrue(Double.isNaN(grid.getMeanRevisitMillis(9, column)));
+
+        Assert.assertEquals(0.0, grid.getPercentCoverage(9, opposite), 0.0);
+        Assert.assertEquals(0, grid.getAccessCount(9, opposite));
+        Assert.assertEquals(grid.getSteps() * STEP_MILLIS, grid.getMaxGapMillis(9, opposite));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resolutionMustDivideTheGrid() {
+        new CoverageEngine(Arrays.asList(new TLE(LEO_TLE)), 7.0, 0.0);
+    }
+}
@@ -26,6 +26,14 @@
  */
 package uk.me.g4dpz.satellite;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.joda.time.DateTime;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -161,4 +169,85 @@ public class DeepSpaceSatelliteTest extends AbstractSatelliteTestBase {
         Assert.assertFalse(satellitePosition.isEclipsed());
         Assert.assertTrue(satellite.willBeSeen(GROUND_STATION));
     }
+
+    @Test
+    public void testStateVectorsMatchOriginalSolver() {
+        assertStateVector(DEEP_SPACE_TLE, "2009-12-26T00:00:00Z",
+                -4635.705050851, 57263.265468999, 9707.064017304, -1.155993737951, -1.138228125441, -0.257193663335);
+        assertStateVector(DEEP_SPACE_TLE, "2010-03-01T12:34:56Z",
+                -9559.334394285, -3641.100391395, -1393.146169002, 6.381938634017, -5.040862521485, -0.296314436398);
+        assertStateVector(GEOSYNC_TLE, "2009-12-26T00:00:00Z",
+                17641.467033701, -38083.858513463, -6079.918966210, 2.754879412847, 1.318759018146, -0.272390295308);
+        assertStateVector(GEOSYNC_TLE, "2010-03-01T12:34:56Z",
+                36338.478031437, -20661.753755989, -7201.617424719, 1.521457779295, 2.661379750561, 0.034032535015);
+        assertStateVector(MOLNIYA_TLE, "2009-12-26T00:00:00Z",
+                4214.316947659, -26744.362387167, 31645.109350204, 1.194827444646, 0.367690555158, 1.599802279291);
+        assertStateVector(MOLNIYA_TLE, "2010-03-01T12:34:56Z",
+                8472.263074008, 8595.747340524, 2103.635346275, -4.170611173762, -0.267684060921, -5.708191517966);
+    }
+
+    @Test
+    public void testResonanceIsIndependentOfQueryOrder() {
+        final String[] times = {"2010-06-01T00:00:00Z", "2009-12-30T06:00:00Z", "2010-02-14T18:30:00Z",
+            "2009-12-01T00:00:00Z", "2010-06-01T00:00:00Z", "2009-12-25T12:00:00Z"};
+
+        for (final String[] tle : new String[][] {GEOSYNC_TLE, MOLNIYA_TLE}) {
+            final AbstractSatellite shared = (AbstractSatellite)SatelliteFactory.createSatellite(new TLE(tle));
+            final double[] expected = new double[6];
+            final double[] actual = new double[6];
+
+            for (final String time : times) {
+                final AbstractSatellite fresh = (AbstractSatellite)SatelliteFactory.createSatellite(new TLE(tle));
+                fresh.calculateSatelliteVectors(new DateTime(time).toDate());
+                fresh.getStateVector(expected);
+
+                shared.calculateSatelliteVectors(new DateTime(time).toDate());
+                shared.getStateVector(actual);
+
+                for (int i = 0; i < 6; i++) {
+                    Assert.assertEquals(expected[i], actual[i], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentPropagationOfOneSatellite() throws Exception {
+        final Satellite satellite = SatelliteFactory.createSatellite(new TLE(GEOSYNC_TLE));
+        final long start = new DateTime("2009-12-26T00:00:00Z").getMillis();
+        final int samples = 500;
+
+        final double[] expected = new double[samples];
+
+        for (int i = 0; i < samples; i++) {
+            final Satellite fresh = SatelliteFactory.createSatellite(new TLE(GEOSYNC_TLE));
+            expected[i] = fresh.getPosition(GROUND_STATION, new Date(start + i * 3600000L)).getAzimuth();
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+        for (int thread = 0; thread < 4; thread++) {
+            final int offset = thread;
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    for (int n = 0; n < samples; n++) {
+                        final int i = (n * 7 + offset * 101) % samples;
+                        final SatPos satPos = satellite.getPosition(GROUND_STATION, new Date(start + i * 3600000L));
+                        if (satPos.getAzimuth() != expected[i]) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+
+        for (final Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+
+        executor.shutdown();
+    }
 }
@@ -0,0 +1,155 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class EphemerisExporterTest extends AbstractSatelliteTestBase {
+
+    private static final Date START = new DateTime("2009-12-26T23:55:00Z").toDate();
+    private static final Date END = new DateTime("2009-12-27T00:05:00Z").toDate();
+    private static final long STEP_MILLIS = 60000L;
+    private static final List<TLE> TLES = Arrays.asList(new TLE(LEO_TLE), new TLE(MOLNIYA_TLE));
+
+    public EphemerisExporterTest() {
+    }
+
+    @Test
+    public void csvHoldsEveryState() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (EphemerisWriter writer = new CsvEphemerisWriter(Channels.newChannel(bytes))) {
+            Assert.assertEquals(22, EphemerisExporter.export(TLES, START, END, STEP_MILLIS, writer));
+        }
+
+        final String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(23, lines.length);
+        Assert.assertEquals(CsvEphemerisWriter.HEADER, lines[0]);
+
+        final String[] fields = lines[18].split(",");
+        Assert.assertEquals("2009-12-27T00:01:00.000", fields[0]);
+        Assert.assertEquals("21118", fields[1]);
+
+        final double[] expected = stateAt(TLES.get(1), "2009-12-27T00:01:00Z");
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals(expected[i], Double.parseDouble(fields[i + 2]), i < 3 ? 5E-7 : 5E-10);
+            Assert.assertEquals(i < 3 ? 6 : 9, fields[i + 2].length() - fields[i + 2].indexOf('.') - 1);
+        }
+    }
+
+    @Test
+    public void oemHasASegmentPerSatellite() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (EphemerisWriter writer = new OemEphemerisWriter(Channels.newChannel(bytes))) {
+            EphemerisExporter.export(TLES, START, END, STEP_MILLIS, writer);
+        }
+
+        final List<String> lines = Arrays.asList(new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+        Assert.assertEquals("CCSDS_OEM_VERS = 2.0", lines.get(0));
+        Assert.assertTrue(lines.get(1).startsWith("CREATION_DATE = "));
+
+        final int meta = lines.indexOf("META_START");
+        Assert.assertEquals("OBJECT_NAME = AO-51 [+]", lines.get(meta + 1));
+        Assert.assertEquals("REF_FRAME = TEME", lines.get(meta + 4));
+        Assert.assertEquals("START_TIME = 2009-12-26T23:55:00.000", lines.get(meta + 6));
+        Assert.assertEquals("STOP_TIME = 2009-12-27T00:05:00.000", lines.get(meta + 7));
+        Assert.assertEquals("META_STOP", lines.get(meta + 8));
+
+        final String[] first = lines.get(meta + 10).split(" ");
+        Assert.assertEquals("2009-12-26T23:55:00.000", first[0]);
+        Assert.assertEquals(stateAt(TLES.get(0), "2009-12-26T23:55:00Z")[0], Double.parseDouble(first[1]), 5E-7);
+
+        Assert.assertEquals(2, lines.stream().filter("META_START"::equals).count());
+    }
+
+    @Test
+    public void binaryHoldsExactStates() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (EphemerisWriter writer = new BinaryEphemerisWriter(Channels.newChannel(bytes))) {
+            EphemerisExporter.export(TLES, START, END, STEP_MILLIS, writer);
+        }
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Assert.assertEquals(BinaryEphemerisWriter.MAGIC, in.readInt());
+        Assert.assertEquals(BinaryEphemerisWriter.VERSION, in.readInt());
+
+        for (final TLE tle : TLES) {
+            Assert.assertEquals(tle.getCatnum(), in.readInt());
+            final byte[] name = new byte[in.readShort()];
+            in.readFully(name);
+            Assert.assertEquals(tle.getName(), new String(name, StandardCharsets.UTF_8));
+            Assert.assertEquals(START.getTime(), in.readLong());
+            Assert.assertEquals(STEP_MILLIS, in.readLong());
+            Assert.assertEquals(11, in.readInt());
+
+            for (int step = 0; step < 11; step++) {
+                final double[] expected = stateAt(tle, new Date(START.getTime() + step * STEP_MILLIS));
+                for (int i = 0; i < 6; i++) {
+                    Assert.assertEquals(expected[i], in.readDouble(), 0.0);
+                }
+            }
+        }
+
+        Assert.assertEquals(-1, in.read());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binaryRejectsIrregularTimes() throws Exception {
+        try (EphemerisWriter writer = new BinaryEphemerisWriter(Channels.newChannel(new ByteArrayOutputStream()))) {
+            writer.startSegment(TLES.get(0), 0L, 1000L, 2);
+            writer.writeState(0L, new double[6], 0);
+            writer.writeState(1500L, new double[6], 0);
+        }
+    }
+
+    private static double[] stateAt(final TLE tle, final String time) {
+        return stateAt(tle, new DateTime(time).toDate());
+    }
+
+    private static double[] stateAt(final TLE tle, final Date time) {
+        final double[] state = new double[6];
+        ((AbstractSatellite)SatelliteFactory.createSatellite(tle)).calculateStateVector(time, state, 0);
+        return state;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class EphemerisStoreTest extends AbstractSatelliteTestBase {
+
+    private static final Date START = new DateTime("2009-12-26T00:00:00Z").toDate();
+    private static final Date END = new DateTime("2009-12-27T00:00:00Z").toDate();
+    private static final long STEP_MILLIS = 60000L;
+    private static final List<TLE> TLES = Arrays.asList(new TLE(LEO_TLE), new TLE(MOLNIYA_TLE));
+
+    private Path file;
+
+    public EphemerisStoreTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("ephemeris", ".p4js");
+        EphemerisStore.build(file, TLES, START, END, STEP_MILLIS, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void headerDescribesTheStore() throws Exception {
+        try (EphemerisStore store = EphemerisStore.open(file)) {
+            Assert.assertEquals(2, store.size());
+            Assert.assertEquals(1441, store.getRecordCount());
+            Assert.assertEquals(START.getTime(), store.getStartMillis());
+            Assert.assertEquals(END.getTime(), store.getEndMillis());
+            Assert.assertEquals(STEP_MILLIS, store.getStepMillis());
+            Assert.assertTrue(store.hasGeodetic());
+            Assert.assertEquals(1, store.indexOf(21118));
+            Assert.assertEquals(-1, store.indexOf(12345));
+            Assert.assertEquals("AO-51 [+]", store.getName(0));
+            Assert.assertEquals(28375, store.getCatalogNumber(0));
+        }
+    }
+
+    @Test
+    public void recordsMatchThePropagator() throws Exception {
+        try (EphemerisStore store = EphemerisStore.open(file)) {
+            final double[] state = new double[6];
+            final Date time = new DateTime("2009-12-26T13:07:00Z").toDate();
+
+            for (int i = 0; i < TLES.size(); i++) {
+                Assert.assertTrue(store.getState(i, time.getTime(), state));
+                final double[] expected = stateAt(TLES.get(i), time);
+                for (int j = 0; j < 6; j++) {
+                    Assert.assertEquals(expected[j], state[j], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void interpolatesBetweenRecords() throws Exception {
+        try (EphemerisStore store = EphemerisStore.open(file)) {
+            final double[] state = new double[6];
+            double positionError = 0.0;
+            double velocityError = 0.0;
+
+            for (long time = START.getTime() + STEP_MILLIS / 2; time < END.getTime(); time += 7 * STEP_MILLIS) {
+                Assert.assertTrue(store.getState(0, time, state));
+                final double[] expected = stateAt(TLES.get(0), new Date(time));
+
+                for (int i = 0; i < 3; i++) {
+                    positionError = Math.max(positionError, Math.abs(expected[i] - state[i]));
+                    velocityError = Math.max(velocityError, Math.abs(expected[i + 3] - state[i + 3]));
+                }
+            }
+
+            // cubic Hermite over 60 s keeps a LEO within a metre and 10 cm/s
+            Assert.assertTrue("position error " + positionError, positionError < 1E-3);
+            Assert.assertTrue("velocity error " + velocityError, velocityError < 2E-4);
+        }
+    }
+
+    @Test
+    public void interpolatesGeodeticValues() throws Exception {
+        try (EphemerisStore store = EphemerisStore.open(file)) {
+            final double[] latLonAlt = new double[3];
+            final long time = new DateTime("2009-12-26T13:07:30Z").getMillis();
+            Assert.assertTrue(store.getGeodetic(0, time, latLonAlt));
+
+            final SatPos expected = SatelliteFactory.createSatellite(TLES.get(0)).getPosition(GROUND_STATION, new Date(time));
+            Assert.assertEquals(expected.getLatitude(), latLonAlt[0], 2E-3);
+            final double dLongitude = Math.abs(expected.getLongitude() - latLonAlt[1]);
+            Assert.assertTrue(Math.min(dLongitude, AbstractSatellite.TWO_PI - dLongitude) < 2E-3);
+            Assert.assertEquals(expected.getAltitude(), latLonAlt[2], 1.0);
+        }
+    }
+
+    @Test
+    public void rejectsTimesOutsideTheStore() throws Exception {
+        try (EphemerisStore store = EphemerisStore.open(file)) {
+            final double[] state = new double[6];
+            Assert.assertFalse(store.getState(0, START.getTime() - 1, state));
+            Assert.assertFalse(store.getState(1, END.getTime() + 1, state));
+            Assert.assertTrue(store.getState(1, END.getTime(), state));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void storeWithoutGeodeticValuesRefusesThem() throws Exception {
+        EphemerisStore.build(file, TLES, START, END, STEP_MILLIS, false);
+
+        try (EphemerisStore store = EphemerisStore.open(file)) {
+            store.getGeodetic(0, START.getTime(), new double[3]);
+        }
+    }
+
+    @Test
+    public void concurrentReadersAgree() throws Exception {
+        try (EphemerisStore store = EphemerisStore.open(file)) {
+            final double[] expected = new double[6];
+            final long time = START.getTime() + 12345678L;
+            store.getState(1, time, expected);
+
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+                for (int t = 0; t < 4; t++) {
+                    results.add(executor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            final double[] state = new double[6];
+                            for (int i = 0; i < 10000; i++) {
+                                store.getState(i % 2, START.getTime() + i * 8640L, state);
+                                store.getState(1, time, state);
+                                if (!Arrays.equals(expected, state)) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        }
+                    }));
+                }
+                for (final Future<Boolean> result : results) {
+                    Assert.assertTrue(result.get());
+                }
+            }
+            finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static double[] stateAt(final TLE tle, final Date time) {
+        final double[] state = new double[6];
+        ((AbstractSatellite)SatelliteFactory.createSatellite(tle)).calculateStateVector(time, state, 0);
+        return state;
+    }
+}
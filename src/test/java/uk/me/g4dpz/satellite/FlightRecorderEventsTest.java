@@ -0,0 +1,108 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class FlightRecorderEventsTest extends AbstractSatelliteTestBase {
+
+    private static final Date TIME = new DateTime("2009-12-26T00:00:00Z").toDate();
+
+    public FlightRecorderEventsTest() {
+    }
+
+    @Test
+    public void eventsAreRecorded() throws Exception {
+        final File file = File.createTempFile("predict4java", ".jfr");
+        file.deleteOnExit();
+
+        final PassPredictor predictor;
+
+        try (Recording recording = new Recording()) {
+            for (final String name : new String[] {"SatelliteCreated", "PassSearch", "TLEImport", "BatchPropagation"}) {
+                recording.enable("predict4java." + name);
+            }
+            recording.enable("predict4java.Propagation").withThreshold(Duration.ZERO);
+            recording.start();
+
+            predictor = new PassPredictor(new TLE(LEO_TLE), GROUND_STATION);
+            predictor.getPasses(TIME, 6, false);
+
+            try (InputStream stream = getClass().getResourceAsStream("/LEO.txt")) {
+                TLE.importSat(stream);
+            }
+
+            new LEOBatchPropagator(Arrays.asList(new TLE(LEO_TLE), new TLE(WEATHER_TLE)))
+                    .propagate(TIME, new double[12]);
+
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+        final Map<String, RecordedEvent> last = new HashMap<String, RecordedEvent>();
+        final Map<String, Integer> counts = new HashMap<String, Integer>();
+
+        for (final RecordedEvent event : events) {
+            final String name = event.getEventType().getName();
+            last.put(name, event);
+            counts.merge(name, 1, Integer::sum);
+        }
+
+        Assert.assertEquals("AO-51 [+]", last.get("predict4java.SatelliteCreated").getString("satellite"));
+        Assert.assertFalse(last.get("predict4java.SatelliteCreated").getBoolean("deepSpace"));
+
+        // one event per nextSatPass(..), then one for the whole of getPasses(..)
+        final RecordedEvent passes = last.get("predict4java.PassSearch");
+        Assert.assertEquals(counts.get("predict4java.PassSearch") - 1, passes.getInt("passes"));
+        Assert.assertEquals(predictor.getIterationCount(), passes.getInt("propagations"));
+        Assert.assertEquals(counts.get("predict4java.Propagation").intValue(), predictor.getIterationCount());
+
+        Assert.assertTrue(last.get("predict4java.TLEImport").getInt("tles") > 0);
+        Assert.assertEquals(2, last.get("predict4java.BatchPropagation").getInt("satellites"));
+    }
+}
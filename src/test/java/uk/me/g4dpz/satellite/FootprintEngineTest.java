@@ -0,0 +1,186 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class FootprintEngineTest {
+
+    private static final double DEG2RAD = Math.PI / 180.0;
+
+    public FootprintEngineTest() {
+    }
+
+    @Test
+    public void rangeCircleMatchesOriginalCalculation() {
+        final double[][] subPoints = {{0, 0, 1000}, {10, 10, 1000}, {52.5, 357.9, 850}, {-70, 120, 20000},
+            {80, 200, 1500}};
+
+        for (final double[] subPoint : subPoints) {
+            final SatPos pos = new SatPos();
+            pos.setLatitude(subPoint[0] * DEG2RAD);
+            pos.setLongitude(subPoint[1] * DEG2RAD);
+            pos.setAltitude(subPoint[2]);
+
+            final double[][] expected = originalRangeCircle(pos);
+            final double[][] actual = pos.getRangeCircle();
+
+            // the original acos is ill conditioned where the circle turns north or south, hence about a metre
+            for (int azi = 0; azi < 360; azi++) {
+                Assert.assertEquals(expected[azi][0], actual[azi][0], 1E-9);
+                final double lonError = Math.abs(expected[azi][1] - actual[azi][1]);
+                Assert.assertEquals(0.0, Math.min(lonError, 360.0 - lonError), 1E-5);
+            }
+        }
+    }
+
+    @Test
+    public void pointsLieAtTheFootprintAngle() {
+        final FootprintEngine engine = new FootprintEngine(72);
+        final SatPos pos = new SatPos();
+        pos.setLatitude(40 * DEG2RAD);
+        pos.setLongitude(100 * DEG2RAD);
+        pos.setAltitude(800);
+
+        final double horizon = FootprintEngine.footprintAngle(800, 0);
+        final double masked = FootprintEngine.footprintAngle(800, 10 * DEG2RAD);
+        Assert.assertEquals(Math.acos(6378.137 / (6378.137 + 800)), horizon, 1E-12);
+        Assert.assertTrue(masked < horizon);
+
+        final double[] output = new double[144];
+        Assert.assertSame(output, engine.calculate(pos, 10 * DEG2RAD, output));
+
+        for (int i = 0; i < 72; i++) {
+            final double lat = output[i * 2] * DEG2RAD;
+            final double lon = output[i * 2 + 1] * DEG2RAD;
+            final double angle = Math.acos(Math.sin(pos.getLatitude()) * Math.sin(lat)
+                    + Math.cos(pos.getLatitude()) * Math.cos(lat) * Math.cos(lon - pos.getLongitude()));
+            Assert.assertEquals(masked, angle, 1E-9);
+        }
+    }
+
+    @Test
+    public void outputThatIsTooSmallIsRejected() {
+        final FootprintEngine engine = new FootprintEngine(36);
+        final double[] output = new double[80];
+
+        try {
+            engine.calculate(0.5, 1.0, 0.3, output, 10);
+            Assert.fail("IllegalArgumentException expected");
+        }
+        catch (final IllegalArgumentException iae) {
+            Assert.assertEquals("Output needs 82 elements, got: 80", iae.getMessage());
+        }
+
+        Assert.assertEquals(82, engine.calculate(0.5, 1.0, 0.3, null, 10).length);
+    }
+
+    @Test
+    public void batchMatchesSingleFootprints() {
+        final FootprintEngine engine = new FootprintEngine(36);
+        final List<SatPos> positions = new ArrayList<SatPos>();
+
+        for (int n = 0; n < 5; n++) {
+            final SatPos pos = new SatPos();
+            pos.setLatitude((n * 15 - 30) * DEG2RAD);
+            pos.setLongitude(n * 70 * DEG2RAD);
+            pos.setAltitude(500 + n * 300);
+            positions.add(pos);
+        }
+
+        final double[] batch = engine.calculate(positions, 5 * DEG2RAD, null);
+        Assert.assertEquals(5 * 72, batch.length);
+
+        for (int n = 0; n < 5; n++) {
+            final double[] single = engine.calculate(positions.get(n), 5 * DEG2RAD, null);
+            for (int i = 0; i < 72; i++) {
+                Assert.assertEquals(single[i], batch[n * 72 + i], 0.0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooFewPointsAreRejected() {
+        new FootprintEngine(2);
+    }
+
+    /**
+     * The range circle calculation as it was before FootprintEngine.
+     */
+    private static double[][] originalRangeCircle(final SatPos pos) {
+
+        final int dia = (int)(12756.33 * Math.acos(6.378137E3 / (6.378137E3 + pos.getAltitude())));
+
+        final double latitude = pos.getLatitude();
+        final double longitude = pos.getLongitude();
+        final double beta = (0.5 * dia) / 6378.16;
+        final double[][] result = new double[360][2];
+
+        for (int azi = 0; azi < 360; azi++) {
+            final double azimuth = azi / 360.0 * 2.0 * Math.PI;
+            double rangelat = Math.asin(Math.sin(latitude) * Math.cos(beta) + Math.cos(azimuth) * Math.sin(beta)
+                    * Math.cos(latitude));
+            final double num = Math.cos(beta) - (Math.sin(latitude) * Math.sin(rangelat));
+            final double den = Math.cos(latitude) * Math.cos(rangelat);
+            double rangelong;
+
+            if ((azi == 0 || azi == 180) && (beta > ((Math.PI / 2.0) - latitude))) {
+                rangelong = longitude + Math.PI;
+            }
+            else if (Math.abs(num / den) > 1.0) {
+                rangelong = longitude;
+            }
+            else if ((180 - azi) >= 0) {
+                rangelong = longitude - Math.acos(num / den);
+            }
+            else {
+                rangelong = longitude + Math.acos(num / den);
+            }
+
+            while (rangelong < 0.0) {
+                rangelong += Math.PI * 2.0;
+            }
+
+            while (rangelong > Math.PI * 2.0) {
+                rangelong -= Math.PI * 2.0;
+            }
+
+            result[azi][0] = (rangelat / (2.0 * Math.PI)) * 360.0;
+            result[azi][1] = (rangelong / (2.0 * Math.PI)) * 360.0;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class GeodeticConversionTest extends AbstractSatelliteTestBase {
+
+    /** A micrometre, in km. */
+    private static final double MICROMETRE = 1E-9;
+
+    public GeodeticConversionTest() {
+    }
+
+    @Test
+    public void closedFormMatchesIteration() {
+        final Random random = new Random(28375);
+        final SatPos iterative = new SatPos();
+        final SatPos closedForm = new SatPos();
+
+        for (int i = 0; i < 100000; i++) {
+            final double latitude = Math.toRadians(random.nextDouble() * 179.8 - 89.9);
+            final double radius = 6500.0 + random.nextDouble() * 40000.0;
+            final double r = radius * Math.cos(latitude);
+            final double z = radius * Math.sin(latitude);
+
+            GeodeticConversion.ITERATIVE.toGeodetic(r, z, iterative);
+            GeodeticConversion.VERMEILLE.toGeodetic(r, z, closedForm);
+
+            // compare as distances along the meridian and the normal
+            Assert.assertEquals(0.0, (iterative.getLatitude() - closedForm.getLatitude()) * radius, MICROMETRE);
+            // the iteration finds the altitude as r / cos(latitude), which loses a little near the poles
+            Assert.assertEquals(iterative.getAltitude(), closedForm.getAltitude(), 2 * MICROMETRE);
+        }
+    }
+
+    @Test
+    public void satelliteCanUseTheClosedForm() {
+        final Date date = new DateTime("2009-12-26T00:00:00Z").toDate();
+
+        for (final String[] tle : new String[][] {LEO_TLE, WEATHER_TLE, MOLNIYA_TLE, GEOSYNC_TLE}) {
+            final SatPos expected = SatelliteFactory.createSatellite(new TLE(tle)).getPosition(GROUND_STATION, date);
+            final SatPos actual = SatelliteFactory.createSatellite(new TLE(tle), GeodeticConversion.VERMEILLE)
+                    .getPosition(GROUND_STATION, date);
+
+            Assert.assertEquals(expected.getLongitude(), actual.getLongitude(), 0.0);
+            Assert.assertEquals(expected.getLatitude(), actual.getLatitude(), 1E-12);
+            Assert.assertEquals(expected.getAltitude(), actual.getAltitude(), MICROMETRE);
+            Assert.assertEquals(expected.getAzimuth(), actual.getAzimuth(), 0.0);
+        }
+    }
+
+    @Test
+    public void siderealTimeIsRepeatableAndAdvancesAtTheSiderealRate() {
+        final double first = AbstractSatellite.thetaGJD(2455191.5);
+        final double second = AbstractSatellite.thetaGJD(2455192.25);
+
+        Assert.assertEquals(first, AbstractSatellite.thetaGJD(2455191.5), 0.0);
+        Assert.assertEquals(second, AbstractSatellite.thetaGJD(2455192.25), 0.0);
+        Assert.assertEquals(1.00273790934 * 0.75 * 2.0 * Math.PI, second - first + 2.0 * Math.PI, 1E-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void conversionMustBeSet() {
+        SatelliteFactory.createSatellite(new TLE(LEO_TLE), null);
+    }
+}
@@ -95,4 +95,45 @@ public final class GroundStationPositionTest {
         }
 
     }
+
+    @Test
+    public void testHorizonElevationIsInterpolatedBetweenSectorCentres() {
+
+        final GroundStationPosition groundStationPosition = new GroundStationPosition();
+        Assert.assertFalse(groundStationPosition.hasHorizonMask());
+        Assert.assertEquals(0.0, groundStationPosition.getHorizonElevation(1.0), 0.0);
+
+        final int[] elevations = new int[36];
+        elevations[0] = 10;
+        elevations[1] = 20;
+        elevations[35] = 30;
+        groundStationPosition.setHorizonElevations(elevations);
+        Assert.assertTrue(groundStationPosition.hasHorizonMask());
+
+        // sector centres
+        Assert.assertEquals(10.0, horizonDegrees(groundStationPosition, 5.0), 1E-9);
+        Assert.assertEquals(20.0, horizonDegrees(groundStationPosition, 15.0), 1E-9);
+        // between centres, and wrapping through north
+        Assert.assertEquals(15.0, horizonDegrees(groundStationPosition, 10.0), 1E-9);
+        Assert.assertEquals(20.0, horizonDegrees(groundStationPosition, 0.0), 1E-9);
+        Assert.assertEquals(25.0, horizonDegrees(groundStationPosition, 357.5), 1E-9);
+        Assert.assertEquals(10.0, horizonDegrees(groundStationPosition, 20.0), 1E-9);
+        Assert.assertEquals(0.0, horizonDegrees(groundStationPosition, 180.0), 1E-9);
+    }
+
+    @Test
+    public void testNegativeHorizonIsNotAMask() {
+
+        final GroundStationPosition groundStationPosition = new GroundStationPosition();
+        final int[] elevations = new int[36];
+        elevations[18] = -4;
+        groundStationPosition.setHorizonElevations(elevations);
+
+        Assert.assertFalse(groundStationPosition.hasHorizonMask());
+        Assert.assertEquals(-4.0, horizonDegrees(groundStationPosition, 185.0), 1E-9);
+    }
+
+    private static double horizonDegrees(final GroundStationPosition groundStationPosition, final double azimuth) {
+        return Math.toDegrees(groundStationPosition.getHorizonElevation(Math.toRadians(azimuth)));
+    }
 }
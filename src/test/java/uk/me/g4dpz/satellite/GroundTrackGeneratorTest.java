@@ -0,0 +1,144 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class GroundTrackGeneratorTest extends AbstractSatelliteTestBase {
+
+    private static final Date START = new DateTime("2009-12-26T00:00:00Z").toDate();
+    private static final double TOLERANCE = 0.1;
+
+    public GroundTrackGeneratorTest() {
+    }
+
+    @Test
+    public void trackStaysWithinToleranceOfTheSatellite() {
+        final TLE tle = new TLE(WEATHER_TLE);
+        final Date end = new Date(START.getTime() + 3 * 3600000L);
+        final GroundTrack track = new GroundTrackGenerator(tle, TOLERANCE, 300000L, 1).generate(START, end);
+        final Satellite satellite = SatelliteFactory.createSatellite(tle);
+
+        int samples = 0;
+        int index = 0;
+
+        for (long time = START.getTime(); time <= end.getTime(); time += 10000L) {
+            while (track.getTime(index + 1) < time) {
+                index++;
+            }
+
+            final double fraction = (double)(time - track.getTime(index))
+                    / (track.getTime(index + 1) - track.getTime(index));
+            final double latitude = track.getLatitude(index)
+                    + fraction * (track.getLatitude(index + 1) - track.getLatitude(index));
+            final double longitude = track.getLongitude(index)
+                    + fraction * wrap(track.getLongitude(index + 1) - track.getLongitude(index));
+
+            final SatPos satPos = satellite.getPosition(GROUND_STATION, new Date(time));
+            final double latitudeError = Math.toDegrees(satPos.getLatitude()) - latitude;
+            final double longitudeError = wrap(Math.toDegrees(satPos.getLongitude()) - longitude)
+                    * Math.cos(satPos.getLatitude());
+
+            Assert.assertTrue("at " + new Date(time), Math.hypot(latitudeError, longitudeError) < 2 * TOLERANCE);
+            samples++;
+        }
+
+        Assert.assertTrue(track.getPointCount() * 3 < samples);
+    }
+
+    @Test
+    public void trackIsSplitAtTheAntimeridian() {
+        final GroundTrack track = new GroundTrackGenerator(new TLE(LEO_TLE)).generate(START,
+                new Date(START.getTime() + 6 * 3600000L));
+
+        Assert.assertTrue(track.getSegmentCount() > 1);
+        Assert.assertEquals(0, track.getSegmentStart(0));
+        Assert.assertEquals(track.getPointCount(), track.getSegmentEnd(track.getSegmentCount() - 1));
+
+        for (int segment = 0; segment < track.getSegmentCount(); segment++) {
+            final int first = track.getSegmentStart(segment);
+            final int last = track.getSegmentEnd(segment) - 1;
+
+            if (segment > 0) {
+                Assert.assertEquals(180.0, Math.abs(track.getLongitude(first)), 0.0);
+                Assert.assertEquals(-track.getLongitude(first), track.getLongitude(first - 1), 0.0);
+                Assert.assertEquals(track.getLatitude(first - 1), track.getLatitude(first), 0.0);
+            }
+
+            for (int i = first + 1; i <= last; i++) {
+                Assert.assertTrue(Math.abs(track.getLongitude(i) - track.getLongitude(i - 1)) < 180.0);
+                Assert.assertTrue(track.getTime(i) >= track.getTime(i - 1));
+            }
+        }
+
+        final double[] pairs = track.toLatLonPairs(null);
+        Assert.assertEquals(track.getPointCount() * 2, pairs.length);
+        Assert.assertEquals(track.getLongitude(3), pairs[7], 0.0);
+    }
+
+    @Test
+    public void orbitsInParallelMatchSerialGeneration() {
+        final TLE tle = new TLE(LEO_TLE);
+        final GroundTrackGenerator generator = new GroundTrackGenerator(tle, TOLERANCE, 300000L, 3);
+        final List<GroundTrack> orbits = generator.generateOrbits(START, 3);
+
+        Assert.assertEquals(3, orbits.size());
+
+        final long period = Math.round(8.64E7 / tle.getMeanmo());
+        final GroundTrack second = generator.generate(new Date(START.getTime() + period),
+                new Date(START.getTime() + 2 * period));
+
+        Assert.assertEquals(second.getPointCount(), orbits.get(1).getPointCount());
+        for (int i = 0; i < second.getPointCount(); i++) {
+            Assert.assertEquals(second.getTime(i), orbits.get(1).getTime(i));
+            Assert.assertEquals(second.getLatitude(i), orbits.get(1).getLatitude(i), 0.0);
+            Assert.assertEquals(second.getLongitude(i), orbits.get(1).getLongitude(i), 0.0);
+        }
+
+        Assert.assertEquals(orbits.get(0).getTime(orbits.get(0).getPointCount() - 1), orbits.get(1).getTime(0));
+    }
+
+    private static double wrap(final double degrees) {
+        double result = degrees % 360.0;
+        if (result > 180.0) {
+            result -= 360.0;
+        }
+        else if (result <= -180.0) {
+            result += 360.0;
+        }
+        return result;
+    }
+}
@@ -66,4 +66,17 @@ public class IlluminationTest extends AbstractSatelliteTestBase {
         }
     }
 
+    @Test
+    public void testSolarElevationAtTheSummerSolstice() {
+
+        final long noon = new DateTime("2009-06-21T12:10:00Z").getMillis();
+        final long midnight = new DateTime("2009-06-22T00:10:00Z").getMillis();
+
+        // 90 - latitude + obliquity, and its reflection below the horizon
+        Assert.assertEquals(90.0 - 52.467 + 23.44,
+                Math.toDegrees(AbstractSatellite.getSolarElevation(noon, GROUND_STATION)), 0.3);
+        Assert.assertEquals(-(90.0 - 52.467 - 23.44),
+                Math.toDegrees(AbstractSatellite.getSolarElevation(midnight, GROUND_STATION)), 0.3);
+    }
+
 }
@@ -0,0 +1,94 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class LEOBatchPropagatorTest extends AbstractSatelliteTestBase {
+
+    private static final String[] TIMES = {
+        "2009-01-05T04:30:00Z", "2009-01-06T12:00:00Z", "2009-03-01T00:00:00Z", "2010-01-01T00:00:00Z"};
+
+    public LEOBatchPropagatorTest() {
+    }
+
+    @Test
+    public void batchMatchesSingleSatellite() {
+
+        final List<TLE> tles = new ArrayList<TLE>();
+        tles.add(new TLE(LEO_TLE));
+        tles.add(new TLE(WEATHER_TLE));
+        tles.add(new TLE(DE_ORBIT_TLE));
+        tles.add(new TLE(LEO_TLE));
+
+        final LEOBatchPropagator batch = new LEOBatchPropagator(tles);
+        Assert.assertEquals(4, batch.size());
+
+        final double[] state = new double[batch.size() * 6];
+        final double[] expected = new double[6];
+
+        for (final String time : TIMES) {
+            final Date date = new DateTime(time).toDate();
+            batch.propagate(date, state);
+
+            for (int lane = 0; lane < batch.size(); lane++) {
+                final AbstractSatellite satellite = new LEOSatellite(batch.getTLE(lane));
+                satellite.calculateSatelliteVectors(date);
+                satellite.getStateVector(expected);
+
+                for (int i = 0; i < 6; i++) {
+                    Assert.assertEquals(expected[i], state[lane * 6 + i], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deepSpaceSatelliteIsRejected() {
+        final List<TLE> tles = new ArrayList<TLE>();
+        tles.add(new TLE(LEO_TLE));
+        tles.add(new TLE(DEEP_SPACE_TLE));
+        new LEOBatchPropagator(tles);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void smallStateArrayIsRejected() {
+        final List<TLE> tles = new ArrayList<TLE>();
+        tles.add(new TLE(LEO_TLE));
+        new LEOBatchPropagator(tles).propagate(new Date(), new double[5]);
+    }
+}
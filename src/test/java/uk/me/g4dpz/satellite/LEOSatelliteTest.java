@@ -220,4 +220,34 @@ public class LEOSatelliteTest extends AbstractSatelliteTestBase {
         Assert.assertEquals("57.2854215", String.format(FORMAT_10_7F, satellitePosition.getAltitude()));
 
     }
+
+    @Test
+    public final void testObservationsNeedTheSatelliteVectorsFirst() {
+        final Satellite satellite = SatelliteFactory.createSatellite(new TLE(LEO_TLE));
+
+        try {
+            satellite.calculateSatPosForGroundStation(GROUND_STATION);
+            Assert.fail("IllegalStateException expected");
+        }
+        catch (final IllegalStateException ise) {
+            Assert.assertEquals("calculateSatelliteVectors(..) must be called first", ise.getMessage());
+        }
+
+        satellite.calculateSatelliteVectors(new DateTime("2009-12-26T00:00:00Z").toDate());
+        Assert.assertNotNull(satellite.calculateSatelliteGroundTrack());
+    }
+
+    @Test
+    public final void testStateVectorsMatchOriginalSolver() {
+        assertStateVector(LEO_TLE, "2009-12-26T00:00:00Z",
+                6779.002618240, 128.472734916, -2193.014375062, 2.352208016284, -1.057469766790, 7.027472972707);
+        assertStateVector(LEO_TLE, "2010-03-01T12:34:56Z",
+                -2037.817393618, -4902.499148463, 4732.266991926, -3.199654969013, -4.031590352663, -5.451099465386);
+        assertStateVector(WEATHER_TLE, "2009-12-26T00:00:00Z",
+                -265.168089336, -1130.693228966, 7111.530872546, -6.563671792364, 3.478970533066, 0.300083355564);
+        assertStateVector(WEATHER_TLE, "2010-03-01T12:34:56Z",
+                -5746.795552039, -4197.216743655, -1239.426193620, 0.320310736633, 1.685880288951, -7.224353938666);
+        assertStateVector(DE_ORBIT_TLE, "2009-12-26T00:00:00Z",
+                -858.059659814, 4558.109970593, -4446.344806550, -3.735230095316, -5.184257238601, -4.596286920881);
+    }
 }
@@ -0,0 +1,101 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public final class ParallelPassPredictorTest extends AbstractSatelliteTestBase {
+
+    private static final Date START = new DateTime("2009-01-05T07:00:00Z").toDate();
+
+    /**
+     * Default Constructor.
+     */
+    public ParallelPassPredictorTest() {
+    }
+
+    @Test
+    public void testPassesAreTheSameAsASequentialSearch() throws Exception {
+
+        for (final boolean windBack : new boolean[] {false, true}) {
+            final List<SatPassTime> expected =
+                    new PassPredictor(new TLE(LEO_TLE), GROUND_STATION).getPasses(START, 10 * 24, windBack);
+            final List<SatPassTime> passes =
+                    new ParallelPassPredictor(new TLE(LEO_TLE), GROUND_STATION, 4).getPasses(START, 10 * 24, windBack);
+
+            assertSamePasses(expected, passes);
+        }
+    }
+
+    @Test
+    public void testPeriodsEndingPartWayThroughADay() throws Exception {
+
+        final GroundStationPosition equator = new GroundStationPosition(0.0, 0.0, 0.0);
+
+        for (final int hours : new int[] {1, 25, 50}) {
+            final List<SatPassTime> expected = new PassPredictor(new TLE(WEATHER_TLE), equator).getPasses(START, hours,
+                    false);
+            final ParallelPassPredictor predictor = new ParallelPassPredictor(new TLE(WEATHER_TLE), equator, 2);
+
+            assertSamePasses(expected, predictor.getPasses(START, hours, false));
+            Assert.assertTrue(predictor.getIterationCount() > 0);
+        }
+    }
+
+    @Test
+    public void testThreadsMustBePositive() throws Exception {
+        try {
+            new ParallelPassPredictor(new TLE(LEO_TLE), GROUND_STATION, 0);
+            Assert.fail("IllegalArgumentException expected");
+        }
+        catch (final IllegalArgumentException iae) {
+            Assert.assertEquals("Threads must be positive, got: 0", iae.getMessage());
+        }
+    }
+
+    private static void assertSamePasses(final List<SatPassTime> expected, final List<SatPassTime> passes) {
+
+        Assert.assertEquals(expected.size(), passes.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getStartTime(), passes.get(i).getStartTime());
+            Assert.assertEquals(expected.get(i).getEndTime(), passes.get(i).getEndTime());
+            Assert.assertEquals(expected.get(i).getTCA(), passes.get(i).getTCA());
+            Assert.assertEquals(expected.get(i).getMaxEl(), passes.get(i).getMaxEl(), 0.0);
+            Assert.assertEquals(expected.get(i).getPolePassed(), passes.get(i).getPolePassed());
+        }
+    }
+}
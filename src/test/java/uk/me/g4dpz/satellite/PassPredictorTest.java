@@ -26,6 +26,8 @@
  */
 package uk.me.g4dpz.satellite;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import org.joda.time.DateTime;
@@ -319,7 +321,7 @@ public class PassPredictorTest extends AbstractSatelliteTestBase {
 
         final List<SatPassTime> passes = passPredictor.getPasses(start.toDate(), 24, true);
         Assert.assertEquals(10, passes.size());
-        Assert.assertEquals(1039, passPredictor.getIterationCount());
+        Assert.assertEquals(352, passPredictor.getIterationCount());
     }
 
     @Test
@@ -341,4 +343,168 @@ public class PassPredictorTest extends AbstractSatelliteTestBase {
 
     }
 
+    @Test
+    public void testHorizonMaskShortensPasses() throws InvalidTleException, SatNotFoundException {
+
+        final TLE tle = new TLE(LEO_TLE);
+        final DateTime start = new DateTime(DATE_2009_01_05T07_00_00Z);
+
+        final GroundStationPosition masked = new GroundStationPosition(GROUND_STATION.getLatitude(),
+                GROUND_STATION.getLongitude(), GROUND_STATION.getHeightAMSL());
+        final int[] elevations = new int[36];
+        Arrays.fill(elevations, 5);
+        masked.setHorizonElevations(elevations);
+
+        final SatPassTime open = new PassPredictor(tle, GROUND_STATION).nextSatPass(start.toDate());
+        final SatPassTime pass = new PassPredictor(tle, masked).nextSatPass(start.toDate());
+
+        Assert.assertTrue(pass.getStartTime().after(open.getStartTime()));
+        Assert.assertTrue(pass.getEndTime().before(open.getEndTime()));
+
+        final Satellite satellite = SatelliteFactory.createSatellite(tle);
+        final SatPos aos = satellite.getPosition(masked, pass.getStartTime());
+        final SatPos beforeAos = satellite.getPosition(masked, new Date(pass.getStartTime().getTime() - 5000));
+        Assert.assertTrue(aos.isAboveHorizon());
+        Assert.assertFalse(beforeAos.isAboveHorizon());
+        Assert.assertTrue(Math.toDegrees(aos.getElevation()) > 5.0);
+    }
+
+    @Test
+    public void testMinimumMaxElevationFiltersLowPassesWithFewerPropagations()
+            throws InvalidTleException, SatNotFoundException {
+
+        final TLE tle = new TLE(LEO_TLE);
+        final Date start = new DateTime(DATE_2009_01_05T07_00_00Z).toDate();
+        final long end = start.getTime() + 72L * 60L * 60L * 1000L;
+
+        final PassPredictor unfiltered = new PassPredictor(tle, GROUND_STATION);
+        int expected = 0;
+        for (final SatPassTime pass : unfiltered.getPasses(start, 72, false)) {
+            if (pass.getMaxEl() >= 20.0 && pass.getStartTime().getTime() < end) {
+                expected++;
+            }
+        }
+
+        final PassPredictor filtered = new PassPredictor(tle, GROUND_STATION);
+        final List<SatPassTime> passes = filtered.getPasses(start, 72, false, 0.0, 20.0);
+
+        Assert.assertEquals(expected, passes.size());
+        for (final SatPassTime pass : passes) {
+            Assert.assertTrue(pass.getMaxEl() >= 20.0);
+            Assert.assertTrue(pass.getStartTime().getTime() < end);
+        }
+        Assert.assertTrue(filtered.getRejectedCount() > 0);
+        Assert.assertTrue(filtered.getIterationCount() < unfiltered.getIterationCount());
+    }
+
+    @Test
+    public void testThresholdSetsAosAndLos() throws InvalidTleException, SatNotFoundException {
+
+        final TLE tle = new TLE(LEO_TLE);
+        final Date start = new DateTime(DATE_2009_01_05T07_00_00Z).toDate();
+
+        final SatPassTime horizon = new PassPredictor(tle, GROUND_STATION).nextSatPass(start);
+        final SatPassTime pass = new PassPredictor(tle, GROUND_STATION).nextSatPass(start, false, 10.0, 0.0, 24);
+
+        Assert.assertTrue(pass.getStartTime().after(horizon.getStartTime()));
+        Assert.assertTrue(pass.getEndTime().before(horizon.getEndTime()));
+
+        final Satellite satellite = SatelliteFactory.createSatellite(tle);
+        Assert.assertTrue(Math.toDegrees(satellite.getPosition(GROUND_STATION, pass.getStartTime()).getElevation()) > 10.0);
+        Assert.assertTrue(Math.toDegrees(satellite.getPosition(GROUND_STATION, pass.getEndTime()).getElevation()) <= 10.0);
+    }
+
+    @Test
+    public void testUnreachableMinimumElevationFindsNothing() throws InvalidTleException, SatNotFoundException {
+
+        final TLE tle = new TLE(LEO_TLE);
+        final Date start = new DateTime(DATE_2009_01_05T07_00_00Z).toDate();
+        final PassPredictor passPredictor = new PassPredictor(tle, GROUND_STATION);
+
+        Assert.assertNull(passPredictor.nextSatPass(start, false, 0.0, 89.9, 6));
+        Assert.assertTrue(passPredictor.getPasses(start, 6, false, 0.0, 89.9).isEmpty());
+
+        try {
+            passPredictor.getPasses(start, 6, false, 90.0, 0.0);
+            Assert.fail("IllegalArgumentException expected");
+        }
+        catch (final IllegalArgumentException iae) {
+            Assert.assertEquals("Threshold elevation must be below 90 degrees, got: 90.0", iae.getMessage());
+        }
+    }
+
+    @Test
+    public void testPeakIsEstimatedFromAParabola() {
+
+        // samples of 1 - (t - 0.2)^2 at t = -1, 0 and 1
+        Assert.assertEquals(1.0, PassPredictor.estimatePeak(-0.44, 0.96, 0.36), 1E-12);
+        Assert.assertEquals(0.5, PassPredictor.estimatePeak(Double.NaN, 0.3, 0.1), 1E-12);
+    }
+
+    @Test
+    public void testVisualPassesAreSunlitAgainstADarkSky() throws InvalidTleException, SatNotFoundException {
+
+        final TLE tle = new TLE(LEO_TLE);
+        final Date start = new DateTime(DATE_2009_01_05T07_00_00Z).toDate();
+        final double dark = Math.toRadians(-6.0);
+
+        final PassPredictor passPredictor = new PassPredictor(tle, GROUND_STATION);
+        final List<VisualPass> visualPasses = passPredictor.getVisualPasses(start, 48, false, -6.0);
+        final int propagations = passPredictor.getIterationCount();
+
+        Assert.assertFalse(visualPasses.isEmpty());
+
+        final Satellite satellite = SatelliteFactory.createSatellite(tle);
+
+        for (final VisualPass visualPass : visualPasses) {
+            final long from = visualPass.getVisibleStart().getTime();
+            final long to = visualPass.getVisibleEnd().getTime();
+            Assert.assertTrue(from >= visualPass.getPass().getStartTime().getTime());
+            Assert.assertTrue(to <= visualPass.getPass().getEndTime().getTime());
+            Assert.assertTrue(from < to);
+
+            for (int i = 0; i <= 4; i++) {
+                final long time = from + (to - from) * i / 4;
+                Assert.assertFalse(satellite.getPosition(GROUND_STATION, new Date(time)).isEclipsed());
+                Assert.assertTrue(AbstractSatellite.getSolarElevation(time, GROUND_STATION) < dark);
+            }
+
+            // a second past a boundary inside the pass the satellite can no longer be seen
+            if (to < visualPass.getPass().getEndTime().getTime()) {
+                final long after = to + 1000;
+                Assert.assertTrue(satellite.getPosition(GROUND_STATION, new Date(after)).isEclipsed()
+                        || AbstractSatellite.getSolarElevation(after, GROUND_STATION) >= dark);
+            }
+        }
+
+        // about the cost of finding the passes alone
+        final PassPredictor plain = new PassPredictor(tle, GROUND_STATION);
+        plain.getPasses(start, 48, false);
+        Assert.assertTrue(propagations < plain.getIterationCount() * 1.2);
+    }
+
+    @Test
+    public void testEclipseWithinADeepSpacePassSplitsIt() throws InvalidTleException, SatNotFoundException {
+
+        final TLE tle = new TLE(DEEP_SPACE_TLE);
+        final GroundStationPosition station = new GroundStationPosition(40.0, 30.0, 0.0);
+        final Satellite satellite = SatelliteFactory.createSatellite(tle);
+
+        // the satellite is sunlit at both ends of this 11 hour pass, but eclipsed for an hour within it
+        final List<VisualPass> visualPasses = new PassPredictor(tle, station)
+                .getVisualPasses(new DateTime("2009-09-20T12:00:00Z").toDate(), 24, false, -6.0);
+
+        Assert.assertEquals(2, visualPasses.size());
+
+        final VisualPass first = visualPasses.get(0);
+        final VisualPass second = visualPasses.get(1);
+        Assert.assertEquals(first.getPass().getStartTime(), second.getPass().getStartTime());
+        Assert.assertTrue(first.getVisibleEnd().before(second.getVisibleStart()));
+
+        final long between = (first.getVisibleEnd().getTime() + second.getVisibleStart().getTime()) / 2;
+        Assert.assertTrue(satellite.getPosition(station, new Date(between)).isEclipsed());
+        Assert.assertFalse(satellite.getPosition(station, first.getVisibleStart()).isEclipsed());
+        Assert.assertFalse(satellite.getPosition(station, second.getVisibleEnd()).isEclipsed());
+    }
+
 }
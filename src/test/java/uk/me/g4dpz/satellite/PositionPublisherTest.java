@@ -0,0 +1,213 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class PositionPublisherTest extends AbstractSatelliteTestBase {
+
+    private static final long START = new DateTime("2009-12-26T00:00:00Z").getMillis();
+    private static final long PERIOD_MILLIS = 1000L;
+
+    private final TLE tle = new TLE(LEO_TLE);
+
+    public PositionPublisherTest() {
+    }
+
+    @Test
+    public void subscribersShareOnePropagation() {
+        final PositionPublisher publisher = new PositionPublisher(PERIOD_MILLIS, Runnable::run);
+        final Recorder station = new Recorder(Long.MAX_VALUE);
+        final Recorder sameStation = new Recorder(Long.MAX_VALUE);
+        final Recorder groundTrack = new Recorder(Long.MAX_VALUE);
+
+        publisher.positions(tle, GROUND_STATION).subscribe(station);
+        publisher.positions(tle, GROUND_STATION).subscribe(sameStation);
+        publisher.positions(tle, null).subscribe(groundTrack);
+
+        for (int i = 0; i < 3; i++) {
+            publisher.tick(START + i * PERIOD_MILLIS);
+        }
+
+        Assert.assertEquals(3, publisher.getPropagationCount());
+        Assert.assertEquals(3, station.positions.size());
+        Assert.assertSame(station.positions.get(2), sameStation.positions.get(2));
+
+        final SatPos expected = SatelliteFactory.createSatellite(tle)
+                .getPosition(GROUND_STATION, new Date(START + 2 * PERIOD_MILLIS));
+        Assert.assertEquals(expected.getAzimuth(), station.positions.get(2).getAzimuth(), 1E-12);
+        Assert.assertEquals(expected.getElevation(), station.positions.get(2).getElevation(), 1E-12);
+        Assert.assertEquals(expected.getLatitude(), groundTrack.positions.get(2).getLatitude(), 1E-12);
+        Assert.assertEquals(0.0, groundTrack.positions.get(2).getAzimuth(), 0.0);
+    }
+
+    @Test
+    public void slowSubscriberGetsOnlyTheLatestPosition() {
+        final PositionPublisher publisher = new PositionPublisher(PERIOD_MILLIS, Runnable::run);
+        final Recorder recorder = new Recorder(1);
+        publisher.positions(tle, GROUND_STATION).subscribe(recorder);
+
+        for (int i = 0; i < 3; i++) {
+            publisher.tick(START + i * PERIOD_MILLIS);
+        }
+
+        Assert.assertEquals(1, recorder.positions.size());
+        Assert.assertEquals(1, publisher.getCoalescedCount());
+
+        recorder.subscription.request(1);
+        Assert.assertEquals(2, recorder.positions.size());
+        Assert.assertEquals(START + 2 * PERIOD_MILLIS, recorder.positions.get(1).getTime().getTime());
+    }
+
+    @Test
+    public void cancelledSatellitesAreNotPropagated() {
+        final PositionPublisher publisher = new PositionPublisher(PERIOD_MILLIS, Runnable::run);
+        final Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.positions(tle, GROUND_STATION).subscribe(recorder);
+        publisher.tick(START);
+
+        recorder.subscription.cancel();
+        publisher.tick(START + PERIOD_MILLIS);
+
+        Assert.assertEquals(0, publisher.getSubscriptionCount());
+        Assert.assertEquals(1, publisher.getPropagationCount());
+        Assert.assertEquals(1, recorder.positions.size());
+    }
+
+    @Test
+    public void cancellingInOnSubscribeLeavesNoSubscription() {
+        final PositionPublisher publisher = new PositionPublisher(PERIOD_MILLIS, Runnable::run);
+        final List<SatPos> positions = new ArrayList<SatPos>();
+        publisher.positions(tle, GROUND_STATION).subscribe(new Flow.Subscriber<SatPos>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(final SatPos satPos) {
+                positions.add(satPos);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        publisher.tick(START);
+
+        Assert.assertEquals(0, publisher.getSubscriptionCount());
+        Assert.assertEquals(0, publisher.getPropagationCount());
+        Assert.assertTrue(positions.isEmpty());
+    }
+
+    @Test
+    public void nonPositiveRequestIsAnError() {
+        final PositionPublisher publisher = new PositionPublisher(PERIOD_MILLIS, Runnable::run);
+        final Recorder recorder = new Recorder(0);
+        publisher.positions(tle, GROUND_STATION).subscribe(recorder);
+
+        recorder.subscription.request(0);
+
+        Assert.assertTrue(recorder.error instanceof IllegalArgumentException);
+        Assert.assertEquals(0, publisher.getSubscriptionCount());
+    }
+
+    @Test
+    public void closeCompletesSubscribers() throws Exception {
+        final PositionPublisher publisher = new PositionPublisher(PERIOD_MILLIS);
+        final Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.positions(tle, GROUND_STATION).subscribe(recorder);
+
+        publisher.start();
+        synchronized (recorder) {
+            while (recorder.positions.isEmpty()) {
+                recorder.wait(5000);
+            }
+        }
+        publisher.close();
+
+        synchronized (recorder) {
+            while (!recorder.completed) {
+                recorder.wait(5000);
+            }
+        }
+        Assert.assertTrue(recorder.completed);
+    }
+
+    private static final class Recorder implements Flow.Subscriber<SatPos> {
+        private final long initialRequest;
+        private final List<SatPos> positions = new ArrayList<SatPos>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        private Recorder(final long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public synchronized void onSubscribe(final Flow.Subscription theSubscription) {
+            this.subscription = theSubscription;
+            if (initialRequest > 0) {
+                theSubscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public synchronized void onNext(final SatPos satPos) {
+            positions.add(satPos);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void onError(final Throwable throwable) {
+            error = throwable;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            completed = true;
+            notifyAll();
+        }
+    }
+}
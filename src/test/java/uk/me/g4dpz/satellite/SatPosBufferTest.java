@@ -0,0 +1,106 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class SatPosBufferTest extends AbstractSatelliteTestBase {
+
+    private static final Date REFERENCE = new DateTime("2009-12-26T00:00:00Z").toDate();
+
+    public SatPosBufferTest() {
+    }
+
+    @Test
+    public void holdsTheSamePositionsAsAList() throws Exception {
+        final PassPredictor predictor = new PassPredictor(new TLE(LEO_TLE), GROUND_STATION);
+        final List<SatPos> list = predictor.getPositions(REFERENCE, 30, 60, 60);
+        final SatPosBuffer buffer = predictor.getPositionBuffer(REFERENCE, 30, 60, 60);
+
+        Assert.assertEquals(list.size(), buffer.size());
+
+        final SatPosBuffer.Cursor cursor = buffer.cursor();
+        int index = 0;
+        while (cursor.next()) {
+            final SatPos expected = list.get(index++);
+            Assert.assertEquals(expected.getTime().getTime(), cursor.getTimeMillis());
+            Assert.assertEquals(expected.getAzimuth(), cursor.getAzimuth(), 0.0);
+            Assert.assertEquals(expected.getElevation(), cursor.getElevation(), 0.0);
+            Assert.assertEquals(expected.getLatitude(), cursor.getLatitude(), 0.0);
+            Assert.assertEquals(expected.getLongitude(), cursor.getLongitude(), 0.0);
+            Assert.assertEquals(expected.getRange(), cursor.getRange(), 0.0);
+            Assert.assertEquals(expected.getRangeRate(), cursor.getRangeRate(), 0.0);
+            Assert.assertEquals(expected.getAltitude(), cursor.getAltitude(), 0.0);
+            Assert.assertEquals(expected.getPhase(), cursor.getPhase(), 0.0);
+            Assert.assertEquals(expected.getTheta(), cursor.getTheta(), 0.0);
+            Assert.assertEquals(expected.getEclipseDepth(), cursor.getEclipseDepth(), 1E-6);
+            Assert.assertEquals(expected.isEclipsed(), cursor.isEclipsed());
+            Assert.assertEquals(expected.isAboveHorizon(), cursor.isAboveHorizon());
+        }
+        Assert.assertEquals(list.size(), index);
+    }
+
+    @Test
+    public void copiesInAndOut() {
+        final SatPos satPos = new SatPos(1.0, 0.5, REFERENCE);
+        satPos.setAboveHorizon(true);
+        satPos.setEclipsed(true);
+        satPos.setRange(1234.5);
+
+        final SatPosBuffer buffer = new SatPosBuffer(0);
+        for (int i = 0; i < 200; i++) {
+            buffer.add(satPos);
+        }
+        buffer.add(new SatPos());
+        buffer.trimToSize();
+
+        Assert.assertEquals(201, buffer.size());
+        final SatPos copy = buffer.get(150);
+        Assert.assertEquals(REFERENCE, copy.getTime());
+        Assert.assertEquals(1234.5, copy.getRange(), 0.0);
+        Assert.assertTrue(copy.isAboveHorizon());
+        Assert.assertTrue(copy.isEclipsed());
+        Assert.assertNull(buffer.cursor().moveTo(200).getTime());
+        Assert.assertFalse(buffer.cursor().moveTo(200).isAboveHorizon());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexesBeyondTheSize() {
+        final SatPosBuffer buffer = new SatPosBuffer(10);
+        buffer.add(new SatPos());
+        buffer.cursor().moveTo(1);
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public class SatelliteTrackerTest extends AbstractSatelliteTestBase {
+
+    /** The pass starting at 07:42:45 goes through north. */
+    private static final String NORTH_PASS_SEARCH = "2009-01-05T07:00:00Z";
+
+    public SatelliteTrackerTest() {
+    }
+
+    @Test
+    public void trajectoryIsContinuousThroughNorth() throws Exception {
+
+        final RecordingListener listener = new RecordingListener();
+        final SatelliteTracker tracker = new SatelliteTracker(new TLE(LEO_TLE), GROUND_STATION, listener, 100, false);
+
+        final PassTrajectory trajectory = tracker.plan(new DateTime(NORTH_PASS_SEARCH).toDate(), false);
+
+        Assert.assertSame(trajectory, listener.trajectory);
+        Assert.assertEquals(PassPredictor.NORTH, trajectory.getPass().getPolePassed());
+        Assert.assertFalse(trajectory.isFlipped());
+
+        for (int i = 1; i < trajectory.getSampleCount(); i++) {
+            Assert.assertTrue(Math.abs(trajectory.getAzimuth(i) - trajectory.getAzimuth(i - 1)) < 10.0);
+        }
+    }
+
+    @Test
+    public void flipModeKeepsAzimuthAwayFromNorth() throws Exception {
+
+        final SatelliteTracker tracker =
+                new SatelliteTracker(new TLE(LEO_TLE), GROUND_STATION, new RecordingListener(), 100, true);
+
+        final PassTrajectory trajectory = tracker.plan(new DateTime(NORTH_PASS_SEARCH).toDate(), false);
+
+        Assert.assertTrue(trajectory.isFlipped());
+
+        for (int i = 0; i < trajectory.getSampleCount(); i++) {
+            Assert.assertTrue(trajectory.getAzimuth(i) > 0.0 && trajectory.getAzimuth(i) < 360.0);
+            Assert.assertTrue(trajectory.getElevation(i) >= 90.0 - 62.2 && trajectory.getElevation(i) <= 180.5);
+        }
+    }
+
+    @Test
+    public void tickPublishesInterpolatedPointing() throws Exception {
+
+        final RecordingListener listener = new RecordingListener();
+        final TLE tle = new TLE(LEO_TLE);
+        final SatelliteTracker tracker = new SatelliteTracker(tle, GROUND_STATION, listener, 100, false);
+
+        final PassTrajectory trajectory = tracker.plan(new DateTime("2009-01-05T05:00:00Z").toDate(), false);
+
+        tracker.tick(trajectory.getStartTime() - 1000);
+        Assert.assertEquals(0, listener.updates);
+
+        final long time = trajectory.getStartTime() + 300500;
+        tracker.tick(time);
+        Assert.assertEquals(1, listener.updates);
+        Assert.assertEquals(time, listener.time);
+
+        final SatPos satPos = SatelliteFactory.createSatellite(tle).getPosition(GROUND_STATION, new java.util.Date(time));
+        Assert.assertEquals(Math.toDegrees(satPos.getAzimuth()), listener.azimuth, 0.05);
+        Assert.assertEquals(Math.toDegrees(satPos.getElevation()), listener.elevation, 0.05);
+        Assert.assertTrue(listener.elevationRate != 0.0);
+    }
+
+    @Test
+    public void failedPlanningIsRetriedAfterABackOff() throws Exception {
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final SatelliteTracker tracker = new SatelliteTracker(new TLE(LEO_TLE), GROUND_STATION,
+                new RecordingListener(), 60000, false) {
+            @Override
+            PassTrajectory plan(final Date from, final boolean windBack) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("planning failed");
+            }
+        };
+
+        tracker.start();
+
+        try {
+            for (int i = 0; i < 100 && attempts.get() == 0; i++) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(50);
+            Assert.assertEquals(1, attempts.get());
+
+            // a tick with nothing planned asks for planning, but not until the back off has passed
+            for (int i = 0; i < 100; i++) {
+                tracker.tick(System.currentTimeMillis());
+            }
+            Thread.sleep(50);
+            Assert.assertEquals(1, attempts.get());
+            Assert.assertNull(tracker.getTrajectory());
+
+            Thread.sleep(1000);
+            tracker.tick(System.currentTimeMillis());
+            for (int i = 0; i < 100 && attempts.get() == 1; i++) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(2, attempts.get());
+        }
+        finally {
+            tracker.stop();
+        }
+    }
+
+    @Test
+    public void histogramRecordsPercentiles() {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordNanos(i * 1000L);
+        }
+
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(100.0, histogram.getMaxMicros(), 0.0);
+        Assert.assertEquals(50.5, histogram.getMeanMicros(), 0.001);
+        Assert.assertEquals(64.0, histogram.getPercentileMicros(50), 0.0);
+        Assert.assertEquals(100.0, histogram.getPercentileMicros(99), 0.0);
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+    }
+
+    private static final class RecordingListener implements TrackingListener {
+
+        private PassTrajectory trajectory;
+        private int updates;
+        private long time;
+        private double azimuth;
+        private double elevation;
+        private double elevationRate;
+
+        @Override
+        public void trajectoryReady(final PassTrajectory theTrajectory) {
+            this.trajectory = theTrajectory;
+        }
+
+        @Override
+        public void pointingUpdate(final long timeMillis, final double theAzimuth, final double theElevation,
+                final double azimuthRate, final double theElevationRate) {
+            updates++;
+            this.time = timeMillis;
+            this.azimuth = theAzimuth;
+            this.elevation = theElevation;
+            this.elevationRate = theElevationRate;
+        }
+    }
+}
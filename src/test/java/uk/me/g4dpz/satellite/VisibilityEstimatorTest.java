@@ -0,0 +1,107 @@
+/**
+ predict4java: An SDP4 / SGP4 library for satellite orbit predictions
+
+ Copyright (C)  2004-2010  David A. B. Johnson, G4DPZ.
+
+ Author: David A. B. Johnson, G4DPZ <dave@g4dpz.me.uk>
+
+ Comments, questions and bug reports should be submitted via
+ http://sourceforge.net/projects/websat/
+ More details can be found at the project home page:
+
+ http://websat.sourceforge.net
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, visit http://www.fsf.org/
+ */
+package uk.me.g4dpz.satellite;
+
+import java.util.Date;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author David A. B. Johnson, g4dpz
+ *
+ */
+public final class VisibilityEstimatorTest extends AbstractSatelliteTestBase {
+
+    private static final long START = new DateTime("2009-01-05T07:00:00Z").getMillis();
+    private static final long MINUTE = 60000L;
+
+    /** A made up satellite in a low inclination orbit. */
+    private static final String[] EQUATORIAL_TLE = {
+        "EQUATORIAL",
+        "1 99999U 98067A   09005.50000000  .00000100  00000-0  10000-4 0  9990",
+        "2 99999   5.0000 100.0000 0200000 100.0000 260.0000 14.20000000 10000"};
+
+    /**
+     * Default Constructor.
+     */
+    public VisibilityEstimatorTest() {
+    }
+
+    @Test
+    public void testNeverJumpsPastAVisiblePosition() throws Exception {
+
+        final LEOSatellite satellite = (LEOSatellite)SatelliteFactory.createSatellite(new TLE(LEO_TLE));
+        final GroundStationPosition equator = new GroundStationPosition(0.0, 10.0, 0.0);
+        final VisibilityEstimator estimator = new VisibilityEstimator(satellite, equator, 0.0);
+
+        // walk back from the end of two days, remembering the next time the satellite is up
+        long nextVisible = Long.MAX_VALUE;
+        int skipped = 0;
+        for (long time = START + 2 * 24 * 60 * MINUTE; time >= START; time -= MINUTE) {
+            if (satellite.getPosition(equator, new Date(time)).getElevation() > 0.0) {
+                nextVisible = time;
+            }
+            final long possible = estimator.nextPossibleVisibility(time, Long.MAX_VALUE);
+            Assert.assertTrue(possible <= nextVisible);
+            Assert.assertEquals(0, (possible - time) % MINUTE);
+            if (possible > time) {
+                skipped++;
+            }
+        }
+
+        // most of the time from an equatorial station there is nothing to see
+        Assert.assertTrue(skipped > 2 * 24 * 60 * 3 / 4);
+    }
+
+    @Test
+    public void testStopsAtTheLimit() throws Exception {
+
+        final LEOSatellite satellite = (LEOSatellite)SatelliteFactory.createSatellite(new TLE(LEO_TLE));
+        final VisibilityEstimator estimator = new VisibilityEstimator(satellite, GROUND_STATION, Math.toRadians(80.0));
+
+        long time = START;
+        while (estimator.nextPossibleVisibility(time, Long.MAX_VALUE) == time) {
+            time += MINUTE;
+        }
+
+        final long limited = estimator.nextPossibleVisibility(time, time);
+        Assert.assertTrue(limited > time);
+        Assert.assertTrue(limited <= estimator.nextPossibleVisibility(time, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testStationOutOfReachOfThePlaneIsNeverVisible() throws Exception {
+
+        final LEOSatellite satellite = (LEOSatellite)SatelliteFactory.createSatellite(new TLE(EQUATORIAL_TLE));
+        final GroundStationPosition north = new GroundStationPosition(60.0, 0.0, 0.0);
+        final VisibilityEstimator estimator = new VisibilityEstimator(satellite, north, 0.0);
+
+        Assert.assertEquals(Long.MAX_VALUE, estimator.nextPossibleVisibility(START, Long.MAX_VALUE));
+    }
+}